@@ -59,9 +59,17 @@ public class Model extends BaseEntity {
     @IndexedEmbedded
     private ModelFile modelFile;
 
+    /**
+     * @deprecated scorings are written by the scoring audit, which does not add them here. They are found by their
+     * model instead.
+     */
+    @Deprecated
     @OneToMany(cascade = CascadeType.ALL)
     private List<Scoring> scorings;
 
+    @ApiModelProperty(notes = "Whether the results of a deterministic model are reused for repeated inputs")
+    private Boolean resultCacheEnabled;
+
     @IndexedEmbedded(indexNullAs = Field.DEFAULT_NULL_TOKEN)
     public List<OpcuaInformationModel> getOpcuaInformationModels() {
         if (this.opcuaInformationModels == null || this.opcuaInformationModels.isEmpty()) {
@@ -0,0 +1,40 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import java.time.LocalDateTime;
+
+/**
+ * Job that is queued when it is submitted and runs on an executor later, such as a {@link ScoringJob}.
+ * <p>
+ * A queued or running job is leased by the instance that runs it, its owner. The owner renews the heartbeat of the job
+ * periodically, a job whose heartbeat is older than the lease is failed by any instance, because its owner stopped.
+ * The heartbeat is only written by these bulk updates, so saving a job never moves it back. Failing a job increments
+ * its version, so an owner that only seemed to be stopped cannot overwrite the failed job afterwards.
+ */
+public interface AsynchronousJob {
+
+    Long getId();
+
+    Long getProjectId();
+
+    ScoringJobStatus getStatus();
+
+    void setStatus(ScoringJobStatus status);
+
+    void setErrorMessage(String errorMessage);
+
+    LocalDateTime getStarted();
+
+    void setStarted(LocalDateTime started);
+
+    LocalDateTime getFinished();
+
+    void setFinished(LocalDateTime finished);
+
+    String getOwner();
+
+    void setOwner(String owner);
+
+    LocalDateTime getHeartbeat();
+
+    void setHeartbeat(LocalDateTime heartbeat);
+}
@@ -0,0 +1,81 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import de.unistuttgart.ipvs.as.mmp.common.domain.RelationalDBInformation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Scoring of all rows of a table of the {@link RelationalDBInformation} of a model. The outputs are written to a
+ * target table of the same database. The key of the last written row is stored as checkpoint, so that an interrupted
+ * job can be resumed after it.
+ */
+@Entity
+@Table(name = "database_scoring_job")
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DatabaseScoringJob extends BaseEntity implements AsynchronousJob {
+
+    private Long projectId;
+
+    private Long modelId;
+
+    @Enumerated(EnumType.STRING)
+    private ScoringJobStatus status;
+
+    private String sourceTable;
+
+    private String keyColumn;
+
+    private String targetTable;
+
+    /**
+     * Names of the input fields of the columns whose name differs from the field.
+     */
+    @ElementCollection
+    @LazyCollection(LazyCollectionOption.FALSE)
+    @CollectionTable(name = "database_scoring_job_mapping")
+    @MapKeyColumn(name = "source_column")
+    @Column(name = "field_name")
+    private Map<String, String> fieldMapping;
+
+    private long processedRecords;
+
+    private String checkpoint;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime submitted;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime started;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finished;
+
+    private String owner;
+
+    @Column(updatable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime heartbeat;
+
+    @Version
+    @JsonIgnore
+    private long version;
+}
@@ -0,0 +1,23 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Tables of a {@link DatabaseScoringJob}. Every row of the source table is scored, the target table needs a column
+ * for the key and a column for every output that should be written.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DatabaseScoringRequest {
+    private String sourceTable;
+    private String keyColumn;
+    private String targetTable;
+    private Map<String, String> fieldMapping;
+}
@@ -0,0 +1,43 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Values of an input field that were scored, compared with the intervals and possible values of its pmml metadata.
+ * The statistics of the numeric values are only set for numeric fields.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FieldDrift {
+
+    private String name;
+
+    private long count;
+
+    private long missing;
+
+    private long invalid;
+
+    private long outOfRange;
+
+    private double outOfRangeRate;
+
+    private long unseen;
+
+    private double unseenRate;
+
+    private Double min;
+
+    private Double max;
+
+    private Double mean;
+
+    private Map<String, Double> quantiles;
+}
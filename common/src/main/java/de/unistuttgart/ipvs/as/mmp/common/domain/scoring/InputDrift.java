@@ -0,0 +1,29 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drift of the scoring inputs of a model since {@link #since}, per input field of its pmml metadata.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InputDrift {
+
+    private Long modelId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime since;
+
+    private long records;
+
+    private List<FieldDrift> fields;
+}
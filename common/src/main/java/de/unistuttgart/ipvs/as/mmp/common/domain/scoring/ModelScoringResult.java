@@ -0,0 +1,29 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of one model of a fan-out scoring. Either the outputs of the model are set,
+ * or the error that prevented the model from being scored.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ModelScoringResult {
+
+    private Long modelId;
+
+    private String modelName;
+
+    private Long version;
+
+    private List<ScoringOutput> outputs;
+
+    private String error;
+}
@@ -0,0 +1,51 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Binary snapshot of the parsed and optimized pmml of a model file, so that cold loads of the evaluator do not have
+ * to unmarshal the pmml xml again. A snapshot is only used while the data file, the size of the xml and the format
+ * still match, otherwise the xml is parsed and the snapshot is replaced.
+ */
+@Entity
+@Table(name = "pmml_snapshot")
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PMMLSnapshot extends BaseEntity {
+
+    private Long modelId;
+
+    @Column(unique = true)
+    private Long modelFileId;
+
+    private Long dbFileId;
+
+    private long sourceSize;
+
+    private String format;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime created;
+
+    @Lob
+    @Type(type = "org.hibernate.type.BinaryType")
+    @JsonIgnore
+    private byte[] data;
+}
@@ -11,7 +11,7 @@ import javax.persistence.*;
 import java.util.List;
 
 @Entity
-@Table(name = "scoring")
+@Table(name = "scoring", indexes = @Index(columnList = "model_id, id"))
 @Data
 @Builder
 @AllArgsConstructor
@@ -20,7 +20,9 @@ public class Scoring extends BaseEntity {
     @ManyToOne(cascade = {CascadeType.ALL})
     private Model model;
     @OneToMany(cascade = {CascadeType.ALL})
+    @JoinTable(name = "scoring_inputs", indexes = @Index(columnList = "scoring_id"))
     private List<ScoringInput> inputs;
     @OneToMany(cascade = {CascadeType.ALL})
+    @JoinTable(name = "scoring_outputs", indexes = @Index(columnList = "scoring_id"))
     private List<ScoringOutput> outputs;
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Usage of a model: the number of scorings per time bucket between {@link #from} and {@link #to},
+ * the distribution of the output values and the statistics of the numeric input fields.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringAnalytics {
+
+    private Long modelId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime from;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime to;
+
+    private ChronoUnit interval;
+
+    private List<ScoringCount> requests;
+
+    private List<ScoringValueCount> outputs;
+
+    private List<ScoringFieldStatistics> inputs;
+}
@@ -0,0 +1,36 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * Number of scorings of a model that were recorded in the hour starting at {@link #bucketStart}.
+ */
+@Entity
+@Table(name = "scoring_count", uniqueConstraints = @UniqueConstraint(columnNames = {"modelId", "bucketStart"}))
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringCount extends BaseEntity {
+
+    private Long modelId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "record_count")
+    private long count;
+}
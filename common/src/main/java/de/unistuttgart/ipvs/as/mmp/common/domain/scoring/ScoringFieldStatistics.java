@@ -0,0 +1,46 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Minimum, maximum and sum of the numeric values of an input field over all scorings of a model.
+ */
+@Entity
+@Table(name = "scoring_field_statistics", uniqueConstraints = @UniqueConstraint(columnNames = {"modelId", "name"}))
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringFieldStatistics extends BaseEntity {
+
+    private Long modelId;
+
+    private String name;
+
+    @Column(name = "record_count")
+    private long count;
+
+    @Column(name = "min_value")
+    private double min;
+
+    @Column(name = "max_value")
+    private double max;
+
+    @Column(name = "value_sum")
+    private double sum;
+
+    public Double getMean() {
+        return count == 0 ? null : sum / count;
+    }
+}
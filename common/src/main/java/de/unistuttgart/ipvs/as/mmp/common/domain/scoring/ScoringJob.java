@@ -0,0 +1,68 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Asynchronous scoring of many records against one model.
+ * The results are stored as a {@link DBFile} once the job is completed.
+ * The records of a distributed job are stored as {@link ScoringJobChunk}s that are scored by every instance.
+ */
+@Entity
+@Table(name = "scoring_job")
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringJob extends BaseEntity implements AsynchronousJob {
+
+    private Long projectId;
+
+    private Long modelId;
+
+    private boolean distributed;
+
+    @Enumerated(EnumType.STRING)
+    private ScoringJobStatus status;
+
+    private long totalRecords;
+
+    private long processedRecords;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime submitted;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime started;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finished;
+
+    private String owner;
+
+    @Column(updatable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime heartbeat;
+
+    @Version
+    @JsonIgnore
+    private long version;
+
+    @OneToOne
+    @JoinColumn(name = "result_dbfile_id")
+    private DBFile result;
+}
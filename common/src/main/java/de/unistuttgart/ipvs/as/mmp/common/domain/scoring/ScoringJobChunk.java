@@ -0,0 +1,71 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Chunk of the records of a distributed {@link ScoringJob}. Every instance of the service leases queued chunks and
+ * chunks whose lease expired, scores them and stores their outputs. Once all chunks of a job are completed, their
+ * outputs are joined into the result of the job.
+ */
+@Entity
+@Table(name = "scoring_job_chunk", indexes = {
+        @Index(columnList = "status, lease_expires"),
+        @Index(columnList = "job_id, status")
+})
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringJobChunk extends BaseEntity {
+
+    private Long jobId;
+
+    private Long projectId;
+
+    private Long modelId;
+
+    private int chunkIndex;
+
+    @Enumerated(EnumType.STRING)
+    private ScoringJobStatus status;
+
+    private int recordCount;
+
+    private int attempts;
+
+    private String leaseOwner;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime leaseExpires;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    /**
+     * Records of the chunk as json array of objects.
+     */
+    @Lob
+    @Type(type = "org.hibernate.type.BinaryType")
+    @JsonIgnore
+    private byte[] inputData;
+
+    /**
+     * Outputs of the records as newline delimited json, in the order of the records.
+     */
+    @Lob
+    @Type(type = "org.hibernate.type.BinaryType")
+    @JsonIgnore
+    private byte[] outputData;
+}
@@ -0,0 +1,9 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+public enum ScoringJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,73 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Replay of the recorded {@link Scoring}s of a model against another model, for example a new version of its model
+ * group. The outputs of the target model are compared with the recorded outputs and the latencies of both models are
+ * measured, the results are stored as {@link ScoringReplayReport} once the job is completed. The report is
+ * aggregated over all scorings in memory, so a job that failed or was cancelled is not resumed but submitted again.
+ */
+@Entity
+@Table(name = "scoring_replay_job")
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringReplayJob extends BaseEntity implements AsynchronousJob {
+
+    private Long projectId;
+
+    private Long modelId;
+
+    private Long targetModelId;
+
+    @Enumerated(EnumType.STRING)
+    private ScoringJobStatus status;
+
+    private long totalRecords;
+
+    private long processedRecords;
+
+    private long changedRecords;
+
+    private long failedRecords;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime submitted;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime started;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finished;
+
+    private String owner;
+
+    @Column(updatable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime heartbeat;
+
+    @Version
+    @JsonIgnore
+    private long version;
+
+    @OneToOne
+    @JoinColumn(name = "report_dbfile_id")
+    private DBFile report;
+}
@@ -0,0 +1,70 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a {@link ScoringReplayJob}. Its size does not depend on the number of replayed scorings, only a limited
+ * number of changed scorings is included as examples.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringReplayReport {
+
+    private Long modelId;
+
+    private Long targetModelId;
+
+    private long replayedRecords;
+
+    /** scorings for which the target model returned different outputs than recorded */
+    private long changedRecords;
+
+    /** scorings the target model failed for */
+    private long failedRecords;
+
+    /** share of the replayed scorings with changed outputs, null if nothing was replayed */
+    private Double changeRate;
+
+    /** number of changed scorings per output name */
+    private Map<String, Long> changedOutputs;
+
+    private Latency modelLatency;
+
+    private Latency targetLatency;
+
+    private List<Change> changes;
+
+    /**
+     * Latency of a model from binding the inputs to extracting the outputs, the quantiles are estimated.
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Latency {
+        private long count;
+        private double meanMs;
+        private Double p50Ms;
+        private Double p95Ms;
+        private Double p99Ms;
+        private double maxMs;
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Change {
+        private Long scoringId;
+        private Map<String, String> recordedOutputs;
+        private Map<String, String> replayedOutputs;
+    }
+}
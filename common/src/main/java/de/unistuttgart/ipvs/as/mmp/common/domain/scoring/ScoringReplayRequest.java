@@ -0,0 +1,17 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Model of a {@link ScoringReplayJob} that the recorded scorings are replayed against.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringReplayRequest {
+    private Long targetModelId;
+}
@@ -0,0 +1,62 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Number of scorings of a model that returned a value for an output field.
+ * Only a limited number of distinct values is counted per output field,
+ * all further values are counted together with a value of null.
+ */
+@Entity
+@Table(name = "scoring_value_count",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"modelId", "name", "valueKey"}))
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoringValueCount extends BaseEntity {
+
+    private Long modelId;
+
+    private String name;
+
+    @Column(name = "output_value", length = 1000)
+    private String value;
+
+    /**
+     * The value in the unique constraint, a null value would not be unique.
+     */
+    @JsonIgnore
+    @Column(name = "value_key", nullable = false, length = 1001)
+    private String valueKey;
+
+    @Column(name = "record_count")
+    private long count;
+
+    /**
+     * @return the key of a value, further values have an empty key and no other value has one
+     */
+    public static String keyOf(String value) {
+        return value == null ? "" : "=" + value;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateValueKey() {
+        valueKey = keyOf(value);
+    }
+}
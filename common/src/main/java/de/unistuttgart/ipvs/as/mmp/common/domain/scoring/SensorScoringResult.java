@@ -0,0 +1,32 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of one sensor reading that was scored continuously. Either the outputs of the model are set,
+ * or the error that prevented the micro-batch of the reading from being scored.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SensorScoringResult {
+
+    private Long modelId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime received;
+
+    private List<ScoringInput> inputs;
+
+    private List<ScoringOutput> outputs;
+
+    private String error;
+}
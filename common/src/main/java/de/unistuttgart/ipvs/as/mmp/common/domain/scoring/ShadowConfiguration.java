@@ -0,0 +1,38 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import de.unistuttgart.ipvs.as.mmp.common.domain.BaseEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * Candidate version of a model group that the scorings of the group are mirrored to. The candidate is scored after
+ * the response of the scoring was returned, its outputs are only compared with the outputs of the scored model.
+ */
+@Entity
+@Table(name = "shadow_configuration",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"projectId", "modelGroupId"}))
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShadowConfiguration extends BaseEntity {
+
+    private Long projectId;
+
+    private Long modelGroupId;
+
+    private Long candidateModelId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime created;
+}
@@ -0,0 +1,49 @@
+package de.unistuttgart.ipvs.as.mmp.common.domain.scoring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agreement and latencies of the candidate of a model group with the scored models since {@link #since}, as seen by
+ * one instance of the service. Scorings that were dropped because the shadow executor was busy are not compared.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShadowStatistics {
+
+    private Long modelGroupId;
+
+    private Long candidateModelId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime since;
+
+    private long compared;
+
+    private long agreed;
+
+    private long disagreed;
+
+    /** scorings the candidate failed for */
+    private long failed;
+
+    private long dropped;
+
+    /** share of the compared scorings with the same outputs, null if nothing was compared yet */
+    private Double agreementRate;
+
+    private double primaryMeanMs;
+
+    private double primaryMaxMs;
+
+    private double candidateMeanMs;
+
+    private double candidateMaxMs;
+}
@@ -0,0 +1,55 @@
+package de.unistuttgart.ipvs.as.mmp.common.exception;
+
+public class CapacityException extends RuntimeException {
+
+    private final Long retryAfterSeconds;
+
+    private CapacityException(String message) {
+        this(message, null);
+    }
+
+    private CapacityException(String message, Long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return the seconds after which the request may succeed, null if unknown
+     */
+    public Long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public static CapacityException projectJobLimitReached(Long projectId, int limit) {
+        return new CapacityException(String.format("Project %s already has %s scoring jobs running. " +
+                "Please wait for a job to finish and try again.", projectId, limit));
+    }
+
+    public static CapacityException jobQueueFull() {
+        return new CapacityException("The scoring job queue is full. Please try again later.");
+    }
+
+    public static CapacityException projectScoringLimitReached(Long projectId, int limit, long retryAfterSeconds) {
+        return new CapacityException(String.format("Project %s already has %s scorings running. " +
+                "Please wait for a scoring to finish and try again.", projectId, limit), retryAfterSeconds);
+    }
+
+    public static CapacityException projectRateLimitReached(Long projectId, double rate, long retryAfterSeconds) {
+        return new CapacityException(String.format("Project %s exceeded its limit of %s scorings per second. " +
+                "Please try again later.", projectId, rate), retryAfterSeconds);
+    }
+
+    public static CapacityException scoringQueueFull(long retryAfterSeconds) {
+        return new CapacityException("The scoring queue is full. Please try again later.", retryAfterSeconds);
+    }
+
+    public static CapacityException sensorStreamLimitReached(int limit) {
+        return new CapacityException(String.format("The service already reads %s sensor streams. " +
+                "Please try again later.", limit));
+    }
+
+    public static CapacityException projectSensorStreamLimitReached(Long projectId, int limit) {
+        return new CapacityException(String.format("Project %s already sends %s sensor streams. " +
+                "Please end a stream and try again.", projectId, limit));
+    }
+}
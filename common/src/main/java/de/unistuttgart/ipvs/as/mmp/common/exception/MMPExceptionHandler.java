@@ -2,7 +2,9 @@ package de.unistuttgart.ipvs.as.mmp.common.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -30,6 +32,17 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
         return scoringException.getLocalizedMessage();
     }
 
+    @ExceptionHandler(value = CapacityException.class)
+    @ResponseBody
+    public ResponseEntity<String> capacityError(CapacityException capacityException) {
+        log.info(capacityException.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+        if (capacityException.getRetryAfterSeconds() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, capacityException.getRetryAfterSeconds().toString());
+        }
+        return response.body(capacityException.getLocalizedMessage());
+    }
+
     @ExceptionHandler(value = IllegalArgumentException.class)
     @ResponseStatus(code = HttpStatus.BAD_REQUEST)
     @ResponseBody
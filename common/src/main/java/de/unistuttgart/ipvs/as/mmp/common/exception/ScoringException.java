@@ -2,23 +2,34 @@ package de.unistuttgart.ipvs.as.mmp.common.exception;
 
 public class ScoringException extends RuntimeException {
 
-    private ScoringException(String message) {
+    public enum Type {
+        PARSING, VERIFY, EVALUATE, OUTPUT
+    }
+
+    private final Type type;
+
+    private ScoringException(Type type, String message) {
         super(message);
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
     }
 
     public static ScoringException parsingError() {
-        return new ScoringException("Could not unmarshal the model out of the pmml file. Please review your model file.");
+        return new ScoringException(Type.PARSING, "Could not unmarshal the model out of the pmml file. Please review your model file.");
     }
 
     public static ScoringException verifyError() {
-        return new ScoringException("The pmml model could not be verified. Please review your model.");
+        return new ScoringException(Type.VERIFY, "The pmml model could not be verified. Please review your model.");
     }
 
     public static ScoringException evaluateError() {
-        return new ScoringException("Could not evaluate the model with the specified inputs. Please review your inputs and try again.");
+        return new ScoringException(Type.EVALUATE, "Could not evaluate the model with the specified inputs. Please review your inputs and try again.");
     }
 
     public static ScoringException outputError() {
-        return new ScoringException("No output could be generated. Please check your model and declare output or target fields.");
+        return new ScoringException(Type.OUTPUT, "No output could be generated. Please check your model and declare output or target fields.");
     }
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ import java.util.Optional;
 public interface DBFileStorageService {
     DBFile storeFile(MultipartFile file) throws IOException;
 
+    DBFile storeFile(String fileName, String fileType, byte[] data);
+
     Optional<DBFile> getFile(Long fileId);
 
     void deleteFile(Long fileId);
@@ -21,10 +21,15 @@ public class DBFileStorageServiceImpl implements DBFileStorageService {
     @Override
     public DBFile storeFile(MultipartFile file) throws IOException {
         String fileName = StringUtils.cleanPath(file.getOriginalFilename());
+        return storeFile(fileName, file.getContentType(), file.getBytes());
+    }
+
+    @Override
+    public DBFile storeFile(String fileName, String fileType, byte[] data) {
         DBFile dbFile = new DBFile();
         dbFile.setFileName(fileName);
-        dbFile.setFileType(file.getContentType());
-        dbFile.setData(file.getBytes());
+        dbFile.setFileType(fileType);
+        dbFile.setData(data);
         return dbFileRepository.save(dbFile);
     }
 
@@ -0,0 +1,14 @@
+package de.unistuttgart.ipvs.as.mmp.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published whenever the model file of a model was replaced or removed, or the model itself was updated or deleted.
+ * Components that keep state derived from the model file (e.g. compiled evaluators) listen to this event.
+ */
+@Data
+@AllArgsConstructor
+public class ModelFileChangedEvent {
+    private Long modelId;
+}
@@ -0,0 +1,18 @@
+package de.unistuttgart.ipvs.as.mmp.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published whenever a model was saved with a new version of its model group.
+ * Components that route requests to the latest version of a model group listen to this event.
+ */
+@Data
+@AllArgsConstructor
+public class ModelVersionCreatedEvent {
+    private Long projectId;
+    private Long modelGroupId;
+    private Long modelId;
+    private String modelName;
+    private Long version;
+}
@@ -3,6 +3,7 @@ package de.unistuttgart.ipvs.as.mmp.model.repository;
 
 import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
 import de.unistuttgart.ipvs.as.mmp.common.domain.ModelGroup;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,4 +29,7 @@ public interface ModelRepository extends JpaRepository<Model, Long> {
     Optional<Model> findLastModelByProjectIdAndModelGroupId(Long projectId, Long modelGroupId);
 
     List<Model> findAllByProjectIdAndModelMetadata_ModelGroup_id(Long projectId, Long modelGroupId);
+
+    @Query("select model.id from Model model where model.modelMetadata.status = ?1")
+    List<Long> findAllIdsByStatus(ModelStatus status);
 }
\ No newline at end of file
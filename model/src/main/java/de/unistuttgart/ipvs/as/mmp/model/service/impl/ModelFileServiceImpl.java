@@ -6,10 +6,12 @@ import de.unistuttgart.ipvs.as.mmp.common.domain.ModelFile;
 import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
 import de.unistuttgart.ipvs.as.mmp.common.pmml.PMMLMetadataParser;
 import de.unistuttgart.ipvs.as.mmp.common.service.DBFileStorageService;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
 import de.unistuttgart.ipvs.as.mmp.model.repository.ModelFileRepository;
 import de.unistuttgart.ipvs.as.mmp.model.service.ModelFileService;
 import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
 import lombok.NonNull;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.xml.sax.SAXException;
@@ -25,13 +27,15 @@ public class ModelFileServiceImpl implements ModelFileService {
     private final ModelFileRepository modelFileRepository;
     private final DBFileStorageService dbFileStorageStorageService;
     private final ModelService modelService;
+    private final ApplicationEventPublisher eventPublisher;
     private PMMLMetadataParser metadataParser = new PMMLMetadataParser();
 
     public ModelFileServiceImpl(ModelFileRepository modelFileRepository, DBFileStorageService dbFileStorageStorageService,
-                                ModelService modelService) {
+                                ModelService modelService, ApplicationEventPublisher eventPublisher) {
         this.modelFileRepository = modelFileRepository;
         this.dbFileStorageStorageService = dbFileStorageStorageService;
         this.modelService = modelService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -65,7 +69,9 @@ public class ModelFileServiceImpl implements ModelFileService {
         try {
             DBFile dbFile = dbFileStorageStorageService.storeFile(file);
             modelFile.setDbFile(dbFile);
-            return modelFileRepository.save(modelFile);
+            ModelFile savedModelFile = modelFileRepository.save(modelFile);
+            eventPublisher.publishEvent(new ModelFileChangedEvent(modelId));
+            return savedModelFile;
         } catch (IOException e) {
             throw new IllegalArgumentException("Failed to save File");
         }
@@ -78,6 +84,7 @@ public class ModelFileServiceImpl implements ModelFileService {
             Optional<Model> optionalModel = modelService.getModelForProjectById(projectId, modelId);
             if (optionalModel.isPresent()) {
                 modelFileRepository.deleteById(modelFileId);
+                eventPublisher.publishEvent(new ModelFileChangedEvent(modelId));
                 return true;
             }
         }
@@ -7,9 +7,12 @@ import de.unistuttgart.ipvs.as.mmp.common.domain.Project;
 import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
 import de.unistuttgart.ipvs.as.mmp.common.service.ProjectService;
 import de.unistuttgart.ipvs.as.mmp.eam.service.EAMContainerService;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelVersionCreatedEvent;
 import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
 import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
 import lombok.NonNull;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -21,12 +24,14 @@ public class ModelServiceImpl implements ModelService {
     private final ProjectService projectService;
     private final ModelRepository modelRepository;
     private final EAMContainerService eamContainerService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ModelServiceImpl(ProjectService projectRepository, ModelRepository modelRepository,
-                            EAMContainerService eamContainerService) {
+                            EAMContainerService eamContainerService, ApplicationEventPublisher eventPublisher) {
         this.projectService = projectRepository;
         this.modelRepository = modelRepository;
         this.eamContainerService = eamContainerService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -61,6 +66,7 @@ public class ModelServiceImpl implements ModelService {
             setModelGroup(model);
             setModelVersion(model);
             modelRepository.save(model);
+            publishModelVersionCreated(model);
             return model;
         } else {
             throw IdException.idNotFound(Project.class, projectId);
@@ -82,7 +88,9 @@ public class ModelServiceImpl implements ModelService {
             }
             setModelInRelationalDBInformation(model);
             model.setProject(project);
-            return modelRepository.save(model);
+            Model updatedModel = modelRepository.save(model);
+            eventPublisher.publishEvent(new ModelFileChangedEvent(modelId));
+            return updatedModel;
         } else {
             throw IdException.idNotFound(Project.class, projectId);
         }
@@ -104,6 +112,7 @@ public class ModelServiceImpl implements ModelService {
                 }
                 model.setProject(projectOptional.get());
                 modelRepository.delete(model);
+                eventPublisher.publishEvent(new ModelFileChangedEvent(modelId));
                 return true;
             } else {
                 return false;
@@ -124,6 +133,7 @@ public class ModelServiceImpl implements ModelService {
                 }
             });
             modelRepository.deleteByProjectId(projectId);
+            project.get().getModels().forEach(model -> eventPublisher.publishEvent(new ModelFileChangedEvent(model.getId())));
         } else {
             throw IdException.idNotFound(Project.class, projectId);
         }
@@ -169,6 +179,16 @@ public class ModelServiceImpl implements ModelService {
         }
     }
 
+    private void publishModelVersionCreated(@NonNull Model model) {
+        ModelMetadata modelMetadata = model.getModelMetadata();
+        if (modelMetadata != null && modelMetadata.getModelGroup() != null
+                && modelMetadata.getModelGroup().getId() != null && modelMetadata.getVersion() != null) {
+            eventPublisher.publishEvent(new ModelVersionCreatedEvent(model.getProject().getId(),
+                    modelMetadata.getModelGroup().getId(), model.getId(), modelMetadata.getName(),
+                    modelMetadata.getVersion()));
+        }
+    }
+
     private void setModelGroup(@NonNull Model model) {
         ModelMetadata modelMetadata = model.getModelMetadata();
         if (modelMetadata != null) {
@@ -3,6 +3,7 @@ package de.unistuttgart.ipvs.as.mmp.model.repository;
 import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
 import de.unistuttgart.ipvs.as.mmp.common.domain.ModelGroup;
 import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelStatus;
 import de.unistuttgart.ipvs.as.mmp.common.domain.Project;
 import de.unistuttgart.ipvs.as.mmp.common.domain.User;
 import de.unistuttgart.ipvs.as.mmp.common.util.DefaultDataBuilder;
@@ -85,6 +86,18 @@ public class ModelRepositoryTest {
         assertEquals(Optional.of(testModel), model);
     }
 
+    @Test
+    public void shouldFindIdsByStatus() {
+        ModelMetadata modelMetadata = DefaultDataBuilder.getNewMetadataBuilder().build();
+        modelMetadata.setStatus(ModelStatus.PLANNED);
+        Model model = Model.builder().modelMetadata(modelMetadata).project(testProject).build();
+        Long modelId = entityManager.persistAndGetId(testModel, Long.class);
+        entityManager.persist(model);
+
+        List<Long> modelIds = modelRepository.findAllIdsByStatus(ModelStatus.OPERATION);
+        assertEquals(Collections.singletonList(modelId), modelIds);
+    }
+
     @Test
     public void shouldGetAllModelGroupIdentifiers() {
         testModel.getModelMetadata().setModelGroup(modelGroup);
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -176,10 +177,13 @@ public class ModelFileServiceTest {
         @MockBean
         public DBFileStorageService dbFileStorageService;
 
+        @Autowired
+        public ApplicationEventPublisher eventPublisher;
 
         @Bean
         public ModelFileService modelFileService() {
-            return new ModelFileServiceImpl(this.modelFileRepository, this.dbFileStorageService, this.modelService);
+            return new ModelFileServiceImpl(this.modelFileRepository, this.dbFileStorageService, this.modelService,
+                    this.eventPublisher);
         }
     }
 }
@@ -9,6 +9,7 @@ import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
 import de.unistuttgart.ipvs.as.mmp.common.service.ProjectService;
 import de.unistuttgart.ipvs.as.mmp.common.util.DefaultDataBuilder;
 import de.unistuttgart.ipvs.as.mmp.eam.service.EAMContainerService;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelVersionCreatedEvent;
 import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
 import de.unistuttgart.ipvs.as.mmp.model.service.impl.ModelServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,9 +19,12 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -47,6 +51,8 @@ public class ModelServiceTest {
     ModelRepository modelRepository;
     @Autowired
     EAMContainerService eamContainerService;
+    @Autowired
+    ModelVersionRecorder modelVersionRecorder;
 
     private User testUser = User.builder()
             .name("Hans Maier")
@@ -158,6 +164,21 @@ public class ModelServiceTest {
         assertThrows(IllegalArgumentException.class, () -> modelService.deleteAllModelsForProject(EXISITNG_ID));
     }
 
+    @Test
+    public void shouldPublishNewModelVersion() {
+        modelGroup.setId(EXISTING_MODEL_GROUP_ID);
+        testModel.getModelMetadata().setModelGroup(ModelGroup.builder().modelGroupName("test group").build());
+        modelVersionRecorder.events.clear();
+        modelService.saveModelForProject(EXISITNG_ID, testModel);
+
+        assertEquals(1, modelVersionRecorder.events.size());
+        ModelVersionCreatedEvent event = modelVersionRecorder.events.get(0);
+        assertEquals(EXISITNG_ID, event.getProjectId());
+        assertEquals(EXISTING_MODEL_GROUP_ID, event.getModelGroupId());
+        assertEquals(testModel.getId(), event.getModelId());
+        assertEquals(Long.valueOf(2L), event.getVersion());
+    }
+
     @Test
     public void shouldNotSaveModelWithoutGroupName() {
         testModel.getModelMetadata().setModelGroup(null);
@@ -196,10 +217,27 @@ public class ModelServiceTest {
         @MockBean
         public EAMContainerService eamContainerService;
 
+        @Autowired
+        public ApplicationEventPublisher eventPublisher;
+
+        @Bean
+        public ModelVersionRecorder modelVersionRecorder() {
+            return new ModelVersionRecorder();
+        }
+
         @Bean
         public ModelService modelService() {
             return new ModelServiceImpl(this.projectService, this.modelRepository,
-                    this.eamContainerService);
+                    this.eamContainerService, this.eventPublisher);
+        }
+    }
+
+    static class ModelVersionRecorder {
+        private final List<ModelVersionCreatedEvent> events = new ArrayList<>();
+
+        @EventListener
+        public void onModelVersionCreated(ModelVersionCreatedEvent event) {
+            events.add(event);
         }
     }
 }
@@ -0,0 +1,83 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates the pmml of a random forest with complete binary trees over continuous fields,
+ * so the size of the model can be scaled beyond the bundled examples.
+ */
+public class ForestGenerator {
+
+    private static final String[] CLASSES = {"A", "B", "C"};
+
+    private final int trees;
+    private final int depth;
+    private final int fields;
+    private final Random random;
+
+    public ForestGenerator(int trees, int depth, int fields, long seed) {
+        this.trees = trees;
+        this.depth = depth;
+        this.fields = fields;
+        this.random = new Random(seed);
+    }
+
+    public byte[] generate() {
+        StringBuilder pmml = new StringBuilder();
+        pmml.append("<PMML xmlns=\"http://www.dmg.org/PMML-4_3\" version=\"4.3\">");
+        pmml.append("<Header description=\"Generated random forest\"/>");
+        pmml.append("<DataDictionary>");
+        pmml.append("<DataField name=\"class\" optype=\"categorical\" dataType=\"string\">");
+        for (String value : CLASSES) {
+            pmml.append(String.format("<Value value=\"%s\"/>", value));
+        }
+        pmml.append("</DataField>");
+        for (int field = 0; field < fields; field++) {
+            pmml.append(String.format("<DataField name=\"x%s\" optype=\"continuous\" dataType=\"double\">"
+                    + "<Interval closure=\"closedClosed\" leftMargin=\"0\" rightMargin=\"1\"/></DataField>", field));
+        }
+        pmml.append("</DataDictionary>");
+        pmml.append("<MiningModel functionName=\"classification\">");
+        appendMiningSchema(pmml);
+        pmml.append("<Segmentation multipleModelMethod=\"majorityVote\">");
+        for (int tree = 0; tree < trees; tree++) {
+            pmml.append(String.format("<Segment id=\"%s\"><True/>", tree + 1));
+            pmml.append("<TreeModel functionName=\"classification\" splitCharacteristic=\"binarySplit\">");
+            appendMiningSchema(pmml);
+            pmml.append("<Node><True/>");
+            appendChildren(pmml, 1);
+            pmml.append("</Node></TreeModel></Segment>");
+        }
+        pmml.append("</Segmentation></MiningModel></PMML>");
+        return pmml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void appendMiningSchema(StringBuilder pmml) {
+        pmml.append("<MiningSchema><MiningField name=\"class\" usageType=\"target\"/>");
+        for (int field = 0; field < fields; field++) {
+            pmml.append(String.format("<MiningField name=\"x%s\"/>", field));
+        }
+        pmml.append("</MiningSchema>");
+    }
+
+    private void appendChildren(StringBuilder pmml, int level) {
+        String field = "x" + random.nextInt(fields);
+        String threshold = String.format(Locale.ROOT, "%.4f", random.nextDouble());
+        String[] operators = {"lessOrEqual", "greaterThan"};
+        for (String operator : operators) {
+            if (level == depth) {
+                pmml.append(String.format("<Node score=\"%s\">", CLASSES[random.nextInt(CLASSES.length)]));
+            } else {
+                pmml.append("<Node>");
+            }
+            pmml.append(String.format("<SimplePredicate field=\"%s\" operator=\"%s\" value=\"%s\"/>",
+                    field, operator, threshold));
+            if (level < depth) {
+                appendChildren(pmml, level + 1);
+            }
+            pmml.append("</Node>");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.pmml.PMMLMetadataParser;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.FieldValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the phases of a scoring request separately: unmarshalling the pmml or restoring its snapshot,
+ * constructing the evaluator, binding the inputs, evaluating the model and extracting the outputs.
+ * The models are evaluated by the pmml evaluator and by the scoring plan, which uses the compiled model of tree
+ * models and tree ensembles.
+ * The inputs are generated from the pmml metadata of the model, see {@link WarmupInputGenerator}.
+ * Run with {@code gradle :scoring:jmh}, see {@link ScoringBenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+    private static final int RECORDS = 256;
+
+    @Param({"iristree_example", "ensemble_audit_dectree", "generated_forest"})
+    public String model;
+
+    private byte[] pmmlData;
+    private PMML pmml;
+    private byte[] snapshot;
+    private ScoringPlan scoringPlan;
+    private List<List<ScoringInput>> inputs;
+    private List<Map<FieldName, FieldValue>> arguments;
+    private List<Map<FieldName, ?>> results;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next() {
+            position = (position + 1) % RECORDS;
+            return position;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        pmmlData = loadModel(model);
+        pmml = EvaluatorCache.unmarshal(pmmlData);
+        PMML optimized = EvaluatorCache.unmarshal(pmmlData);
+        EvaluatorCache.optimize(optimized);
+        snapshot = PMMLSnapshotStore.serialize(optimized);
+        Evaluator evaluator = EvaluatorCache.createEvaluator(EvaluatorCache.unmarshal(pmmlData));
+        evaluator.verify();
+        scoringPlan = new ScoringPlan(evaluator);
+
+        List<InputAttribute> inputAttributes;
+        try (InputStream is = new ByteArrayInputStream(pmmlData)) {
+            inputAttributes = new PMMLMetadataParser().parsePMMLFile(is, new ModelMetadata()).get(0)
+                    .getModelMetadata().getPmmlMetadata().getInputAttributes();
+        }
+        WarmupInputGenerator generator = new WarmupInputGenerator(RECORDS);
+        inputs = new ArrayList<>(RECORDS);
+        arguments = new ArrayList<>(RECORDS);
+        results = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            List<ScoringInput> record = generator.generate(inputAttributes);
+            inputs.add(record);
+            arguments.add(scoringPlan.bind(record));
+            results.add(evaluator.evaluate(arguments.get(i)));
+        }
+    }
+
+    @Benchmark
+    public PMML unmarshal() throws Exception {
+        return EvaluatorCache.unmarshal(pmmlData);
+    }
+
+    @Benchmark
+    public PMML restoreSnapshot() throws Exception {
+        return PMMLSnapshotStore.deserialize(snapshot);
+    }
+
+    @Benchmark
+    public Evaluator construct() {
+        // the visitors of the evaluator cache only intern and nullify, so the pmml can be reused
+        return EvaluatorCache.createEvaluator(pmml);
+    }
+
+    @Benchmark
+    public Map<FieldName, FieldValue> bind(Cursor cursor) {
+        return scoringPlan.bind(inputs.get(cursor.next()));
+    }
+
+    @Benchmark
+    public Map<FieldName, ?> evaluate(Cursor cursor) {
+        return scoringPlan.getEvaluator().evaluate(arguments.get(cursor.next()));
+    }
+
+    @Benchmark
+    public Object[] evaluateCompiled(Cursor cursor) {
+        return scoringPlan.evaluate(arguments.get(cursor.next()));
+    }
+
+    @Benchmark
+    public List<ScoringOutput> extract(Cursor cursor) {
+        return scoringPlan.extract(results.get(cursor.next()));
+    }
+
+    private static byte[] loadModel(String model) throws IOException {
+        if ("generated_forest".equals(model)) {
+            return new ForestGenerator(500, 8, 50, 42L).generate();
+        }
+        try (InputStream is = ScoringBenchmark.class.getResourceAsStream(String.format("/pmml/%s.xml", model))) {
+            if (is == null) {
+                throw new IOException(String.format("Model %s is not on the classpath", model));
+            }
+            return org.springframework.util.StreamUtils.copyToByteArray(is);
+        }
+    }
+}
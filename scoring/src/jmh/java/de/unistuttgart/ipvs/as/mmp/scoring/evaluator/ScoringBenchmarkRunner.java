@@ -0,0 +1,37 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the {@link ScoringBenchmark} once per thread count and writes the results of every run as json,
+ * which can be compared between releases, e.g. with the jmh visualizer.
+ * The first argument is the directory of the result files.
+ */
+public class ScoringBenchmarkRunner {
+
+    private static final int[] THREADS = {1, 8, 32};
+
+    public static void main(String[] args) throws RunnerException {
+        File resultDirectory = new File(args.length > 0 ? args[0] : "build/reports/jmh");
+        if (!resultDirectory.isDirectory() && !resultDirectory.mkdirs()) {
+            throw new IllegalStateException(String.format("Could not create %s", resultDirectory));
+        }
+
+        for (int threads : THREADS) {
+            File resultFile = new File(resultDirectory, String.format("scoring-threads-%s.json", threads));
+            Options options = new OptionsBuilder()
+                    .include(ScoringBenchmark.class.getName())
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultFile.getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
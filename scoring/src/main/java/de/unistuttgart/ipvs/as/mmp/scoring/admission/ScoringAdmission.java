@@ -0,0 +1,254 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.admission;
+
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Admits scoring requests, so that the scorings of one project cannot occupy all request threads of the server. Every
+ * project may only have a limited number of scorings waiting or running and may only start a limited number of
+ * scorings per second. The scorings run on the request thread, inside its session, but only a limited number of them
+ * run at the same time and the others wait in a bounded queue. Requests that exceed a quota or do not fit into the
+ * queue are rejected right away with a {@link CapacityException} that tells the client when to retry.
+ * <p>
+ * The quota of a project is removed once the project has no scorings admitted and its rate quota is refilled, so
+ * only projects that scored recently are kept. Quotas whose rate quota is still refilling when their last scoring
+ * finished are removed by a sweep, which runs at most once per second when a quota is added.
+ */
+@Component
+public class ScoringAdmission {
+
+    public static final String QUEUED_GAUGE = "scoring.admission.queued";
+    public static final String ACTIVE_GAUGE = "scoring.admission.active";
+    public static final String REJECTION_COUNTER = "scoring.admission.rejections";
+    public static final String PROJECTS_GAUGE = "scoring.admission.projects";
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Semaphore running;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int queueCapacity;
+    private final int maxConcurrentPerProject;
+    private final double requestsPerSecond;
+    private final double burst;
+    private final long retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, ProjectQuota> quotas = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param maxConcurrent           number of scorings that run at the same time, 0 uses all available processors
+     * @param queueCapacity           number of scorings that wait until they may run
+     * @param maxConcurrentPerProject number of scorings of a project that are waiting or running, 0 for no limit
+     * @param requestsPerSecond       number of scorings a project may start per second, 0 for no limit
+     * @param burst                   number of scorings a project may start at once, 0 for one second of scorings
+     * @param retryAfterSeconds       time after which rejected clients should retry if no better estimate is known
+     */
+    public ScoringAdmission(ScoringMetrics scoringMetrics,
+                            @Value("${scoring.admission.max-concurrent:0}") int maxConcurrent,
+                            @Value("${scoring.admission.queue-capacity:200}") int queueCapacity,
+                            @Value("${scoring.admission.max-concurrent-per-project:8}") int maxConcurrentPerProject,
+                            @Value("${scoring.admission.requests-per-second-per-project:0}") double requestsPerSecond,
+                            @Value("${scoring.admission.burst-per-project:0}") int burst,
+                            @Value("${scoring.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        int threads = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        // fair, so waiting scorings run in the order they arrived
+        this.running = new Semaphore(threads, true);
+        this.queueCapacity = queueCapacity;
+        this.maxConcurrentPerProject = maxConcurrentPerProject;
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst > 0 ? burst : Math.max(1.0, requestsPerSecond);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.meterRegistry = scoringMetrics.getMeterRegistry();
+        meterRegistry.gauge(QUEUED_GAUGE, waiting, AtomicInteger::get);
+        meterRegistry.gauge(ACTIVE_GAUGE, running, permits -> threads - permits.availablePermits());
+        meterRegistry.gauge(PROJECTS_GAUGE, quotas, Map::size);
+    }
+
+    /**
+     * Runs the scoring on the calling thread once it is admitted, waiting while all scoring slots are taken. The
+     * exceptions of the scoring itself are not wrapped.
+     *
+     * @throws CapacityException if a quota of the project is exceeded or the queue is full
+     */
+    public <T> T run(Long projectId, Supplier<T> scoring) {
+        ProjectQuota quota = retainQuota(projectId);
+        try {
+            return run(projectId, quota, scoring);
+        } finally {
+            quota.release();
+        }
+    }
+
+    private <T> T run(Long projectId, ProjectQuota quota, Supplier<T> scoring) {
+        if (!quota.tryAcquire()) {
+            reject(projectId, "concurrency");
+            throw CapacityException.projectScoringLimitReached(projectId, maxConcurrentPerProject, retryAfterSeconds);
+        }
+        try {
+            long rateRetryAfter = quota.takeToken();
+            if (rateRetryAfter > 0) {
+                reject(projectId, "rate");
+                throw CapacityException.projectRateLimitReached(projectId, requestsPerSecond, rateRetryAfter);
+            }
+            acquireSlot(projectId);
+            try {
+                return scoring.get();
+            } finally {
+                running.release();
+            }
+        } finally {
+            quota.releasePermit();
+        }
+    }
+
+    private void acquireSlot(Long projectId) {
+        if (running.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > queueCapacity) {
+            waiting.decrementAndGet();
+            reject(projectId, "queue");
+            throw CapacityException.scoringQueueFull(retryAfterSeconds);
+        }
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw CapacityException.scoringQueueFull(retryAfterSeconds);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Only checks the rate quota of the project, for scorings that are not limited in their concurrency.
+     *
+     * @throws CapacityException if the project exceeded its rate quota
+     */
+    public void admit(Long projectId) {
+        ProjectQuota quota = retainQuota(projectId);
+        long rateRetryAfter;
+        try {
+            rateRetryAfter = quota.takeToken();
+        } finally {
+            quota.release();
+        }
+        if (rateRetryAfter > 0) {
+            reject(projectId, "rate");
+            throw CapacityException.projectRateLimitReached(projectId, requestsPerSecond, rateRetryAfter);
+        }
+    }
+
+    private void reject(Long projectId, String reason) {
+        meterRegistry.counter(REJECTION_COUNTER, Tags.of("project", String.valueOf(projectId), "reason", reason))
+                .increment();
+    }
+
+    /**
+     * Returns the quota of the project and counts the caller as its user until it releases the quota.
+     */
+    private ProjectQuota retainQuota(Long projectId) {
+        while (true) {
+            // get first, computeIfAbsent locks the bin of existing keys on java 8
+            ProjectQuota quota = quotas.get(projectId);
+            if (quota == null) {
+                sweepQuotas();
+                quota = quotas.computeIfAbsent(projectId, ProjectQuota::new);
+            }
+            if (quota.retain()) {
+                return quota;
+            }
+            // the quota was removed since it was looked up
+        }
+    }
+
+    private void sweepQuotas() {
+        long now = System.nanoTime();
+        long sweep = nextSweep.get();
+        if (now - sweep < 0 || !nextSweep.compareAndSet(sweep, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        for (ProjectQuota quota : quotas.values()) {
+            quota.removeIfIdle(now);
+        }
+    }
+
+    private class ProjectQuota {
+        private final Long projectId;
+        private final Semaphore permits = maxConcurrentPerProject > 0 ? new Semaphore(maxConcurrentPerProject) : null;
+        private double tokens = burst;
+        private long refilled = System.nanoTime();
+        private int users;
+        private boolean removed;
+
+        private ProjectQuota(Long projectId) {
+            this.projectId = projectId;
+        }
+
+        private synchronized boolean retain() {
+            if (removed) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        private synchronized void release() {
+            users--;
+            removeIfIdle(System.nanoTime());
+        }
+
+        /**
+         * Removes the quota if no scoring uses it and its bucket is full, so a new quota of the project starts with
+         * the same state.
+         */
+        private synchronized void removeIfIdle(long now) {
+            if (users == 0 && !removed
+                    && (requestsPerSecond <= 0 || tokens + (now - refilled) / 1e9 * requestsPerSecond >= burst)) {
+                removed = true;
+                quotas.remove(projectId, this);
+            }
+        }
+
+        private boolean tryAcquire() {
+            return permits == null || permits.tryAcquire();
+        }
+
+        private void releasePermit() {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
+        /**
+         * Takes a token of the bucket of the project.
+         *
+         * @return 0 if a token was taken, otherwise the seconds until the next token is available
+         */
+        private synchronized long takeToken() {
+            if (requestsPerSecond <= 0) {
+                return 0L;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilled) / 1e9 * requestsPerSecond);
+            refilled = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return 0L;
+            }
+            return Math.max(1L, (long) Math.ceil((1.0 - tokens) / requestsPerSecond));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.columnar;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodings of the columnar scoring payload. Both encodings share the same structure: the field names are sent once,
+ * followed by one array of typed values per field.
+ */
+public enum ColumnarFormat {
+    JSON(MediaType.valueOf("application/vnd.mmp.columnar+json"), new JsonFactory()),
+    CBOR(MediaType.valueOf("application/cbor"), new CBORFactory());
+
+    public static final String JSON_VALUE = "application/vnd.mmp.columnar+json";
+    public static final String CBOR_VALUE = "application/cbor";
+
+    private final MediaType mediaType;
+    private final JsonFactory factory;
+
+    ColumnarFormat(MediaType mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public ColumnarReader newReader(InputStream inputStream) throws IOException {
+        return new ColumnarReader(factory.createParser(inputStream));
+    }
+
+    public ColumnarWriter newWriter(OutputStream outputStream) throws IOException {
+        return new ColumnarWriter(factory.createGenerator(outputStream));
+    }
+
+    public static ColumnarFormat fromContentType(String contentType) {
+        MediaType requestedType = MediaType.parseMediaType(contentType);
+        for (ColumnarFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(requestedType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Content type %s is not a columnar format", contentType));
+    }
+}
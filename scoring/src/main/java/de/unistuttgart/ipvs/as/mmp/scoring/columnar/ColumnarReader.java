@@ -0,0 +1,142 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.columnar;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringPlan;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a columnar payload of the form {@code {"fields": [...], "columns": [[...], ...]}} directly into evaluator
+ * arguments. The field names have to precede the columns, the i-th column holds the values of the i-th field.
+ * Numbers, strings and booleans are passed to the evaluator without converting them to strings first,
+ * null values are missing values. Columns of fields the model does not know are skipped.
+ */
+public class ColumnarReader implements Closeable {
+
+    private static final String FIELDS = "fields";
+    private static final String COLUMNS = "columns";
+
+    private final JsonParser parser;
+
+    ColumnarReader(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Reads all records of the payload.
+     *
+     * @param scoringPlan plan of the evaluator the arguments are bound to
+     * @return one argument map per record
+     * @throws IllegalArgumentException if the payload is malformed or the columns differ in length
+     */
+    public List<Map<FieldName, FieldValue>> read(ScoringPlan scoringPlan) throws IOException {
+        try {
+            return readPayload(scoringPlan);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(String.format("Malformed columnar payload: %s", e.getOriginalMessage()));
+        }
+    }
+
+    private List<Map<FieldName, FieldValue>> readPayload(ScoringPlan scoringPlan) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        InputField[] fields = null;
+        List<Map<FieldName, FieldValue>> records = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if (FIELDS.equals(name)) {
+                fields = readFields(scoringPlan);
+            } else if (COLUMNS.equals(name)) {
+                if (fields == null) {
+                    throw new IllegalArgumentException("The fields of a columnar payload have to precede its columns");
+                }
+                records = readColumns(fields);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (records == null) {
+            throw new IllegalArgumentException("The columnar payload has no columns");
+        }
+        return records;
+    }
+
+    private InputField[] readFields(ScoringPlan scoringPlan) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<InputField> fields = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            fields.add(scoringPlan.getInputField(parser.getValueAsString()));
+        }
+        return fields.toArray(new InputField[0]);
+    }
+
+    private List<Map<FieldName, FieldValue>> readColumns(InputField[] fields) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<Map<FieldName, FieldValue>> records = new ArrayList<>();
+        int column = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser.currentToken(), JsonToken.START_ARRAY);
+            if (column >= fields.length) {
+                throw new IllegalArgumentException("The columnar payload has more columns than fields");
+            }
+            InputField field = fields[column];
+            int row = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (column == 0) {
+                    records.add(new HashMap<>());
+                } else if (row >= records.size()) {
+                    throw new IllegalArgumentException("All columns of a columnar payload need the same length");
+                }
+                if (field != null && !records.get(row).containsKey(field.getName())) {
+                    records.get(row).put(field.getName(), field.prepare(readValue()));
+                }
+                row++;
+            }
+            if (row != records.size()) {
+                throw new IllegalArgumentException("All columns of a columnar payload need the same length");
+            }
+            column++;
+        }
+        return records;
+    }
+
+    private Object readValue() throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return parser.getText();
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported columnar value %s", parser.currentToken()));
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException(String.format("Malformed columnar payload: expected %s but found %s",
+                    expected, actual));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
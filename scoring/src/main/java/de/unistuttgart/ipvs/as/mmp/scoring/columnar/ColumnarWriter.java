@@ -0,0 +1,69 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Writes scoring results in the columnar structure that {@link ColumnarReader} reads,
+ * numbers and booleans keep their type.
+ */
+public class ColumnarWriter implements Closeable {
+
+    private final JsonGenerator generator;
+
+    ColumnarWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * @param fields names of the result fields
+     * @param rows   one array per record with the values in the order of the fields
+     */
+    public void write(List<String> fields, List<Object[]> rows) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("fields");
+        for (String field : fields) {
+            generator.writeString(field);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("columns");
+        for (int column = 0; column < fields.size(); column++) {
+            generator.writeStartArray();
+            for (Object[] row : rows) {
+                writeValue(row[column]);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,22 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+
+import java.util.Map;
+
+/**
+ * A pmml model that is compiled into primitive arrays and evaluated without the object graph of the pmml evaluator.
+ * Like the evaluator, a compiled model is immutable and can be shared between threads.
+ */
+public interface CompiledModel {
+
+    /**
+     * Evaluates the arguments bound by a scoring plan.
+     *
+     * @param arguments prepared values of the active fields
+     * @return decoded values of the result fields of the scoring plan, or null if the record has to be evaluated
+     * by the pmml evaluator, for example because a value that is tested is missing
+     */
+    Object[] evaluate(Map<FieldName, FieldValue> arguments);
+}
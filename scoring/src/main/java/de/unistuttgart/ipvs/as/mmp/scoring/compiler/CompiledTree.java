@@ -0,0 +1,138 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+/**
+ * A decision tree flattened into primitive arrays. The nodes are numbered breadth first, so the children of a node
+ * are consecutive and only the index of the first child and the number of children are stored.
+ * Every node has the predicate that selects it, a tested feature with an operator and a threshold, and its score:
+ * a class index for classification trees, a value for regression trees and optionally class probabilities.
+ */
+final class CompiledTree {
+
+    static final int NO_NODE = -1;
+
+    static final byte TRUE = 0;
+    static final byte FALSE = 1;
+    static final byte EQUAL = 2;
+    static final byte NOT_EQUAL = 3;
+    static final byte LESS_THAN = 4;
+    static final byte LESS_OR_EQUAL = 5;
+    static final byte GREATER_THAN = 6;
+    static final byte GREATER_OR_EQUAL = 7;
+
+    private static final int PREDICATE_FALSE = 0;
+    private static final int PREDICATE_TRUE = 1;
+    private static final int PREDICATE_UNKNOWN = 2;
+
+    private final byte[] operators;
+    private final int[] features;
+    private final double[] thresholds;
+    private final int[] firstChildren;
+    private final int[] childCounts;
+    private final boolean[] scored;
+    private final int[] classIndices;
+    private final double[] values;
+    private final double[] probabilities;
+    private final int probabilityCount;
+    private final boolean returnLastPrediction;
+
+    CompiledTree(byte[] operators, int[] features, double[] thresholds, int[] firstChildren, int[] childCounts,
+                 boolean[] scored, int[] classIndices, double[] values, double[] probabilities,
+                 int probabilityCount, boolean returnLastPrediction) {
+        this.operators = operators;
+        this.features = features;
+        this.thresholds = thresholds;
+        this.firstChildren = firstChildren;
+        this.childCounts = childCounts;
+        this.scored = scored;
+        this.classIndices = classIndices;
+        this.values = values;
+        this.probabilities = probabilities;
+        this.probabilityCount = probabilityCount;
+        this.returnLastPrediction = returnLastPrediction;
+    }
+
+    /**
+     * Walks the tree like the pmml evaluator: the first child whose predicate is true is entered, until a leaf is
+     * reached or no child is true. Returns {@link #NO_NODE} whenever the evaluator would apply its missing value or
+     * no true child strategy in a way that is not compiled, or would not predict anything.
+     */
+    int select(double[] featureValues) {
+        if (test(0, featureValues) != PREDICATE_TRUE) {
+            return NO_NODE;
+        }
+        int node = 0;
+        while (true) {
+            int childCount = childCounts[node];
+            if (childCount == 0) {
+                return scored[node] ? node : NO_NODE;
+            }
+            int child = firstChildren[node];
+            int end = child + childCount;
+            int selected = NO_NODE;
+            for (; child < end; child++) {
+                int result = test(child, featureValues);
+                if (result == PREDICATE_UNKNOWN) {
+                    return NO_NODE;
+                } else if (result == PREDICATE_TRUE) {
+                    selected = child;
+                    break;
+                }
+            }
+            if (selected == NO_NODE) {
+                return returnLastPrediction && scored[node] ? node : NO_NODE;
+            }
+            node = selected;
+        }
+    }
+
+    int getClassIndex(int node) {
+        return classIndices[node];
+    }
+
+    double getValue(int node) {
+        return values[node];
+    }
+
+    double getProbability(int node, int probabilityIndex) {
+        return probabilities[node * probabilityCount + probabilityIndex];
+    }
+
+    private int test(int node, double[] featureValues) {
+        byte operator = operators[node];
+        if (operator == TRUE) {
+            return PREDICATE_TRUE;
+        } else if (operator == FALSE) {
+            return PREDICATE_FALSE;
+        }
+        double value = featureValues[features[node]];
+        if (Double.isNaN(value)) {
+            return PREDICATE_UNKNOWN;
+        }
+        // Double.compare like the comparison of boxed values in the evaluator, which orders -0.0 before 0.0
+        int comparison = Double.compare(value, thresholds[node]);
+        boolean result;
+        switch (operator) {
+            case EQUAL:
+                result = comparison == 0;
+                break;
+            case NOT_EQUAL:
+                result = comparison != 0;
+                break;
+            case LESS_THAN:
+                result = comparison < 0;
+                break;
+            case LESS_OR_EQUAL:
+                result = comparison <= 0;
+                break;
+            case GREATER_THAN:
+                result = comparison > 0;
+                break;
+            case GREATER_OR_EQUAL:
+                result = comparison >= 0;
+                break;
+            default:
+                throw new IllegalStateException("Unknown operator " + operator);
+        }
+        return result ? PREDICATE_TRUE : PREDICATE_FALSE;
+    }
+}
@@ -0,0 +1,152 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+
+import java.util.Map;
+
+/**
+ * A compiled tree model or tree ensemble. Classification ensembles take a majority vote, regression ensembles sum
+ * or average the values of their trees. The trees of large ensembles may be walked in parallel by a
+ * {@link SegmentExecutor}. Every result field is either the predicted value or the probability of a
+ * class, see {@link #TARGET}.
+ */
+final class CompiledTreeModel implements CompiledModel {
+
+    /**
+     * Result index of the predicted value, all other result indices are probability indices of the trees.
+     */
+    static final int TARGET = -1;
+
+    enum Aggregation {
+        NONE, MAJORITY_VOTE, SUM, AVERAGE
+    }
+
+    private final FeatureEncoder.Encoder encoder;
+    private final CompiledTree[] trees;
+    private final Aggregation aggregation;
+    private final String[] classes;
+    private final int[] resultIndices;
+    private final SegmentExecutor segmentExecutor;
+
+    /**
+     * @param classes         class labels of a classification model, null for a regression model
+     * @param segmentExecutor executor of the trees of large ensembles, null to walk them sequentially
+     */
+    CompiledTreeModel(FeatureEncoder.Encoder encoder, CompiledTree[] trees, Aggregation aggregation,
+                      String[] classes, int[] resultIndices, SegmentExecutor segmentExecutor) {
+        this.encoder = encoder;
+        this.trees = trees;
+        this.aggregation = aggregation;
+        this.classes = classes;
+        this.resultIndices = resultIndices;
+        this.segmentExecutor = segmentExecutor;
+    }
+
+    @Override
+    public Object[] evaluate(Map<FieldName, FieldValue> arguments) {
+        double[] features = encoder.encode(arguments);
+        return classes != null ? classify(features) : predict(features);
+    }
+
+    private Object[] classify(double[] features) {
+        int node = CompiledTree.NO_NODE;
+        int classIndex;
+        if (aggregation == Aggregation.NONE) {
+            node = trees[0].select(features);
+            if (node == CompiledTree.NO_NODE) {
+                return null;
+            }
+            classIndex = trees[0].getClassIndex(node);
+        } else {
+            classIndex = vote(features);
+            if (classIndex == CompiledTree.NO_NODE) {
+                return null;
+            }
+        }
+
+        Object[] results = new Object[resultIndices.length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = resultIndices[i] == TARGET ? classes[classIndex] : trees[0].getProbability(node, resultIndices[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the class with the most votes, or {@link CompiledTree#NO_NODE} if a tree does not predict anything
+     * or several classes have the most votes, ties are left to the evaluator.
+     */
+    private int vote(double[] features) {
+        int[] nodes = selectAll(features);
+        if (nodes == null) {
+            return CompiledTree.NO_NODE;
+        }
+        int[] votes = new int[classes.length];
+        for (int i = 0; i < trees.length; i++) {
+            votes[trees[i].getClassIndex(nodes[i])]++;
+        }
+
+        int winner = 0;
+        boolean tied = false;
+        for (int i = 1; i < votes.length; i++) {
+            if (votes[i] > votes[winner]) {
+                winner = i;
+                tied = false;
+            } else if (votes[i] == votes[winner]) {
+                tied = true;
+            }
+        }
+        return tied ? CompiledTree.NO_NODE : winner;
+    }
+
+    /**
+     * Returns the selected node of every tree, or null if a tree does not predict anything.
+     */
+    private int[] selectAll(double[] features) {
+        int[] nodes = new int[trees.length];
+        if (segmentExecutor != null && segmentExecutor.isParallel(trees.length)) {
+            segmentExecutor.select(trees, features, nodes);
+            for (int node : nodes) {
+                if (node == CompiledTree.NO_NODE) {
+                    return null;
+                }
+            }
+        } else {
+            for (int i = 0; i < trees.length; i++) {
+                nodes[i] = trees[i].select(features);
+                if (nodes[i] == CompiledTree.NO_NODE) {
+                    return null;
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private Object[] predict(double[] features) {
+        double value;
+        if (aggregation == Aggregation.NONE) {
+            int node = trees[0].select(features);
+            if (node == CompiledTree.NO_NODE) {
+                return null;
+            }
+            value = trees[0].getValue(node);
+        } else {
+            int[] nodes = selectAll(features);
+            if (nodes == null) {
+                return null;
+            }
+            // summed in the order of the segments like the evaluator, also when the trees were walked in parallel
+            double sum = 0.0;
+            for (int i = 0; i < trees.length; i++) {
+                sum += trees[i].getValue(nodes[i]);
+            }
+            value = aggregation == Aggregation.AVERAGE ? sum / trees.length : sum;
+        }
+
+        Object[] results = new Object[resultIndices.length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = value;
+        }
+        return results;
+    }
+}
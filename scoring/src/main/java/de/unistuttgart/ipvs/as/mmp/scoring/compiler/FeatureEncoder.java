@@ -0,0 +1,108 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the active fields that are tested by a compiled model into a vector of doubles.
+ * Numeric fields keep their value, string fields are encoded by the index of the category the model tests them for,
+ * or -1 if the model does not test them for the value at all. Missing values are encoded as NaN.
+ */
+class FeatureEncoder {
+
+    static final double UNKNOWN_CATEGORY = -1.0;
+
+    private final Map<FieldName, DataType> dataTypes = new HashMap<>();
+    private final Map<FieldName, Integer> indices = new HashMap<>();
+    private final List<FieldName> fieldNames = new ArrayList<>();
+    private final List<Map<String, Integer>> categories = new ArrayList<>();
+
+    FeatureEncoder(List<InputField> activeFields) {
+        for (InputField inputField : activeFields) {
+            dataTypes.put(inputField.getName(), inputField.getDataType());
+        }
+    }
+
+    /**
+     * Returns the index of the feature of an active field, adding the feature when it is tested for the first time.
+     */
+    int feature(FieldName name) {
+        Integer index = indices.get(name);
+        if (index != null) {
+            return index;
+        }
+        if (!dataTypes.containsKey(name)) {
+            throw new UnsupportedModelException("Field " + name + " is not an active field");
+        }
+        DataType dataType = dataTypes.get(name);
+        if (dataType == DataType.STRING) {
+            categories.add(new HashMap<>());
+        } else if (dataType == DataType.INTEGER || dataType == DataType.FLOAT || dataType == DataType.DOUBLE) {
+            categories.add(null);
+        } else {
+            throw new UnsupportedModelException("Field " + name + " has the unsupported data type " + dataType);
+        }
+        indices.put(name, fieldNames.size());
+        fieldNames.add(name);
+        return fieldNames.size() - 1;
+    }
+
+    DataType getDataType(int feature) {
+        return dataTypes.get(fieldNames.get(feature));
+    }
+
+    /**
+     * Returns the code of a category of a string feature.
+     */
+    double category(int feature, String value) {
+        Map<String, Integer> codes = categories.get(feature);
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = codes.size();
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the encoder of the features added so far, its lookups are plain array accesses.
+     */
+    Encoder build() {
+        @SuppressWarnings("unchecked")
+        Map<String, Integer>[] codes = categories.toArray(new Map[0]);
+        return new Encoder(fieldNames.toArray(new FieldName[0]), codes);
+    }
+
+    static final class Encoder {
+        private final FieldName[] fieldNames;
+        private final Map<String, Integer>[] codes;
+
+        private Encoder(FieldName[] fieldNames, Map<String, Integer>[] codes) {
+            this.fieldNames = fieldNames;
+            this.codes = codes;
+        }
+
+        double[] encode(Map<FieldName, FieldValue> arguments) {
+            double[] features = new double[fieldNames.length];
+            for (int i = 0; i < features.length; i++) {
+                FieldValue fieldValue = arguments.get(fieldNames[i]);
+                if (fieldValue == null || fieldValue.getValue() == null) {
+                    features[i] = Double.NaN;
+                } else if (codes[i] != null) {
+                    Integer code = codes[i].get(fieldValue.getValue());
+                    features[i] = code == null ? UNKNOWN_CATEGORY : code;
+                } else {
+                    features[i] = fieldValue.asNumber().doubleValue();
+                }
+            }
+            return features;
+        }
+    }
+}
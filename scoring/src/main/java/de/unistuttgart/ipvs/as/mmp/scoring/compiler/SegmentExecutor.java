@@ -0,0 +1,93 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walks the trees of large compiled ensembles in parallel on a shared fork/join pool, so a single record of a
+ * random forest with hundreds of segments is not scored by one thread. Only the trees are walked in parallel, the
+ * selected nodes are combined in the order of the segments afterwards, so the results do not depend on the
+ * execution mode. Records that are already scored on a fork/join pool, like large batches, walk the trees
+ * sequentially instead of competing for the same processors.
+ */
+@Component
+public class SegmentExecutor {
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int chunkSize;
+
+    /**
+     * @param enabled           whether the trees of large ensembles are walked in parallel
+     * @param parallelism       number of threads, all available processors if not positive
+     * @param parallelThreshold ensembles with at least this many segments are walked in parallel
+     * @param chunkSize         number of trees that a thread walks at once
+     */
+    public SegmentExecutor(@Value("${scoring.segments.parallel:false}") boolean enabled,
+                           @Value("${scoring.segments.parallelism:0}") int parallelism,
+                           @Value("${scoring.segments.parallel-threshold:100}") int parallelThreshold,
+                           @Value("${scoring.segments.chunk-size:25}") int chunkSize) {
+        this.pool = enabled ? new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("scoring-segments-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false) : null;
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    boolean isParallel(int segments) {
+        return pool != null && pool.getParallelism() > 1 && segments >= parallelThreshold
+                && !ForkJoinTask.inForkJoinPool();
+    }
+
+    /**
+     * Selects the node of every tree for the features, {@link CompiledTree#NO_NODE} for trees without a prediction.
+     */
+    void select(CompiledTree[] trees, double[] features, int[] nodes) {
+        pool.invoke(new SelectTask(trees, features, nodes, 0, trees.length));
+    }
+
+    private class SelectTask extends RecursiveAction {
+        private final CompiledTree[] trees;
+        private final double[] features;
+        private final int[] nodes;
+        private final int from;
+        private final int to;
+
+        private SelectTask(CompiledTree[] trees, double[] features, int[] nodes, int from, int to) {
+            this.trees = trees;
+            this.features = features;
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    nodes[i] = trees[i].select(features);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SelectTask(trees, features, nodes, from, middle),
+                        new SelectTask(trees, features, nodes, middle, to));
+            }
+        }
+    }
+}
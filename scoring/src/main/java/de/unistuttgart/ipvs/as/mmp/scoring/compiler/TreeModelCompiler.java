@@ -0,0 +1,390 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+import org.dmg.pmml.*;
+import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.mining.Segment;
+import org.dmg.pmml.mining.Segmentation;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.ModelEvaluator;
+import org.jpmml.evaluator.TargetField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compiles tree models and ensembles of tree models into {@link CompiledModel}s.
+ * Supported are classification trees with a string target and regression trees with a double target, on their own
+ * or as segments of a mining model that takes a majority vote, sums or averages them. The predicates of the nodes
+ * may be true, false or simple predicates comparing numeric fields or testing string fields for (in)equality.
+ * The results may be the target or output fields with the predicted value, or for a single classification tree
+ * the probability of a class.
+ * Everything else, like transformations, targets, compound predicates or embedded models, is left to the pmml
+ * evaluator, which also scores all records that test a missing value.
+ */
+public class TreeModelCompiler {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final SegmentExecutor segmentExecutor;
+
+    public TreeModelCompiler() {
+        this(null);
+    }
+
+    /**
+     * @param segmentExecutor executor of the trees of large ensembles, null to walk them sequentially
+     */
+    public TreeModelCompiler(SegmentExecutor segmentExecutor) {
+        this.segmentExecutor = segmentExecutor;
+    }
+
+    /**
+     * Compiles the model of an evaluator.
+     *
+     * @param evaluator    verified evaluator of the model
+     * @param resultFields result fields of the scoring plan of the evaluator
+     * @return the compiled model, or null if the model is not supported
+     */
+    public CompiledModel compile(Evaluator evaluator, List<FieldName> resultFields) {
+        if (!(evaluator instanceof ModelEvaluator)) {
+            return null;
+        }
+        try {
+            return new Compilation((ModelEvaluator<?>) evaluator, segmentExecutor).compile(resultFields);
+        } catch (UnsupportedModelException e) {
+            this.log.debug("Model {} is not compiled: {}", evaluator.getSummary(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static class Compilation {
+        private final ModelEvaluator<?> evaluator;
+        private final Model model;
+        private final FeatureEncoder featureEncoder;
+        private final Map<String, Integer> classes = new LinkedHashMap<>();
+        private final List<String> probabilityClasses = new ArrayList<>();
+        private final SegmentExecutor segmentExecutor;
+        private TargetField targetField;
+
+        private Compilation(ModelEvaluator<?> evaluator, SegmentExecutor segmentExecutor) {
+            this.evaluator = evaluator;
+            this.segmentExecutor = segmentExecutor;
+            this.model = evaluator.getModel();
+            this.featureEncoder = new FeatureEncoder(evaluator.getActiveFields());
+        }
+
+        private CompiledModel compile(List<FieldName> resultFields) {
+            TransformationDictionary transformationDictionary = evaluator.getPMML().getTransformationDictionary();
+            if (transformationDictionary != null
+                    && (transformationDictionary.hasDerivedFields() || transformationDictionary.hasDefineFunctions())) {
+                throw new UnsupportedModelException("Transformation dictionaries are not supported");
+            }
+            List<TargetField> targetFields = evaluator.getTargetFields();
+            if (targetFields.size() != 1) {
+                throw new UnsupportedModelException("Only models with one target field are supported");
+            }
+            this.targetField = targetFields.get(0);
+            checkModel(model);
+
+            boolean classification;
+            if (model.getMiningFunction() == MiningFunction.CLASSIFICATION) {
+                checkDataType(DataType.STRING);
+                classification = true;
+            } else if (model.getMiningFunction() == MiningFunction.REGRESSION) {
+                checkDataType(DataType.DOUBLE);
+                classification = false;
+            } else {
+                throw new UnsupportedModelException("Mining function " + model.getMiningFunction() + " is not supported");
+            }
+
+            int[] resultIndices = new int[resultFields.size()];
+            for (int i = 0; i < resultIndices.length; i++) {
+                resultIndices[i] = resultIndex(resultFields.get(i), classification);
+            }
+
+            CompiledTree[] trees;
+            CompiledTreeModel.Aggregation aggregation;
+            if (model instanceof TreeModel) {
+                trees = new CompiledTree[]{compileTree((TreeModel) model, classification)};
+                aggregation = CompiledTreeModel.Aggregation.NONE;
+            } else if (model instanceof MiningModel) {
+                Segmentation segmentation = ((MiningModel) model).getSegmentation();
+                aggregation = aggregation(segmentation.getMultipleModelMethod(), classification);
+                List<Segment> segments = segmentation.getSegments();
+                trees = new CompiledTree[segments.size()];
+                for (int i = 0; i < trees.length; i++) {
+                    trees[i] = compileTree(segmentTree(segments.get(i)), classification);
+                }
+            } else {
+                throw new UnsupportedModelException(model.getClass().getSimpleName() + " is not supported");
+            }
+
+            String[] classLabels = classification ? classes.keySet().toArray(new String[0]) : null;
+            return new CompiledTreeModel(featureEncoder.build(), trees, aggregation, classLabels, resultIndices,
+                    segmentExecutor);
+        }
+
+        private void checkModel(Model model) {
+            LocalTransformations localTransformations = model.getLocalTransformations();
+            if (localTransformations != null && localTransformations.hasDerivedFields()) {
+                throw new UnsupportedModelException("Local transformations are not supported");
+            }
+            Targets targets = model.getTargets();
+            if (targets != null && targets.hasTargets()) {
+                throw new UnsupportedModelException("Targets are not supported");
+            }
+        }
+
+        private void checkDataType(DataType dataType) {
+            if (targetField.getDataType() != dataType) {
+                throw new UnsupportedModelException("Target data type " + targetField.getDataType() + " is not supported");
+            }
+        }
+
+        private int resultIndex(FieldName resultField, boolean classification) {
+            Output output = model.getOutput();
+            if (output == null || !output.hasOutputFields()) {
+                if (!resultField.equals(targetField.getName())) {
+                    throw new UnsupportedModelException("Result field " + resultField + " is not the target field");
+                }
+                return CompiledTreeModel.TARGET;
+            }
+
+            OutputField outputField = output.getOutputFields().stream()
+                    .filter(field -> resultField.equals(field.getName()))
+                    .findFirst()
+                    .orElseThrow(() -> new UnsupportedModelException("Result field " + resultField + " is not an output field"));
+            if (outputField.getExpression() != null || outputField.getSegmentId() != null
+                    || (outputField.getTargetField() != null && !outputField.getTargetField().equals(targetField.getName()))) {
+                throw new UnsupportedModelException("Output field " + resultField + " is not supported");
+            }
+
+            ResultFeature feature = outputField.getResultFeature();
+            if (feature == ResultFeature.PREDICTED_VALUE
+                    && (outputField.getDataType() == null || outputField.getDataType() == targetField.getDataType())) {
+                return CompiledTreeModel.TARGET;
+            }
+            if (feature == ResultFeature.PROBABILITY && classification && model instanceof TreeModel
+                    && outputField.getValue() != null
+                    && (outputField.getDataType() == null || outputField.getDataType() == DataType.DOUBLE)) {
+                probabilityClasses.add(outputField.getValue().toString());
+                return probabilityClasses.size() - 1;
+            }
+            throw new UnsupportedModelException("Output field " + resultField + " with feature " + feature + " is not supported");
+        }
+
+        private CompiledTreeModel.Aggregation aggregation(Segmentation.MultipleModelMethod method, boolean classification) {
+            if (classification && method == Segmentation.MultipleModelMethod.MAJORITY_VOTE) {
+                return CompiledTreeModel.Aggregation.MAJORITY_VOTE;
+            } else if (!classification && method == Segmentation.MultipleModelMethod.SUM) {
+                return CompiledTreeModel.Aggregation.SUM;
+            } else if (!classification && method == Segmentation.MultipleModelMethod.AVERAGE) {
+                return CompiledTreeModel.Aggregation.AVERAGE;
+            }
+            throw new UnsupportedModelException("Multiple model method " + method + " is not supported");
+        }
+
+        private TreeModel segmentTree(Segment segment) {
+            if (!(segment.getPredicate() instanceof True) || !(segment.getModel() instanceof TreeModel)) {
+                throw new UnsupportedModelException("Only segments of tree models that are always true are supported");
+            }
+            TreeModel treeModel = (TreeModel) segment.getModel();
+            checkModel(treeModel);
+            if (treeModel.getMiningFunction() != model.getMiningFunction()) {
+                throw new UnsupportedModelException("Segments with another mining function are not supported");
+            }
+            Output output = treeModel.getOutput();
+            if (output != null && output.hasOutputFields()) {
+                throw new UnsupportedModelException("Output fields of segments are not supported");
+            }
+            checkMiningSchema(treeModel.getMiningSchema());
+            return treeModel;
+        }
+
+        /**
+         * The prepared arguments already went through the mining schema of the mining model, so the mining fields of
+         * a segment must not treat them differently.
+         */
+        private void checkMiningSchema(MiningSchema miningSchema) {
+            Map<FieldName, MiningField> modelFields = new HashMap<>();
+            for (MiningField miningField : model.getMiningSchema().getMiningFields()) {
+                modelFields.put(miningField.getName(), miningField);
+            }
+            for (MiningField miningField : miningSchema.getMiningFields()) {
+                MiningField modelField = modelFields.get(miningField.getName());
+                if (modelField == null || miningField.getUsageType() != modelField.getUsageType()) {
+                    throw new UnsupportedModelException("Mining field " + miningField.getName() + " differs from the mining model");
+                }
+                if (miningField.getUsageType() == MiningField.UsageType.ACTIVE
+                        && (miningField.getMissingValueReplacement() != null
+                        || miningField.getOutlierTreatment() != OutlierTreatmentMethod.AS_IS
+                        || miningField.getInvalidValueTreatment() != modelField.getInvalidValueTreatment())) {
+                    throw new UnsupportedModelException("Mining field " + miningField.getName() + " treats values differently");
+                }
+            }
+        }
+
+        private CompiledTree compileTree(TreeModel treeModel, boolean classification) {
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(treeModel.getNode());
+            for (int i = 0; i < nodes.size(); i++) {
+                Node node = nodes.get(i);
+                if (node.getEmbeddedModel() != null) {
+                    throw new UnsupportedModelException("Embedded models are not supported");
+                }
+                if (node.hasNodes()) {
+                    nodes.addAll(node.getNodes());
+                }
+            }
+
+            int size = nodes.size();
+            byte[] operators = new byte[size];
+            int[] features = new int[size];
+            double[] thresholds = new double[size];
+            int[] firstChildren = new int[size];
+            int[] childCounts = new int[size];
+            boolean[] scored = new boolean[size];
+            int[] classIndices = new int[size];
+            double[] values = new double[size];
+            double[] probabilities = new double[size * probabilityClasses.size()];
+
+            int nextChild = 1;
+            for (int i = 0; i < size; i++) {
+                Node node = nodes.get(i);
+                compilePredicate(node.getPredicate(), i, operators, features, thresholds);
+                firstChildren[i] = nextChild;
+                childCounts[i] = node.hasNodes() ? node.getNodes().size() : 0;
+                nextChild += childCounts[i];
+
+                Object score = node.getScore();
+                scored[i] = score != null;
+                if (!scored[i]) {
+                    continue;
+                }
+                if (classification) {
+                    classIndices[i] = classes.computeIfAbsent(score.toString(), label -> classes.size());
+                    compileProbabilities(node, i, probabilities);
+                } else {
+                    values[i] = parseDouble(score);
+                }
+            }
+
+            boolean returnLastPrediction =
+                    treeModel.getNoTrueChildStrategy() == TreeModel.NoTrueChildStrategy.RETURN_LAST_PREDICTION;
+            return new CompiledTree(operators, features, thresholds, firstChildren, childCounts, scored,
+                    classIndices, values, probabilities, probabilityClasses.size(), returnLastPrediction);
+        }
+
+        private void compilePredicate(Predicate predicate, int node, byte[] operators, int[] features,
+                                      double[] thresholds) {
+            if (predicate instanceof True) {
+                operators[node] = CompiledTree.TRUE;
+                return;
+            } else if (predicate instanceof False) {
+                operators[node] = CompiledTree.FALSE;
+                return;
+            } else if (!(predicate instanceof SimplePredicate)) {
+                throw new UnsupportedModelException("Predicate " + predicate + " is not supported");
+            }
+
+            SimplePredicate simplePredicate = (SimplePredicate) predicate;
+            int feature = featureEncoder.feature(simplePredicate.getField());
+            Object value = simplePredicate.getValue();
+            if (value == null) {
+                throw new UnsupportedModelException("Simple predicates without value are not supported");
+            }
+            features[node] = feature;
+            operators[node] = operator(simplePredicate.getOperator());
+
+            DataType dataType = featureEncoder.getDataType(feature);
+            if (dataType == DataType.STRING) {
+                if (operators[node] != CompiledTree.EQUAL && operators[node] != CompiledTree.NOT_EQUAL) {
+                    throw new UnsupportedModelException("String fields can only be tested for (in)equality");
+                }
+                thresholds[node] = featureEncoder.category(feature, value.toString());
+            } else if (dataType == DataType.FLOAT) {
+                thresholds[node] = parseFloat(value);
+            } else if (dataType == DataType.INTEGER) {
+                double threshold = parseDouble(value);
+                if (threshold != Math.rint(threshold)) {
+                    throw new UnsupportedModelException("Integer field is tested against " + value);
+                }
+                thresholds[node] = threshold;
+            } else {
+                thresholds[node] = parseDouble(value);
+            }
+        }
+
+        private byte operator(SimplePredicate.Operator operator) {
+            switch (operator) {
+                case EQUAL:
+                    return CompiledTree.EQUAL;
+                case NOT_EQUAL:
+                    return CompiledTree.NOT_EQUAL;
+                case LESS_THAN:
+                    return CompiledTree.LESS_THAN;
+                case LESS_OR_EQUAL:
+                    return CompiledTree.LESS_OR_EQUAL;
+                case GREATER_THAN:
+                    return CompiledTree.GREATER_THAN;
+                case GREATER_OR_EQUAL:
+                    return CompiledTree.GREATER_OR_EQUAL;
+                default:
+                    throw new UnsupportedModelException("Operator " + operator + " is not supported");
+            }
+        }
+
+        /**
+         * Like the evaluator the probabilities are the record counts of the score distributions divided by their sum.
+         */
+        private void compileProbabilities(Node node, int index, double[] probabilities) {
+            if (probabilityClasses.isEmpty()) {
+                return;
+            }
+            List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+            double sum = 0.0;
+            Map<String, Double> recordCounts = new HashMap<>();
+            for (ScoreDistribution scoreDistribution : scoreDistributions) {
+                if (scoreDistribution.getProbability() != null || scoreDistribution.getValue() == null
+                        || recordCounts.put(scoreDistribution.getValue().toString(), scoreDistribution.getRecordCount()) != null) {
+                    throw new UnsupportedModelException("Score distribution of node " + node.getId() + " is not supported");
+                }
+                sum += scoreDistribution.getRecordCount();
+            }
+            if (sum == 0.0) {
+                throw new UnsupportedModelException("Score distribution of node " + node.getId() + " is empty");
+            }
+            for (int i = 0; i < probabilityClasses.size(); i++) {
+                Double recordCount = recordCounts.get(probabilityClasses.get(i));
+                if (recordCount == null) {
+                    throw new UnsupportedModelException("Node " + node.getId() + " has no probability for "
+                            + probabilityClasses.get(i));
+                }
+                probabilities[index * probabilityClasses.size() + i] = recordCount / sum;
+            }
+        }
+
+        private static double parseDouble(Object value) {
+            try {
+                return Double.parseDouble(Objects.toString(value));
+            } catch (NumberFormatException e) {
+                throw new UnsupportedModelException("Value " + value + " is not a number");
+            }
+        }
+
+        private static double parseFloat(Object value) {
+            try {
+                return Float.parseFloat(Objects.toString(value));
+            } catch (NumberFormatException e) {
+                throw new UnsupportedModelException("Value " + value + " is not a number");
+            }
+        }
+    }
+}
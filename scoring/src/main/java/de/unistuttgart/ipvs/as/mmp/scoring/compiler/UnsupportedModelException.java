@@ -0,0 +1,12 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+/**
+ * Thrown while compiling a model that contains a construct the compiler does not support.
+ * The model is evaluated by the pmml evaluator then.
+ */
+class UnsupportedModelException extends RuntimeException {
+
+    UnsupportedModelException(String message) {
+        super(message);
+    }
+}
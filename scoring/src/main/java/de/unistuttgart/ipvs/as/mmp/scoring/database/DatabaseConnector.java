@@ -0,0 +1,54 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.database;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.RelationalDBInformation;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Connects to the relational databases of models. The url of a database is entered by the users of a project, while
+ * the connection is opened by the service, from inside its network and with every jdbc driver on its classpath. An
+ * arbitrary url would let users reach internal hosts or pass driver properties that load classes or files, e.g. a
+ * {@code socketFactory}. Only urls that start with one of the configured prefixes are therefore opened, and the rest
+ * of the url may only name a database, so it cannot add hosts or driver properties. The prefixes are trusted, they
+ * are set by the operators of the service.
+ */
+public class DatabaseConnector {
+
+    /**
+     * Database names, without the separators of hosts, ports and driver properties.
+     */
+    private static final Pattern DATABASE_NAME = Pattern.compile("[A-Za-z0-9_.\\-]*");
+
+    private final List<String> allowedUrls;
+
+    /**
+     * @param allowedUrls prefixes of the urls that may be opened, e.g. {@code jdbc:postgresql://db.example.org:5432/}
+     */
+    public DatabaseConnector(String... allowedUrls) {
+        this.allowedUrls = Arrays.asList(allowedUrls);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the url does not start with an allowed prefix or adds more than a database
+     *                                  name to it
+     */
+    public void validate(String url) {
+        boolean allowed = url != null && allowedUrls.stream()
+                .anyMatch(prefix -> !prefix.isEmpty() && url.startsWith(prefix)
+                        && DATABASE_NAME.matcher(url.substring(prefix.length())).matches());
+        if (!allowed) {
+            // the url is not included, it may contain credentials
+            throw new IllegalArgumentException("The database url is not allowed, see scoring.database.allowed-urls.");
+        }
+    }
+
+    public Connection connect(RelationalDBInformation database) throws SQLException {
+        validate(database.getUrl());
+        return DriverManager.getConnection(database.getUrl(), database.getDbUser(), database.getPassword());
+    }
+}
@@ -0,0 +1,372 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.database;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Scores the rows of a table and writes the outputs to a target table. The source table is read in key order with a
+ * cursor, the rows are scored in chunks of which several are scored at the same time, and the outputs are written in
+ * key order with one batched insert per chunk. After every written chunk the key of its last row is reported as
+ * checkpoint, a run that is started with a checkpoint continues after it. A chunk is committed before it is reported,
+ * so an interrupted run may have written the chunk after its last checkpoint, but not more.
+ * <p>
+ * The source is read and the target is written over separate connections, because the commit of a chunk would close
+ * the cursor of the source on most databases.
+ */
+public class DatabaseScorer {
+
+    private static final Pattern TABLE = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+    private static final Pattern COLUMN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    /**
+     * Is told about every written chunk.
+     */
+    public interface Listener {
+
+        /**
+         * @param checkpoint       key of the last written row
+         * @param processedRecords number of rows written by this and earlier runs
+         * @return false to stop the run after this chunk
+         */
+        boolean onChunkWritten(String checkpoint, long processedRecords);
+    }
+
+    private final Executor executor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int fetchSize;
+
+    /**
+     * @param executor    scores the chunks
+     * @param chunkSize   number of rows that are scored and written together
+     * @param parallelism number of chunks that are scored at the same time
+     * @param fetchSize   number of rows the cursor fetches from the database at once
+     */
+    public DatabaseScorer(Executor executor, int chunkSize, int parallelism, int fetchSize) {
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a table or column is not a plain sql identifier
+     */
+    public static void validate(String sourceTable, String keyColumn, String targetTable,
+                                Map<String, String> fieldMapping) {
+        requireMatch(TABLE, sourceTable, "source table");
+        requireMatch(COLUMN, keyColumn, "key column");
+        requireMatch(TABLE, targetTable, "target table");
+        if (fieldMapping != null) {
+            fieldMapping.keySet().forEach(column -> requireMatch(COLUMN, column, "mapped column"));
+        }
+    }
+
+    /**
+     * Scores the rows of the source table after the checkpoint. If the run is resumed, the rows of the target table
+     * with the keys of the first chunk are deleted before the chunk is inserted, in the same transaction, because the
+     * interrupted run may have written them without reporting it. Other rows of the target table are left alone, they
+     * were not written by this job.
+     *
+     * @param resume           whether an earlier run of the same tables was interrupted
+     * @param checkpoint       key of the last row that was written by an earlier run, null to start at the first row
+     * @param processedRecords number of rows written by earlier runs
+     * @return number of rows written by this and earlier runs
+     */
+    public long run(Connection source, Connection target, String sourceTable, String keyColumn, String targetTable,
+                    Map<String, String> fieldMapping, boolean resume, String checkpoint, long processedRecords,
+                    Function<List<List<ScoringInput>>, List<List<ScoringOutput>>> scorer, Listener listener)
+            throws SQLException, InterruptedException {
+        validate(sourceTable, keyColumn, targetTable, fieldMapping);
+        // postgres only fetches with a cursor outside of auto commit
+        source.setAutoCommit(false);
+        target.setAutoCommit(false);
+
+        int keyType = getColumnTypes(source, sourceTable).getOrDefault(normalize(keyColumn), Types.VARCHAR);
+        Map<String, Integer> targetColumns = getColumnTypes(target, targetTable);
+
+        String query = String.format("SELECT * FROM %s%s ORDER BY %s", sourceTable,
+                checkpoint != null ? String.format(" WHERE %s > ?", keyColumn) : "", keyColumn);
+        ChunkWriter writer = new ChunkWriter(target, targetTable, keyColumn, targetColumns, listener, processedRecords,
+                resume);
+        Deque<Chunk> pending = new ArrayDeque<>(parallelism);
+        try (PreparedStatement statement = source.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            if (checkpoint != null) {
+                statement.setObject(1, parseKey(checkpoint, keyType), keyType);
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                List<String> fields = getFields(rows.getMetaData(), keyColumn, fieldMapping);
+                int keyIndex = rows.findColumn(keyColumn);
+                Chunk chunk = new Chunk(chunkSize);
+                while (rows.next()) {
+                    chunk.add(rows.getObject(keyIndex), readInputs(rows, fields));
+                    if (chunk.size() >= chunkSize) {
+                        submit(chunk, scorer, pending);
+                        chunk = new Chunk(chunkSize);
+                        if (pending.size() >= parallelism && !writer.write(pending.poll())) {
+                            return writer.processedRecords;
+                        }
+                    }
+                }
+                if (chunk.size() > 0) {
+                    submit(chunk, scorer, pending);
+                }
+            }
+            while (!pending.isEmpty()) {
+                if (!writer.write(pending.poll())) {
+                    return writer.processedRecords;
+                }
+            }
+            return writer.processedRecords;
+        } finally {
+            pending.forEach(chunk -> chunk.outputs.cancel(false));
+            source.rollback();
+        }
+    }
+
+    private void submit(Chunk chunk, Function<List<List<ScoringInput>>, List<List<ScoringOutput>>> scorer,
+                        Deque<Chunk> pending) {
+        chunk.outputs = CompletableFuture.supplyAsync(() -> scorer.apply(chunk.inputs), executor);
+        pending.add(chunk);
+    }
+
+    private static List<String> getFields(ResultSetMetaData metaData, String keyColumn,
+                                          Map<String, String> fieldMapping) throws SQLException {
+        Map<String, String> mapping = new HashMap<>();
+        if (fieldMapping != null) {
+            fieldMapping.forEach((column, field) -> mapping.put(normalize(column), field));
+        }
+        List<String> fields = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String column = normalize(metaData.getColumnLabel(i));
+            // the key is only scored if it is mapped to a field explicitly
+            if (mapping.containsKey(column)) {
+                fields.add(mapping.get(column));
+            } else {
+                fields.add(column.equals(normalize(keyColumn)) ? null : metaData.getColumnLabel(i));
+            }
+        }
+        return fields;
+    }
+
+    private static List<ScoringInput> readInputs(ResultSet rows, List<String> fields) throws SQLException {
+        List<ScoringInput> inputs = new ArrayList<>(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.get(i);
+            if (field == null) {
+                continue;
+            }
+            // null columns are left out, so the evaluator treats them as missing values
+            String value = rows.getString(i + 1);
+            if (value != null) {
+                inputs.add(new ScoringInput(field, value));
+            }
+        }
+        return inputs;
+    }
+
+    private static Map<String, Integer> getColumnTypes(Connection connection, String table) throws SQLException {
+        Map<String, Integer> columns = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(String.format("SELECT * FROM %s WHERE 1 = 0", table))) {
+            ResultSetMetaData metaData = rows.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.put(normalize(metaData.getColumnLabel(i)), metaData.getColumnType(i));
+            }
+        }
+        return columns;
+    }
+
+    private static Object parseKey(String key, int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Long.valueOf(key);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new BigDecimal(key);
+            default:
+                return key;
+        }
+    }
+
+    /**
+     * Columns are compared without their case, databases fold unquoted identifiers to upper or lower case.
+     */
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Outputs are written to the column with the name of the output, characters that cannot be part of an unquoted
+     * identifier are replaced with an underscore, e.g. {@code probability(Iris-setosa)} is written to
+     * {@code probability_iris_setosa_}.
+     */
+    static String toColumn(String output) {
+        return normalize(output.replaceAll("[^A-Za-z0-9_]", "_"));
+    }
+
+    private static void requireMatch(Pattern pattern, String identifier, String description) {
+        if (identifier == null || !pattern.matcher(identifier).matches()) {
+            throw new IllegalArgumentException(String.format("The %s %s is not a valid sql identifier.",
+                    description, identifier));
+        }
+    }
+
+    private static class Chunk {
+        private final List<Object> keys;
+        private final List<List<ScoringInput>> inputs;
+        private CompletableFuture<List<List<ScoringOutput>>> outputs;
+
+        private Chunk(int size) {
+            this.keys = new ArrayList<>(size);
+            this.inputs = new ArrayList<>(size);
+        }
+
+        private void add(Object key, List<ScoringInput> rowInputs) {
+            keys.add(key);
+            inputs.add(rowInputs);
+        }
+
+        private int size() {
+            return keys.size();
+        }
+    }
+
+    private static class ChunkWriter {
+        private final Connection target;
+        private final String targetTable;
+        private final String keyColumn;
+        private final Map<String, Integer> targetColumns;
+        private final Listener listener;
+        private long processedRecords;
+        private boolean replace;
+        private List<String> outputColumns;
+        private String insert;
+
+        /**
+         * @param replace whether the rows of the first chunk are deleted before they are inserted
+         */
+        private ChunkWriter(Connection target, String targetTable, String keyColumn,
+                            Map<String, Integer> targetColumns, Listener listener, long processedRecords,
+                            boolean replace) {
+            this.target = target;
+            this.targetTable = targetTable;
+            this.keyColumn = keyColumn;
+            this.targetColumns = targetColumns;
+            this.listener = listener;
+            this.processedRecords = processedRecords;
+            this.replace = replace;
+        }
+
+        /**
+         * Waits for the outputs of the chunk and inserts them.
+         *
+         * @return false if the run should stop
+         */
+        private boolean write(Chunk chunk) throws SQLException, InterruptedException {
+            List<List<ScoringOutput>> outputs = getOutputs(chunk);
+            if (insert == null) {
+                prepareInsert(outputs.isEmpty() ? Collections.emptyList() : outputs.get(0));
+            }
+            if (replace) {
+                delete(chunk);
+                replace = false;
+            }
+            try (PreparedStatement statement = target.prepareStatement(insert)) {
+                for (int row = 0; row < chunk.size(); row++) {
+                    statement.setObject(1, chunk.keys.get(row));
+                    Map<String, String> values = new HashMap<>();
+                    for (ScoringOutput output : outputs.get(row)) {
+                        values.put(toColumn(output.getName()), output.getValue());
+                    }
+                    for (int column = 0; column < outputColumns.size(); column++) {
+                        String value = values.get(outputColumns.get(column));
+                        if (value != null) {
+                            statement.setString(column + 2, value);
+                        } else {
+                            statement.setNull(column + 2, targetColumns.get(outputColumns.get(column)));
+                        }
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            target.commit();
+            processedRecords += chunk.size();
+            return listener.onChunkWritten(String.valueOf(chunk.keys.get(chunk.size() - 1)), processedRecords);
+        }
+
+        private void delete(Chunk chunk) throws SQLException {
+            String delete = String.format("DELETE FROM %s WHERE %s = ?", targetTable, keyColumn);
+            try (PreparedStatement statement = target.prepareStatement(delete)) {
+                for (Object key : chunk.keys) {
+                    statement.setObject(1, key);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+
+        private List<List<ScoringOutput>> getOutputs(Chunk chunk) throws InterruptedException {
+            try {
+                return chunk.outputs.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * The written columns are the columns of the target table that match an output of the first row.
+         */
+        private void prepareInsert(List<ScoringOutput> outputs) {
+            outputColumns = new ArrayList<>();
+            for (ScoringOutput output : outputs) {
+                String column = toColumn(output.getName());
+                if (targetColumns.containsKey(column) && !column.equals(normalize(keyColumn))
+                        && !outputColumns.contains(column)) {
+                    outputColumns.add(column);
+                }
+            }
+            StringBuilder columns = new StringBuilder(keyColumn);
+            StringBuilder parameters = new StringBuilder("?");
+            for (String column : outputColumns) {
+                columns.append(", ").append(column);
+                parameters.append(", ?");
+            }
+            insert = String.format("INSERT INTO %s (%s) VALUES (%s)", targetTable, columns, parameters);
+        }
+    }
+}
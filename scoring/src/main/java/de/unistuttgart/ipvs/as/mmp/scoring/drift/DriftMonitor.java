@@ -0,0 +1,148 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.drift;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.PMMLMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.FieldDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.InputDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monitors the scoring inputs of every model for drift from the data the model was trained on, as described by the
+ * intervals and possible values of the input attributes in its pmml metadata. The monitors of a model are created
+ * with its first scoring and only use lock-free counters, so observing the inputs adds almost nothing to a scoring.
+ * The inputs are observed before they are bound, so values that fail the evaluation are monitored as well.
+ * The monitors of a model are reset when its model file changes. Inputs are matched to the attributes regardless of
+ * case, like they are bound by the scoring plan. Streamed and columnar records are not observed, like they are not
+ * recorded as scorings, they are bound from their columns without creating scoring inputs.
+ * <p>
+ * The input attributes are loaded lazily and models are also scored on threads without a session, e.g. by jobs, so
+ * the monitors of a model are created from the attributes of the model as it is read again in a read-only
+ * transaction, not from the model of the scoring.
+ */
+@Component
+public class DriftMonitor {
+
+    private final ModelRepository modelRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Map<Long, ModelMonitor> monitors = new ConcurrentHashMap<>();
+
+    public DriftMonitor(ModelRepository modelRepository, PlatformTransactionManager transactionManager,
+                        @Value("${scoring.drift.enabled:true}") boolean enabled) {
+        this.modelRepository = modelRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    public void observe(Model model, List<ScoringInput> inputs) {
+        if (!enabled || model.getId() == null) {
+            return;
+        }
+        getMonitor(model).observe(inputs);
+    }
+
+    public InputDrift getDrift(Model model) {
+        return getMonitor(model).toInputDrift(model.getId());
+    }
+
+    public void reset(Long modelId) {
+        monitors.remove(modelId);
+    }
+
+    @EventListener
+    public void onModelFileChanged(ModelFileChangedEvent event) {
+        reset(event.getModelId());
+    }
+
+    private ModelMonitor getMonitor(Model model) {
+        ModelMonitor monitor = monitors.get(model.getId());
+        if (monitor != null) {
+            return monitor;
+        }
+        // the model is read outside of computeIfAbsent, which would block the scorings of other models in its bin
+        ModelMonitor createdMonitor = createMonitor(model.getId());
+        monitor = monitors.putIfAbsent(model.getId(), createdMonitor);
+        return monitor != null ? monitor : createdMonitor;
+    }
+
+    private ModelMonitor createMonitor(Long modelId) {
+        return transactionTemplate.execute(status -> new ModelMonitor(modelRepository.findById(modelId)
+                .map(DriftMonitor::getInputAttributes)
+                .orElse(Collections.emptyList())));
+    }
+
+    private static List<InputAttribute> getInputAttributes(Model model) {
+        ModelMetadata modelMetadata = model.getModelMetadata();
+        PMMLMetadata pmmlMetadata = modelMetadata == null ? null : modelMetadata.getPmmlMetadata();
+        return pmmlMetadata == null || pmmlMetadata.getInputAttributes() == null
+                ? Collections.emptyList() : pmmlMetadata.getInputAttributes();
+    }
+
+    private static class ModelMonitor {
+        private final LocalDateTime since = LocalDateTime.now();
+        private final LongAdder records = new LongAdder();
+        private final Map<String, FieldMonitor> fields;
+
+        /**
+         * The intervals and possible values of the attributes are copied, they are not used after the transaction.
+         */
+        private ModelMonitor(List<InputAttribute> attributes) {
+            Map<String, FieldMonitor> fieldMonitors = new HashMap<>();
+            for (InputAttribute attribute : attributes) {
+                if (attribute.getName() != null) {
+                    fieldMonitors.putIfAbsent(normalize(attribute.getName()), new FieldMonitor(attribute));
+                }
+            }
+            this.fields = fieldMonitors;
+        }
+
+        private void observe(List<ScoringInput> inputs) {
+            records.increment();
+            for (ScoringInput input : inputs) {
+                FieldMonitor field = input.getName() == null ? null : fields.get(normalize(input.getName()));
+                if (field != null) {
+                    field.observe(input.getValue());
+                }
+            }
+        }
+
+        private InputDrift toInputDrift(Long modelId) {
+            long recordCount = records.sum();
+            List<FieldDrift> fieldDrifts = new ArrayList<>(fields.size());
+            for (FieldMonitor field : fields.values()) {
+                fieldDrifts.add(field.toFieldDrift(recordCount));
+            }
+            fieldDrifts.sort((first, second) -> first.getName().compareTo(second.getName()));
+            return InputDrift.builder()
+                    .modelId(modelId)
+                    .since(since)
+                    .records(recordCount)
+                    .fields(fieldDrifts)
+                    .build();
+        }
+
+        private static String normalize(String name) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+    }
+}
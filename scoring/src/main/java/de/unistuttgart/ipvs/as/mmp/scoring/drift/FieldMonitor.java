@@ -0,0 +1,133 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.drift;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Interval;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.FieldDrift;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the scored values of one input field without locks. Numeric values are checked against the intervals of
+ * the field and added to a {@link QuantileSketch}, all values are checked against its possible values.
+ * Fields without intervals or possible values never count values as out of range or unseen.
+ */
+final class FieldMonitor {
+
+    private static final double[] QUANTILES = {0.05, 0.25, 0.5, 0.75, 0.95};
+    private static final Set<String> NUMERIC_TYPES = new HashSet<>(Arrays.asList("integer", "float", "double"));
+
+    private final String name;
+    private final boolean numeric;
+    private final double[] starts;
+    private final double[] ends;
+    private final boolean[] startsClosed;
+    private final boolean[] endsClosed;
+    private final Set<String> possibleValues;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder outOfRange = new LongAdder();
+    private final LongAdder unseen = new LongAdder();
+    private final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    private final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder numericCount = new LongAdder();
+    private final QuantileSketch sketch;
+
+    FieldMonitor(InputAttribute attribute) {
+        this.name = attribute.getName();
+        List<Interval> intervals = attribute.getIntervals();
+        int intervalCount = intervals == null ? 0 : intervals.size();
+        this.numeric = intervalCount > 0
+                || (attribute.getDataType() != null && NUMERIC_TYPES.contains(attribute.getDataType().toLowerCase()));
+        this.starts = new double[intervalCount];
+        this.ends = new double[intervalCount];
+        this.startsClosed = new boolean[intervalCount];
+        this.endsClosed = new boolean[intervalCount];
+        for (int i = 0; i < intervalCount; i++) {
+            Interval interval = intervals.get(i);
+            String closure = interval.getClosure() == null ? "closedClosed" : interval.getClosure();
+            starts[i] = interval.getStartRange() == null ? Double.NEGATIVE_INFINITY : interval.getStartRange();
+            ends[i] = interval.getEndRange() == null ? Double.POSITIVE_INFINITY : interval.getEndRange();
+            startsClosed[i] = closure.startsWith("closed");
+            endsClosed[i] = closure.endsWith("Closed");
+        }
+        List<String> values = attribute.getPossibleValues();
+        this.possibleValues = values == null || values.isEmpty() ? null : new HashSet<>(values);
+        this.sketch = numeric ? new QuantileSketch() : null;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void observe(String value) {
+        count.increment();
+        if (possibleValues != null && !possibleValues.contains(value)) {
+            unseen.increment();
+        }
+        if (!numeric) {
+            return;
+        }
+        double number;
+        try {
+            number = Double.parseDouble(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            invalid.increment();
+            return;
+        }
+        if (Double.isNaN(number)) {
+            invalid.increment();
+            return;
+        }
+        if (starts.length > 0 && !inRange(number)) {
+            outOfRange.increment();
+        }
+        numericCount.increment();
+        min.accumulate(number);
+        max.accumulate(number);
+        sum.add(number);
+        sketch.add(number);
+    }
+
+    private boolean inRange(double number) {
+        for (int i = 0; i < starts.length; i++) {
+            boolean afterStart = startsClosed[i] ? number >= starts[i] : number > starts[i];
+            boolean beforeEnd = endsClosed[i] ? number <= ends[i] : number < ends[i];
+            if (afterStart && beforeEnd) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    FieldDrift toFieldDrift(long records) {
+        long values = count.sum();
+        FieldDrift.FieldDriftBuilder builder = FieldDrift.builder()
+                .name(name)
+                .count(values)
+                .missing(Math.max(0L, records - values))
+                .invalid(invalid.sum())
+                .outOfRange(outOfRange.sum())
+                .outOfRangeRate(values == 0 ? 0.0 : (double) outOfRange.sum() / values)
+                .unseen(unseen.sum())
+                .unseenRate(values == 0 ? 0.0 : (double) unseen.sum() / values);
+        long numbers = numericCount.sum();
+        if (numeric && numbers > 0) {
+            Map<String, Double> quantiles = new LinkedHashMap<>();
+            for (double quantile : QUANTILES) {
+                quantiles.put("p" + Math.round(quantile * 100), sketch.quantile(quantile));
+            }
+            builder.min(min.get()).max(max.get()).mean(sum.sum() / numbers).quantiles(quantiles);
+        }
+        return builder.build();
+    }
+}
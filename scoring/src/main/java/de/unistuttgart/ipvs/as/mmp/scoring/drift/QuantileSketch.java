@@ -0,0 +1,95 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.drift;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free quantile sketch with a relative accuracy of about 5 percent. Values are counted in buckets whose bounds
+ * grow geometrically, separately for positive and negative values, so adding a value is one logarithm and one
+ * atomic increment. Magnitudes below {@link #MIN_MAGNITUDE} are counted as zero, magnitudes beyond the last bucket
+ * are counted in the last bucket. Quantiles are computed from a snapshot of the buckets, which is not atomic, so
+ * values added concurrently may or may not be included.
+ */
+public final class QuantileSketch {
+
+    private static final double GAMMA = 1.1;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_MAGNITUDE = 1e-6;
+    /**
+     * Buckets up to a magnitude of about 3.6e10.
+     */
+    private static final int BUCKETS = 400;
+
+    private final AtomicLongArray positive = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray negative = new AtomicLongArray(BUCKETS);
+    private final LongAdder zero = new LongAdder();
+
+    public void add(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude < MIN_MAGNITUDE) {
+            zero.increment();
+        } else {
+            (value > 0 ? positive : negative).incrementAndGet(bucket(magnitude));
+        }
+    }
+
+    /**
+     * Returns the estimated quantile, or null if no value was added.
+     */
+    public Double quantile(double quantile) {
+        long[] negativeCounts = snapshot(negative);
+        long zeroCount = zero.sum();
+        long[] positiveCounts = snapshot(positive);
+        long total = zeroCount;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += negativeCounts[i] + positiveCounts[i];
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        long rank = (long) (quantile * (total - 1));
+        long seen = 0;
+        // from the most negative to the most positive value
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            seen += negativeCounts[i];
+            if (seen > rank) {
+                return -value(i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += positiveCounts[i];
+            if (seen > rank) {
+                return value(i);
+            }
+        }
+        return value(BUCKETS - 1);
+    }
+
+    /**
+     * Bucket i counts the magnitudes in (MIN_MAGNITUDE * GAMMA^(i-1), MIN_MAGNITUDE * GAMMA^i].
+     */
+    private static int bucket(double magnitude) {
+        int bucket = (int) Math.ceil(Math.log(magnitude / MIN_MAGNITUDE) / LOG_GAMMA);
+        return Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+
+    /**
+     * The value with the same relative distance to both bounds of the bucket.
+     */
+    private static double value(int bucket) {
+        return 2.0 * MIN_MAGNITUDE * Math.pow(GAMMA, bucket) / (GAMMA + 1.0);
+    }
+
+    private static long[] snapshot(AtomicLongArray counts) {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+}
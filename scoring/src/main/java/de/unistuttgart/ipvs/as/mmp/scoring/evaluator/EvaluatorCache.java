@@ -0,0 +1,216 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelFile;
+import de.unistuttgart.ipvs.as.mmp.common.exception.ScoringException;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.scoring.compiler.SegmentExecutor;
+import de.unistuttgart.ipvs.as.mmp.scoring.compiler.TreeModelCompiler;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics.Phase;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.dmg.pmml.PMML;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.ModelEvaluatorFactory;
+import org.jpmml.evaluator.ReportingValueFactoryFactory;
+import org.jpmml.evaluator.ValueFactoryFactory;
+import org.jpmml.model.VisitorBattery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.xml.sax.SAXException;
+
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified PMML evaluators and their scoring plans.
+ * Entries are keyed by model id and model file id and weighted by the size of the raw PMML file, so the cache
+ * evicts the least recently used evaluators once the configured amount of PMML is held in memory.
+ * Concurrent misses for the same key share a single load. Cold loads read the optimized pmml from its
+ * {@link PMMLSnapshotStore} if there is a current snapshot and only parse the xml otherwise.
+ */
+@Component
+public class EvaluatorCache {
+
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final Cache<EvaluatorKey, CachedEvaluator> cache;
+    private final ScoringMetrics scoringMetrics;
+    private final TreeModelCompiler treeModelCompiler;
+    private final PMMLSnapshotStore pmmlSnapshotStore;
+
+    /**
+     * @param compileTrees    whether tree models and tree ensembles are compiled, see {@link ScoringPlan}
+     * @param segmentExecutor executor of the trees of large compiled ensembles, null to walk them sequentially
+     * @param pmmlSnapshotStore snapshots of the optimized pmml, null to always parse the xml
+     */
+    public EvaluatorCache(@Value("${scoring.evaluator.cache.max-size-mb:256}") long maxSizeMb,
+                          @Value("${scoring.evaluator.compile-trees:true}") boolean compileTrees,
+                          SegmentExecutor segmentExecutor, PMMLSnapshotStore pmmlSnapshotStore,
+                          ScoringMetrics scoringMetrics) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * BYTES_PER_MEGABYTE)
+                .weigher((EvaluatorKey key, CachedEvaluator value) -> value.getWeight())
+                .recordStats()
+                .build();
+        this.scoringMetrics = scoringMetrics;
+        this.treeModelCompiler = compileTrees ? new TreeModelCompiler(segmentExecutor) : null;
+        this.pmmlSnapshotStore = pmmlSnapshotStore;
+        CaffeineCacheMetrics.monitor(scoringMetrics.getMeterRegistry(), cache, "evaluators");
+    }
+
+    /**
+     * Returns the verified evaluator for the model file of the given model, loading it if necessary.
+     *
+     * @param model model with a pmml model file
+     * @return verified evaluator that can be shared between threads
+     */
+    public Evaluator getEvaluator(Model model) {
+        return getScoringPlan(model).getEvaluator();
+    }
+
+    /**
+     * Returns the scoring plan of the verified evaluator for the model file of the given model,
+     * loading the evaluator if necessary.
+     *
+     * @param model model with a pmml model file
+     * @return scoring plan that can be shared between threads
+     */
+    public ScoringPlan getScoringPlan(Model model) {
+        ModelFile modelFile = model.getModelFile();
+        if (modelFile == null || modelFile.getDbFile() == null) {
+            this.log.error("Model {} has no model file", model.getId());
+            throw ScoringException.parsingError();
+        }
+        EvaluatorKey key = new EvaluatorKey(model.getId(), modelFile.getId());
+        return cache.get(key, k -> load(model, modelFile)).getScoringPlan();
+    }
+
+    public void invalidate(Long modelId) {
+        cache.asMap().keySet().removeIf(key -> key.getModelId() != null && key.getModelId().equals(modelId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onModelFileChanged(ModelFileChangedEvent event) {
+        invalidate(event.getModelId());
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("hitCount", stats.hitCount());
+        statistics.put("missCount", stats.missCount());
+        statistics.put("loadSuccessCount", stats.loadSuccessCount());
+        statistics.put("loadFailureCount", stats.loadFailureCount());
+        statistics.put("totalLoadTimeMillis", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime()));
+        statistics.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+        statistics.put("evictionCount", stats.evictionCount());
+        statistics.put("size", cache.estimatedSize());
+        cache.policy().eviction().ifPresent(eviction -> {
+            statistics.put("weightedSizeBytes", eviction.weightedSize().orElse(0L));
+            statistics.put("maximumSizeBytes", eviction.getMaximum());
+        });
+        return statistics;
+    }
+
+    private CachedEvaluator load(Model model, ModelFile modelFile) {
+        byte[] data = modelFile.getDbFile().getData();
+        ParsedPMML parsed = scoringMetrics.time(Phase.PARSE, model, () -> {
+            PMML pmml = pmmlSnapshotStore != null ? pmmlSnapshotStore.load(modelFile) : null;
+            if (pmml != null) {
+                return new ParsedPMML(pmml, newEvaluator(pmml), true);
+            }
+            try {
+                pmml = unmarshal(data);
+            } catch (IOException | SAXException | JAXBException e) {
+                this.log.error(e.getMessage(), e.getCause());
+                throw ScoringException.parsingError();
+            }
+            return new ParsedPMML(pmml, createEvaluator(pmml), false);
+        });
+        Evaluator evaluator = parsed.getEvaluator();
+
+        scoringMetrics.time(Phase.VERIFY, model, () -> {
+            try {
+                evaluator.verify();
+            } catch (Exception e) {
+                this.log.error(e.getMessage(), e.getCause());
+                throw ScoringException.verifyError();
+            }
+            return evaluator;
+        });
+        if (pmmlSnapshotStore != null && !parsed.isFromSnapshot()) {
+            pmmlSnapshotStore.store(model.getId(), modelFile, parsed.getPmml());
+        }
+        return new CachedEvaluator(new ScoringPlan(evaluator, treeModelCompiler), data.length);
+    }
+
+    static PMML unmarshal(byte[] data) throws IOException, SAXException, JAXBException {
+        try (InputStream is = new ByteArrayInputStream(data)) {
+            return org.jpmml.model.PMMLUtil.unmarshal(is);
+        }
+    }
+
+    static Evaluator createEvaluator(PMML pmml) {
+        optimize(pmml);
+        return newEvaluator(pmml);
+    }
+
+    /**
+     * Removes the source locations and interns the attributes of the pmml, snapshots are taken afterwards.
+     */
+    static void optimize(PMML pmml) {
+        VisitorBattery visitorBattery = new VisitorBattery();
+        visitorBattery.add(org.jpmml.model.visitors.LocatorNullifier.class);
+        visitorBattery.addAll(new org.jpmml.model.visitors.AttributeInternerBattery());
+        visitorBattery.applyTo(pmml);
+    }
+
+    static Evaluator newEvaluator(PMML pmml) {
+        ModelEvaluatorFactory modelEvaluatorFactory = ModelEvaluatorFactory.newInstance();
+        ValueFactoryFactory valueFactoryFactory = ReportingValueFactoryFactory.newInstance();
+        modelEvaluatorFactory.setValueFactoryFactory(valueFactoryFactory);
+
+        return modelEvaluatorFactory.newModelEvaluator(pmml);
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class EvaluatorKey {
+        private Long modelId;
+        private Long modelFileId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class ParsedPMML {
+        private PMML pmml;
+        private Evaluator evaluator;
+        private boolean fromSnapshot;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class CachedEvaluator {
+        private ScoringPlan scoringPlan;
+        private int weight;
+    }
+}
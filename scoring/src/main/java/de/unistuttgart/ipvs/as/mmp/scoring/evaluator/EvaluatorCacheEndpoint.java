@@ -0,0 +1,32 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the hit, miss and load time counters of the {@link EvaluatorCache}.
+ */
+@Component
+@Endpoint(id = "evaluatorcache")
+public class EvaluatorCacheEndpoint {
+
+    private final EvaluatorCache evaluatorCache;
+
+    public EvaluatorCacheEndpoint(EvaluatorCache evaluatorCache) {
+        this.evaluatorCache = evaluatorCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return evaluatorCache.getStatistics();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        evaluatorCache.invalidateAll();
+    }
+}
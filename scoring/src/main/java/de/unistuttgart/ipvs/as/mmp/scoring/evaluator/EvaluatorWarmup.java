@@ -0,0 +1,180 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.PMMLMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional warm-up of the evaluators of all operational models after the application started.
+ * The evaluators are loaded into the {@link EvaluatorCache} and evaluated with synthetic inputs that are generated
+ * from the pmml metadata of the models, so the first requests neither parse pmml nor run interpreted code.
+ * The warm-up runs in the background, until it finished the service is reported as out of service.
+ */
+@Component
+public class EvaluatorWarmup {
+
+    private static final int DISTINCT_INPUTS = 64;
+
+    private final ModelRepository modelRepository;
+    private final EvaluatorCache evaluatorCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int iterations;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private volatile State state;
+    private volatile int totalModels;
+    private volatile int warmedModels;
+    private volatile int failedModels;
+    private volatile long durationMillis;
+
+    public EvaluatorWarmup(ModelRepository modelRepository, EvaluatorCache evaluatorCache,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${scoring.warmup.enabled:false}") boolean enabled,
+                           @Value("${scoring.warmup.iterations:2000}") int iterations) {
+        this.modelRepository = modelRepository;
+        this.evaluatorCache = evaluatorCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.state = enabled ? State.PENDING : State.DISABLED;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "scoring-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Loads and evaluates the evaluators of all operational models. Models that fail are skipped, if the models cannot
+     * be listed the warm-up fails. Either way the warm-up ends, so the service does not stay out of service.
+     */
+    public void warmUp() {
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            List<Long> modelIds = modelRepository.findAllIdsByStatus(ModelStatus.OPERATION);
+            totalModels = modelIds.size();
+            this.log.info("Warming up the evaluators of {} operational models", totalModels);
+
+            // the counters are read by the health checks, they are only written by this thread
+            int warmed = 0;
+            int failed = 0;
+            for (Long modelId : modelIds) {
+                try {
+                    warmUp(modelId);
+                    warmedModels = ++warmed;
+                } catch (RuntimeException e) {
+                    this.log.warn(String.format("Could not warm up the evaluator of model %s", modelId), e);
+                    failedModels = ++failed;
+                }
+            }
+            completed = true;
+        } catch (RuntimeException e) {
+            this.log.error("Could not warm up the evaluators", e);
+        } finally {
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            state = completed ? State.FINISHED : State.FAILED;
+        }
+        this.log.info("Warmed up {} evaluators in {} ms, {} failed", warmedModels, durationMillis, failedModels);
+    }
+
+    private void warmUp(Long modelId) {
+        // the metadata and the model file are loaded lazily, so the plan and the inputs are created in a transaction
+        WarmupTask task = transactionTemplate.execute(status -> {
+            Model model = modelRepository.findById(modelId).orElse(null);
+            if (model == null) {
+                return null;
+            }
+            ScoringPlan scoringPlan = evaluatorCache.getScoringPlan(model);
+            List<InputAttribute> inputAttributes = getInputAttributes(model);
+            WarmupInputGenerator generator = new WarmupInputGenerator(modelId);
+            List<List<ScoringInput>> inputs = new ArrayList<>(DISTINCT_INPUTS);
+            for (int i = 0; i < DISTINCT_INPUTS; i++) {
+                inputs.add(generator.generate(inputAttributes));
+            }
+            return new WarmupTask(scoringPlan, inputs);
+        });
+        if (task == null) {
+            return;
+        }
+
+        int failedEvaluations = 0;
+        for (int i = 0; i < iterations; i++) {
+            List<ScoringInput> inputs = task.inputs.get(i % task.inputs.size());
+            try {
+                task.scoringPlan.toScoringOutputs(task.scoringPlan.evaluate(task.scoringPlan.bind(inputs)));
+            } catch (RuntimeException e) {
+                // synthetic inputs may be rejected by the model, the code paths are warmed up nevertheless
+                failedEvaluations++;
+            }
+        }
+        if (failedEvaluations > 0) {
+            this.log.debug("{} of {} warm-up evaluations of model {} failed", failedEvaluations, iterations, modelId);
+        }
+    }
+
+    private List<InputAttribute> getInputAttributes(Model model) {
+        if (model.getModelMetadata() == null || model.getModelMetadata().getPmmlMetadata() == null) {
+            return Collections.emptyList();
+        }
+        PMMLMetadata pmmlMetadata = model.getModelMetadata().getPmmlMetadata();
+        return pmmlMetadata.getInputAttributes() == null ? Collections.emptyList() : pmmlMetadata.getInputAttributes();
+    }
+
+    public boolean isFinished() {
+        return state == State.DISABLED || state == State.FINISHED || state == State.FAILED;
+    }
+
+    public Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", state.name());
+        if (state != State.DISABLED) {
+            details.put("totalModels", totalModels);
+            details.put("warmedModels", warmedModels);
+            details.put("failedModels", failedModels);
+        }
+        if (state == State.FINISHED || state == State.FAILED) {
+            details.put("durationMillis", durationMillis);
+        }
+        return details;
+    }
+
+    private enum State {
+        DISABLED, PENDING, RUNNING, FINISHED, FAILED
+    }
+
+    private static class WarmupTask {
+        private final ScoringPlan scoringPlan;
+        private final List<List<ScoringInput>> inputs;
+
+        private WarmupTask(ScoringPlan scoringPlan, List<List<ScoringInput>> inputs) {
+            this.scoringPlan = scoringPlan;
+            this.inputs = inputs;
+        }
+    }
+}
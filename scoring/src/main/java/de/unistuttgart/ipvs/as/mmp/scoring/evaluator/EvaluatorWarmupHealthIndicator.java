@@ -0,0 +1,28 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the service as out of service while the evaluators are warmed up, see {@link EvaluatorWarmup}.
+ */
+@Component
+public class EvaluatorWarmupHealthIndicator extends AbstractHealthIndicator {
+
+    private final EvaluatorWarmup evaluatorWarmup;
+
+    public EvaluatorWarmupHealthIndicator(EvaluatorWarmup evaluatorWarmup) {
+        this.evaluatorWarmup = evaluatorWarmup;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (evaluatorWarmup.isFinished()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        evaluatorWarmup.getDetails().forEach(builder::withDetail);
+    }
+}
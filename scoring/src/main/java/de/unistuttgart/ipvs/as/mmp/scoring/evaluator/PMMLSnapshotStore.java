@@ -0,0 +1,281 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.PMMLSnapshot;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.PMMLSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dmg.pmml.PMML;
+import org.jpmml.evaluator.Evaluator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores the parsed and optimized pmml of every model file as a compressed, java serialized {@link PMMLSnapshot},
+ * so that cold loads of the {@link EvaluatorCache} skip the unmarshalling of the xml and the visitors.
+ * Snapshots are created in the background when a model file is uploaded and when an evaluator had to be loaded
+ * from the xml. A snapshot is stale if it was created for another data file, for xml of another size or by other
+ * versions of the pmml libraries, stale snapshots and snapshots that cannot be read are ignored and replaced.
+ */
+@Component
+public class PMMLSnapshotStore {
+
+    public static final String LOAD_COUNTER = "scoring.snapshot.loads";
+
+    /**
+     * Java serialization of the pmml classes is only compatible within the same library versions.
+     */
+    static final String FORMAT = "java-gzip-1/" + getVersion(PMML.class) + "/" + getVersion(Evaluator.class);
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final PMMLSnapshotRepository pmmlSnapshotRepository;
+    private final ModelRepository modelRepository;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> pendingModelFileIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param queueCapacity number of snapshots that wait to be written, further snapshots are skipped
+     */
+    public PMMLSnapshotStore(PMMLSnapshotRepository pmmlSnapshotRepository, ModelRepository modelRepository,
+                             ScoringMetrics scoringMetrics,
+                             @Value("${scoring.snapshot.enabled:true}") boolean enabled,
+                             @Value("${scoring.snapshot.queue-capacity:100}") int queueCapacity) {
+        this.pmmlSnapshotRepository = pmmlSnapshotRepository;
+        this.modelRepository = modelRepository;
+        this.meterRegistry = scoringMetrics.getMeterRegistry();
+        this.enabled = enabled;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("scoring-snapshot-"));
+    }
+
+    /**
+     * Lets the pending snapshots be written before the store shuts down.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the snapshot of the model file.
+     *
+     * @return the optimized pmml of the model file, null if there is no usable snapshot
+     */
+    public PMML load(ModelFile modelFile) {
+        if (!enabled || modelFile.getId() == null) {
+            return null;
+        }
+        Optional<PMMLSnapshot> snapshot = pmmlSnapshotRepository.findByModelFileId(modelFile.getId());
+        if (!snapshot.isPresent()) {
+            countLoad("miss");
+            return null;
+        }
+        if (!isCurrent(snapshot.get(), modelFile.getDbFile())) {
+            countLoad("stale");
+            return null;
+        }
+        try {
+            PMML pmml = deserialize(snapshot.get().getData());
+            countLoad("hit");
+            return pmml;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            this.log.warn("Snapshot of model file {} cannot be read, the pmml is parsed instead", modelFile.getId(), e);
+            countLoad("stale");
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the optimized pmml of the model file in the background, unless there is a current one.
+     */
+    public void store(Long modelId, ModelFile modelFile, PMML pmml) {
+        if (!enabled || modelFile.getId() == null || !pendingModelFileIds.add(modelFile.getId())) {
+            return;
+        }
+        submit(modelFile.getId(), () -> write(modelId, modelFile, pmml));
+    }
+
+    /**
+     * Creates the snapshot of an uploaded model file and removes the snapshots of replaced or deleted model files.
+     */
+    @EventListener
+    public void onModelFileChanged(ModelFileChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Long modelId = event.getModelId();
+        try {
+            executor.execute(() -> refresh(modelId));
+        } catch (RejectedExecutionException e) {
+            this.log.info("Snapshot of model {} was skipped, the snapshot queue is full", modelId);
+        }
+    }
+
+    private void refresh(Long modelId) {
+        Optional<Model> model = modelRepository.findById(modelId);
+        ModelFile modelFile = model.map(Model::getModelFile).orElse(null);
+        Long modelFileId = modelFile != null ? modelFile.getId() : null;
+        for (PMMLSnapshot snapshot : pmmlSnapshotRepository.findAllByModelId(modelId)) {
+            if (!snapshot.getModelFileId().equals(modelFileId)) {
+                pmmlSnapshotRepository.delete(snapshot);
+            }
+        }
+        if (modelFile == null || modelFile.getDbFile() == null || modelFile.getDbFile().getData() == null
+                || !pendingModelFileIds.add(modelFileId)) {
+            return;
+        }
+        try {
+            Optional<PMMLSnapshot> existing = pmmlSnapshotRepository.findByModelFileId(modelFileId);
+            if (existing.isPresent() && isCurrent(existing.get(), modelFile.getDbFile())) {
+                return;
+            }
+            PMML pmml;
+            try {
+                pmml = EvaluatorCache.unmarshal(modelFile.getDbFile().getData());
+            } catch (Exception e) {
+                // model files are not necessarily pmml, their evaluation reports the error
+                this.log.debug("Model file {} of model {} is not parsed into a snapshot", modelFileId, modelId, e);
+                return;
+            }
+            EvaluatorCache.optimize(pmml);
+            write(modelId, modelFile, pmml);
+        } finally {
+            pendingModelFileIds.remove(modelFileId);
+        }
+    }
+
+    private void submit(Long modelFileId, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    pendingModelFileIds.remove(modelFileId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingModelFileIds.remove(modelFileId);
+            this.log.info("Snapshot of model file {} was skipped, the snapshot queue is full", modelFileId);
+        }
+    }
+
+    private void write(Long modelId, ModelFile modelFile, PMML pmml) {
+        DBFile dbFile = modelFile.getDbFile();
+        Optional<PMMLSnapshot> existing = pmmlSnapshotRepository.findByModelFileId(modelFile.getId());
+        if (existing.isPresent() && isCurrent(existing.get(), dbFile)) {
+            return;
+        }
+        try {
+            PMMLSnapshot snapshot = PMMLSnapshot.builder()
+                    .modelId(modelId)
+                    .modelFileId(modelFile.getId())
+                    .dbFileId(dbFile.getId())
+                    .sourceSize(dbFile.getData().length)
+                    .format(FORMAT)
+                    .created(LocalDateTime.now())
+                    .data(serialize(pmml))
+                    .build();
+            existing.ifPresent(pmmlSnapshotRepository::delete);
+            pmmlSnapshotRepository.save(snapshot);
+        } catch (IOException e) {
+            // e.g. extensions of the pmml that are not serializable
+            this.log.info("Snapshot of model file {} cannot be written: {}", modelFile.getId(), e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            this.log.debug("Snapshot of model file {} was written by another instance", modelFile.getId());
+        } catch (RuntimeException e) {
+            this.log.warn("Snapshot of model file {} cannot be written", modelFile.getId(), e);
+        }
+    }
+
+    private void countLoad(String result) {
+        meterRegistry.counter(LOAD_COUNTER, "result", result).increment();
+    }
+
+    private static boolean isCurrent(PMMLSnapshot snapshot, DBFile dbFile) {
+        return dbFile != null && dbFile.getData() != null
+                && FORMAT.equals(snapshot.getFormat())
+                && snapshot.getSourceSize() == dbFile.getData().length
+                && (snapshot.getDbFileId() == null || snapshot.getDbFileId().equals(dbFile.getId()));
+    }
+
+    static byte[] serialize(PMML pmml) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream os = new ObjectOutputStream(new GZIPOutputStream(bytes, 64 * 1024))) {
+            os.writeObject(pmml);
+        }
+        return bytes.toByteArray();
+    }
+
+    static PMML deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        InputStream compressed = new GZIPInputStream(new ByteArrayInputStream(data), 64 * 1024);
+        try (ObjectInputStream is = new PMMLObjectInputStream(compressed)) {
+            return (PMML) is.readObject();
+        }
+    }
+
+    private static String getVersion(Class<?> type) {
+        String version = type.getPackage() != null ? type.getPackage().getImplementationVersion() : null;
+        return version != null ? version : "unknown";
+    }
+
+    /**
+     * Only resolves the classes of a pmml object graph, so a tampered snapshot cannot instantiate other classes.
+     */
+    private static class PMMLObjectInputStream extends ObjectInputStream {
+
+        private PMMLObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            int start = name.lastIndexOf('[') + 1;
+            String elementName = start > 0 && name.charAt(start) == 'L'
+                    ? name.substring(start + 1, name.length() - 1) : name.substring(start);
+            if (start > 0 && elementName.length() == 1
+                    || elementName.startsWith("org.dmg.pmml.")
+                    || elementName.startsWith("org.jpmml.")
+                    || elementName.startsWith("java.lang.")
+                    || elementName.startsWith("java.util.")
+                    || elementName.startsWith("java.math.")) {
+                return super.resolveClass(desc);
+            }
+            throw new InvalidClassException(name, "Class is not part of a pmml snapshot");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the outputs of two scorings by name. Values are equal if they are the same string or numbers that differ
+ * by at most the tolerance relative to the larger magnitude, magnitudes below 1 use an absolute tolerance.
+ */
+public class ScoringOutputComparator {
+
+    private final double tolerance;
+
+    public ScoringOutputComparator(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public boolean equal(List<ScoringOutput> outputs, List<ScoringOutput> otherOutputs) {
+        return outputs.size() == otherOutputs.size() && getChangedNames(outputs, otherOutputs).isEmpty();
+    }
+
+    /**
+     * Returns the names of the outputs that differ or only exist in one of the scorings, in the order of the outputs.
+     */
+    public Set<String> getChangedNames(List<ScoringOutput> outputs, List<ScoringOutput> otherOutputs) {
+        Map<String, String> values = toValues(outputs);
+        Map<String, String> otherValues = toValues(otherOutputs);
+        Set<String> changedNames = new LinkedHashSet<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!otherValues.containsKey(entry.getKey()) || !equal(entry.getValue(), otherValues.get(entry.getKey()))) {
+                changedNames.add(entry.getKey());
+            }
+        }
+        for (String name : otherValues.keySet()) {
+            if (!values.containsKey(name)) {
+                changedNames.add(name);
+            }
+        }
+        return changedNames;
+    }
+
+    public boolean equal(String value, String otherValue) {
+        if (value == null || otherValue == null) {
+            return value == null && otherValue == null;
+        }
+        if (value.equals(otherValue)) {
+            return true;
+        }
+        try {
+            double number = Double.parseDouble(value);
+            double otherNumber = Double.parseDouble(otherValue);
+            double scale = Math.max(1.0, Math.max(Math.abs(number), Math.abs(otherNumber)));
+            return Math.abs(number - otherNumber) <= tolerance * scale;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, String> toValues(List<ScoringOutput> outputs) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (ScoringOutput output : outputs) {
+            values.putIfAbsent(output.getName(), output.getValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,211 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.scoring.compiler.CompiledModel;
+import de.unistuttgart.ipvs.as.mmp.scoring.compiler.TreeModelCompiler;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.ModelField;
+import org.jpmml.evaluator.OutputField;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Everything that is needed to bind inputs to an evaluator and to extract its results, computed once per evaluator.
+ * Active fields are looked up by their lower case name, so binding a record is linear in the number of inputs.
+ * The results are the output fields of the model, or its target fields if it does not declare any output fields.
+ * Tree models and tree ensembles are compiled into primitive arrays if possible, see {@link TreeModelCompiler},
+ * the evaluator scores the records the compiled model cannot score.
+ * A plan is immutable and can be shared between threads like the evaluator itself.
+ */
+public class ScoringPlan {
+
+    private final Evaluator evaluator;
+    private final Map<String, InputField> inputFieldsByName;
+    private final FieldName[] activeFieldNames;
+    private final int activeFieldCount;
+    private final FieldName[] resultFields;
+    private final String[] resultNames;
+    private final CompiledModel compiledModel;
+
+    public ScoringPlan(Evaluator evaluator) {
+        this(evaluator, true);
+    }
+
+    /**
+     * @param compile whether the model is compiled if it is supported by the {@link TreeModelCompiler}
+     */
+    public ScoringPlan(Evaluator evaluator, boolean compile) {
+        this(evaluator, compile ? new TreeModelCompiler() : null);
+    }
+
+    /**
+     * @param compiler compiler of the model, null if the model is not compiled
+     */
+    public ScoringPlan(Evaluator evaluator, TreeModelCompiler compiler) {
+        this.evaluator = evaluator;
+
+        List<InputField> activeFields = evaluator.getActiveFields();
+        this.activeFieldCount = activeFields.size();
+        this.activeFieldNames = new FieldName[activeFieldCount];
+        this.inputFieldsByName = new HashMap<>(capacity(activeFieldCount));
+        for (int i = 0; i < activeFieldCount; i++) {
+            InputField inputField = activeFields.get(i);
+            activeFieldNames[i] = inputField.getName();
+            // like the former lookup with equalsIgnoreCase the first field wins if two names only differ in case
+            inputFieldsByName.putIfAbsent(normalize(inputField.getName().getValue()), inputField);
+        }
+
+        List<OutputField> outputFields = evaluator.getOutputFields();
+        List<? extends ModelField> fields = outputFields.isEmpty() ? evaluator.getTargetFields() : outputFields;
+        this.resultFields = new FieldName[fields.size()];
+        this.resultNames = new String[fields.size()];
+        for (int i = 0; i < resultFields.length; i++) {
+            resultFields[i] = fields.get(i).getName();
+            resultNames[i] = resultFields[i].toString();
+        }
+        this.compiledModel = compiler != null ? compiler.compile(evaluator, Arrays.asList(resultFields)) : null;
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public boolean isCompiled() {
+        return compiledModel != null;
+    }
+
+    /**
+     * Returns the active field with the given name, ignoring case, or null if the model has no such field.
+     */
+    public InputField getInputField(String name) {
+        return name == null ? null : inputFieldsByName.get(normalize(name));
+    }
+
+    /**
+     * Binds the inputs of a record to the active fields. If several inputs match the same field the first one wins,
+     * inputs without a matching field are ignored.
+     */
+    public Map<FieldName, FieldValue> bind(List<ScoringInput> inputs) {
+        Map<FieldName, FieldValue> arguments = new HashMap<>(capacity(activeFieldCount));
+        for (ScoringInput scoringInput : inputs) {
+            InputField inputField = getInputField(scoringInput.getName());
+            if (inputField != null && !arguments.containsKey(inputField.getName())) {
+                arguments.put(inputField.getName(), inputField.prepare(scoringInput.getValue()));
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Binds the columns of a record stream to the active fields, columns without a matching field are null.
+     */
+    public InputField[] bindColumns(List<String> columns) {
+        InputField[] columnFields = new InputField[columns.size()];
+        for (int i = 0; i < columnFields.length; i++) {
+            String column = columns.get(i);
+            if (column != null) {
+                columnFields[i] = getInputField(column.trim());
+            }
+        }
+        return columnFields;
+    }
+
+    /**
+     * Binds the values of a record to the active fields of its columns, see {@link #bindColumns(List)}.
+     */
+    public Map<FieldName, FieldValue> bind(InputField[] columnFields, String[] record) {
+        Map<FieldName, FieldValue> arguments = new HashMap<>(capacity(activeFieldCount));
+        int columns = Math.min(columnFields.length, record.length);
+        for (int i = 0; i < columns; i++) {
+            InputField inputField = columnFields[i];
+            if (inputField != null && !arguments.containsKey(inputField.getName())) {
+                arguments.put(inputField.getName(), inputField.prepare(record[i]));
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Returns the prepared values of bound arguments in the order of the active fields, missing values are null.
+     * Inputs that only differ in their representation, like "3" and "3.0" for a double field, have equal vectors.
+     */
+    public List<Object> canonicalize(Map<FieldName, FieldValue> arguments) {
+        Object[] values = new Object[activeFieldCount];
+        for (int i = 0; i < activeFieldCount; i++) {
+            FieldValue fieldValue = arguments.get(activeFieldNames[i]);
+            values[i] = fieldValue == null ? null : fieldValue.getValue();
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * Evaluates bound arguments with the compiled model, or with the evaluator if the model is not compiled or the
+     * compiled model cannot score the record.
+     *
+     * @return decoded values of the result fields, in the order of {@link #getResultNames()}
+     */
+    public Object[] evaluate(Map<FieldName, FieldValue> arguments) {
+        if (compiledModel != null) {
+            Object[] values = compiledModel.evaluate(arguments);
+            if (values != null) {
+                return values;
+            }
+        }
+        return extractValues(evaluator.evaluate(arguments));
+    }
+
+    /**
+     * Extracts the result fields of an evaluation in the order they are declared in the model.
+     */
+    public List<ScoringOutput> extract(Map<FieldName, ?> results) {
+        return toScoringOutputs(extractValues(results));
+    }
+
+    /**
+     * Creates the scoring outputs of the decoded values of the result fields, see {@link #evaluate(Map)}.
+     */
+    public List<ScoringOutput> toScoringOutputs(Object[] values) {
+        List<ScoringOutput> scoringOutputs = new ArrayList<>(resultNames.length);
+        for (int i = 0; i < resultNames.length; i++) {
+            scoringOutputs.add(new ScoringOutput(resultNames[i], String.valueOf(values[i])));
+        }
+        return scoringOutputs;
+    }
+
+    /**
+     * Returns the names of the result fields in the order they are declared in the model.
+     */
+    public List<String> getResultNames() {
+        return Collections.unmodifiableList(Arrays.asList(resultNames));
+    }
+
+    /**
+     * Extracts the typed values of the result fields of an evaluation, in the order of {@link #getResultNames()}.
+     */
+    public Object[] extractValues(Map<FieldName, ?> results) {
+        Object[] values = new Object[resultFields.length];
+        for (int i = 0; i < resultFields.length; i++) {
+            values[i] = EvaluatorUtil.decode(results.get(resultFields[i]));
+        }
+        return values;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static int capacity(int expectedSize) {
+        return (int) (expectedSize / 0.75f) + 1;
+    }
+}
@@ -0,0 +1,102 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the scoring outputs of deterministic models, for models that enable it.
+ * Entries are keyed by model id, model file id and the prepared input vector of {@link ScoringPlan#canonicalize(Map)},
+ * so repeated inputs are not evaluated again. Entries expire after the configured time to live and are removed
+ * when the model file changes.
+ */
+@Component
+public class ScoringResultCache {
+
+    private final Cache<ResultKey, List<ScoringOutput>> cache;
+
+    public ScoringResultCache(@Value("${scoring.result-cache.max-size:10000}") long maxSize,
+                              @Value("${scoring.result-cache.ttl-seconds:300}") long ttlSeconds,
+                              ScoringMetrics scoringMetrics) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(scoringMetrics.getMeterRegistry(), cache, "scoring-results");
+    }
+
+    public static boolean isEnabled(Model model) {
+        return Boolean.TRUE.equals(model.getResultCacheEnabled());
+    }
+
+    /**
+     * Returns the cached outputs for the arguments if the model enables the result cache, scoring and caching them
+     * on a miss. Failed scorings are not cached.
+     *
+     * @param model       model whose scoring plan bound the arguments
+     * @param scoringPlan scoring plan of the model
+     * @param arguments   arguments bound by the scoring plan
+     * @param scorer      evaluates the arguments and extracts the outputs
+     * @return outputs that the caller may modify
+     */
+    public List<ScoringOutput> get(Model model, ScoringPlan scoringPlan, Map<FieldName, FieldValue> arguments,
+                                   Supplier<List<ScoringOutput>> scorer) {
+        if (!isEnabled(model)) {
+            return scorer.get();
+        }
+        ResultKey key = new ResultKey(model.getId(), model.getModelFile().getId(), scoringPlan.canonicalize(arguments));
+        return copy(cache.get(key, k -> Collections.unmodifiableList(copy(scorer.get()))));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void invalidate(Long modelId) {
+        cache.asMap().keySet().removeIf(key -> key.getModelId() != null && key.getModelId().equals(modelId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onModelFileChanged(ModelFileChangedEvent event) {
+        invalidate(event.getModelId());
+    }
+
+    private static List<ScoringOutput> copy(List<ScoringOutput> scoringOutputs) {
+        List<ScoringOutput> copies = new ArrayList<>(scoringOutputs.size());
+        for (ScoringOutput scoringOutput : scoringOutputs) {
+            copies.add(new ScoringOutput(scoringOutput.getName(), scoringOutput.getValue()));
+        }
+        return copies;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class ResultKey {
+        private Long modelId;
+        private Long modelFileId;
+        private List<Object> values;
+    }
+}
@@ -0,0 +1,76 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Interval;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic scoring inputs from the input attributes of the pmml metadata of a model.
+ * Categorical attributes take one of their possible values, continuous attributes a value of one of their intervals,
+ * all other attributes a value that fits their data type. Supplementary attributes are not used by the evaluator
+ * and are skipped.
+ */
+public class WarmupInputGenerator {
+
+    private static final String SUPPLEMENTARY = "supplementary";
+    private static final double DEFAULT_RANGE = 100.0;
+
+    private final Random random;
+
+    public WarmupInputGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public List<ScoringInput> generate(List<InputAttribute> inputAttributes) {
+        List<ScoringInput> inputs = new ArrayList<>(inputAttributes.size());
+        for (InputAttribute attribute : inputAttributes) {
+            if (attribute.getName() != null && !SUPPLEMENTARY.equalsIgnoreCase(attribute.getUsageType())) {
+                inputs.add(new ScoringInput(attribute.getName(), generateValue(attribute)));
+            }
+        }
+        return inputs;
+    }
+
+    private String generateValue(InputAttribute attribute) {
+        List<String> possibleValues = attribute.getPossibleValues();
+        if (possibleValues != null && !possibleValues.isEmpty()) {
+            return possibleValues.get(random.nextInt(possibleValues.size()));
+        }
+
+        String dataType = attribute.getDataType() == null ? "" : attribute.getDataType().toLowerCase(Locale.ROOT);
+        double value = generateNumber(attribute.getIntervals());
+        switch (dataType) {
+            case "integer":
+                return Long.toString(Math.round(value));
+            case "boolean":
+                return Boolean.toString(random.nextBoolean());
+            case "string":
+                return attribute.getName();
+            default:
+                return Double.toString(value);
+        }
+    }
+
+    private double generateNumber(List<Interval> intervals) {
+        if (intervals == null || intervals.isEmpty()) {
+            return random.nextDouble() * DEFAULT_RANGE;
+        }
+        Interval interval = intervals.get(random.nextInt(intervals.size()));
+        Double start = interval.getStartRange();
+        Double end = interval.getEndRange();
+        if (start == null && end == null) {
+            return random.nextDouble() * DEFAULT_RANGE;
+        } else if (start == null) {
+            return end - random.nextDouble() * DEFAULT_RANGE;
+        } else if (end == null) {
+            return start + random.nextDouble() * DEFAULT_RANGE;
+        }
+        // the margins themselves are left out, so open intervals are respected as well
+        return start + (end - start) * (0.01 + 0.98 * random.nextDouble());
+    }
+}
@@ -0,0 +1,41 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.job;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+/**
+ * This instance of the service as owner of the jobs it runs. The leases on the jobs are compared with the clocks of
+ * the instances, so the lease must be much longer than the clock skew between them and the longest pause of an
+ * instance, e.g. for garbage collection.
+ */
+@Component
+public class JobNode {
+
+    private final String id;
+    private final long leaseSeconds;
+
+    /**
+     * @param id           name of this instance in the leases, empty for the process name and a random suffix. A
+     *                     fixed name must be unique, jobs of the name that are still open when the instance starts
+     *                     are failed at once instead of after their lease.
+     * @param leaseSeconds time after which a job whose owner stopped renewing its lease is failed
+     */
+    public JobNode(@Value("${scoring.jobs.node-id:}") String id,
+                   @Value("${scoring.jobs.lease-seconds:120}") long leaseSeconds) {
+        this.id = StringUtils.hasText(id) ? id
+                : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getLeaseSeconds() {
+        return leaseSeconds;
+    }
+}
@@ -0,0 +1,338 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.job;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.AsynchronousJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.AsynchronousJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the {@link AsynchronousJob}s of a service on a bounded executor. A project can only have a limited number of
+ * jobs queued or running at the same time. The runner stores the status of a job when it is queued, started and
+ * finished, everything in between is up to its {@link Task}, which reports its progress by saving the job and honours
+ * a requested cancellation.
+ * <p>
+ * The runner leases its jobs for its {@link JobNode} and renews the leases while the jobs are queued or running. Once
+ * it is started, it fails the open jobs of other instances whose lease expired and, at once, the open jobs that its
+ * node left behind before a restart. A job that was failed by another instance is abandoned by its runner.
+ *
+ * @param <J> type of the jobs
+ */
+public class JobRunner<J extends AsynchronousJob> {
+
+    /**
+     * Work of a job.
+     */
+    @FunctionalInterface
+    public interface Task<J extends AsynchronousJob> {
+
+        /**
+         * Exceptions fail the job with their message.
+         *
+         * @return status the job finished with
+         */
+        ScoringJobStatus run(Run<J> run) throws Exception;
+    }
+
+    private static final List<ScoringJobStatus> OPEN = Arrays.asList(ScoringJobStatus.QUEUED, ScoringJobStatus.RUNNING);
+
+    private final String description;
+    private final AsynchronousJobRepository<J> repository;
+    private final JobNode node;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor leaseExecutor;
+    private final int maxJobsPerProject;
+    private final Map<Long, JobHandle<J>> activeJobs = new ConcurrentHashMap<>();
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param description      name of the jobs in log messages, e.g. {@code Scoring job}
+     * @param threadNamePrefix prefix of the names of the threads that run the jobs
+     */
+    public JobRunner(String description, String threadNamePrefix, AsynchronousJobRepository<J> repository,
+                     JobNode node, int poolSize, int queueCapacity, int maxJobsPerProject) {
+        this.description = description;
+        this.repository = repository;
+        this.node = node;
+        this.maxJobsPerProject = maxJobsPerProject;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(threadNamePrefix));
+        this.leaseExecutor = new ScheduledThreadPoolExecutor(1,
+                new CustomizableThreadFactory(threadNamePrefix + "lease-"));
+    }
+
+    /**
+     * Fails the jobs that were left behind and starts to renew the leases.
+     *
+     * @param abandonedMessage error message of the jobs whose owner stopped
+     */
+    public void start(String abandonedMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        int failedJobs = repository.failJobsOfOwner(node.getId(), now, abandonedMessage, OPEN,
+                ScoringJobStatus.FAILED);
+        if (failedJobs > 0) {
+            this.log.info("{}s of {} that were still open before the restart failed: {}", description,
+                    node.getId(), failedJobs);
+        }
+        // a lease is renewed several times before it expires, so a single failed renewal does not lose it
+        long intervalMs = Math.max(1L, TimeUnit.SECONDS.toMillis(node.getLeaseSeconds()) / 4);
+        leaseExecutor.scheduleWithFixedDelay(() -> maintainLeases(abandonedMessage), 0L, intervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        leaseExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores the job as queued and queues its task.
+     *
+     * @throws CapacityException if the project has too many jobs or the queue is full
+     */
+    public J submit(J job, Task<J> task) {
+        synchronized (activeJobs) {
+            checkProjectLimit(job.getProjectId());
+            job.setStatus(ScoringJobStatus.QUEUED);
+            job.setOwner(node.getId());
+            job.setHeartbeat(LocalDateTime.now());
+            J storedJob = repository.save(job);
+            enqueue(storedJob, task, () -> repository.delete(storedJob));
+            return storedJob;
+        }
+    }
+
+    /**
+     * Queues a stored job with one of the given statuses again, e.g. a failed job that is resumed. The job is claimed
+     * with a conditional update, so it is only queued once if it is resumed on several instances at the same time,
+     * and not while another instance may still run it. A job that cannot be queued keeps its previous status.
+     *
+     * @param finished statuses of the jobs that can be queued again
+     * @return the queued job, or empty if it is queued or running, has another status or may still run elsewhere
+     * @throws CapacityException if the project has too many jobs or the queue is full
+     */
+    public Optional<J> resubmit(J job, Collection<ScoringJobStatus> finished, Task<J> task) {
+        Long jobId = job.getId();
+        synchronized (activeJobs) {
+            if (activeJobs.containsKey(jobId) || !finished.contains(job.getStatus())) {
+                return Optional.empty();
+            }
+            checkProjectLimit(job.getProjectId());
+            LocalDateTime now = LocalDateTime.now();
+            if (repository.requeueJob(jobId, node.getId(), now, now.minusSeconds(node.getLeaseSeconds()), finished,
+                    ScoringJobStatus.QUEUED) != 1) {
+                return Optional.empty();
+            }
+            Optional<J> queuedJob = repository.findById(jobId);
+            if (!queuedJob.isPresent()) {
+                return Optional.empty();
+            }
+            enqueue(queuedJob.get(), task, () -> {
+                J restoredJob = repository.findById(jobId).orElse(queuedJob.get());
+                restoredJob.setStatus(job.getStatus());
+                restoredJob.setErrorMessage(job.getErrorMessage());
+                restoredJob.setFinished(job.getFinished());
+                repository.save(restoredJob);
+            });
+            return queuedJob;
+        }
+    }
+
+    private void checkProjectLimit(Long projectId) {
+        long projectJobs = activeJobs.values().stream().filter(handle -> handle.projectId.equals(projectId)).count();
+        if (projectJobs >= maxJobsPerProject) {
+            throw CapacityException.projectJobLimitReached(projectId, maxJobsPerProject);
+        }
+    }
+
+    /**
+     * @param rejected undoes the queueing in the repository if the executor rejects the job
+     */
+    private void enqueue(J job, Task<J> task, Runnable rejected) {
+        Long jobId = job.getId();
+        JobHandle<J> handle = new JobHandle<>(job.getProjectId(), task);
+        handle.runnable = () -> run(jobId, handle);
+        activeJobs.put(jobId, handle);
+        try {
+            executor.execute(handle.runnable);
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(jobId);
+            rejected.run();
+            throw CapacityException.jobQueueFull();
+        }
+    }
+
+    /**
+     * A queued job is cancelled at once, a running job once its task honours the cancellation.
+     *
+     * @return false if the job is not queued or running
+     */
+    public boolean cancel(J job) {
+        JobHandle<J> handle = activeJobs.get(job.getId());
+        if (handle == null) {
+            return false;
+        }
+        if (handle.status.compareAndSet(ScoringJobStatus.QUEUED, ScoringJobStatus.CANCELLED)) {
+            executor.remove(handle.runnable);
+            activeJobs.remove(job.getId());
+            job.setStatus(ScoringJobStatus.CANCELLED);
+            job.setFinished(LocalDateTime.now());
+            repository.save(job);
+        } else {
+            handle.cancelRequested = true;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the job is queued or running
+     */
+    public boolean isActive(Long jobId) {
+        return activeJobs.containsKey(jobId);
+    }
+
+    private void run(Long jobId, JobHandle<J> handle) {
+        if (!handle.status.compareAndSet(ScoringJobStatus.QUEUED, ScoringJobStatus.RUNNING)) {
+            return;
+        }
+        ScoringJobStatus status = ScoringJobStatus.FAILED;
+        try {
+            Optional<J> jobOptional = repository.findById(jobId);
+            if (!jobOptional.isPresent() || jobOptional.get().getStatus() != ScoringJobStatus.QUEUED) {
+                return;
+            }
+
+            J job = jobOptional.get();
+            boolean resumed = job.getStarted() != null;
+            job.setStatus(ScoringJobStatus.RUNNING);
+            job.setStarted(LocalDateTime.now());
+            Run<J> run = new Run<>(repository, repository.save(job), handle, resumed);
+            try {
+                status = handle.task.run(run);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.getJob().setErrorMessage("The job was interrupted.");
+            } catch (OptimisticLockingFailureException e) {
+                throw e;
+            } catch (Exception e) {
+                this.log.error(String.format("%s %s failed", description, jobId), e);
+                run.getJob().setErrorMessage(e.getMessage());
+            }
+            job = run.getJob();
+            job.setStatus(status);
+            job.setFinished(LocalDateTime.now());
+            repository.save(job);
+        } catch (OptimisticLockingFailureException e) {
+            status = ScoringJobStatus.FAILED;
+            this.log.warn("{} {} was failed by another instance, the lease of {} expired", description, jobId,
+                    node.getId());
+        } finally {
+            handle.status.set(status);
+            activeJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * Renews the leases of the queued and running jobs and fails the jobs of other instances whose lease expired.
+     */
+    private void maintainLeases(String abandonedMessage) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            activeJobs.forEach((jobId, handle) -> {
+                if (repository.renewLease(jobId, node.getId(), now, OPEN) == 1) {
+                    return;
+                }
+                // the job was failed by another instance, or it was finished in the meantime
+                if (handle.status.compareAndSet(ScoringJobStatus.QUEUED, ScoringJobStatus.FAILED)) {
+                    executor.remove(handle.runnable);
+                    activeJobs.remove(jobId);
+                } else {
+                    handle.cancelRequested = true;
+                }
+            });
+            int failedJobs = repository.failExpiredJobs(now.minusSeconds(node.getLeaseSeconds()), now,
+                    abandonedMessage, OPEN, ScoringJobStatus.FAILED);
+            if (failedJobs > 0) {
+                this.log.info("{}s whose lease expired failed: {}", description, failedJobs);
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the scheduled renewal
+            this.log.warn(String.format("Renewal of the leases on %ss failed", description), e);
+        }
+    }
+
+    /**
+     * Running job as seen by its task.
+     */
+    public static class Run<J extends AsynchronousJob> {
+        private final AsynchronousJobRepository<J> repository;
+        private final JobHandle<J> handle;
+        private final boolean resumed;
+        private J job;
+
+        private Run(AsynchronousJobRepository<J> repository, J job, JobHandle<J> handle, boolean resumed) {
+            this.repository = repository;
+            this.job = job;
+            this.handle = handle;
+            this.resumed = resumed;
+        }
+
+        /**
+         * @return the job as it was saved last, the runner stores its final status on it
+         */
+        public J getJob() {
+            return job;
+        }
+
+        /**
+         * Stores the progress of the job.
+         *
+         * @throws OptimisticLockingFailureException if the job was failed by another instance, the task is abandoned
+         */
+        public J save(J job) {
+            this.job = repository.save(job);
+            return this.job;
+        }
+
+        public boolean isCancelRequested() {
+            return handle.cancelRequested;
+        }
+
+        /**
+         * @return whether the job was started before, e.g. because it failed and is resumed
+         */
+        public boolean isResumed() {
+            return resumed;
+        }
+    }
+
+    private static class JobHandle<J extends AsynchronousJob> {
+        private final Long projectId;
+        private final Task<J> task;
+        private final AtomicReference<ScoringJobStatus> status = new AtomicReference<>(ScoringJobStatus.QUEUED);
+        private volatile boolean cancelRequested;
+        private Runnable runnable;
+
+        private JobHandle(Long projectId, Task<J> task) {
+            this.projectId = projectId;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.metrics;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.exception.ScoringException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the phases of a scoring and counters for scoring errors, tagged by project and model.
+ * Histograms of the phase timer can be enabled with
+ * {@code management.metrics.distribution.percentiles-histogram.scoring.phase=true}.
+ */
+@Component
+public class ScoringMetrics {
+
+    public static final String PHASE_TIMER = "scoring.phase";
+    public static final String ERROR_COUNTER = "scoring.errors";
+
+    private static final String UNKNOWN = "unknown";
+
+    public enum Phase {
+        /** looking up the model in the database */
+        LOOKUP,
+        /** getting the evaluator from the cache, including parse and verify on a miss */
+        LOAD,
+        PARSE,
+        VERIFY,
+        BIND,
+        EVALUATE,
+        EXTRACT,
+        /** handing the scoring over to the audit */
+        PERSIST;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public ScoringMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    public <T> T time(Phase phase, Long projectId, Long modelId, Supplier<T> supplier) {
+        return timer(phase, projectId, modelId).record(supplier);
+    }
+
+    public void time(Phase phase, Long projectId, Long modelId, Runnable runnable) {
+        timer(phase, projectId, modelId).record(runnable);
+    }
+
+    public <T> T time(Phase phase, Model model, Supplier<T> supplier) {
+        return time(phase, getProjectId(model), model.getId(), supplier);
+    }
+
+    public void countError(ScoringException e, Long projectId, Long modelId) {
+        meterRegistry.counter(ERROR_COUNTER, tags(projectId, modelId)
+                .and("type", e.getType().name().toLowerCase(Locale.ROOT))).increment();
+    }
+
+    private Timer timer(Phase phase, Long projectId, Long modelId) {
+        return meterRegistry.timer(PHASE_TIMER, tags(projectId, modelId).and("phase", phase.tag));
+    }
+
+    private static Tags tags(Long projectId, Long modelId) {
+        return Tags.of("project", tagValue(projectId), "model", tagValue(modelId));
+    }
+
+    private static String tagValue(Long id) {
+        return id == null ? UNKNOWN : id.toString();
+    }
+
+    private static Long getProjectId(Model model) {
+        return model.getProject() == null ? null : model.getProject().getId();
+    }
+}
@@ -0,0 +1,310 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.queue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobChunk;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.service.DBFileStorageService;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringJobChunkRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Work queue of distributed scoring jobs in the database. The records of a job are stored as chunks that every
+ * instance of the service leases for a limited time. On postgres the claimable chunks are locked with
+ * {@code FOR UPDATE SKIP LOCKED}, so instances never wait for each other; on other databases a random one of the
+ * first claimable chunks is leased with a conditional update. A chunk whose lease expired, e.g. because its instance
+ * died, is leased again. The outputs of an instance whose lease expired are discarded, so every chunk is only stored
+ * once. Once all chunks of a job are completed, their outputs are joined into the result of the job. Completing a
+ * chunk only writes the chunk, so instances do not contend for the row of the job.
+ * <p>
+ * Leases are compared with the clocks of the instances, so the lease must be much longer than the clock skew
+ * between them and the time to score a chunk.
+ */
+@Component
+public class ScoringJobQueue {
+
+    /**
+     * Number of claimable chunks of which one is leased at random on databases without {@code SKIP LOCKED}.
+     */
+    private static final int CANDIDATES = 10;
+    private static final List<ScoringJobStatus> OPEN = Arrays.asList(ScoringJobStatus.QUEUED, ScoringJobStatus.RUNNING);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<LinkedHashMap<String, String>>> RECORDS_TYPE =
+            new TypeReference<List<LinkedHashMap<String, String>>>() {
+            };
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ScoringJobRepository scoringJobRepository;
+    private final ScoringJobChunkRepository scoringJobChunkRepository;
+    private final DBFileStorageService dbFileStorageService;
+    private final String nodeId;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final boolean skipLocked;
+
+    /**
+     * @param nodeId       name of this instance in the leases, empty for the process name and a random suffix
+     * @param leaseSeconds time after which a chunk that is not completed is leased by another instance
+     * @param maxAttempts  number of times a chunk is leased before its job fails
+     * @param skipLocked   whether claimable chunks are locked with {@code SKIP LOCKED}, auto to use it on postgres
+     */
+    public ScoringJobQueue(ScoringJobRepository scoringJobRepository,
+                           ScoringJobChunkRepository scoringJobChunkRepository,
+                           DBFileStorageService dbFileStorageService, DataSource dataSource,
+                           @Value("${scoring.jobs.distributed.node-id:}") String nodeId,
+                           @Value("${scoring.jobs.distributed.lease-seconds:120}") long leaseSeconds,
+                           @Value("${scoring.jobs.distributed.max-attempts:3}") int maxAttempts,
+                           @Value("${scoring.jobs.distributed.skip-locked:auto}") String skipLocked) {
+        this.scoringJobRepository = scoringJobRepository;
+        this.scoringJobChunkRepository = scoringJobChunkRepository;
+        this.dbFileStorageService = dbFileStorageService;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId
+                : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.skipLocked = "auto".equals(skipLocked) ? isPostgres(dataSource) : Boolean.parseBoolean(skipLocked);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Stores the job and its records as chunks that can be leased by every instance.
+     */
+    @Transactional
+    public ScoringJob submit(ScoringJob job, List<List<ScoringInput>> records, int chunkSize) {
+        ScoringJob savedJob = scoringJobRepository.save(job);
+        List<ScoringJobChunk> chunks = new ArrayList<>();
+        for (int from = 0; from < records.size(); from += chunkSize) {
+            List<List<ScoringInput>> chunkRecords = records.subList(from, Math.min(from + chunkSize, records.size()));
+            chunks.add(ScoringJobChunk.builder()
+                    .jobId(savedJob.getId())
+                    .projectId(savedJob.getProjectId())
+                    .modelId(savedJob.getModelId())
+                    .chunkIndex(chunks.size())
+                    .status(ScoringJobStatus.QUEUED)
+                    .recordCount(chunkRecords.size())
+                    .inputData(encodeRecords(chunkRecords))
+                    .build());
+        }
+        scoringJobChunkRepository.saveAll(chunks);
+        if (chunks.isEmpty()) {
+            scoringJobRepository.updateStatus(savedJob.getId(), OPEN, ScoringJobStatus.RUNNING);
+            finish(savedJob.getId());
+        }
+        return savedJob;
+    }
+
+    /**
+     * Leases the next claimable chunk for this instance.
+     *
+     * @return the leased chunk, empty if there is no claimable chunk
+     */
+    @Transactional
+    public Optional<ScoringJobChunk> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> candidates;
+        if (skipLocked) {
+            candidates = scoringJobChunkRepository.lockClaimableIds(now, 1).stream()
+                    .map(Number::longValue).collect(Collectors.toList());
+        } else {
+            candidates = new ArrayList<>(scoringJobChunkRepository.findClaimableIds(now, ScoringJobStatus.QUEUED,
+                    ScoringJobStatus.RUNNING, PageRequest.of(0, CANDIDATES)));
+            // instances that poll at the same time rarely try to lease the same chunk
+            Collections.shuffle(candidates);
+        }
+
+        for (Long id : candidates) {
+            if (scoringJobChunkRepository.lease(id, nodeId, now, now.plusSeconds(leaseSeconds),
+                    ScoringJobStatus.QUEUED, ScoringJobStatus.RUNNING) != 1) {
+                continue;
+            }
+            Optional<ScoringJobChunk> chunk = scoringJobChunkRepository.findById(id);
+            if (!chunk.isPresent()) {
+                continue;
+            }
+            if (chunk.get().getAttempts() > maxAttempts) {
+                // the instances that leased the chunk before died or did not complete it in time
+                fail(chunk.get(), "The lease of the chunk expired too often.");
+                continue;
+            }
+            Long jobId = chunk.get().getJobId();
+            if (scoringJobRepository.updateStatus(jobId, Collections.singletonList(ScoringJobStatus.QUEUED),
+                    ScoringJobStatus.RUNNING) == 1) {
+                scoringJobRepository.updateStarted(jobId, now);
+            }
+            return chunk;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return number of records of the completed chunks of a running job
+     */
+    public long countProcessedRecords(Long jobId) {
+        return scoringJobChunkRepository.sumRecordCountByJobIdAndStatus(jobId, ScoringJobStatus.COMPLETED);
+    }
+
+    /**
+     * Stores the outputs of a leased chunk and joins the result of its job if it was the last open chunk.
+     *
+     * @param outputData outputs of the records of the chunk as newline delimited json
+     * @return false if the lease expired in the meantime or the job was cancelled, the outputs are discarded
+     */
+    @Transactional
+    public boolean complete(ScoringJobChunk chunk, byte[] outputData) {
+        if (scoringJobChunkRepository.complete(chunk.getId(), nodeId, chunk.getAttempts(), outputData,
+                ScoringJobStatus.RUNNING, ScoringJobStatus.COMPLETED) != 1) {
+            this.log.info("Outputs of chunk {} of scoring job {} are discarded, the lease of {} was lost",
+                    chunk.getChunkIndex(), chunk.getJobId(), nodeId);
+            return false;
+        }
+        if (scoringJobChunkRepository.countByJobIdAndStatusNot(chunk.getJobId(), ScoringJobStatus.COMPLETED) == 0) {
+            finish(chunk.getJobId());
+        }
+        return true;
+    }
+
+    /**
+     * Queues a leased chunk that could not be scored again, or fails its job after the last attempt.
+     *
+     * @return false if the lease expired in the meantime or the job was cancelled
+     */
+    @Transactional
+    public boolean fail(ScoringJobChunk chunk, String errorMessage) {
+        boolean retry = chunk.getAttempts() < maxAttempts;
+        if (scoringJobChunkRepository.release(chunk.getId(), nodeId, chunk.getAttempts(),
+                retry ? ScoringJobStatus.QUEUED : ScoringJobStatus.FAILED, errorMessage,
+                ScoringJobStatus.RUNNING) != 1) {
+            return false;
+        }
+        if (!retry) {
+            finishUnsuccessfully(chunk.getJobId(), ScoringJobStatus.FAILED, String.format(
+                    "Chunk %s failed %s times: %s", chunk.getChunkIndex(), chunk.getAttempts(), errorMessage));
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the job was already finished
+     */
+    @Transactional
+    public boolean cancel(Long jobId) {
+        return finishUnsuccessfully(jobId, ScoringJobStatus.CANCELLED, null);
+    }
+
+    /**
+     * Joins the results of running jobs whose chunks are all completed. The instances that completed the last
+     * chunks of a job at the same time do not see the chunks of each other, so neither of them joins the result.
+     */
+    @Transactional
+    public void finishCompletedJobs() {
+        scoringJobRepository.findDistributedJobIdsWithoutOpenChunks(ScoringJobStatus.RUNNING,
+                ScoringJobStatus.COMPLETED).forEach(this::finish);
+    }
+
+    private void finish(Long jobId) {
+        // only the instance that completes the job joins its result
+        if (scoringJobRepository.updateStatus(jobId, Collections.singletonList(ScoringJobStatus.RUNNING),
+                ScoringJobStatus.COMPLETED) != 1) {
+            return;
+        }
+        // the outputs are copied into the result one chunk at a time, the chunks with their inputs are not loaded
+        byte[] result = new byte[Math.toIntExact(scoringJobChunkRepository.sumOutputLengthByJobId(jobId).longValue())];
+        int length = 0;
+        for (Long chunkId : scoringJobChunkRepository.findIdsByJobIdOrderByChunkIndex(jobId)) {
+            byte[] outputData = scoringJobChunkRepository.findOutputDataById(chunkId);
+            System.arraycopy(outputData, 0, result, length, outputData.length);
+            length += outputData.length;
+        }
+        long jobRecords = scoringJobChunkRepository.sumRecordCountByJobIdAndStatus(jobId, ScoringJobStatus.COMPLETED);
+        DBFile resultFile = dbFileStorageService.storeFile(String.format("scoring-job-%s.ndjson", jobId),
+                StreamFormat.NDJSON_VALUE, result);
+        scoringJobRepository.findById(jobId).ifPresent(job -> {
+            job.setResult(resultFile);
+            job.setProcessedRecords(jobRecords);
+            job.setFinished(LocalDateTime.now());
+            scoringJobRepository.save(job);
+        });
+        scoringJobChunkRepository.deleteByJobId(jobId);
+    }
+
+    private boolean finishUnsuccessfully(Long jobId, ScoringJobStatus status, String errorMessage) {
+        if (scoringJobRepository.updateStatus(jobId, OPEN, status) != 1) {
+            return false;
+        }
+        scoringJobChunkRepository.updateOpenChunks(jobId, ScoringJobStatus.CANCELLED, OPEN);
+        scoringJobRepository.findById(jobId).ifPresent(job -> {
+            job.setErrorMessage(errorMessage);
+            job.setFinished(LocalDateTime.now());
+            scoringJobRepository.save(job);
+        });
+        return true;
+    }
+
+    static byte[] encodeRecords(List<List<ScoringInput>> records) {
+        List<Map<String, String>> values = new ArrayList<>(records.size());
+        for (List<ScoringInput> record : records) {
+            Map<String, String> recordValues = new LinkedHashMap<>();
+            record.forEach(input -> recordValues.put(input.getName(), input.getValue()));
+            values.add(recordValues);
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(values);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<List<ScoringInput>> decodeRecords(byte[] data) throws IOException {
+        List<LinkedHashMap<String, String>> values = OBJECT_MAPPER.readValue(data, RECORDS_TYPE);
+        List<List<ScoringInput>> records = new ArrayList<>(values.size());
+        for (Map<String, String> recordValues : values) {
+            List<ScoringInput> record = new ArrayList<>(recordValues.size());
+            recordValues.forEach((name, value) -> record.add(new ScoringInput(name, value)));
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = (String) JdbcUtils.extractDatabaseMetaData(dataSource,
+                    DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            return false;
+        }
+    }
+}
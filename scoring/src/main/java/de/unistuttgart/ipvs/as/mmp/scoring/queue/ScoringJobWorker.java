@@ -0,0 +1,122 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.queue;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobChunk;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.RecordWriter;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores the chunks of distributed scoring jobs on every instance of the service. Every worker thread leases and
+ * scores chunks until there are no claimable chunks left and then polls the {@link ScoringJobQueue} again after the
+ * poll interval, so the throughput grows with the number of instances until the database is the bottleneck.
+ */
+@Component
+public class ScoringJobWorker {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ScoringJobQueue scoringJobQueue;
+    private final ScoringService scoringService;
+    private final boolean enabled;
+    private final int threads;
+    private final long pollIntervalMs;
+    private ScheduledThreadPoolExecutor executor;
+
+    /**
+     * @param enabled        whether this instance scores the chunks of distributed jobs
+     * @param threads        number of chunks this instance scores at the same time
+     * @param pollIntervalMs time an idle worker thread waits before it looks for claimable chunks again
+     */
+    public ScoringJobWorker(ScoringJobQueue scoringJobQueue, ScoringService scoringService,
+                            @Value("${scoring.jobs.distributed.enabled:false}") boolean enabled,
+                            @Value("${scoring.jobs.distributed.worker-threads:2}") int threads,
+                            @Value("${scoring.jobs.distributed.poll-interval-ms:1000}") long pollIntervalMs) {
+        this.scoringJobQueue = scoringJobQueue;
+        this.scoringService = scoringService;
+        this.enabled = enabled;
+        this.threads = threads;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(threads, new CustomizableThreadFactory("scoring-job-worker-"));
+        for (int i = 0; i < threads; i++) {
+            executor.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        this.log.info("Scoring job worker {} started with {} threads", scoringJobQueue.getNodeId(), threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Scores chunks until there are no claimable chunks left.
+     */
+    void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted() && scoreNext()) {
+                // the next chunk is leased right away
+            }
+            scoringJobQueue.finishCompletedJobs();
+        } catch (RuntimeException e) {
+            // an exception would cancel the scheduled polling of this thread
+            this.log.warn("Polling of the scoring job queue failed", e);
+        }
+    }
+
+    /**
+     * Leases and scores the next claimable chunk.
+     *
+     * @return false if there was no claimable chunk
+     */
+    boolean scoreNext() {
+        Optional<ScoringJobChunk> chunkOptional = scoringJobQueue.claim();
+        if (!chunkOptional.isPresent()) {
+            return false;
+        }
+        ScoringJobChunk chunk = chunkOptional.get();
+        byte[] outputData;
+        try {
+            List<List<ScoringInput>> records = ScoringJobQueue.decodeRecords(chunk.getInputData());
+            List<List<ScoringOutput>> outputs = scoringService.scoreModelRecords(chunk.getProjectId(),
+                    chunk.getModelId(), records);
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            RecordWriter writer = StreamFormat.NDJSON.newWriter(result);
+            for (List<ScoringOutput> recordOutputs : outputs) {
+                writer.write(recordOutputs);
+            }
+            writer.flush();
+            outputData = result.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            this.log.warn(String.format("Chunk %s of scoring job %s failed", chunk.getChunkIndex(),
+                    chunk.getJobId()), e);
+            scoringJobQueue.fail(chunk, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            return true;
+        }
+        scoringJobQueue.complete(chunk, outputData);
+        return true;
+    }
+}
@@ -0,0 +1,230 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.replay;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayReport;
+import de.unistuttgart.ipvs.as.mmp.scoring.drift.QuantileSketch;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringOutputComparator;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringPlan;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays recorded scorings against a target model and compares its outputs with the recorded outputs. The scorings
+ * are read in pages in the order of their ids, every page is split into slices that are replayed at the same time,
+ * while the next page is already read. Every record is also evaluated by the recorded model, so the latencies of both
+ * models are measured on the same inputs. Only counters, latency sketches and a limited number of changed scorings
+ * are kept, so the memory used does not depend on the number of scorings.
+ */
+public class ScoringReplayer {
+
+    /**
+     * Reads the recorded scorings.
+     */
+    public interface Source {
+
+        /**
+         * @return the next scorings with an id greater than after, in the order of their ids
+         */
+        List<RecordedScoring> read(Long after, int limit);
+    }
+
+    /**
+     * Is told about every replayed page.
+     */
+    public interface Listener {
+
+        /**
+         * @return false to stop the replay after this page
+         */
+        boolean onPageReplayed(long replayedRecords, long changedRecords, long failedRecords);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RecordedScoring {
+        private Long scoringId;
+        private List<ScoringInput> inputs;
+        private List<ScoringOutput> outputs;
+    }
+
+    private final Executor executor;
+    private final int pageSize;
+    private final int parallelism;
+    private final int maxChanges;
+    private final ScoringOutputComparator outputComparator;
+
+    /**
+     * @param executor    replays the slices of a page
+     * @param pageSize    number of scorings that are read at once
+     * @param parallelism number of slices a page is split into
+     * @param maxChanges  number of changed scorings that are included in the report
+     * @param tolerance   relative difference up to which numeric outputs are unchanged
+     */
+    public ScoringReplayer(Executor executor, int pageSize, int parallelism, int maxChanges, double tolerance) {
+        this.executor = executor;
+        this.pageSize = Math.max(1, pageSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.maxChanges = maxChanges;
+        this.outputComparator = new ScoringOutputComparator(tolerance);
+    }
+
+    public ScoringReplayReport run(Source source, ScoringPlan modelPlan, ScoringPlan targetPlan, Listener listener)
+            throws InterruptedException {
+        Replay replay = new Replay();
+        List<RecordedScoring> page = source.read(0L, pageSize);
+        while (!page.isEmpty()) {
+            int sliceSize = (page.size() + parallelism - 1) / parallelism;
+            List<CompletableFuture<Void>> slices = new ArrayList<>(parallelism);
+            for (int from = 0; from < page.size(); from += sliceSize) {
+                List<RecordedScoring> slice = page.subList(from, Math.min(page.size(), from + sliceSize));
+                slices.add(CompletableFuture.runAsync(() -> replay.replay(slice, modelPlan, targetPlan), executor));
+            }
+
+            Long lastScoringId = page.get(page.size() - 1).getScoringId();
+            List<RecordedScoring> nextPage = page.size() < pageSize
+                    ? Collections.emptyList() : source.read(lastScoringId, pageSize);
+            try {
+                CompletableFuture.allOf(slices.toArray(new CompletableFuture[0])).get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw new IllegalStateException(cause.getMessage(), cause);
+            }
+
+            if (!listener.onPageReplayed(replay.replayed.sum(), replay.changed.sum(), replay.failed.sum())) {
+                break;
+            }
+            page = nextPage;
+        }
+        return replay.toReport();
+    }
+
+    /**
+     * Counters of a replay, updated by the slices of a page at the same time.
+     */
+    private class Replay {
+        private final LongAdder replayed = new LongAdder();
+        private final LongAdder changed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Map<String, LongAdder> changedOutputs = new ConcurrentHashMap<>();
+        private final List<ScoringReplayReport.Change> changes = new ArrayList<>();
+        private final Latency modelLatency = new Latency();
+        private final Latency targetLatency = new Latency();
+
+        private void replay(List<RecordedScoring> scorings, ScoringPlan modelPlan, ScoringPlan targetPlan) {
+            for (RecordedScoring scoring : scorings) {
+                replayed.increment();
+                try {
+                    long start = System.nanoTime();
+                    modelPlan.toScoringOutputs(modelPlan.evaluate(modelPlan.bind(scoring.getInputs())));
+                    modelLatency.add(System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    // the recorded outputs are compared anyway, only the latency of the model is missing
+                }
+
+                List<ScoringOutput> outputs;
+                try {
+                    long start = System.nanoTime();
+                    outputs = targetPlan.toScoringOutputs(targetPlan.evaluate(targetPlan.bind(scoring.getInputs())));
+                    targetLatency.add(System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    continue;
+                }
+
+                Set<String> changedNames = outputComparator.getChangedNames(scoring.getOutputs(), outputs);
+                if (!changedNames.isEmpty()) {
+                    changed.increment();
+                    for (String name : changedNames) {
+                        changedOutputs.computeIfAbsent(name, key -> new LongAdder()).increment();
+                    }
+                    addChange(scoring, outputs);
+                }
+            }
+        }
+
+        private void addChange(RecordedScoring scoring, List<ScoringOutput> outputs) {
+            synchronized (changes) {
+                if (changes.size() < maxChanges) {
+                    changes.add(ScoringReplayReport.Change.builder()
+                            .scoringId(scoring.getScoringId())
+                            .recordedOutputs(toValues(scoring.getOutputs()))
+                            .replayedOutputs(toValues(outputs))
+                            .build());
+                }
+            }
+        }
+
+        private ScoringReplayReport toReport() {
+            long replayedRecords = replayed.sum();
+            long changedRecords = changed.sum();
+            Map<String, Long> changedOutputCounts = new LinkedHashMap<>();
+            changedOutputs.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> changedOutputCounts.put(entry.getKey(), entry.getValue().sum()));
+            List<ScoringReplayReport.Change> sortedChanges;
+            synchronized (changes) {
+                sortedChanges = new ArrayList<>(changes);
+            }
+            sortedChanges.sort(Comparator.comparing(ScoringReplayReport.Change::getScoringId));
+            return ScoringReplayReport.builder()
+                    .replayedRecords(replayedRecords)
+                    .changedRecords(changedRecords)
+                    .failedRecords(failed.sum())
+                    .changeRate(replayedRecords == 0 ? null : (double) changedRecords / replayedRecords)
+                    .changedOutputs(changedOutputCounts)
+                    .modelLatency(modelLatency.toLatency())
+                    .targetLatency(targetLatency.toLatency())
+                    .changes(sortedChanges)
+                    .build();
+        }
+    }
+
+    private static class Latency {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final QuantileSketch millis = new QuantileSketch();
+
+        private void add(long duration) {
+            count.increment();
+            nanos.add(duration);
+            maxNanos.accumulate(duration);
+            millis.add(duration / 1e6);
+        }
+
+        private ScoringReplayReport.Latency toLatency() {
+            long total = count.sum();
+            return ScoringReplayReport.Latency.builder()
+                    .count(total)
+                    .meanMs(total == 0 ? 0.0 : nanos.sum() / 1e6 / total)
+                    .p50Ms(millis.quantile(0.5))
+                    .p95Ms(millis.quantile(0.95))
+                    .p99Ms(millis.quantile(0.99))
+                    .maxMs(maxNanos.get() / 1e6)
+                    .build();
+        }
+    }
+
+    private static Map<String, String> toValues(List<ScoringOutput> outputs) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (ScoringOutput output : outputs) {
+            values.put(output.getName(), output.getValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,74 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.AsynchronousJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Leases of {@link AsynchronousJob}s.
+ */
+@NoRepositoryBean
+public interface AsynchronousJobRepository<J extends AsynchronousJob> extends JpaRepository<J, Long> {
+
+    /**
+     * Renews the lease of a job, unless it is finished or owned by another instance.
+     *
+     * @return 1 if the lease was renewed
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update #{#entityName} job set job.heartbeat = :now " +
+            "where job.id = :id and job.owner = :owner and job.status in :open")
+    int renewLease(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                   @Param("open") Collection<ScoringJobStatus> open);
+
+    /**
+     * Fails the open jobs of an owner, e.g. of this instance after it was restarted.
+     *
+     * @return number of failed jobs
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update #{#entityName} job set job.status = :failed, job.errorMessage = :message, job.finished = :now, " +
+            "job.version = job.version + 1 where job.status in :open and job.owner = :owner")
+    int failJobsOfOwner(@Param("owner") String owner, @Param("now") LocalDateTime now,
+                        @Param("message") String message, @Param("open") Collection<ScoringJobStatus> open,
+                        @Param("failed") ScoringJobStatus failed);
+
+    /**
+     * Fails the open jobs whose lease expired.
+     *
+     * @return number of failed jobs
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update #{#entityName} job set job.status = :failed, job.errorMessage = :message, job.finished = :now, " +
+            "job.version = job.version + 1 where job.status in :open and job.heartbeat < :expired")
+    int failExpiredJobs(@Param("expired") LocalDateTime expired, @Param("now") LocalDateTime now,
+                        @Param("message") String message, @Param("open") Collection<ScoringJobStatus> open,
+                        @Param("failed") ScoringJobStatus failed);
+
+    /**
+     * Queues a finished job again for an owner, unless it was queued by another request in the meantime or it was
+     * finished by another instance whose lease has not expired yet, which may still be writing its last outputs.
+     *
+     * @return 1 if the job was queued
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update #{#entityName} job set job.status = :queued, job.owner = :owner, job.heartbeat = :now, " +
+            "job.errorMessage = null, job.finished = null, job.version = job.version + 1 " +
+            "where job.id = :id and job.status in :finished " +
+            "and (job.owner = :owner or job.heartbeat is null or job.heartbeat < :expired)")
+    int requeueJob(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                   @Param("expired") LocalDateTime expired, @Param("finished") Collection<ScoringJobStatus> finished,
+                   @Param("queued") ScoringJobStatus queued);
+}
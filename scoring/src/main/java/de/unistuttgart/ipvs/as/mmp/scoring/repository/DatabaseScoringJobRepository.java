@@ -0,0 +1,10 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+
+import java.util.Optional;
+
+public interface DatabaseScoringJobRepository extends AsynchronousJobRepository<DatabaseScoringJob> {
+
+    Optional<DatabaseScoringJob> findByIdAndProjectIdAndModelId(Long id, Long projectId, Long modelId);
+}
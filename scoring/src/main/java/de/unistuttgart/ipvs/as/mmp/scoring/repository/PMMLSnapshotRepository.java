@@ -0,0 +1,14 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.PMMLSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PMMLSnapshotRepository extends JpaRepository<PMMLSnapshot, Long> {
+
+    Optional<PMMLSnapshot> findByModelFileId(Long modelFileId);
+
+    List<PMMLSnapshot> findAllByModelId(Long modelId);
+}
@@ -0,0 +1,29 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ScoringCountRepository extends JpaRepository<ScoringCount, Long> {
+
+    /**
+     * Adds scorings to the stored count of an hour in the database, so concurrent flushes do not lose scorings.
+     *
+     * @return 0 if the hour has no stored count yet
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringCount c set c.count = c.count + :delta " +
+            "where c.modelId = :modelId and c.bucketStart = :bucketStart")
+    int addCount(@Param("modelId") Long modelId, @Param("bucketStart") LocalDateTime bucketStart,
+                 @Param("delta") long delta);
+
+    List<ScoringCount> findAllByModelIdAndBucketStartBetweenOrderByBucketStart(Long modelId, LocalDateTime from,
+                                                                               LocalDateTime to);
+}
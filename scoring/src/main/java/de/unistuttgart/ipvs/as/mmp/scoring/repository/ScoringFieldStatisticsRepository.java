@@ -0,0 +1,30 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringFieldStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ScoringFieldStatisticsRepository extends JpaRepository<ScoringFieldStatistics, Long> {
+
+    /**
+     * Adds the values of scorings to the stored statistics of an input field in the database, so concurrent flushes
+     * do not lose values.
+     *
+     * @return 0 if the field has no stored statistics yet
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringFieldStatistics s set s.count = s.count + :count, s.sum = s.sum + :sum, " +
+            "s.min = case when s.min < :min then s.min else :min end, " +
+            "s.max = case when s.max > :max then s.max else :max end " +
+            "where s.modelId = :modelId and s.name = :name")
+    int addValues(@Param("modelId") Long modelId, @Param("name") String name, @Param("count") long count,
+                  @Param("min") double min, @Param("max") double max, @Param("sum") double sum);
+
+    List<ScoringFieldStatistics> findAllByModelIdOrderByName(Long modelId);
+}
@@ -0,0 +1,101 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobChunk;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ScoringJobChunkRepository extends JpaRepository<ScoringJobChunk, Long> {
+
+    /**
+     * Locks claimable chunks that are not locked by another transaction yet, only on databases that support
+     * {@code SKIP LOCKED} like postgres.
+     */
+    @Query(value = "select id from scoring_job_chunk " +
+            "where status = 'QUEUED' or status = 'RUNNING' and lease_expires < :now " +
+            "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<Number> lockClaimableIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query("select chunk.id from ScoringJobChunk chunk where chunk.status = :queued " +
+            "or chunk.status = :running and chunk.leaseExpires < :now order by chunk.id")
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, @Param("queued") ScoringJobStatus queued,
+                                @Param("running") ScoringJobStatus running, Pageable pageable);
+
+    /**
+     * Leases the chunk unless another instance leased it in the meantime.
+     *
+     * @return 1 if the chunk was leased
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringJobChunk chunk set chunk.status = :running, chunk.leaseOwner = :owner, " +
+            "chunk.leaseExpires = :expires, chunk.attempts = chunk.attempts + 1 where chunk.id = :id " +
+            "and (chunk.status = :queued or chunk.status = :running and chunk.leaseExpires < :now)")
+    int lease(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+              @Param("expires") LocalDateTime expires, @Param("queued") ScoringJobStatus queued,
+              @Param("running") ScoringJobStatus running);
+
+    /**
+     * Stores the outputs of a chunk, unless its lease expired and it was leased again or the job was cancelled.
+     *
+     * @return 1 if the outputs were stored
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringJobChunk chunk set chunk.status = :completed, chunk.outputData = :outputData, " +
+            "chunk.leaseOwner = null, chunk.leaseExpires = null where chunk.id = :id and chunk.status = :running " +
+            "and chunk.leaseOwner = :owner and chunk.attempts = :attempts")
+    int complete(@Param("id") Long id, @Param("owner") String owner, @Param("attempts") int attempts,
+                 @Param("outputData") byte[] outputData, @Param("running") ScoringJobStatus running,
+                 @Param("completed") ScoringJobStatus completed);
+
+    /**
+     * Queues the chunk again or fails it, unless its lease expired and it was leased again or the job was cancelled.
+     *
+     * @return 1 if the chunk was released
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringJobChunk chunk set chunk.status = :status, chunk.errorMessage = :errorMessage, " +
+            "chunk.leaseOwner = null, chunk.leaseExpires = null where chunk.id = :id and chunk.status = :running " +
+            "and chunk.leaseOwner = :owner and chunk.attempts = :attempts")
+    int release(@Param("id") Long id, @Param("owner") String owner, @Param("attempts") int attempts,
+                @Param("status") ScoringJobStatus status, @Param("errorMessage") String errorMessage,
+                @Param("running") ScoringJobStatus running);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringJobChunk chunk set chunk.status = :status, chunk.leaseOwner = null, " +
+            "chunk.leaseExpires = null where chunk.jobId = :jobId and chunk.status in :open")
+    int updateOpenChunks(@Param("jobId") Long jobId, @Param("status") ScoringJobStatus status,
+                         @Param("open") Collection<ScoringJobStatus> open);
+
+    long countByJobIdAndStatusNot(Long jobId, ScoringJobStatus status);
+
+    @Query("select coalesce(sum(chunk.recordCount), 0) from ScoringJobChunk chunk " +
+            "where chunk.jobId = ?1 and chunk.status = ?2")
+    long sumRecordCountByJobIdAndStatus(Long jobId, ScoringJobStatus status);
+
+    @Query("select chunk.id from ScoringJobChunk chunk where chunk.jobId = ?1 order by chunk.chunkIndex")
+    List<Long> findIdsByJobIdOrderByChunkIndex(Long jobId);
+
+    /**
+     * Reads only the outputs of a chunk, without its inputs.
+     */
+    @Query("select chunk.outputData from ScoringJobChunk chunk where chunk.id = ?1")
+    byte[] findOutputDataById(Long id);
+
+    @Query(value = "select coalesce(sum(octet_length(output_data)), 0) from scoring_job_chunk where job_id = ?1",
+            nativeQuery = true)
+    Number sumOutputLengthByJobId(Long jobId);
+
+    /**
+     * Deletes the chunks of a job without loading their inputs and outputs.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from ScoringJobChunk chunk where chunk.jobId = ?1")
+    int deleteByJobId(Long jobId);
+}
@@ -0,0 +1,38 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ScoringJobRepository extends AsynchronousJobRepository<ScoringJob> {
+
+    Optional<ScoringJob> findByIdAndProjectIdAndModelId(Long id, Long projectId, Long modelId);
+
+    long countByProjectIdAndDistributedTrueAndStatusIn(Long projectId, Collection<ScoringJobStatus> statuses);
+
+    /**
+     * Changes the status of a distributed job, unless another instance changed it in the meantime.
+     *
+     * @return 1 if the status was changed
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringJob job set job.status = :status where job.id = :id and job.status in :expected")
+    int updateStatus(@Param("id") Long id, @Param("expected") Collection<ScoringJobStatus> expected,
+                     @Param("status") ScoringJobStatus status);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringJob job set job.started = :started where job.id = :id and job.started is null")
+    int updateStarted(@Param("id") Long id, @Param("started") LocalDateTime started);
+
+    @Query("select job.id from ScoringJob job where job.distributed = true and job.status = :running and not exists " +
+            "(select chunk from ScoringJobChunk chunk where chunk.jobId = job.id and chunk.status <> :completed)")
+    List<Long> findDistributedJobIdsWithoutOpenChunks(@Param("running") ScoringJobStatus running,
+                                                      @Param("completed") ScoringJobStatus completed);
+}
@@ -0,0 +1,10 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayJob;
+
+import java.util.Optional;
+
+public interface ScoringReplayJobRepository extends AsynchronousJobRepository<ScoringReplayJob> {
+
+    Optional<ScoringReplayJob> findByIdAndProjectIdAndModelId(Long id, Long projectId, Long modelId);
+}
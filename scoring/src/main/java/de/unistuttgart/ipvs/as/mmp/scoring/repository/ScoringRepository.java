@@ -1,8 +1,36 @@
 package de.unistuttgart.ipvs.as.mmp.scoring.repository;
 
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.Scoring;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface ScoringRepository extends JpaRepository<Scoring, Long> {
 
+    long countByModelId(Long modelId);
+
+    /**
+     * Returns the ids of the next page of scorings of a model after a scoring, without loading the scorings.
+     */
+    @Query("SELECT s.id FROM Scoring s WHERE s.model.id = :modelId AND s.id > :after ORDER BY s.id")
+    List<Long> findIdsByModelIdAfter(@Param("modelId") Long modelId, @Param("after") Long after, Pageable pageable);
+
+    /**
+     * Returns the scoring id, name and value of the inputs of the scorings of a model in a range of scoring ids.
+     */
+    @Query("SELECT s.id, i.name, i.value FROM Scoring s JOIN s.inputs i "
+            + "WHERE s.model.id = :modelId AND s.id BETWEEN :from AND :to ORDER BY s.id, i.id")
+    List<Object[]> findInputsByModelIdAndIdBetween(@Param("modelId") Long modelId, @Param("from") Long from,
+                                                   @Param("to") Long to);
+
+    /**
+     * Returns the scoring id, name and value of the outputs of the scorings of a model in a range of scoring ids.
+     */
+    @Query("SELECT s.id, o.name, o.value FROM Scoring s JOIN s.outputs o "
+            + "WHERE s.model.id = :modelId AND s.id BETWEEN :from AND :to ORDER BY s.id, o.id")
+    List<Object[]> findOutputsByModelIdAndIdBetween(@Param("modelId") Long modelId, @Param("from") Long from,
+                                                    @Param("to") Long to);
 }
@@ -0,0 +1,35 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringValueCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ScoringValueCountRepository extends JpaRepository<ScoringValueCount, Long> {
+
+    /**
+     * @return the distinct values that are counted for an output field, without the further values
+     */
+    @Query("select c.value from ScoringValueCount c " +
+            "where c.modelId = :modelId and c.name = :name and c.value is not null")
+    List<String> findValues(@Param("modelId") Long modelId, @Param("name") String name);
+
+    /**
+     * Adds scorings to the stored count of a value in the database, so concurrent flushes do not lose scorings.
+     *
+     * @param valueKey key of the value, see {@link ScoringValueCount#keyOf(String)}
+     * @return 0 if the value has no stored count yet
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ScoringValueCount c set c.count = c.count + :delta " +
+            "where c.modelId = :modelId and c.name = :name and c.valueKey = :valueKey")
+    int addCount(@Param("modelId") Long modelId, @Param("name") String name, @Param("valueKey") String valueKey,
+                 @Param("delta") long delta);
+
+    List<ScoringValueCount> findAllByModelIdOrderByNameAscCountDesc(Long modelId);
+}
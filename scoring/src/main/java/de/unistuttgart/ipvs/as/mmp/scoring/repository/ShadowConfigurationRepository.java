@@ -0,0 +1,15 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ShadowConfigurationRepository extends JpaRepository<ShadowConfiguration, Long> {
+
+    Optional<ShadowConfiguration> findByProjectIdAndModelGroupId(Long projectId, Long modelGroupId);
+
+    @Transactional
+    long deleteByProjectIdAndModelGroupId(Long projectId, Long modelGroupId);
+}
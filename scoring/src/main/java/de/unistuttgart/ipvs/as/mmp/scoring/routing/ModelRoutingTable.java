@@ -0,0 +1,116 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelGroup;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelVersionCreatedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes the scorings of a model group to its latest version without querying the latest version for every scoring.
+ * The route of a model group is loaded once and replaced whenever a new version of the group is saved, routes to
+ * models that change or are deleted are removed and loaded again with the next scoring. Routes also expire after
+ * the configured time to live, so versions saved by other instances of the service are picked up eventually.
+ */
+@Component
+public class ModelRoutingTable {
+
+    private final ModelService modelService;
+    private final Cache<RouteKey, Route> routes;
+
+    public ModelRoutingTable(ModelService modelService,
+                             @Value("${scoring.routing.max-size:10000}") long maxSize,
+                             @Value("${scoring.routing.ttl-seconds:300}") long ttlSeconds,
+                             ScoringMetrics scoringMetrics) {
+        this.modelService = modelService;
+        this.routes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(scoringMetrics.getMeterRegistry(), routes, "scoring-routes");
+    }
+
+    /**
+     * Returns the route to the latest version of the model group, loading it if the group is not routed yet.
+     *
+     * @throws IdException if the model group has no models
+     */
+    public Route resolve(Long projectId, Long modelGroupId) {
+        RouteKey key = new RouteKey(projectId, modelGroupId);
+        Route route = routes.getIfPresent(key);
+        if (route != null) {
+            return route;
+        }
+        Model model = modelService.getLastModelForProjectAndModelGroupIdentifier(projectId, modelGroupId)
+                .orElseThrow(() -> IdException.idNotFound(ModelGroup.class, modelGroupId));
+        ModelMetadata modelMetadata = model.getModelMetadata();
+        return update(key, new Route(model.getId(), modelMetadata.getName(), modelMetadata.getVersion()));
+    }
+
+    public void invalidate(Long projectId, Long modelGroupId) {
+        routes.invalidate(new RouteKey(projectId, modelGroupId));
+    }
+
+    public void invalidateAll() {
+        routes.invalidateAll();
+    }
+
+    public long size() {
+        return routes.estimatedSize();
+    }
+
+    @EventListener
+    public void onModelVersionCreated(ModelVersionCreatedEvent event) {
+        update(new RouteKey(event.getProjectId(), event.getModelGroupId()),
+                new Route(event.getModelId(), event.getModelName(), event.getVersion()));
+    }
+
+    @EventListener
+    public void onModelFileChanged(ModelFileChangedEvent event) {
+        routes.asMap().values().removeIf(route -> route.getModelId().equals(event.getModelId()));
+    }
+
+    /**
+     * Keeps the route with the higher version, a route that was loaded before a new version was saved must not
+     * replace the route to the new version.
+     */
+    private Route update(RouteKey key, Route route) {
+        return routes.asMap().merge(key, route, (current, updated) ->
+                compareVersions(updated, current) >= 0 ? updated : current);
+    }
+
+    private static int compareVersions(Route first, Route second) {
+        long firstVersion = first.getVersion() == null ? 0L : first.getVersion();
+        long secondVersion = second.getVersion() == null ? 0L : second.getVersion();
+        return Long.compare(firstVersion, secondVersion);
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class RouteKey {
+        private Long projectId;
+        private Long modelGroupId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Route {
+        private Long modelId;
+        private String modelName;
+        private Long version;
+    }
+}
@@ -0,0 +1,21 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.sensor;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source of sensor readings that are scored continuously, e.g. the body of an http stream. Every reading holds the
+ * values of the input fields of the model.
+ */
+public interface ReadingSource extends Closeable {
+
+    /**
+     * Blocks until the next reading is available.
+     *
+     * @return the next reading or null if the source is exhausted
+     */
+    List<ScoringInput> next() throws IOException;
+}
@@ -0,0 +1,59 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.sensor;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.RecordReader;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the readings from a csv or ndjson stream, one record per reading. Empty values are left out of the reading.
+ * The stream is only read by {@link #next()}, so the source can be created on another thread than it is read.
+ */
+public class RecordReadingSource implements ReadingSource {
+
+    private final StreamFormat format;
+    private final InputStream inputStream;
+    private RecordReader reader;
+    private List<String> columns;
+
+    public RecordReadingSource(StreamFormat format, InputStream inputStream) {
+        this.format = format;
+        this.inputStream = inputStream;
+    }
+
+    public static RecordReadingSource of(StreamFormat format, InputStream inputStream) {
+        return new RecordReadingSource(format, inputStream);
+    }
+
+    @Override
+    public List<ScoringInput> next() throws IOException {
+        if (reader == null) {
+            reader = format.newReader(inputStream);
+            columns = reader.getColumns();
+        }
+        String[] values = reader.next();
+        if (values == null) {
+            return null;
+        }
+        List<ScoringInput> reading = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length && i < columns.size(); i++) {
+            if (values[i] != null && !values[i].isEmpty()) {
+                reading.add(new ScoringInput(columns.get(i), values[i]));
+            }
+        }
+        return reading;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        } else {
+            inputStream.close();
+        }
+    }
+}
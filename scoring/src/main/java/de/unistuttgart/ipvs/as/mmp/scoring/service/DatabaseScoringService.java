@@ -0,0 +1,22 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringRequest;
+
+import java.util.Optional;
+
+public interface DatabaseScoringService {
+
+    DatabaseScoringJob submitJob(Long projectId, Long modelId, DatabaseScoringRequest request);
+
+    Optional<DatabaseScoringJob> getJob(Long projectId, Long modelId, Long jobId);
+
+    boolean cancelJob(Long projectId, Long modelId, Long jobId);
+
+    /**
+     * Queues a failed or cancelled job again, it continues after its checkpoint.
+     *
+     * @return the queued job, empty if the job is queued, running or completed
+     */
+    Optional<DatabaseScoringJob> resumeJob(Long projectId, Long modelId, Long jobId);
+}
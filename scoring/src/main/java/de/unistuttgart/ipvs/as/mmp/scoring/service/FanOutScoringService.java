@@ -0,0 +1,14 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+
+import java.util.List;
+
+public interface FanOutScoringService {
+
+    List<ModelScoringResult> scoreModelGroup(Long projectId, Long modelGroupId, List<ScoringInput> inputs);
+
+    List<ModelScoringResult> scoreProject(Long projectId, List<ScoringInput> inputs);
+
+}
@@ -0,0 +1,29 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.InputDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringAnalytics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+public interface ScoringAnalyticsService {
+
+    /**
+     * Adds a scoring to the aggregates of its model. The aggregates are only kept in memory until they are flushed.
+     */
+    void record(Long modelId, LocalDateTime recorded, List<ScoringInput> inputs, List<ScoringOutput> outputs);
+
+    /**
+     * Adds the aggregates of the scorings recorded since the last flush to the stored aggregates.
+     */
+    void flush();
+
+    ScoringAnalytics getAnalytics(Long projectId, Long modelId, LocalDateTime from, LocalDateTime to, ChronoUnit interval);
+
+    InputDrift getInputDrift(Long projectId, Long modelId);
+
+    void resetInputDrift(Long projectId, Long modelId);
+}
@@ -0,0 +1,24 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ScoringAuditService {
+
+    /**
+     * Records the scoring of a model. Depending on the implementation the scoring may be written later or sampled out.
+     */
+    void record(Model model, List<ScoringInput> inputs, List<ScoringOutput> outputs);
+
+    /**
+     * Records the scorings of a batch, the outputs are in the order of the records. The batch waits for the
+     * implementation at most as long as a single scoring.
+     */
+    void recordAll(Model model, List<List<ScoringInput>> records, List<List<ScoringOutput>> outputs);
+
+    Map<String, Long> getStatistics();
+}
@@ -0,0 +1,19 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ScoringJobService {
+
+    ScoringJob submitJob(Long projectId, Long modelId, List<List<ScoringInput>> records);
+
+    Optional<ScoringJob> getJob(Long projectId, Long modelId, Long jobId);
+
+    boolean cancelJob(Long projectId, Long modelId, Long jobId);
+
+    Optional<DBFile> getJobResult(Long projectId, Long modelId, Long jobId);
+}
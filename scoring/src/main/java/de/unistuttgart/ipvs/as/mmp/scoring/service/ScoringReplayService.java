@@ -0,0 +1,21 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayRequest;
+
+import java.util.Optional;
+
+public interface ScoringReplayService {
+
+    /**
+     * Queues the replay of the recorded scorings of the model against the target model of the request.
+     */
+    ScoringReplayJob submitJob(Long projectId, Long modelId, ScoringReplayRequest request);
+
+    Optional<ScoringReplayJob> getJob(Long projectId, Long modelId, Long jobId);
+
+    boolean cancelJob(Long projectId, Long modelId, Long jobId);
+
+    Optional<DBFile> getJobReport(Long projectId, Long modelId, Long jobId);
+}
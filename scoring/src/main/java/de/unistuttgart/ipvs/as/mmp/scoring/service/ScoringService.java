@@ -1,12 +1,32 @@
 package de.unistuttgart.ipvs.as.mmp.scoring.service;
 
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.scoring.columnar.ColumnarFormat;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public interface ScoringService {
 
     List<ScoringOutput> scoreModel(Long projectId, Long modelId, List<ScoringInput> inputs);
 
+    ModelScoringResult scoreLatestModel(Long projectId, Long modelGroupId, List<ScoringInput> inputs);
+
+    List<List<ScoringOutput>> scoreModelBatch(Long projectId, Long modelId, List<List<ScoringInput>> records);
+
+    /**
+     * Scores the records like {@link #scoreModelBatch}, but like streamed records they are neither persisted as
+     * scorings nor observed for drift. Used by scoring jobs, whose records are kept in their results.
+     */
+    List<List<ScoringOutput>> scoreModelRecords(Long projectId, Long modelId, List<List<ScoringInput>> records);
+
+    StreamingResponseBody scoreModelStream(Long projectId, Long modelId, StreamFormat format, InputStream inputStream);
+
+    byte[] scoreModelColumnar(Long projectId, Long modelId, ColumnarFormat format, InputStream inputStream) throws IOException;
+
 }
@@ -0,0 +1,28 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.SensorScoringResult;
+import de.unistuttgart.ipvs.as.mmp.scoring.sensor.ReadingSource;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public interface SensorStreamService {
+
+    /**
+     * Reads the source on a thread of the service until it is exhausted and scores its readings in micro-batches.
+     *
+     * @return the number of readings that were read
+     * @throws de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException if the service or the project already
+     *                                                                        reads the maximum number of sources
+     */
+    CompletableFuture<Long> ingest(Long projectId, Long modelId, ReadingSource source);
+
+    /**
+     * Passes the results of every scored micro-batch of the model to the subscriber until it is unsubscribed.
+     * Subscribers that throw an exception are unsubscribed.
+     *
+     * @return unsubscribes the subscriber
+     */
+    Runnable subscribe(Long projectId, Long modelId, Consumer<List<SensorScoringResult>> subscriber);
+}
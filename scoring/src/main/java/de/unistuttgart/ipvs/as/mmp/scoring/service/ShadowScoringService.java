@@ -0,0 +1,23 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowStatistics;
+
+import java.util.Optional;
+
+public interface ShadowScoringService {
+
+    /**
+     * Mirrors the scorings of the model group to the candidate of the configuration, replacing a previous candidate.
+     */
+    ShadowConfiguration saveConfiguration(Long projectId, Long modelGroupId, ShadowConfiguration configuration);
+
+    Optional<ShadowConfiguration> getConfiguration(Long projectId, Long modelGroupId);
+
+    boolean deleteConfiguration(Long projectId, Long modelGroupId);
+
+    /**
+     * Returns the statistics of the current candidate of the model group, empty if the group has no candidate.
+     */
+    Optional<ShadowStatistics> getStatistics(Long projectId, Long modelGroupId);
+}
@@ -0,0 +1,169 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.RelationalDBInformation;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringRequest;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.database.DatabaseConnector;
+import de.unistuttgart.ipvs.as.mmp.scoring.database.DatabaseScorer;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobNode;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobRunner;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.DatabaseScoringJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.DatabaseScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs database scoring jobs on a bounded executor. A job reads the source table of the relational database of its
+ * model with a cursor and scores its chunks on a shared pool. After every written chunk the checkpoint and progress
+ * are stored and a requested cancellation is honoured, failed and cancelled jobs can be resumed after their checkpoint.
+ */
+@Service
+public class DatabaseScoringServiceImpl implements DatabaseScoringService {
+
+    private static final List<ScoringJobStatus> RESUMABLE =
+            Arrays.asList(ScoringJobStatus.FAILED, ScoringJobStatus.CANCELLED);
+
+    private final ScoringService scoringService;
+    private final ModelService modelService;
+    private final DatabaseScoringJobRepository databaseScoringJobRepository;
+    private final JobRunner<DatabaseScoringJob> jobRunner;
+    private final ThreadPoolExecutor chunkExecutor;
+    private final DatabaseScorer databaseScorer;
+    private final DatabaseConnector databaseConnector;
+
+    /**
+     * @param parallelism number of chunks that are scored at the same time, over all jobs
+     * @param fetchSize   number of rows the cursor fetches from the source database at once
+     * @param allowedUrls prefixes of the database urls that may be opened, see {@link DatabaseConnector}
+     */
+    public DatabaseScoringServiceImpl(ScoringService scoringService, ModelService modelService,
+                                      DatabaseScoringJobRepository databaseScoringJobRepository, JobNode jobNode,
+                                      @Value("${scoring.database.pool-size:2}") int poolSize,
+                                      @Value("${scoring.database.queue-capacity:100}") int queueCapacity,
+                                      @Value("${scoring.database.max-per-project:1}") int maxJobsPerProject,
+                                      @Value("${scoring.database.chunk-size:500}") int chunkSize,
+                                      @Value("${scoring.database.parallelism:4}") int parallelism,
+                                      @Value("${scoring.database.fetch-size:1000}") int fetchSize,
+                                      @Value("${scoring.database.allowed-urls:}") String[] allowedUrls) {
+        this.scoringService = scoringService;
+        this.modelService = modelService;
+        this.databaseScoringJobRepository = databaseScoringJobRepository;
+        this.jobRunner = new JobRunner<>("Database scoring job", "scoring-database-", databaseScoringJobRepository,
+                jobNode, poolSize, queueCapacity, maxJobsPerProject);
+        // the scorer of a job waits for its oldest chunk before it submits another one, so the queue stays short
+        this.chunkExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("scoring-database-chunk-"));
+        this.databaseScorer = new DatabaseScorer(chunkExecutor, chunkSize, parallelism, fetchSize);
+        this.databaseConnector = new DatabaseConnector(allowedUrls);
+    }
+
+    /**
+     * Jobs only live in the executor of the instance they were submitted to, so the jobs of an instance that stopped
+     * are failed. They keep their checkpoint and can be resumed.
+     */
+    @PostConstruct
+    public void start() {
+        jobRunner.start("The job was interrupted, because its instance of the service stopped. It can be resumed.");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdown();
+        chunkExecutor.shutdownNow();
+    }
+
+    @Override
+    public DatabaseScoringJob submitJob(Long projectId, Long modelId, DatabaseScoringRequest request) {
+        Optional<Model> model = modelService.getModelForProjectById(projectId, modelId);
+        if (!model.isPresent()) {
+            throw IdException.idNotFound(Model.class, modelId);
+        }
+        if (model.get().getRelationalDBInformation() == null) {
+            throw new IllegalArgumentException(String.format("Model %s has no relational database.", modelId));
+        }
+        databaseConnector.validate(model.get().getRelationalDBInformation().getUrl());
+        DatabaseScorer.validate(request.getSourceTable(), request.getKeyColumn(), request.getTargetTable(),
+                request.getFieldMapping());
+
+        DatabaseScoringJob job = DatabaseScoringJob.builder()
+                .projectId(projectId)
+                .modelId(modelId)
+                .sourceTable(request.getSourceTable())
+                .keyColumn(request.getKeyColumn())
+                .targetTable(request.getTargetTable())
+                .fieldMapping(request.getFieldMapping())
+                .submitted(LocalDateTime.now())
+                .build();
+        return jobRunner.submit(job, this::runJob);
+    }
+
+    @Override
+    public Optional<DatabaseScoringJob> getJob(Long projectId, Long modelId, Long jobId) {
+        return databaseScoringJobRepository.findByIdAndProjectIdAndModelId(jobId, projectId, modelId);
+    }
+
+    @Override
+    public boolean cancelJob(Long projectId, Long modelId, Long jobId) {
+        Optional<DatabaseScoringJob> jobOptional = getJob(projectId, modelId, jobId);
+        if (!jobOptional.isPresent()) {
+            throw IdException.idNotFound(DatabaseScoringJob.class, jobId);
+        }
+        return jobRunner.cancel(jobOptional.get());
+    }
+
+    @Override
+    public Optional<DatabaseScoringJob> resumeJob(Long projectId, Long modelId, Long jobId) {
+        Optional<DatabaseScoringJob> jobOptional = getJob(projectId, modelId, jobId);
+        if (!jobOptional.isPresent()) {
+            throw IdException.idNotFound(DatabaseScoringJob.class, jobId);
+        }
+        return jobRunner.resubmit(jobOptional.get(), RESUMABLE, this::runJob);
+    }
+
+    private ScoringJobStatus runJob(JobRunner.Run<DatabaseScoringJob> run) throws SQLException {
+        DatabaseScoringJob job = run.getJob();
+        Long projectId = job.getProjectId();
+        Long modelId = job.getModelId();
+        RelationalDBInformation database = modelService.getModelForProjectById(projectId, modelId)
+                .map(Model::getRelationalDBInformation)
+                .orElseThrow(() -> new IllegalStateException(
+                        String.format("Model %s has no relational database anymore.", modelId)));
+        try (Connection source = databaseConnector.connect(database);
+             Connection target = databaseConnector.connect(database)) {
+            // the chunk after the checkpoint may have been written by the interrupted run
+            databaseScorer.run(source, target, job.getSourceTable(), job.getKeyColumn(), job.getTargetTable(),
+                    job.getFieldMapping(), run.isResumed(), job.getCheckpoint(), job.getProcessedRecords(),
+                    records -> scoringService.scoreModelRecords(projectId, modelId, records),
+                    (checkpoint, processedRecords) -> {
+                        DatabaseScoringJob runningJob = run.getJob();
+                        runningJob.setCheckpoint(checkpoint);
+                        runningJob.setProcessedRecords(processedRecords);
+                        run.save(runningJob);
+                        return !run.isCancelRequested();
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.getJob().setErrorMessage("The job was interrupted, it can be resumed.");
+            return ScoringJobStatus.FAILED;
+        }
+        return run.isCancelRequested() ? ScoringJobStatus.CANCELLED : ScoringJobStatus.COMPLETED;
+    }
+}
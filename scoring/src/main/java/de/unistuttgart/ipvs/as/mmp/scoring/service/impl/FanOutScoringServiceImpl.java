@@ -0,0 +1,131 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelGroup;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.FanOutScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scores the same inputs against several models at once, every version of a model group or every model of a
+ * project. The models are scored concurrently on a bounded executor and the results are returned together.
+ * A model that fails, is rejected by the executor or does not finish in time only gets an error in its result,
+ * the other models are not affected.
+ */
+@Service
+public class FanOutScoringServiceImpl implements FanOutScoringService {
+
+    private final ScoringService scoringService;
+    private final ModelService modelService;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param poolSize      number of models that are scored at the same time, over all requests
+     * @param queueCapacity number of models that wait for a thread, further models fail with an error
+     * @param timeoutMs     time that a request waits for all of its models
+     */
+    public FanOutScoringServiceImpl(ScoringService scoringService, ModelService modelService,
+                                    @Value("${scoring.fan-out.pool-size:4}") int poolSize,
+                                    @Value("${scoring.fan-out.queue-capacity:1000}") int queueCapacity,
+                                    @Value("${scoring.fan-out.timeout-ms:10000}") long timeoutMs) {
+        this.scoringService = scoringService;
+        this.modelService = modelService;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("scoring-fan-out-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public List<ModelScoringResult> scoreModelGroup(Long projectId, Long modelGroupId, List<ScoringInput> inputs) {
+        List<Model> models = modelService.getModelsForProjectAndModelGroupIdentifier(projectId, modelGroupId);
+        if (models.isEmpty()) {
+            throw IdException.idNotFound(ModelGroup.class, modelGroupId);
+        }
+        return scoreModels(projectId, models, inputs);
+    }
+
+    @Override
+    public List<ModelScoringResult> scoreProject(Long projectId, List<ScoringInput> inputs) {
+        return scoreModels(projectId, modelService.getAllModelsForProject(projectId), inputs);
+    }
+
+    private List<ModelScoringResult> scoreModels(Long projectId, List<Model> models, List<ScoringInput> inputs) {
+        List<Future<List<ScoringOutput>>> futures = new ArrayList<>(models.size());
+        List<ModelScoringResult> results = new ArrayList<>(models.size());
+        for (Model model : models) {
+            results.add(createResult(model));
+            try {
+                futures.add(executor.submit(() -> scoringService.scoreModel(projectId, model.getId(), inputs)));
+            } catch (RejectedExecutionException e) {
+                futures.add(null);
+            }
+        }
+
+        // one deadline for the whole request, not for every model
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (int i = 0; i < futures.size(); i++) {
+            ModelScoringResult result = results.get(i);
+            Future<List<ScoringOutput>> future = futures.get(i);
+            if (future == null) {
+                result.setError("The model was not scored, too many models are being scored at the moment.");
+                continue;
+            }
+            try {
+                result.setOutputs(future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                result.setError("The model was not scored within " + timeoutMs + " ms.");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Fan-out scoring of model {} of project {} failed", result.getModelId(), projectId, cause);
+                result.setError(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.subList(i, futures.size()).forEach(remaining -> {
+                    if (remaining != null) {
+                        remaining.cancel(true);
+                    }
+                });
+                throw new IllegalStateException("The fan-out scoring was interrupted.", e);
+            }
+        }
+        return results;
+    }
+
+    private static ModelScoringResult createResult(Model model) {
+        ModelMetadata modelMetadata = model.getModelMetadata();
+        return ModelScoringResult.builder()
+                .modelId(model.getId())
+                .modelName(modelMetadata != null ? modelMetadata.getName() : null)
+                .version(modelMetadata != null ? modelMetadata.getVersion() : null)
+                .build();
+    }
+}
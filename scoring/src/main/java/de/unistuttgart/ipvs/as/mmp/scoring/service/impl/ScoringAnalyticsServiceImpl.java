@@ -0,0 +1,300 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.InputDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringAnalytics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringCount;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringFieldStatistics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringValueCount;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.drift.DriftMonitor;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringCountRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringFieldStatisticsRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringValueCountRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringAnalyticsService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the usage aggregates of the models incrementally, so the analytics never read the raw scorings.
+ * Recorded scorings are only added to aggregates in memory, the request threads merge them per key without locks.
+ * A flush removes the aggregates from memory and adds them to the stored aggregates in one transaction,
+ * if the transaction fails they are merged back and written with the next flush.
+ * The stored aggregates are incremented by the database, so the flushes of several instances do not overwrite each
+ * other. Aggregates that are not stored yet are inserted, if another instance inserted the same aggregate in the
+ * meantime the unique constraint fails the transaction and the next flush increments the aggregate instead.
+ * Scorings are counted per hour, daily counts are summed up from the hours when they are read.
+ * The drift of the inputs is only kept in memory by the {@link DriftMonitor}.
+ */
+@Service
+public class ScoringAnalyticsServiceImpl implements ScoringAnalyticsService {
+
+    private static final long DEFAULT_RANGE_DAYS = 7L;
+
+    private final ScoringCountRepository scoringCountRepository;
+    private final ScoringValueCountRepository scoringValueCountRepository;
+    private final ScoringFieldStatisticsRepository scoringFieldStatisticsRepository;
+    private final ModelService modelService;
+    private final DriftMonitor driftMonitor;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxOutputValues;
+    private final ConcurrentHashMap<CountKey, Long> pendingCounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ValueKey, Long> pendingValues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<FieldKey, FieldDelta> pendingFields = new ConcurrentHashMap<>();
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param maxOutputValues number of distinct values that are counted per output field, further values are
+     *                        counted together with a value of null
+     */
+    public ScoringAnalyticsServiceImpl(ScoringCountRepository scoringCountRepository,
+                                       ScoringValueCountRepository scoringValueCountRepository,
+                                       ScoringFieldStatisticsRepository scoringFieldStatisticsRepository,
+                                       ModelService modelService, DriftMonitor driftMonitor,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${scoring.analytics.max-output-values:100}") int maxOutputValues) {
+        this.scoringCountRepository = scoringCountRepository;
+        this.scoringValueCountRepository = scoringValueCountRepository;
+        this.scoringFieldStatisticsRepository = scoringFieldStatisticsRepository;
+        this.modelService = modelService;
+        this.driftMonitor = driftMonitor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxOutputValues = maxOutputValues;
+    }
+
+    @Override
+    public void record(Long modelId, LocalDateTime recorded, List<ScoringInput> inputs, List<ScoringOutput> outputs) {
+        if (modelId == null) {
+            return;
+        }
+        pendingCounts.merge(new CountKey(modelId, recorded.truncatedTo(ChronoUnit.HOURS)), 1L, Long::sum);
+        for (ScoringOutput output : outputs) {
+            pendingValues.merge(new ValueKey(modelId, output.getName(), output.getValue()), 1L, Long::sum);
+        }
+        for (ScoringInput input : inputs) {
+            Double number = parseNumber(input.getValue());
+            if (number != null) {
+                pendingFields.merge(new FieldKey(modelId, input.getName()), new FieldDelta(1L, number, number, number),
+                        FieldDelta::combine);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        Map<CountKey, Long> counts = drain(pendingCounts);
+        Map<ValueKey, Long> values = drain(pendingValues);
+        Map<FieldKey, FieldDelta> fields = drain(pendingFields);
+        if (counts.isEmpty() && values.isEmpty() && fields.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                writeCounts(counts);
+                writeValues(values);
+                writeFields(fields);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            this.log.error("Could not write the scoring analytics, they are retried with the next flush", e);
+            counts.forEach((key, count) -> pendingCounts.merge(key, count, Long::sum));
+            values.forEach((key, count) -> pendingValues.merge(key, count, Long::sum));
+            fields.forEach((key, delta) -> pendingFields.merge(key, delta, FieldDelta::combine));
+        }
+    }
+
+    @Override
+    public ScoringAnalytics getAnalytics(Long projectId, Long modelId, LocalDateTime from, LocalDateTime to,
+                                         ChronoUnit interval) {
+        getModel(projectId, modelId);
+        ChronoUnit bucketUnit = interval == null ? ChronoUnit.HOURS : interval;
+        if (bucketUnit != ChronoUnit.HOURS && bucketUnit != ChronoUnit.DAYS) {
+            throw new IllegalArgumentException("The interval has to be HOURS or DAYS.");
+        }
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = (from == null ? end.minusDays(DEFAULT_RANGE_DAYS) : from).truncatedTo(bucketUnit);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("The start of the range has to be before its end.");
+        }
+
+        List<ScoringCount> hourlyCounts = scoringCountRepository
+                .findAllByModelIdAndBucketStartBetweenOrderByBucketStart(modelId, start, end);
+        return ScoringAnalytics.builder()
+                .modelId(modelId)
+                .from(start)
+                .to(end)
+                .interval(bucketUnit)
+                .requests(bucketUnit == ChronoUnit.HOURS ? hourlyCounts : sumDays(modelId, hourlyCounts))
+                .outputs(scoringValueCountRepository.findAllByModelIdOrderByNameAscCountDesc(modelId))
+                .inputs(scoringFieldStatisticsRepository.findAllByModelIdOrderByName(modelId))
+                .build();
+    }
+
+    @Override
+    public InputDrift getInputDrift(Long projectId, Long modelId) {
+        return driftMonitor.getDrift(getModel(projectId, modelId));
+    }
+
+    @Override
+    public void resetInputDrift(Long projectId, Long modelId) {
+        driftMonitor.reset(getModel(projectId, modelId).getId());
+    }
+
+    private Model getModel(Long projectId, Long modelId) {
+        return modelService.getModelForProjectById(projectId, modelId)
+                .orElseThrow(() -> IdException.idNotFound(Model.class, modelId));
+    }
+
+    private static List<ScoringCount> sumDays(Long modelId, List<ScoringCount> hourlyCounts) {
+        Map<LocalDateTime, Long> dailyCounts = new LinkedHashMap<>();
+        for (ScoringCount hourlyCount : hourlyCounts) {
+            dailyCounts.merge(hourlyCount.getBucketStart().truncatedTo(ChronoUnit.DAYS), hourlyCount.getCount(), Long::sum);
+        }
+        List<ScoringCount> counts = new ArrayList<>(dailyCounts.size());
+        dailyCounts.forEach((day, count) ->
+                counts.add(ScoringCount.builder().modelId(modelId).bucketStart(day).count(count).build()));
+        return counts;
+    }
+
+    private void writeCounts(Map<CountKey, Long> counts) {
+        List<ScoringCount> created = new ArrayList<>();
+        counts.forEach((key, count) -> {
+            if (scoringCountRepository.addCount(key.modelId, key.bucketStart, count) == 0) {
+                created.add(ScoringCount.builder().modelId(key.modelId).bucketStart(key.bucketStart).count(count)
+                        .build());
+            }
+        });
+        scoringCountRepository.saveAll(created);
+    }
+
+    private void writeValues(Map<ValueKey, Long> values) {
+        Map<FieldKey, Map<String, Long>> valuesPerOutput = new HashMap<>();
+        values.forEach((key, count) -> valuesPerOutput
+                .computeIfAbsent(new FieldKey(key.modelId, key.name), outputKey -> new HashMap<>())
+                .put(key.value, count));
+
+        List<ScoringValueCount> created = new ArrayList<>();
+        valuesPerOutput.forEach((outputKey, outputValues) -> {
+            // concurrent flushes of other instances may exceed the limit by the values they add at the same time
+            Set<String> storedValues = new HashSet<>(scoringValueCountRepository.findValues(outputKey.modelId,
+                    outputKey.name));
+            Map<String, Long> counts = new HashMap<>();
+            outputValues.forEach((value, count) -> {
+                if (value != null && !storedValues.contains(value) && storedValues.size() >= maxOutputValues) {
+                    value = null;
+                } else if (value != null) {
+                    storedValues.add(value);
+                }
+                counts.merge(value, count, Long::sum);
+            });
+            counts.forEach((value, count) -> {
+                if (scoringValueCountRepository.addCount(outputKey.modelId, outputKey.name,
+                        ScoringValueCount.keyOf(value), count) == 0) {
+                    created.add(ScoringValueCount.builder().modelId(outputKey.modelId).name(outputKey.name)
+                            .value(value).count(count).build());
+                }
+            });
+        });
+        scoringValueCountRepository.saveAll(created);
+    }
+
+    private void writeFields(Map<FieldKey, FieldDelta> fields) {
+        List<ScoringFieldStatistics> created = new ArrayList<>();
+        fields.forEach((key, delta) -> {
+            if (scoringFieldStatisticsRepository.addValues(key.modelId, key.name, delta.count, delta.min, delta.max,
+                    delta.sum) == 0) {
+                created.add(ScoringFieldStatistics.builder().modelId(key.modelId).name(key.name)
+                        .count(delta.count).min(delta.min).max(delta.max).sum(delta.sum).build());
+            }
+        });
+        scoringFieldStatisticsRepository.saveAll(created);
+    }
+
+    /**
+     * Removes the aggregates one key at a time, a scoring that is merged concurrently either ends up in the
+     * removed aggregate or in a new one for the next flush.
+     */
+    private static <K, V> Map<K, V> drain(ConcurrentHashMap<K, V> pending) {
+        Map<K, V> drained = new HashMap<>();
+        for (K key : pending.keySet()) {
+            V value = pending.remove(key);
+            if (value != null) {
+                drained.put(key, value);
+            }
+        }
+        return drained;
+    }
+
+    private static Double parseNumber(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        // categorical values are skipped without the cost of a NumberFormatException
+        char first = value.charAt(0);
+        if (!Character.isDigit(first) && first != '-' && first != '+' && first != '.') {
+            return null;
+        }
+        try {
+            double number = Double.parseDouble(value);
+            return Double.isNaN(number) || Double.isInfinite(number) ? null : number;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class CountKey {
+        private Long modelId;
+        private LocalDateTime bucketStart;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class ValueKey {
+        private Long modelId;
+        private String name;
+        private String value;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class FieldKey {
+        private Long modelId;
+        private String name;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class FieldDelta {
+        private long count;
+        private double min;
+        private double max;
+        private double sum;
+
+        private static FieldDelta combine(FieldDelta first, FieldDelta second) {
+            return new FieldDelta(first.count + second.count, Math.min(first.min, second.min),
+                    Math.max(first.max, second.max), first.sum + second.sum);
+        }
+    }
+}
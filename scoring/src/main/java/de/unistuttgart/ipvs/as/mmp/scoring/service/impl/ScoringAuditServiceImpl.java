@@ -0,0 +1,237 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.Scoring;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringAnalyticsService;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringAuditService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind sink for scoring audit records. Scorings are queued by the request threads and written by a single
+ * background thread in batches, either when a batch is full or when the flush interval elapsed.
+ * If the queue is full the request thread waits for a short time and drops the scoring afterwards, a batch of
+ * scorings waits only once and drops the scorings that do not fit afterwards without waiting.
+ * Remaining scorings are written when the service shuts down.
+ * Every recorded scoring, also the sampled out and dropped ones, is added to the analytics, which are flushed by the
+ * same background thread.
+ */
+@Service
+public class ScoringAuditServiceImpl implements ScoringAuditService {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000L;
+
+    private final ScoringRepository scoringRepository;
+    private final ModelRepository modelRepository;
+    private final ScoringAnalyticsService scoringAnalyticsService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingScoring> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final double sampleRate;
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Timer flushTimer;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ScoringAuditServiceImpl(ScoringRepository scoringRepository, ModelRepository modelRepository,
+                                   ScoringAnalyticsService scoringAnalyticsService,
+                                   PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                   @Value("${scoring.audit.batch-size:200}") int batchSize,
+                                   @Value("${scoring.audit.flush-interval-ms:1000}") long flushIntervalMillis,
+                                   @Value("${scoring.audit.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${scoring.audit.offer-timeout-ms:50}") long offerTimeoutMillis,
+                                   @Value("${scoring.audit.sample-rate:1.0}") double sampleRate) {
+        this.scoringRepository = scoringRepository;
+        this.modelRepository = modelRepository;
+        this.scoringAnalyticsService = scoringAnalyticsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.sampleRate = sampleRate;
+        this.flushTimer = meterRegistry.timer("scoring.audit.flush");
+        registerCounter(meterRegistry, "recorded", recorded);
+        registerCounter(meterRegistry, "sampledOut", sampledOut);
+        registerCounter(meterRegistry, "dropped", dropped);
+        registerCounter(meterRegistry, "written", written);
+        registerCounter(meterRegistry, "failed", failed);
+        meterRegistry.gauge("scoring.audit.queued", queue, BlockingQueue::size);
+    }
+
+    private static void registerCounter(MeterRegistry meterRegistry, String result, LongAdder adder) {
+        FunctionCounter.builder("scoring.audit.records", adder, LongAdder::sum).tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, "scoring-audit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public void record(Model model, List<ScoringInput> inputs, List<ScoringOutput> outputs) {
+        recordAll(model, Collections.singletonList(inputs), Collections.singletonList(outputs));
+    }
+
+    @Override
+    public void recordAll(Model model, List<List<ScoringInput>> records, List<List<ScoringOutput>> outputs) {
+        LocalDateTime now = LocalDateTime.now();
+        // the whole batch waits for the queue only once, scorings that do not fit afterwards are dropped at once
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        for (int i = 0; i < records.size(); i++) {
+            List<ScoringInput> inputs = records.get(i);
+            scoringAnalyticsService.record(model.getId(), now, inputs, outputs.get(i));
+            if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                sampledOut.increment();
+                continue;
+            }
+            // the outputs are also returned to the client and the inputs of a request may be scored against several
+            // models, so every persisted scoring gets its own copies
+            List<ScoringInput> inputCopies = new ArrayList<>(inputs.size());
+            for (ScoringInput input : inputs) {
+                inputCopies.add(new ScoringInput(input.getName(), input.getValue()));
+            }
+            List<ScoringOutput> outputCopies = new ArrayList<>(outputs.get(i).size());
+            for (ScoringOutput output : outputs.get(i)) {
+                outputCopies.add(new ScoringOutput(output.getName(), output.getValue()));
+            }
+            if (offer(new PendingScoring(model.getId(), inputCopies, outputCopies), deadline)) {
+                recorded.increment();
+            } else {
+                dropped.increment();
+            }
+        }
+    }
+
+    private boolean offer(PendingScoring pendingScoring, long deadline) {
+        if (!running) {
+            return false;
+        }
+        long waitNanos = deadline - System.nanoTime();
+        if (waitNanos <= 0 || Thread.currentThread().isInterrupted()) {
+            return queue.offer(pendingScoring);
+        }
+        try {
+            return queue.offer(pendingScoring, waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("recorded", recorded.sum());
+        statistics.put("sampledOut", sampledOut.sum());
+        statistics.put("dropped", dropped.sum());
+        statistics.put("written", written.sum());
+        statistics.put("failed", failed.sum());
+        statistics.put("queued", (long) queue.size());
+        return statistics;
+    }
+
+    private void runFlusher() {
+        List<PendingScoring> batch = new ArrayList<>(batchSize);
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (running || !queue.isEmpty()) {
+            try {
+                long waitNanos = nextFlush - System.nanoTime();
+                PendingScoring pendingScoring = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                if (pendingScoring != null) {
+                    batch.add(pendingScoring);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                if (batch.size() >= batchSize || System.nanoTime() - nextFlush >= 0) {
+                    flush(batch);
+                    scoringAnalyticsService.flush();
+                    nextFlush = System.nanoTime() + flushIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                // only the shutdown interrupts the flusher, the remaining scorings are written below
+                break;
+            }
+        }
+        queue.drainTo(batch);
+        flush(batch);
+        scoringAnalyticsService.flush();
+    }
+
+    private void flush(List<PendingScoring> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> transactionTemplate.execute(status -> {
+                List<Scoring> scorings = new ArrayList<>(batch.size());
+                for (PendingScoring pendingScoring : batch) {
+                    // a reference is enough for the foreign key and avoids cascading into the detached model
+                    Model model = pendingScoring.modelId == null ? null : modelRepository.getOne(pendingScoring.modelId);
+                    scorings.add(Scoring.builder().model(model).inputs(pendingScoring.inputs)
+                            .outputs(pendingScoring.outputs).build());
+                }
+                return scoringRepository.saveAll(scorings);
+            }));
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            this.log.error(String.format("Could not write %s scorings", batch.size()), e);
+            failed.add(batch.size());
+        }
+        batch.clear();
+    }
+
+    private static class PendingScoring {
+        private final Long modelId;
+        private final List<ScoringInput> inputs;
+        private final List<ScoringOutput> outputs;
+
+        private PendingScoring(Long modelId, List<ScoringInput> inputs, List<ScoringOutput> outputs) {
+            this.modelId = modelId;
+            this.inputs = inputs;
+            this.outputs = outputs;
+        }
+    }
+}
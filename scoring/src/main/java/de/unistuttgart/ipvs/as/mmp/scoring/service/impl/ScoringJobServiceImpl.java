@@ -0,0 +1,178 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.service.DBFileStorageService;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobNode;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobRunner;
+import de.unistuttgart.ipvs.as.mmp.scoring.queue.ScoringJobQueue;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringJobService;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.RecordWriter;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs scoring jobs on a bounded executor. The records of a job are scored in chunks, after every chunk the progress
+ * is stored and a requested cancellation is honoured. The results of a completed job are stored as ndjson file.
+ * If jobs are distributed, their chunks are stored in the {@link ScoringJobQueue} instead and scored by the workers
+ * of every instance.
+ */
+@Service
+public class ScoringJobServiceImpl implements ScoringJobService {
+
+    private final ScoringService scoringService;
+    private final ModelService modelService;
+    private final ScoringJobRepository scoringJobRepository;
+    private final DBFileStorageService dbFileStorageService;
+    private final ScoringJobQueue scoringJobQueue;
+    private final JobRunner<ScoringJob> jobRunner;
+    private final int maxJobsPerProject;
+    private final int chunkSize;
+    private final boolean distributed;
+
+    public ScoringJobServiceImpl(ScoringService scoringService, ModelService modelService,
+                                 ScoringJobRepository scoringJobRepository, DBFileStorageService dbFileStorageService,
+                                 JobNode jobNode,
+                                 @Value("${scoring.jobs.pool-size:2}") int poolSize,
+                                 @Value("${scoring.jobs.queue-capacity:100}") int queueCapacity,
+                                 @Value("${scoring.jobs.max-per-project:2}") int maxJobsPerProject,
+                                 @Value("${scoring.jobs.chunk-size:500}") int chunkSize,
+                                 ScoringJobQueue scoringJobQueue,
+                                 @Value("${scoring.jobs.distributed.enabled:false}") boolean distributed) {
+        this.scoringService = scoringService;
+        this.modelService = modelService;
+        this.scoringJobRepository = scoringJobRepository;
+        this.dbFileStorageService = dbFileStorageService;
+        this.maxJobsPerProject = maxJobsPerProject;
+        this.chunkSize = chunkSize;
+        this.scoringJobQueue = scoringJobQueue;
+        this.distributed = distributed;
+        this.jobRunner = new JobRunner<>("Scoring job", "scoring-job-", scoringJobRepository, jobNode, poolSize,
+                queueCapacity, maxJobsPerProject);
+    }
+
+    /**
+     * Jobs only live in the executor of the instance they were submitted to, so the jobs of an instance that stopped
+     * are failed. Distributed jobs are finished by the other instances.
+     */
+    @PostConstruct
+    public void start() {
+        jobRunner.start("The job was interrupted, because its instance of the service stopped.");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdown();
+    }
+
+    @Override
+    public ScoringJob submitJob(Long projectId, Long modelId, List<List<ScoringInput>> records) {
+        if (!modelService.getModelForProjectById(projectId, modelId).isPresent()) {
+            throw IdException.idNotFound(Model.class, modelId);
+        }
+        if (distributed) {
+            return submitDistributedJob(projectId, modelId, records);
+        }
+
+        ScoringJob job = ScoringJob.builder()
+                .projectId(projectId)
+                .modelId(modelId)
+                .status(ScoringJobStatus.QUEUED)
+                .totalRecords(records.size())
+                .submitted(LocalDateTime.now())
+                .build();
+        return jobRunner.submit(job, run -> runJob(run, records));
+    }
+
+    private ScoringJob submitDistributedJob(Long projectId, Long modelId, List<List<ScoringInput>> records) {
+        // the jobs of other instances are counted, so the limit is only exact for jobs submitted one after another
+        long projectJobs = scoringJobRepository.countByProjectIdAndDistributedTrueAndStatusIn(projectId,
+                Arrays.asList(ScoringJobStatus.QUEUED, ScoringJobStatus.RUNNING));
+        if (projectJobs >= maxJobsPerProject) {
+            throw CapacityException.projectJobLimitReached(projectId, maxJobsPerProject);
+        }
+        ScoringJob job = ScoringJob.builder()
+                .projectId(projectId)
+                .modelId(modelId)
+                .distributed(true)
+                .status(ScoringJobStatus.QUEUED)
+                .totalRecords(records.size())
+                .submitted(LocalDateTime.now())
+                .build();
+        return scoringJobQueue.submit(job, records, chunkSize);
+    }
+
+    @Override
+    public Optional<ScoringJob> getJob(Long projectId, Long modelId, Long jobId) {
+        Optional<ScoringJob> job = scoringJobRepository.findByIdAndProjectIdAndModelId(jobId, projectId, modelId);
+        // the progress of distributed jobs is only stored in their chunks until they are finished
+        job.filter(ScoringJob::isDistributed)
+                .filter(runningJob -> runningJob.getStatus() == ScoringJobStatus.RUNNING)
+                .ifPresent(runningJob -> runningJob.setProcessedRecords(
+                        scoringJobQueue.countProcessedRecords(runningJob.getId())));
+        return job;
+    }
+
+    @Override
+    public boolean cancelJob(Long projectId, Long modelId, Long jobId) {
+        Optional<ScoringJob> jobOptional = getJob(projectId, modelId, jobId);
+        if (!jobOptional.isPresent()) {
+            throw IdException.idNotFound(ScoringJob.class, jobId);
+        }
+        if (jobOptional.get().isDistributed()) {
+            return scoringJobQueue.cancel(jobId);
+        }
+        return jobRunner.cancel(jobOptional.get());
+    }
+
+    @Override
+    public Optional<DBFile> getJobResult(Long projectId, Long modelId, Long jobId) {
+        return getJob(projectId, modelId, jobId).map(ScoringJob::getResult);
+    }
+
+    private ScoringJobStatus runJob(JobRunner.Run<ScoringJob> run, List<List<ScoringInput>> records)
+            throws IOException {
+        ScoringJob job = run.getJob();
+        Long projectId = job.getProjectId();
+        Long modelId = job.getModelId();
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        RecordWriter writer = StreamFormat.NDJSON.newWriter(result);
+        for (int from = 0; from < records.size() && !run.isCancelRequested(); from += chunkSize) {
+            List<List<ScoringInput>> chunk = records.subList(from, Math.min(from + chunkSize, records.size()));
+            List<List<ScoringOutput>> outputs = scoringService.scoreModelRecords(projectId, modelId, chunk);
+            for (List<ScoringOutput> recordOutputs : outputs) {
+                writer.write(recordOutputs);
+            }
+            job.setProcessedRecords((long) from + chunk.size());
+            job = run.save(job);
+        }
+
+        if (run.isCancelRequested()) {
+            return ScoringJobStatus.CANCELLED;
+        }
+        writer.flush();
+        DBFile resultFile = dbFileStorageService.storeFile(String.format("scoring-job-%s.ndjson", job.getId()),
+                StreamFormat.NDJSON_VALUE, result.toByteArray());
+        job.setResult(resultFile);
+        return ScoringJobStatus.COMPLETED;
+    }
+}
@@ -0,0 +1,217 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayReport;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayRequest;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.service.DBFileStorageService;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobNode;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobRunner;
+import de.unistuttgart.ipvs.as.mmp.scoring.replay.ScoringReplayer;
+import de.unistuttgart.ipvs.as.mmp.scoring.replay.ScoringReplayer.RecordedScoring;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringReplayJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringReplayService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs scoring replay jobs on a bounded executor. A job reads the recorded scorings of its model page by page with
+ * projection queries, so neither the scorings of the model nor their entities are loaded, and replays every page on a
+ * shared pool. The replayed outputs are not recorded as scorings. After every page the progress is stored and a
+ * requested cancellation is honoured, the report is stored as json file once the job is completed.
+ */
+@Service
+public class ScoringReplayServiceImpl implements ScoringReplayService {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ModelService modelService;
+    private final EvaluatorCache evaluatorCache;
+    private final ScoringRepository scoringRepository;
+    private final ScoringReplayJobRepository scoringReplayJobRepository;
+    private final DBFileStorageService dbFileStorageService;
+    private final JobRunner<ScoringReplayJob> jobRunner;
+    private final ThreadPoolExecutor sliceExecutor;
+    private final ScoringReplayer scoringReplayer;
+
+    /**
+     * @param pageSize    number of recorded scorings that are read at once
+     * @param parallelism number of threads that replay the pages, over all jobs
+     * @param maxChanges  number of changed scorings that are included in a report
+     * @param tolerance   relative difference up to which numeric outputs are unchanged
+     */
+    public ScoringReplayServiceImpl(ModelService modelService, EvaluatorCache evaluatorCache,
+                                    ScoringRepository scoringRepository,
+                                    ScoringReplayJobRepository scoringReplayJobRepository,
+                                    DBFileStorageService dbFileStorageService, JobNode jobNode,
+                                    @Value("${scoring.replay.pool-size:1}") int poolSize,
+                                    @Value("${scoring.replay.queue-capacity:100}") int queueCapacity,
+                                    @Value("${scoring.replay.max-per-project:1}") int maxJobsPerProject,
+                                    @Value("${scoring.replay.page-size:1000}") int pageSize,
+                                    @Value("${scoring.replay.parallelism:4}") int parallelism,
+                                    @Value("${scoring.replay.max-changes:100}") int maxChanges,
+                                    @Value("${scoring.replay.tolerance:1e-6}") double tolerance) {
+        this.modelService = modelService;
+        this.evaluatorCache = evaluatorCache;
+        this.scoringRepository = scoringRepository;
+        this.scoringReplayJobRepository = scoringReplayJobRepository;
+        this.dbFileStorageService = dbFileStorageService;
+        this.jobRunner = new JobRunner<>("Scoring replay job", "scoring-replay-", scoringReplayJobRepository,
+                jobNode, poolSize, queueCapacity, maxJobsPerProject);
+        this.sliceExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("scoring-replay-slice-"));
+        this.scoringReplayer = new ScoringReplayer(sliceExecutor, pageSize, parallelism, maxChanges, tolerance);
+    }
+
+    /**
+     * Jobs only live in the executor of the instance they were submitted to, so the jobs of an instance that stopped
+     * are failed.
+     */
+    @PostConstruct
+    public void start() {
+        jobRunner.start("The job was interrupted, because its instance of the service stopped.");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdown();
+        sliceExecutor.shutdownNow();
+    }
+
+    @Override
+    public ScoringReplayJob submitJob(Long projectId, Long modelId, ScoringReplayRequest request) {
+        if (!modelService.getModelForProjectById(projectId, modelId).isPresent()) {
+            throw IdException.idNotFound(Model.class, modelId);
+        }
+        Long targetModelId = request.getTargetModelId();
+        if (targetModelId == null) {
+            throw new IllegalArgumentException("The replay has no target model.");
+        }
+        if (!modelService.getModelForProjectById(projectId, targetModelId).isPresent()) {
+            throw IdException.idNotFound(Model.class, targetModelId);
+        }
+
+        ScoringReplayJob job = ScoringReplayJob.builder()
+                .projectId(projectId)
+                .modelId(modelId)
+                .targetModelId(targetModelId)
+                .status(ScoringJobStatus.QUEUED)
+                .submitted(LocalDateTime.now())
+                .build();
+        return jobRunner.submit(job, this::runJob);
+    }
+
+    @Override
+    public Optional<ScoringReplayJob> getJob(Long projectId, Long modelId, Long jobId) {
+        return scoringReplayJobRepository.findByIdAndProjectIdAndModelId(jobId, projectId, modelId);
+    }
+
+    @Override
+    public boolean cancelJob(Long projectId, Long modelId, Long jobId) {
+        Optional<ScoringReplayJob> jobOptional = getJob(projectId, modelId, jobId);
+        if (!jobOptional.isPresent()) {
+            throw IdException.idNotFound(ScoringReplayJob.class, jobId);
+        }
+
+        return jobRunner.cancel(jobOptional.get());
+    }
+
+    @Override
+    public Optional<DBFile> getJobReport(Long projectId, Long modelId, Long jobId) {
+        return getJob(projectId, modelId, jobId).map(ScoringReplayJob::getReport);
+    }
+
+    private ScoringJobStatus runJob(JobRunner.Run<ScoringReplayJob> run)
+            throws InterruptedException, JsonProcessingException {
+        ScoringReplayJob job = run.getJob();
+        Long projectId = job.getProjectId();
+        Long modelId = job.getModelId();
+        job.setTotalRecords(scoringRepository.countByModelId(modelId));
+        job = run.save(job);
+
+        Model model = getModel(projectId, modelId);
+        Model targetModel = getModel(projectId, job.getTargetModelId());
+        ScoringReplayReport report = scoringReplayer.run(
+                (after, limit) -> readRecordedScorings(modelId, after, limit),
+                evaluatorCache.getScoringPlan(model), evaluatorCache.getScoringPlan(targetModel),
+                (replayedRecords, changedRecords, failedRecords) -> {
+                    ScoringReplayJob runningJob = run.getJob();
+                    runningJob.setProcessedRecords(replayedRecords);
+                    runningJob.setChangedRecords(changedRecords);
+                    runningJob.setFailedRecords(failedRecords);
+                    run.save(runningJob);
+                    return !run.isCancelRequested();
+                });
+        if (run.isCancelRequested()) {
+            return ScoringJobStatus.CANCELLED;
+        }
+
+        job = run.getJob();
+        report.setModelId(modelId);
+        report.setTargetModelId(job.getTargetModelId());
+        DBFile reportFile = dbFileStorageService.storeFile(String.format("scoring-replay-%s.json", job.getId()),
+                MediaType.APPLICATION_JSON_VALUE, OBJECT_MAPPER.writeValueAsBytes(report));
+        job.setReport(reportFile);
+        return ScoringJobStatus.COMPLETED;
+    }
+
+    private Model getModel(Long projectId, Long modelId) {
+        return modelService.getModelForProjectById(projectId, modelId)
+                .orElseThrow(() -> IdException.idNotFound(Model.class, modelId));
+    }
+
+    /**
+     * Reads a page of scorings with one query for the ids and one query each for the inputs and outputs of the page.
+     */
+    private List<RecordedScoring> readRecordedScorings(Long modelId, Long after, int limit) {
+        List<Long> ids = scoringRepository.findIdsByModelIdAfter(modelId, after, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Long from = ids.get(0);
+        Long to = ids.get(ids.size() - 1);
+        Map<Long, RecordedScoring> scorings = new LinkedHashMap<>();
+        for (Long id : ids) {
+            scorings.put(id, new RecordedScoring(id, new ArrayList<>(), new ArrayList<>()));
+        }
+        for (Object[] row : scoringRepository.findInputsByModelIdAndIdBetween(modelId, from, to)) {
+            RecordedScoring scoring = scorings.get((Long) row[0]);
+            if (scoring != null) {
+                scoring.getInputs().add(new ScoringInput((String) row[1], (String) row[2]));
+            }
+        }
+        for (Object[] row : scoringRepository.findOutputsByModelIdAndIdBetween(modelId, from, to)) {
+            RecordedScoring scoring = scorings.get((Long) row[0]);
+            if (scoring != null) {
+                scoring.getOutputs().add(new ScoringOutput((String) row[1], (String) row[2]));
+            }
+        }
+        return new ArrayList<>(scorings.values());
+    }
+}
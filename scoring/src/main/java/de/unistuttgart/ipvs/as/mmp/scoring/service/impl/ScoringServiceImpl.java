@@ -1,142 +1,351 @@
 package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
 
-import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
 import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
-import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.Scoring;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
 import de.unistuttgart.ipvs.as.mmp.common.exception.*;
 import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
-import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.columnar.ColumnarFormat;
+import de.unistuttgart.ipvs.as.mmp.scoring.columnar.ColumnarReader;
+import de.unistuttgart.ipvs.as.mmp.scoring.columnar.ColumnarWriter;
+import de.unistuttgart.ipvs.as.mmp.scoring.drift.DriftMonitor;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringPlan;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringResultCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics.Phase;
+import de.unistuttgart.ipvs.as.mmp.scoring.routing.ModelRoutingTable;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringAuditService;
 import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.shadow.ShadowScoring;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.RecordReader;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.RecordWriter;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
 import org.dmg.pmml.FieldName;
-import org.dmg.pmml.PMML;
-import org.jpmml.evaluator.*;
-import org.jpmml.model.VisitorBattery;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.xml.sax.SAXException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.xml.bind.JAXBException;
-import java.io.ByteArrayInputStream;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 @Service
 public class ScoringServiceImpl implements ScoringService {
 
     private final ModelService modelService;
-    private final ScoringRepository scoringRepository;
+    private final ScoringAuditService scoringAuditService;
+    private final EvaluatorCache evaluatorCache;
+    private final ScoringResultCache scoringResultCache;
+    private final DriftMonitor driftMonitor;
+    private final ModelRoutingTable modelRoutingTable;
+    private final ScoringMetrics scoringMetrics;
+    private final ShadowScoring shadowScoring;
+    private final int streamBatchSize;
+    private final ForkJoinPool batchPool;
+    private final int parallelThreshold;
+    private final int parallelChunkSize;
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    public ScoringServiceImpl(ModelService modelService, ScoringRepository scoringRepository) {
+    /**
+     * @param parallelism       number of threads that score large batches, all available processors if not positive
+     * @param parallelThreshold batches with at least this many records are scored in parallel
+     * @param parallelChunkSize number of records that a thread scores at once
+     */
+    public ScoringServiceImpl(ModelService modelService, ScoringAuditService scoringAuditService,
+                              EvaluatorCache evaluatorCache, ScoringResultCache scoringResultCache,
+                              DriftMonitor driftMonitor, ModelRoutingTable modelRoutingTable,
+                              ScoringMetrics scoringMetrics, ShadowScoring shadowScoring,
+                              @Value("${scoring.stream.batch-size:500}") int streamBatchSize,
+                              @Value("${scoring.batch.parallelism:0}") int parallelism,
+                              @Value("${scoring.batch.parallel-threshold:1000}") int parallelThreshold,
+                              @Value("${scoring.batch.parallel-chunk-size:250}") int parallelChunkSize) {
         this.modelService = modelService;
-        this.scoringRepository = scoringRepository;
+        this.scoringAuditService = scoringAuditService;
+        this.evaluatorCache = evaluatorCache;
+        this.scoringResultCache = scoringResultCache;
+        this.driftMonitor = driftMonitor;
+        this.modelRoutingTable = modelRoutingTable;
+        this.scoringMetrics = scoringMetrics;
+        this.shadowScoring = shadowScoring;
+        this.streamBatchSize = streamBatchSize;
+        this.batchPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("scoring-batch-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+        this.parallelThreshold = parallelThreshold;
+        this.parallelChunkSize = Math.max(1, parallelChunkSize);
     }
 
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdownNow();
+    }
+
+    /**
+     * Scores a model and hands the scoring over to the candidate of its model group, if the group has one.
+     */
     @Override
     public List<ScoringOutput> scoreModel(Long projectId, Long modelId, List<ScoringInput> inputs) {
-        DBFile pmmlFile;
-        Optional<Model> optModel = this.modelService.getModelForProjectById(projectId, modelId);
+        try {
+            Model model = scoringMetrics.time(Phase.LOOKUP, projectId, modelId, () -> getModel(projectId, modelId));
+            driftMonitor.observe(model, inputs);
+            long start = System.nanoTime();
+            ScoringPlan scoringPlan = scoringMetrics.time(Phase.LOAD, projectId, modelId,
+                    () -> evaluatorCache.getScoringPlan(model));
 
-        if (!optModel.isPresent()) {
-            this.log.error("Optional of model is not present");
-            throw IdException.idNotFound(Model.class, modelId);
+            Map<FieldName, FieldValue> arguments = scoringMetrics.time(Phase.BIND, projectId, modelId,
+                    () -> scoringPlan.bind(inputs));
+            List<ScoringOutput> scoringOutputs = scoringResultCache.get(model, scoringPlan, arguments, () -> {
+                Object[] results = scoringMetrics.time(Phase.EVALUATE, projectId, modelId,
+                        () -> evaluateResults(scoringPlan, arguments));
+                return scoringMetrics.time(Phase.EXTRACT, projectId, modelId, () -> extract(scoringPlan, results));
+            });
+            long scoringNanos = System.nanoTime() - start;
+
+            scoringMetrics.time(Phase.PERSIST, projectId, modelId,
+                    () -> scoringAuditService.record(model, inputs, scoringOutputs));
+            shadowScoring.mirror(projectId, model, inputs, scoringOutputs, scoringNanos);
+            return scoringOutputs;
+        } catch (ScoringException e) {
+            scoringMetrics.countError(e, projectId, modelId);
+            throw e;
         }
+    }
 
-        Model model = optModel.get();
-        pmmlFile = model.getModelFile().getDbFile();
-        PMML pmml;
+    /**
+     * Scores the latest version of a model group as resolved by the routing table. A route to a model that was
+     * deleted since it was resolved is loaded again once.
+     */
+    @Override
+    public ModelScoringResult scoreLatestModel(Long projectId, Long modelGroupId, List<ScoringInput> inputs) {
+        ModelRoutingTable.Route route = modelRoutingTable.resolve(projectId, modelGroupId);
+        List<ScoringOutput> outputs;
+        try {
+            outputs = scoreModel(projectId, route.getModelId(), inputs);
+        } catch (IdException e) {
+            modelRoutingTable.invalidate(projectId, modelGroupId);
+            route = modelRoutingTable.resolve(projectId, modelGroupId);
+            outputs = scoreModel(projectId, route.getModelId(), inputs);
+        }
+        return ModelScoringResult.builder()
+                .modelId(route.getModelId())
+                .modelName(route.getModelName())
+                .version(route.getVersion())
+                .outputs(outputs)
+                .build();
+    }
 
-        try (InputStream is = new ByteArrayInputStream(pmmlFile.getData())) {
-            pmml = org.jpmml.model.PMMLUtil.unmarshal(is);
-        } catch (IOException | SAXException | JAXBException e) {
-            this.log.error(e.getMessage(), e.getCause());
-            throw ScoringException.parsingError();
+    @Override
+    public List<List<ScoringOutput>> scoreModelBatch(Long projectId, Long modelId, List<List<ScoringInput>> records) {
+        try {
+            Model model = getModel(projectId, modelId);
+            for (List<ScoringInput> inputs : records) {
+                driftMonitor.observe(model, inputs);
+            }
+            List<List<ScoringOutput>> batchOutputs = scoreRecords(model, records);
+            scoringAuditService.recordAll(model, records, batchOutputs);
+            return batchOutputs;
+        } catch (ScoringException e) {
+            scoringMetrics.countError(e, projectId, modelId);
+            throw e;
         }
+    }
 
-        Evaluator evaluator = getEvaluator(pmml);
+    @Override
+    public List<List<ScoringOutput>> scoreModelRecords(Long projectId, Long modelId,
+                                                       List<List<ScoringInput>> records) {
         try {
-            evaluator.verify();
-        } catch (Exception e) {
-            this.log.error(e.getMessage(), e.getCause());
-            throw ScoringException.verifyError();
+            return scoreRecords(getModel(projectId, modelId), records);
+        } catch (ScoringException e) {
+            scoringMetrics.countError(e, projectId, modelId);
+            throw e;
         }
+    }
 
-        Map<FieldName, FieldValue> arguments = getArguments(evaluator, inputs);
+    /**
+     * Scores the records of a csv or ndjson stream. The columns of the stream are bound to the active fields once,
+     * afterwards the records are read, scored and written in micro batches, so the memory used does not depend on the
+     * size of the stream. Streamed records are neither persisted as scorings nor observed for drift.
+     */
+    @Override
+    public StreamingResponseBody scoreModelStream(Long projectId, Long modelId, StreamFormat format, InputStream inputStream) {
+        Model model = getModel(projectId, modelId);
+        ScoringPlan scoringPlan = evaluatorCache.getScoringPlan(model);
 
-        Map<FieldName, ?> results;
+        return outputStream -> {
+            try (RecordReader reader = format.newReader(inputStream)) {
+                RecordWriter writer = format.newWriter(outputStream);
+                InputField[] columnFields = scoringPlan.bindColumns(reader.getColumns());
+
+                List<String[]> records = new ArrayList<>(streamBatchSize);
+                String[] record;
+                while ((record = reader.next()) != null) {
+                    records.add(record);
+                    if (records.size() >= streamBatchSize) {
+                        scoreRecords(scoringPlan, columnFields, records, writer);
+                        records.clear();
+                    }
+                }
+                scoreRecords(scoringPlan, columnFields, records, writer);
+            }
+        };
+    }
+
+    /**
+     * Scores the records of a columnar payload. The values are bound to the evaluator without creating scoring inputs,
+     * the typed results are returned in the format of the request. Columnar records are neither persisted as scorings
+     * nor observed for drift.
+     */
+    @Override
+    public byte[] scoreModelColumnar(Long projectId, Long modelId, ColumnarFormat format, InputStream inputStream)
+            throws IOException {
         try {
-            results = evaluator.evaluate(arguments);
-        } catch (Exception e) {
-            this.log.error(e.getMessage(), e.getCause());
-            throw ScoringException.evaluateError();
-        }
+            Model model = getModel(projectId, modelId);
+            ScoringPlan scoringPlan = evaluatorCache.getScoringPlan(model);
+            if (scoringPlan.getResultNames().isEmpty()) {
+                this.log.error("No output could be generated.");
+                throw ScoringException.outputError();
+            }
 
-        List<ScoringOutput> scoringOutputs = new ArrayList<>();
-        List<OutputField> outputFields = evaluator.getOutputFields();
-        if (!outputFields.isEmpty()) {
-            for (OutputField outputField : outputFields) {
-                FieldName outputFieldName = outputField.getName();
-                Object outputFieldValue = results.get(outputFieldName);
-                scoringOutputs.add(new ScoringOutput(outputFieldName.toString(), outputFieldValue.toString()));
+            List<Map<FieldName, FieldValue>> records;
+            try (ColumnarReader reader = format.newReader(inputStream)) {
+                records = reader.read(scoringPlan);
             }
-        } else {
-            List<TargetField> targetFields = evaluator.getTargetFields();
-            for (TargetField targetField : targetFields) {
-                FieldName targetFieldName = targetField.getName();
-                Object targetFieldValue = results.get(targetFieldName);
-                scoringOutputs.add(new ScoringOutput(targetFieldName.toString(), targetFieldValue.toString()));
+
+            List<Object[]> rows = new ArrayList<>(records.size());
+            for (Map<FieldName, FieldValue> arguments : records) {
+                rows.add(evaluateResults(scoringPlan, arguments));
             }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (ColumnarWriter writer = format.newWriter(outputStream)) {
+                writer.write(scoringPlan.getResultNames(), rows);
+            }
+            return outputStream.toByteArray();
+        } catch (ScoringException e) {
+            scoringMetrics.countError(e, projectId, modelId);
+            throw e;
         }
+    }
 
-        if(scoringOutputs.isEmpty()) {
-            this.log.error("No output could be generated.");
-            throw ScoringException.outputError();
+    private List<List<ScoringOutput>> scoreRecords(Model model, List<List<ScoringInput>> records) {
+        ScoringPlan scoringPlan = evaluatorCache.getScoringPlan(model);
+        if (records.size() >= parallelThreshold && batchPool.getParallelism() > 1) {
+            BatchScoringTask task = new BatchScoringTask(model, scoringPlan, records, 0, records.size());
+            batchPool.invoke(task);
+            return task.getOutputs();
+        }
+        List<List<ScoringOutput>> outputs = new ArrayList<>(records.size());
+        for (List<ScoringInput> inputs : records) {
+            outputs.add(evaluate(model, scoringPlan, scoringPlan.bind(inputs)));
         }
+        return outputs;
+    }
 
-        Scoring scoring = Scoring.builder().model(model).inputs(inputs).outputs(scoringOutputs).build();
-        scoringRepository.save(scoring);
+    private void scoreRecords(ScoringPlan scoringPlan, InputField[] columnFields, List<String[]> records,
+                              RecordWriter writer) throws IOException {
+        for (String[] record : records) {
+            writer.write(evaluate(scoringPlan, scoringPlan.bind(columnFields, record)));
+        }
+        writer.flush();
+    }
+
+    private Model getModel(Long projectId, Long modelId) {
+        Optional<Model> optModel = this.modelService.getModelForProjectById(projectId, modelId);
 
-        if (model.getScorings() == null) {
-            model.setScorings(new ArrayList<>());
+        if (!optModel.isPresent()) {
+            this.log.error("Optional of model is not present");
+            throw IdException.idNotFound(Model.class, modelId);
         }
-        model.getScorings().add(scoring);
+        return optModel.get();
+    }
 
-        return scoringOutputs;
+    private List<ScoringOutput> evaluate(ScoringPlan scoringPlan, Map<FieldName, FieldValue> arguments) {
+        return extract(scoringPlan, evaluateResults(scoringPlan, arguments));
     }
 
-    private Evaluator getEvaluator(PMML pmml) {
-        VisitorBattery visitorBattery = new VisitorBattery();
-        visitorBattery.add(org.jpmml.model.visitors.LocatorNullifier.class);
-        visitorBattery.addAll(new org.jpmml.model.visitors.AttributeInternerBattery());
-        visitorBattery.applyTo(pmml);
+    private List<ScoringOutput> evaluate(Model model, ScoringPlan scoringPlan, Map<FieldName, FieldValue> arguments) {
+        return scoringResultCache.get(model, scoringPlan, arguments, () -> evaluate(scoringPlan, arguments));
+    }
 
-        ModelEvaluatorFactory modelEvaluatorFactory = ModelEvaluatorFactory.newInstance();
-        ValueFactoryFactory valueFactoryFactory = ReportingValueFactoryFactory.newInstance();
-        modelEvaluatorFactory.setValueFactoryFactory(valueFactoryFactory);
+    private List<ScoringOutput> extract(ScoringPlan scoringPlan, Object[] results) {
+        List<ScoringOutput> scoringOutputs = scoringPlan.toScoringOutputs(results);
+        if(scoringOutputs.isEmpty()) {
+            this.log.error("No output could be generated.");
+            throw ScoringException.outputError();
+        }
+        return scoringOutputs;
+    }
 
-        return modelEvaluatorFactory.newModelEvaluator(pmml);
+    private Object[] evaluateResults(ScoringPlan scoringPlan, Map<FieldName, FieldValue> arguments) {
+        try {
+            return scoringPlan.evaluate(arguments);
+        } catch (Exception e) {
+            this.log.error(e.getMessage(), e.getCause());
+            throw ScoringException.evaluateError();
+        }
     }
 
-    private Map<FieldName, FieldValue> getArguments(Evaluator evaluator, List<ScoringInput> inputs) {
-        Map<FieldName, FieldValue> arguments = new LinkedHashMap<>();
-        List<InputField> inputFields = evaluator.getActiveFields();
+    /**
+     * Scores a range of the records of a batch. Ranges larger than the chunk size are split in halves,
+     * the outputs of both halves are written into one array, so they keep the order of the records.
+     */
+    private class BatchScoringTask extends RecursiveAction {
+        private final Model model;
+        private final ScoringPlan scoringPlan;
+        private final List<List<ScoringInput>> records;
+        private final List<ScoringOutput>[] outputs;
+        private final int from;
+        private final int to;
+
+        @SuppressWarnings("unchecked")
+        private BatchScoringTask(Model model, ScoringPlan scoringPlan, List<List<ScoringInput>> records,
+                                 int from, int to) {
+            this(model, scoringPlan, records, (List<ScoringOutput>[]) new List[records.size()], from, to);
+        }
+
+        private BatchScoringTask(Model model, ScoringPlan scoringPlan, List<List<ScoringInput>> records,
+                                 List<ScoringOutput>[] outputs, int from, int to) {
+            this.model = model;
+            this.scoringPlan = scoringPlan;
+            this.records = records;
+            this.outputs = outputs;
+            this.from = from;
+            this.to = to;
+        }
 
-        for (InputField inputField : inputFields) {
-            FieldName inputFieldName = inputField.getName();
-            for (ScoringInput scoringInput : inputs) {
-                if (inputFieldName.toString().equalsIgnoreCase(scoringInput.getName())) {
-                    Object rawValue = scoringInput.getValue();
-                    FieldValue inputFieldValue = inputField.prepare(rawValue);
-                    arguments.put(inputFieldName, inputFieldValue);
-                    break;
+        @Override
+        protected void compute() {
+            if (to - from <= parallelChunkSize) {
+                for (int i = from; i < to; i++) {
+                    outputs[i] = evaluate(model, scoringPlan, scoringPlan.bind(records.get(i)));
                 }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchScoringTask(model, scoringPlan, records, outputs, from, middle),
+                        new BatchScoringTask(model, scoringPlan, records, outputs, middle, to));
             }
         }
 
-        return arguments;
+        private List<List<ScoringOutput>> getOutputs() {
+            return Arrays.asList(outputs);
+        }
     }
 }
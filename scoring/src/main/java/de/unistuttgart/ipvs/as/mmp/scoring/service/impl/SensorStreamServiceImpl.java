@@ -0,0 +1,382 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.SensorScoringResult;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.sensor.ReadingSource;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.SensorStreamService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Scores sensor readings continuously. The readings of a model are collected into micro-batches that are scored as
+ * soon as they are full or their first reading waited for the maximum latency. The batches of a model are scored in
+ * the order they were collected, the batches of different models are scored concurrently and take turns on the pool.
+ * A source is slowed down while too many batches of its model wait to be scored, a slow subscriber slows down the
+ * scoring of its model.
+ * <p>
+ * Sources are read on a bounded pool of the service instead of the request threads, further sources are rejected.
+ * The stream of a model is removed once it has neither sources nor subscribers and all its batches are scored.
+ */
+@Service
+public class SensorStreamServiceImpl implements SensorStreamService {
+
+    public static final String STREAMS_GAUGE = "scoring.sensors.streams";
+
+    private final ScoringService scoringService;
+    private final ModelService modelService;
+    private final int batchSize;
+    private final long maxLatencyMs;
+    private final int maxQueuedBatches;
+    private final int maxSources;
+    private final int maxSourcesPerProject;
+    private final ThreadPoolExecutor scoringExecutor;
+    private final ScheduledThreadPoolExecutor flushScheduler;
+    private final ThreadPoolExecutor sourceExecutor;
+    private final Map<ModelKey, ModelStream> streams = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> projectSources = new HashMap<>();
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param batchSize            number of readings that are scored together
+     * @param maxLatencyMs         time that a reading waits for its batch to fill up
+     * @param poolSize             number of batches that are scored at the same time, over all models
+     * @param maxQueuedBatches     number of batches of a model that wait to be scored before its sources are slowed down
+     * @param maxSources           number of sources that are read at the same time, over all projects
+     * @param maxSourcesPerProject number of sources of a project that are read at the same time
+     */
+    public SensorStreamServiceImpl(ScoringService scoringService, ModelService modelService,
+                                   ScoringMetrics scoringMetrics,
+                                   @Value("${scoring.sensors.batch-size:100}") int batchSize,
+                                   @Value("${scoring.sensors.max-latency-ms:200}") long maxLatencyMs,
+                                   @Value("${scoring.sensors.pool-size:2}") int poolSize,
+                                   @Value("${scoring.sensors.max-queued-batches:10}") int maxQueuedBatches,
+                                   @Value("${scoring.sensors.max-sources:16}") int maxSources,
+                                   @Value("${scoring.sensors.max-sources-per-project:4}") int maxSourcesPerProject) {
+        this.scoringService = scoringService;
+        this.modelService = modelService;
+        this.batchSize = batchSize;
+        this.maxLatencyMs = maxLatencyMs;
+        this.maxQueuedBatches = maxQueuedBatches;
+        this.maxSources = maxSources;
+        this.maxSourcesPerProject = maxSourcesPerProject;
+        // at most one task per model is queued, so the queue is bounded by the number of models
+        this.scoringExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("scoring-sensors-"));
+        this.flushScheduler = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("scoring-sensors-flush-"));
+        this.flushScheduler.setRemoveOnCancelPolicy(true);
+        this.sourceExecutor = new ThreadPoolExecutor(0, maxSources, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("scoring-sensors-source-"));
+        scoringMetrics.getMeterRegistry().gauge(STREAMS_GAUGE, streams, Map::size);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sourceExecutor.shutdownNow();
+        flushScheduler.shutdownNow();
+        scoringExecutor.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<Long> ingest(Long projectId, Long modelId, ReadingSource source) {
+        ModelStream stream = openStream(projectId, modelId);
+        try {
+            acquireSource(projectId);
+        } catch (CapacityException e) {
+            stream.release();
+            throw e;
+        }
+        CompletableFuture<Long> readings = new CompletableFuture<>();
+        try {
+            sourceExecutor.execute(() -> {
+                long read = 0L;
+                Throwable error = null;
+                try {
+                    read = read(stream, source);
+                } catch (Throwable e) {
+                    error = e;
+                } finally {
+                    // released before the client gets the result, so its next source is accepted
+                    releaseSource(projectId);
+                    stream.release();
+                }
+                if (error != null) {
+                    readings.completeExceptionally(error);
+                } else {
+                    readings.complete(read);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            releaseSource(projectId);
+            stream.release();
+            throw CapacityException.sensorStreamLimitReached(maxSources);
+        }
+        return readings;
+    }
+
+    @Override
+    public Runnable subscribe(Long projectId, Long modelId, Consumer<List<SensorScoringResult>> subscriber) {
+        ModelStream stream = openStream(projectId, modelId);
+        Subscription subscription = new Subscription(stream, subscriber);
+        stream.subscribers.add(subscription);
+        return subscription::cancel;
+    }
+
+    private long read(ModelStream stream, ReadingSource source) throws IOException {
+        long readings = 0L;
+        try (ReadingSource readingSource = source) {
+            List<ScoringInput> reading;
+            while ((reading = readingSource.next()) != null) {
+                stream.add(reading);
+                readings++;
+            }
+        } finally {
+            stream.flush();
+        }
+        return readings;
+    }
+
+    private void acquireSource(Long projectId) {
+        synchronized (projectSources) {
+            int sources = projectSources.getOrDefault(projectId, 0);
+            if (sources >= maxSourcesPerProject) {
+                throw CapacityException.projectSensorStreamLimitReached(projectId, maxSourcesPerProject);
+            }
+            projectSources.put(projectId, sources + 1);
+        }
+    }
+
+    private void releaseSource(Long projectId) {
+        synchronized (projectSources) {
+            projectSources.computeIfPresent(projectId, (id, sources) -> sources > 1 ? sources - 1 : null);
+        }
+    }
+
+    /**
+     * Returns the stream of the model and counts the caller as its user until it releases the stream.
+     */
+    private ModelStream openStream(Long projectId, Long modelId) {
+        if (!modelService.getModelForProjectById(projectId, modelId).isPresent()) {
+            throw IdException.idNotFound(Model.class, modelId);
+        }
+        ModelKey key = new ModelKey(projectId, modelId);
+        while (true) {
+            // get first, computeIfAbsent locks the bin of existing keys on java 8
+            ModelStream stream = streams.get(key);
+            if (stream == null) {
+                stream = streams.computeIfAbsent(key, ModelStream::new);
+            }
+            if (stream.retain()) {
+                return stream;
+            }
+            // the stream was removed since it was looked up
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class ModelKey {
+        private Long projectId;
+        private Long modelId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Batch {
+        private List<List<ScoringInput>> readings;
+        private List<LocalDateTime> received;
+    }
+
+    private class Subscription {
+        private final ModelStream stream;
+        private final Consumer<List<SensorScoringResult>> subscriber;
+        private final AtomicBoolean active = new AtomicBoolean(true);
+
+        private Subscription(ModelStream stream, Consumer<List<SensorScoringResult>> subscriber) {
+            this.stream = stream;
+            this.subscriber = subscriber;
+        }
+
+        private void cancel() {
+            if (active.compareAndSet(true, false)) {
+                stream.subscribers.remove(this);
+                stream.release();
+            }
+        }
+    }
+
+    private class ModelStream {
+        private final ModelKey key;
+        private final Long projectId;
+        private final Long modelId;
+        private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+        private final Deque<Batch> batches = new ArrayDeque<>();
+        private List<List<ScoringInput>> readings = new ArrayList<>();
+        private List<LocalDateTime> received = new ArrayList<>();
+        private ScheduledFuture<?> scheduledFlush;
+        private boolean scoring;
+        private int users;
+        private boolean removed;
+
+        private ModelStream(ModelKey key) {
+            this.key = key;
+            this.projectId = key.getProjectId();
+            this.modelId = key.getModelId();
+        }
+
+        /**
+         * @return false if the stream was removed already
+         */
+        private synchronized boolean retain() {
+            if (removed) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        private synchronized void release() {
+            users--;
+            removeIfIdle();
+        }
+
+        private void removeIfIdle() {
+            if (users == 0 && !scoring && batches.isEmpty() && readings.isEmpty()) {
+                removed = true;
+                streams.remove(key, this);
+            }
+        }
+
+        private synchronized void add(List<ScoringInput> reading) throws InterruptedIOException {
+            while (batches.size() >= maxQueuedBatches) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("The source was interrupted");
+                }
+            }
+            readings.add(reading);
+            received.add(LocalDateTime.now());
+            if (readings.size() >= batchSize) {
+                enqueue();
+            } else if (readings.size() == 1) {
+                scheduledFlush = flushScheduler.schedule(this::flush, maxLatencyMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void flush() {
+            if (!readings.isEmpty()) {
+                enqueue();
+            }
+        }
+
+        private void enqueue() {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            batches.add(new Batch(readings, received));
+            readings = new ArrayList<>(batchSize);
+            received = new ArrayList<>(batchSize);
+            if (!scoring) {
+                scoring = true;
+                scoringExecutor.execute(this::scoreNext);
+            }
+        }
+
+        /**
+         * Scores one batch and queues the model again if it has more, so busy models take turns on the pool.
+         */
+        private void scoreNext() {
+            Batch batch;
+            synchronized (this) {
+                batch = batches.poll();
+                notifyAll();
+            }
+            try {
+                publish(score(batch));
+            } finally {
+                synchronized (this) {
+                    if (batches.isEmpty()) {
+                        scoring = false;
+                        removeIfIdle();
+                    } else {
+                        scoringExecutor.execute(this::scoreNext);
+                    }
+                }
+            }
+        }
+
+        private List<SensorScoringResult> score(Batch batch) {
+            List<List<ScoringInput>> batchReadings = batch.getReadings();
+            List<SensorScoringResult> results = new ArrayList<>(batchReadings.size());
+            try {
+                List<List<ScoringOutput>> outputs = scoringService.scoreModelBatch(projectId, modelId, batchReadings);
+                for (int i = 0; i < batchReadings.size(); i++) {
+                    results.add(createResult(batch, i).outputs(outputs.get(i)).build());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Sensor batch of model {} of project {} failed", modelId, projectId, e);
+                String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                results.clear();
+                for (int i = 0; i < batchReadings.size(); i++) {
+                    results.add(createResult(batch, i).error(error).build());
+                }
+            }
+            return results;
+        }
+
+        private SensorScoringResult.SensorScoringResultBuilder createResult(Batch batch, int index) {
+            return SensorScoringResult.builder()
+                    .modelId(modelId)
+                    .received(batch.getReceived().get(index))
+                    .inputs(batch.getReadings().get(index));
+        }
+
+        private void publish(List<SensorScoringResult> results) {
+            for (Subscription subscription : subscribers) {
+                try {
+                    subscription.subscriber.accept(results);
+                } catch (RuntimeException e) {
+                    log.debug("Subscriber of model {} is removed: {}", modelId, e.getMessage());
+                    subscription.cancel();
+                }
+            }
+        }
+    }
+}
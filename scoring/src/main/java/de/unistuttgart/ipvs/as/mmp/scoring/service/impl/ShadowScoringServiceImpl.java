@@ -0,0 +1,77 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service.impl;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowStatistics;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ShadowConfigurationRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ShadowScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.shadow.ShadowScoring;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Stores the shadow configurations of the model groups. The statistics of a model group are only collected by the
+ * {@link ShadowScoring} of this instance and start over whenever its configuration is changed.
+ */
+@Service
+public class ShadowScoringServiceImpl implements ShadowScoringService {
+
+    private final ShadowConfigurationRepository shadowConfigurationRepository;
+    private final ModelService modelService;
+    private final ShadowScoring shadowScoring;
+
+    public ShadowScoringServiceImpl(ShadowConfigurationRepository shadowConfigurationRepository,
+                                    ModelService modelService, ShadowScoring shadowScoring) {
+        this.shadowConfigurationRepository = shadowConfigurationRepository;
+        this.modelService = modelService;
+        this.shadowScoring = shadowScoring;
+    }
+
+    @Override
+    public ShadowConfiguration saveConfiguration(Long projectId, Long modelGroupId, ShadowConfiguration configuration) {
+        Long candidateModelId = configuration.getCandidateModelId();
+        if (candidateModelId == null) {
+            throw new IllegalArgumentException("The shadow configuration has no candidate model.");
+        }
+        Model candidate = modelService.getModelForProjectById(projectId, candidateModelId)
+                .orElseThrow(() -> IdException.idNotFound(Model.class, candidateModelId));
+        ModelMetadata modelMetadata = candidate.getModelMetadata();
+        if (modelMetadata == null || modelMetadata.getModelGroup() == null
+                || !modelGroupId.equals(modelMetadata.getModelGroup().getId())) {
+            throw new IllegalArgumentException(String.format("The model %s is not a version of the model group %s.",
+                    candidateModelId, modelGroupId));
+        }
+
+        ShadowConfiguration storedConfiguration = shadowConfigurationRepository
+                .findByProjectIdAndModelGroupId(projectId, modelGroupId)
+                .orElseGet(() -> ShadowConfiguration.builder().projectId(projectId).modelGroupId(modelGroupId).build());
+        storedConfiguration.setCandidateModelId(candidateModelId);
+        storedConfiguration.setCreated(LocalDateTime.now());
+        storedConfiguration = shadowConfigurationRepository.save(storedConfiguration);
+        shadowScoring.reset(projectId, modelGroupId);
+        return storedConfiguration;
+    }
+
+    @Override
+    public Optional<ShadowConfiguration> getConfiguration(Long projectId, Long modelGroupId) {
+        return shadowConfigurationRepository.findByProjectIdAndModelGroupId(projectId, modelGroupId);
+    }
+
+    @Override
+    public boolean deleteConfiguration(Long projectId, Long modelGroupId) {
+        boolean deleted = shadowConfigurationRepository.deleteByProjectIdAndModelGroupId(projectId, modelGroupId) > 0;
+        shadowScoring.reset(projectId, modelGroupId);
+        return deleted;
+    }
+
+    @Override
+    public Optional<ShadowStatistics> getStatistics(Long projectId, Long modelGroupId) {
+        return getConfiguration(projectId, modelGroupId).map(configuration ->
+                shadowScoring.getStatistics(projectId, modelGroupId, configuration.getCandidateModelId()));
+    }
+}
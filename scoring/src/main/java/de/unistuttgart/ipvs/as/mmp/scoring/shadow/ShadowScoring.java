@@ -0,0 +1,281 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.shadow;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowStatistics;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringOutputComparator;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringPlan;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ShadowConfigurationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mirrors the scorings of a model group to the candidate of its {@link ShadowConfiguration}. The candidate is scored
+ * on a small executor with threads of the lowest priority after the scoring of the request finished, scorings that
+ * do not fit into its queue are dropped, so the candidate never delays or fails a scoring. The configurations of the
+ * model groups are cached and read on the executor as well. The outputs of the
+ * candidate are only compared with the outputs of the scored model, they are neither returned nor persisted.
+ * <p>
+ * The latencies of both models are measured from loading the evaluator to extracting the outputs. The scored model
+ * may have taken its outputs from the result cache, the candidate is always evaluated.
+ */
+@Component
+public class ShadowScoring {
+
+    public static final String DROPPED_COUNTER = "scoring.shadow.dropped";
+
+    private final ModelService modelService;
+    private final EvaluatorCache evaluatorCache;
+    private final ShadowConfigurationRepository shadowConfigurationRepository;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final ScoringOutputComparator outputComparator;
+    private final ThreadPoolExecutor executor;
+    private final Cache<GroupKey, Optional<Long>> candidates;
+    private final Map<GroupKey, GroupStatistics> statistics = new ConcurrentHashMap<>();
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param poolSize      number of candidate scorings that run at the same time
+     * @param queueCapacity number of candidate scorings that wait for a thread, further scorings are dropped
+     * @param ttlSeconds    time after which the configuration of a model group is read again, so that changes on
+     *                      other instances of the service are picked up
+     * @param tolerance     relative difference up to which numeric outputs of both models agree
+     */
+    public ShadowScoring(ModelService modelService, EvaluatorCache evaluatorCache,
+                         ShadowConfigurationRepository shadowConfigurationRepository, ScoringMetrics scoringMetrics,
+                         @Value("${scoring.shadow.enabled:true}") boolean enabled,
+                         @Value("${scoring.shadow.pool-size:1}") int poolSize,
+                         @Value("${scoring.shadow.queue-capacity:100}") int queueCapacity,
+                         @Value("${scoring.shadow.ttl-seconds:60}") long ttlSeconds,
+                         @Value("${scoring.shadow.tolerance:1e-6}") double tolerance) {
+        this.modelService = modelService;
+        this.evaluatorCache = evaluatorCache;
+        this.shadowConfigurationRepository = shadowConfigurationRepository;
+        this.meterRegistry = scoringMetrics.getMeterRegistry();
+        this.enabled = enabled;
+        this.outputComparator = new ScoringOutputComparator(tolerance);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("scoring-shadow-");
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        this.candidates = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hands the scoring of a model over to the candidate of its model group, if the group has one. The configuration
+     * of a group that is not cached is read on the executor as well, so the scoring is neither delayed nor failed by
+     * the database. Never throws, a scoring that cannot be mirrored is only logged.
+     *
+     * @param primaryNanos time it took to score the model
+     */
+    public void mirror(Long projectId, Model model, List<ScoringInput> inputs, List<ScoringOutput> outputs,
+                       long primaryNanos) {
+        try {
+            Long modelGroupId = getModelGroupId(model);
+            if (!enabled || modelGroupId == null) {
+                return;
+            }
+            GroupKey key = new GroupKey(projectId, modelGroupId);
+            Optional<Long> candidate = candidates.getIfPresent(key);
+            if (candidate == null) {
+                execute(key, null, () -> candidates.get(key, this::loadCandidate)
+                        .filter(candidateModelId -> !candidateModelId.equals(model.getId()))
+                        .ifPresent(candidateModelId -> compare(projectId, candidateModelId, inputs, outputs,
+                                primaryNanos, getGroupStatistics(key, candidateModelId))));
+                return;
+            }
+            if (!candidate.isPresent() || candidate.get().equals(model.getId())) {
+                return;
+            }
+            Long candidateModelId = candidate.get();
+            GroupStatistics groupStatistics = getGroupStatistics(key, candidateModelId);
+            execute(key, groupStatistics, () -> compare(projectId, candidateModelId, inputs, outputs, primaryNanos,
+                    groupStatistics));
+        } catch (RuntimeException e) {
+            this.log.warn("Could not mirror the scoring of model {} of project {}", model.getId(), projectId, e);
+        }
+    }
+
+    public ShadowStatistics getStatistics(Long projectId, Long modelGroupId, Long candidateModelId) {
+        return getGroupStatistics(new GroupKey(projectId, modelGroupId), candidateModelId)
+                .toShadowStatistics(modelGroupId);
+    }
+
+    /**
+     * Forgets the configuration and the statistics of a model group after its configuration was changed.
+     */
+    public void reset(Long projectId, Long modelGroupId) {
+        GroupKey key = new GroupKey(projectId, modelGroupId);
+        candidates.invalidate(key);
+        statistics.remove(key);
+    }
+
+    /**
+     * Runs a task on the executor or drops it if the queue is full.
+     *
+     * @param groupStatistics statistics that count the dropped task, null if the candidate is not known yet
+     */
+    private void execute(GroupKey key, GroupStatistics groupStatistics, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    this.log.debug("Could not read the shadow configuration of model group {} of project {}",
+                            key.getModelGroupId(), key.getProjectId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (groupStatistics != null) {
+                groupStatistics.dropped.increment();
+            }
+            meterRegistry.counter(DROPPED_COUNTER, "project", String.valueOf(key.getProjectId()),
+                    "modelGroup", String.valueOf(key.getModelGroupId())).increment();
+        }
+    }
+
+    private void compare(Long projectId, Long candidateModelId, List<ScoringInput> inputs,
+                         List<ScoringOutput> outputs, long primaryNanos, GroupStatistics groupStatistics) {
+        try {
+            Model candidate = modelService.getModelForProjectById(projectId, candidateModelId)
+                    .orElseThrow(() -> IdException.idNotFound(Model.class, candidateModelId));
+            long start = System.nanoTime();
+            ScoringPlan scoringPlan = evaluatorCache.getScoringPlan(candidate);
+            List<ScoringOutput> candidateOutputs = scoringPlan.toScoringOutputs(
+                    scoringPlan.evaluate(scoringPlan.bind(inputs)));
+            long candidateNanos = System.nanoTime() - start;
+            groupStatistics.record(primaryNanos, candidateNanos, agree(outputs, candidateOutputs));
+        } catch (RuntimeException e) {
+            groupStatistics.failed.increment();
+            this.log.debug("Shadow scoring of candidate {} of project {} failed", candidateModelId, projectId, e);
+        }
+    }
+
+    /**
+     * Both models agree if they have the same outputs with equal values, numeric values may differ by the tolerance.
+     */
+    boolean agree(List<ScoringOutput> outputs, List<ScoringOutput> candidateOutputs) {
+        return outputComparator.equal(outputs, candidateOutputs);
+    }
+
+    private Optional<Long> loadCandidate(GroupKey key) {
+        return shadowConfigurationRepository.findByProjectIdAndModelGroupId(key.getProjectId(), key.getModelGroupId())
+                .map(ShadowConfiguration::getCandidateModelId);
+    }
+
+    /**
+     * Returns the statistics of the candidate, the statistics of a previous candidate of the group are replaced.
+     */
+    private GroupStatistics getGroupStatistics(GroupKey key, Long candidateModelId) {
+        GroupStatistics groupStatistics = statistics.get(key);
+        if (groupStatistics != null && groupStatistics.candidateModelId.equals(candidateModelId)) {
+            return groupStatistics;
+        }
+        return statistics.compute(key, (groupKey, current) -> current != null
+                && current.candidateModelId.equals(candidateModelId) ? current : new GroupStatistics(candidateModelId));
+    }
+
+    private static Long getModelGroupId(Model model) {
+        ModelMetadata modelMetadata = model.getModelMetadata();
+        if (modelMetadata == null || modelMetadata.getModelGroup() == null) {
+            return null;
+        }
+        return modelMetadata.getModelGroup().getId();
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class GroupKey {
+        private Long projectId;
+        private Long modelGroupId;
+    }
+
+    private static class GroupStatistics {
+        private final Long candidateModelId;
+        private final LocalDateTime since = LocalDateTime.now();
+        private final LongAdder compared = new LongAdder();
+        private final LongAdder agreed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder primaryNanos = new LongAdder();
+        private final LongAccumulator primaryMaxNanos = new LongAccumulator(Math::max, 0L);
+        private final LongAdder candidateNanos = new LongAdder();
+        private final LongAccumulator candidateMaxNanos = new LongAccumulator(Math::max, 0L);
+
+        private GroupStatistics(Long candidateModelId) {
+            this.candidateModelId = candidateModelId;
+        }
+
+        private void record(long primary, long candidate, boolean agree) {
+            primaryNanos.add(primary);
+            primaryMaxNanos.accumulate(primary);
+            candidateNanos.add(candidate);
+            candidateMaxNanos.accumulate(candidate);
+            if (agree) {
+                agreed.increment();
+            }
+            compared.increment();
+        }
+
+        private ShadowStatistics toShadowStatistics(Long modelGroupId) {
+            long comparedCount = compared.sum();
+            long agreedCount = Math.min(agreed.sum(), comparedCount);
+            return ShadowStatistics.builder()
+                    .modelGroupId(modelGroupId)
+                    .candidateModelId(candidateModelId)
+                    .since(since)
+                    .compared(comparedCount)
+                    .agreed(agreedCount)
+                    .disagreed(comparedCount - agreedCount)
+                    .failed(failed.sum())
+                    .dropped(dropped.sum())
+                    .agreementRate(comparedCount == 0 ? null : (double) agreedCount / comparedCount)
+                    .primaryMeanMs(toMeanMs(primaryNanos.sum(), comparedCount))
+                    .primaryMaxMs(primaryMaxNanos.get() / 1e6)
+                    .candidateMeanMs(toMeanMs(candidateNanos.sum(), comparedCount))
+                    .candidateMaxMs(candidateMaxNanos.get() / 1e6)
+                    .build();
+        }
+
+        private static double toMeanMs(long nanos, long count) {
+            return count == 0 ? 0.0 : nanos / 1e6 / count;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.stream;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads comma separated records. The first line has to be a header with the names of the columns.
+ */
+public class CsvRecordReader implements RecordReader {
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper().enable(CsvParser.Feature.WRAP_AS_ARRAY);
+
+    private final MappingIterator<String[]> iterator;
+    private List<String> columns;
+
+    public CsvRecordReader(InputStream inputStream) throws IOException {
+        this.iterator = CSV_MAPPER.readerFor(String[].class).readValues(inputStream);
+    }
+
+    @Override
+    public List<String> getColumns() throws IOException {
+        if (columns == null) {
+            String[] header = nextNonEmpty();
+            columns = header == null ? Collections.emptyList() : Arrays.asList(header);
+        }
+        return columns;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        getColumns();
+        return nextNonEmpty();
+    }
+
+    private String[] nextNonEmpty() throws IOException {
+        while (iterator.hasNextValue()) {
+            String[] values = iterator.nextValue();
+            if (values.length > 1 || (values.length == 1 && !values[0].isEmpty())) {
+                return values;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+}
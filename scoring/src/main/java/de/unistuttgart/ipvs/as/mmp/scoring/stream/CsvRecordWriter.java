@@ -0,0 +1,60 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.stream;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes scoring results as comma separated records. The header is taken from the names of the first result.
+ */
+public class CsvRecordWriter implements RecordWriter {
+
+    private final Writer writer;
+    private boolean headerWritten;
+
+    public CsvRecordWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(List<ScoringOutput> outputs) throws IOException {
+        if (!headerWritten) {
+            for (int i = 0; i < outputs.size(); i++) {
+                writeValue(i, outputs.get(i).getName());
+            }
+            writer.write('\n');
+            headerWritten = true;
+        }
+        for (int i = 0; i < outputs.size(); i++) {
+            writeValue(i, outputs.get(i).getValue());
+        }
+        writer.write('\n');
+    }
+
+    private void writeValue(int index, String value) throws IOException {
+        if (index > 0) {
+            writer.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+        } else {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,72 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads newline delimited json objects. The columns are the field names of the first object,
+ * fields that only appear in later objects are ignored.
+ */
+public class NdjsonRecordReader implements RecordReader {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MappingIterator<JsonNode> iterator;
+    private List<String> columns;
+    private JsonNode pending;
+
+    public NdjsonRecordReader(InputStream inputStream) throws IOException {
+        this.iterator = OBJECT_MAPPER.readerFor(JsonNode.class).readValues(inputStream);
+    }
+
+    @Override
+    public List<String> getColumns() throws IOException {
+        if (columns == null) {
+            columns = new ArrayList<>();
+            pending = nextObject();
+            if (pending != null) {
+                Iterator<String> fieldNames = pending.fieldNames();
+                fieldNames.forEachRemaining(columns::add);
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        getColumns();
+        JsonNode node = pending != null ? pending : nextObject();
+        pending = null;
+        if (node == null) {
+            return null;
+        }
+        String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            JsonNode value = node.get(columns.get(i));
+            values[i] = value == null || value.isNull() ? null : value.asText();
+        }
+        return values;
+    }
+
+    private JsonNode nextObject() throws IOException {
+        while (iterator.hasNextValue()) {
+            JsonNode node = iterator.nextValue();
+            if (node.isObject()) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+}
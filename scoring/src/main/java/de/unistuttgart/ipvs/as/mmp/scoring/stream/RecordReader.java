@@ -0,0 +1,21 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads records one by one from a stream, so only the current record has to be held in memory.
+ */
+public interface RecordReader extends Closeable {
+
+    /**
+     * @return names of the columns, the values of every record are aligned to these columns
+     */
+    List<String> getColumns() throws IOException;
+
+    /**
+     * @return values of the next record or null if the end of the stream is reached
+     */
+    String[] next() throws IOException;
+}
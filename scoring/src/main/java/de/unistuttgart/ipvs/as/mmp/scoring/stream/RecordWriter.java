@@ -0,0 +1,16 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.stream;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes scoring results record by record to a stream.
+ */
+public interface RecordWriter {
+
+    void write(List<ScoringOutput> outputs) throws IOException;
+
+    void flush() throws IOException;
+}
@@ -0,0 +1,46 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.stream;
+
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Record formats that can be streamed through the scoring endpoints.
+ */
+public enum StreamFormat {
+    CSV(MediaType.valueOf("text/csv")),
+    NDJSON(MediaType.valueOf("application/x-ndjson"));
+
+    public static final String CSV_VALUE = "text/csv";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private final MediaType mediaType;
+
+    StreamFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public RecordReader newReader(InputStream inputStream) throws IOException {
+        return this == CSV ? new CsvRecordReader(inputStream) : new NdjsonRecordReader(inputStream);
+    }
+
+    public RecordWriter newWriter(OutputStream outputStream) throws IOException {
+        return this == CSV ? new CsvRecordWriter(outputStream) : new NdjsonRecordWriter(outputStream);
+    }
+
+    public static StreamFormat fromContentType(String contentType) {
+        MediaType requestedType = MediaType.parseMediaType(contentType);
+        for (StreamFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(requestedType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Content type %s can not be streamed", contentType));
+    }
+}
@@ -0,0 +1,69 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringRequest;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.DatabaseScoringService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Optional;
+
+import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.DatabaseScoringController.PATH;
+
+@Controller
+@CrossOrigin
+@RequestMapping(value = PATH)
+public class DatabaseScoringController {
+
+    public static final String PATH = "/v1/projects";
+    private static final String PROJECT_ID_PATTERN = "/{projectId}";
+    private static final String MODELS = "/models";
+    private static final String MODEL_ID_PATTERN = "/{modelId}";
+    private static final String DATABASE_JOBS = "/scoring/database-jobs";
+    private static final String JOB_ID_PATTERN = "/{jobId}";
+    private static final String RESUME = "/resume";
+
+    private final DatabaseScoringService databaseScoringService;
+
+    public DatabaseScoringController(DatabaseScoringService databaseScoringService) {
+        this.databaseScoringService = databaseScoringService;
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + DATABASE_JOBS)
+    public ResponseEntity<DatabaseScoringJob> submitJob(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                        @RequestBody DatabaseScoringRequest request) {
+        DatabaseScoringJob job = databaseScoringService.submitJob(projectId, modelId, request);
+        return ResponseEntity.accepted().location(getLocation(projectId, modelId, job.getId())).body(job);
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + DATABASE_JOBS + JOB_ID_PATTERN)
+    public ResponseEntity<DatabaseScoringJob> getJob(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                     @PathVariable Long jobId) {
+        Optional<DatabaseScoringJob> jobOptional = databaseScoringService.getJob(projectId, modelId, jobId);
+        return jobOptional.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + DATABASE_JOBS + JOB_ID_PATTERN)
+    public ResponseEntity<Void> cancelJob(@PathVariable Long projectId, @PathVariable Long modelId,
+                                          @PathVariable Long jobId) {
+        if (databaseScoringService.cancelJob(projectId, modelId, jobId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + DATABASE_JOBS + JOB_ID_PATTERN + RESUME)
+    public ResponseEntity<DatabaseScoringJob> resumeJob(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                        @PathVariable Long jobId) {
+        Optional<DatabaseScoringJob> jobOptional = databaseScoringService.resumeJob(projectId, modelId, jobId);
+        return jobOptional.map(job -> ResponseEntity.accepted().location(getLocation(projectId, modelId, jobId)).body(job))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    private static URI getLocation(Long projectId, Long modelId, Long jobId) {
+        return URI.create(String.format("%s/%s%s/%s%s/%s", PATH, projectId, MODELS, modelId, DATABASE_JOBS, jobId));
+    }
+}
@@ -0,0 +1,49 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.scoring.admission.ScoringAdmission;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.FanOutScoringService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.FanOutScoringController.PATH;
+
+@Controller
+@CrossOrigin
+@RequestMapping(value = PATH)
+public class FanOutScoringController {
+
+    public static final String PATH = "/v1/projects";
+    private static final String PROJECT_ID_PATTERN = "/{projectId}";
+    private static final String MODELS = "/models";
+    private static final String ALL_MODEL_GROUPS_PATTERN = "/modelGroups";
+    private static final String MODEL_GROUP_PATTERN = "/{modelGroupId}";
+    private static final String SCORING = "/scoring";
+    private static final String VERSIONS = "/versions";
+
+    private final FanOutScoringService fanOutScoringService;
+    private final ScoringAdmission scoringAdmission;
+
+    public FanOutScoringController(FanOutScoringService fanOutScoringService, ScoringAdmission scoringAdmission) {
+        this.fanOutScoringService = fanOutScoringService;
+        this.scoringAdmission = scoringAdmission;
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + ALL_MODEL_GROUPS_PATTERN + MODEL_GROUP_PATTERN + SCORING + VERSIONS)
+    public ResponseEntity<List<ModelScoringResult>> scoreModelGroup(@PathVariable Long projectId, @PathVariable Long modelGroupId, @RequestBody List<ScoringInput> inputs) {
+        List<ModelScoringResult> results = scoringAdmission.run(projectId,
+                () -> fanOutScoringService.scoreModelGroup(projectId, modelGroupId, inputs));
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + SCORING)
+    public ResponseEntity<List<ModelScoringResult>> scoreProject(@PathVariable Long projectId, @RequestBody List<ScoringInput> inputs) {
+        List<ModelScoringResult> results = scoringAdmission.run(projectId,
+                () -> fanOutScoringService.scoreProject(projectId, inputs));
+        return ResponseEntity.ok(results);
+    }
+}
@@ -0,0 +1,54 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.InputDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringAnalytics;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringAnalyticsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.ScoringAnalyticsController.PATH;
+
+@Controller
+@CrossOrigin
+@RequestMapping(value = PATH)
+public class ScoringAnalyticsController {
+
+    public static final String PATH = "/v1/projects";
+    private static final String PROJECT_ID_PATTERN = "/{projectId}";
+    private static final String MODELS = "/models";
+    private static final String MODEL_ID_PATTERN = "/{modelId}";
+    private static final String SCORING_ANALYTICS = "/scoring/analytics";
+    private static final String DRIFT = "/drift";
+
+    private final ScoringAnalyticsService scoringAnalyticsService;
+
+    public ScoringAnalyticsController(ScoringAnalyticsService scoringAnalyticsService) {
+        this.scoringAnalyticsService = scoringAnalyticsService;
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING_ANALYTICS)
+    public ResponseEntity<ScoringAnalytics> getAnalytics(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                         @RequestParam(required = false) ChronoUnit interval) {
+        ScoringAnalytics analytics = scoringAnalyticsService.getAnalytics(projectId, modelId, from, to, interval);
+        return ResponseEntity.ok(analytics);
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING_ANALYTICS + DRIFT)
+    public ResponseEntity<InputDrift> getInputDrift(@PathVariable Long projectId, @PathVariable Long modelId) {
+        InputDrift inputDrift = scoringAnalyticsService.getInputDrift(projectId, modelId);
+        return ResponseEntity.ok(inputDrift);
+    }
+
+    @DeleteMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING_ANALYTICS + DRIFT)
+    public ResponseEntity<Void> resetInputDrift(@PathVariable Long projectId, @PathVariable Long modelId) {
+        scoringAnalyticsService.resetInputDrift(projectId, modelId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,13 +1,25 @@
 package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
 
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
 
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.scoring.admission.ScoringAdmission;
+import de.unistuttgart.ipvs.as.mmp.scoring.columnar.ColumnarFormat;
 import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.ScoringController.PATH;
@@ -21,17 +33,82 @@ public class ScoringController {
     private static final String PROJECT_ID_PATTERN = "/{projectId}";
     private static final String MODELS = "/models";
     private static final String MODEL_ID_PATTERN = "/{modelId}";
+    private static final String ALL_MODEL_GROUPS_PATTERN = "/modelGroups";
+    private static final String MODEL_GROUP_PATTERN = "/{modelGroupId}";
     private static final String SCORING = "/scoring";
+    private static final String BATCH = "/batch";
+    private static final String STREAM = "/stream";
 
     private final ScoringService scoringService;
+    private final ScoringAdmission scoringAdmission;
+    private final long streamTimeoutMs;
 
-    public ScoringController(ScoringService scoringService) {
+    public ScoringController(ScoringService scoringService, ScoringAdmission scoringAdmission,
+                             @Value("${scoring.stream.timeout-ms:3600000}") long streamTimeoutMs) {
         this.scoringService = scoringService;
+        this.scoringAdmission = scoringAdmission;
+        this.streamTimeoutMs = streamTimeoutMs;
     }
 
     @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING)
     public ResponseEntity<List<ScoringOutput>> scoreModel(@PathVariable Long projectId, @PathVariable Long modelId, @RequestBody List<ScoringInput> inputs) {
-        List<ScoringOutput> outputs = scoringService.scoreModel(projectId, modelId, inputs);
+        List<ScoringOutput> outputs = scoringAdmission.run(projectId, () -> scoringService.scoreModel(projectId, modelId, inputs));
         return ResponseEntity.ok(outputs);
     }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + ALL_MODEL_GROUPS_PATTERN + MODEL_GROUP_PATTERN + SCORING)
+    public ResponseEntity<ModelScoringResult> scoreLatestModel(@PathVariable Long projectId, @PathVariable Long modelGroupId, @RequestBody List<ScoringInput> inputs) {
+        ModelScoringResult result = scoringAdmission.run(projectId, () -> scoringService.scoreLatestModel(projectId, modelGroupId, inputs));
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING + BATCH)
+    public ResponseEntity<List<List<ScoringOutput>>> scoreModelBatch(@PathVariable Long projectId, @PathVariable Long modelId, @RequestBody List<List<ScoringInput>> records) {
+        List<List<ScoringOutput>> outputs = scoringAdmission.run(projectId, () -> scoringService.scoreModelBatch(projectId, modelId, records));
+        return ResponseEntity.ok(outputs);
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING + BATCH,
+            consumes = {ColumnarFormat.JSON_VALUE, ColumnarFormat.CBOR_VALUE})
+    public ResponseEntity<byte[]> scoreModelColumnar(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                     @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                     InputStream inputStream) throws IOException {
+        ColumnarFormat format = ColumnarFormat.fromContentType(contentType);
+        byte[] body;
+        try {
+            body = scoringAdmission.run(projectId, () -> {
+                try {
+                    return scoringService.scoreModelColumnar(projectId, modelId, format, inputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(body);
+    }
+
+    /**
+     * Streams only count towards the rate quota of the project, they may run for much longer than the other scorings
+     * and would hold a scoring slot all the time. For the same reason they are written by a task with its own timeout,
+     * the other asynchronous requests keep the default timeout. The task writes the whole response, so nothing is
+     * left to write once it completed.
+     */
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING + STREAM,
+            consumes = {StreamFormat.CSV_VALUE, StreamFormat.NDJSON_VALUE})
+    @ResponseBody
+    public WebAsyncTask<Void> scoreModelStream(@PathVariable Long projectId, @PathVariable Long modelId,
+                                               @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                               InputStream inputStream, HttpServletResponse response) {
+        StreamFormat format = StreamFormat.fromContentType(contentType);
+        scoringAdmission.admit(projectId);
+        StreamingResponseBody body = scoringService.scoreModelStream(projectId, modelId, format, inputStream);
+        return new WebAsyncTask<>(streamTimeoutMs, () -> {
+            response.setContentType(format.getMediaType().toString());
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
 }
@@ -0,0 +1,76 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringJobService;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.ScoringJobController.PATH;
+
+@Controller
+@CrossOrigin
+@RequestMapping(value = PATH)
+public class ScoringJobController {
+
+    public static final String PATH = "/v1/projects";
+    private static final String PROJECT_ID_PATTERN = "/{projectId}";
+    private static final String MODELS = "/models";
+    private static final String MODEL_ID_PATTERN = "/{modelId}";
+    private static final String SCORING_JOBS = "/scoring/jobs";
+    private static final String JOB_ID_PATTERN = "/{jobId}";
+    private static final String RESULT = "/result";
+
+    private final ScoringJobService scoringJobService;
+
+    public ScoringJobController(ScoringJobService scoringJobService) {
+        this.scoringJobService = scoringJobService;
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING_JOBS)
+    public ResponseEntity<ScoringJob> submitJob(@PathVariable Long projectId, @PathVariable Long modelId, @RequestBody List<List<ScoringInput>> records) {
+        ScoringJob job = scoringJobService.submitJob(projectId, modelId, records);
+        return ResponseEntity.accepted().location(URI.create(String.format("%s/%s%s/%s%s/%s", PATH, projectId, MODELS,
+                modelId, SCORING_JOBS, job.getId()))).body(job);
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING_JOBS + JOB_ID_PATTERN)
+    public ResponseEntity<ScoringJob> getJob(@PathVariable Long projectId, @PathVariable Long modelId, @PathVariable Long jobId) {
+        Optional<ScoringJob> jobOptional = scoringJobService.getJob(projectId, modelId, jobId);
+        return jobOptional.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING_JOBS + JOB_ID_PATTERN)
+    public ResponseEntity<Void> cancelJob(@PathVariable Long projectId, @PathVariable Long modelId, @PathVariable Long jobId) {
+        if (scoringJobService.cancelJob(projectId, modelId, jobId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING_JOBS + JOB_ID_PATTERN + RESULT)
+    public ResponseEntity<Resource> getJobResult(@PathVariable Long projectId, @PathVariable Long modelId, @PathVariable Long jobId) {
+        Optional<DBFile> dbFileOptional = scoringJobService.getJobResult(projectId, modelId, jobId);
+
+        if (dbFileOptional.isPresent()) {
+            DBFile dbFile = dbFileOptional.get();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(dbFile.getFileType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dbFile.getFileName() + "\"")
+                    .body(new ByteArrayResource(dbFile.getData()));
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
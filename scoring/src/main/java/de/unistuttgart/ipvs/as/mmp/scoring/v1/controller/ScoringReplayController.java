@@ -0,0 +1,79 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayRequest;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringReplayService;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Optional;
+
+import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.ScoringReplayController.PATH;
+
+@Controller
+@CrossOrigin
+@RequestMapping(value = PATH)
+public class ScoringReplayController {
+
+    public static final String PATH = "/v1/projects";
+    private static final String PROJECT_ID_PATTERN = "/{projectId}";
+    private static final String MODELS = "/models";
+    private static final String MODEL_ID_PATTERN = "/{modelId}";
+    private static final String REPLAYS = "/scoring/replays";
+    private static final String JOB_ID_PATTERN = "/{jobId}";
+    private static final String REPORT = "/report";
+
+    private final ScoringReplayService scoringReplayService;
+
+    public ScoringReplayController(ScoringReplayService scoringReplayService) {
+        this.scoringReplayService = scoringReplayService;
+    }
+
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + REPLAYS)
+    public ResponseEntity<ScoringReplayJob> submitJob(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                      @RequestBody ScoringReplayRequest request) {
+        ScoringReplayJob job = scoringReplayService.submitJob(projectId, modelId, request);
+        return ResponseEntity.accepted().location(URI.create(String.format("%s/%s%s/%s%s/%s", PATH, projectId, MODELS,
+                modelId, REPLAYS, job.getId()))).body(job);
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + REPLAYS + JOB_ID_PATTERN)
+    public ResponseEntity<ScoringReplayJob> getJob(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                   @PathVariable Long jobId) {
+        Optional<ScoringReplayJob> jobOptional = scoringReplayService.getJob(projectId, modelId, jobId);
+        return jobOptional.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + REPLAYS + JOB_ID_PATTERN)
+    public ResponseEntity<Void> cancelJob(@PathVariable Long projectId, @PathVariable Long modelId,
+                                          @PathVariable Long jobId) {
+        if (scoringReplayService.cancelJob(projectId, modelId, jobId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + REPLAYS + JOB_ID_PATTERN + REPORT)
+    public ResponseEntity<Resource> getJobReport(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                 @PathVariable Long jobId) {
+        Optional<DBFile> dbFileOptional = scoringReplayService.getJobReport(projectId, modelId, jobId);
+
+        if (dbFileOptional.isPresent()) {
+            DBFile dbFile = dbFileOptional.get();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(dbFile.getFileType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dbFile.getFileName() + "\"")
+                    .body(new ByteArrayResource(dbFile.getData()));
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
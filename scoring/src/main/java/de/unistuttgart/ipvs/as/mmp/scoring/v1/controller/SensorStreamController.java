@@ -0,0 +1,88 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.scoring.sensor.RecordReadingSource;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.SensorStreamService;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+
+import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.SensorStreamController.PATH;
+
+@Controller
+@CrossOrigin
+@RequestMapping(value = PATH)
+public class SensorStreamController {
+
+    public static final String PATH = "/v1/projects";
+    private static final String PROJECT_ID_PATTERN = "/{projectId}";
+    private static final String MODELS = "/models";
+    private static final String MODEL_ID_PATTERN = "/{modelId}";
+    private static final String SCORING = "/scoring";
+    private static final String SENSORS = "/sensors";
+    private static final String SCORINGS_EVENT = "scorings";
+
+    private final SensorStreamService sensorStreamService;
+    private final long emitterTimeoutMs;
+    private final long ingestTimeoutMs;
+
+    public SensorStreamController(SensorStreamService sensorStreamService,
+                                  @Value("${scoring.sensors.emitter-timeout-ms:3600000}") long emitterTimeoutMs,
+                                  @Value("${scoring.sensors.ingest-timeout-ms:3600000}") long ingestTimeoutMs) {
+        this.sensorStreamService = sensorStreamService;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.ingestTimeoutMs = ingestTimeoutMs;
+    }
+
+    /**
+     * Reads the readings of a long-lived chunked request until the client ends it. The request is read by the sensor
+     * stream service, the request thread is released right away.
+     */
+    @PostMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING + SENSORS,
+            consumes = {StreamFormat.CSV_VALUE, StreamFormat.NDJSON_VALUE})
+    public DeferredResult<ResponseEntity<Map<String, Long>>> ingestReadings(@PathVariable Long projectId, @PathVariable Long modelId,
+                                                                            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                            InputStream inputStream) {
+        StreamFormat format = StreamFormat.fromContentType(contentType);
+        DeferredResult<ResponseEntity<Map<String, Long>>> result = new DeferredResult<>(ingestTimeoutMs);
+        sensorStreamService.ingest(projectId, modelId, RecordReadingSource.of(format, inputStream))
+                .whenComplete((readings, e) -> {
+                    if (e != null) {
+                        result.setErrorResult(e);
+                    } else {
+                        result.setResult(ResponseEntity.ok(Collections.singletonMap("readings", readings)));
+                    }
+                });
+        return result;
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + MODEL_ID_PATTERN + SCORING + SENSORS,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeResults(@PathVariable Long projectId, @PathVariable Long modelId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Runnable unsubscribe = sensorStreamService.subscribe(projectId, modelId, results -> {
+            try {
+                emitter.send(SseEmitter.event().name(SCORINGS_EVENT).data(results, MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                // the client is gone, the subscriber is removed by the exception
+                emitter.completeWithError(e);
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return ResponseEntity.ok(emitter);
+    }
+}
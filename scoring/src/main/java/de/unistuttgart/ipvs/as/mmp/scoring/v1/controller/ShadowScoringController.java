@@ -0,0 +1,59 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowStatistics;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ShadowScoringService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+import static de.unistuttgart.ipvs.as.mmp.scoring.v1.controller.ShadowScoringController.PATH;
+
+@Controller
+@CrossOrigin
+@RequestMapping(value = PATH)
+public class ShadowScoringController {
+
+    public static final String PATH = "/v1/projects";
+    private static final String PROJECT_ID_PATTERN = "/{projectId}";
+    private static final String MODELS = "/models";
+    private static final String ALL_MODEL_GROUPS_PATTERN = "/modelGroups";
+    private static final String MODEL_GROUP_PATTERN = "/{modelGroupId}";
+    private static final String SHADOW = "/scoring/shadow";
+    private static final String STATISTICS = "/statistics";
+
+    private final ShadowScoringService shadowScoringService;
+
+    public ShadowScoringController(ShadowScoringService shadowScoringService) {
+        this.shadowScoringService = shadowScoringService;
+    }
+
+    @PutMapping(value = PROJECT_ID_PATTERN + MODELS + ALL_MODEL_GROUPS_PATTERN + MODEL_GROUP_PATTERN + SHADOW)
+    public ResponseEntity<ShadowConfiguration> saveConfiguration(@PathVariable Long projectId, @PathVariable Long modelGroupId,
+                                                                 @RequestBody ShadowConfiguration configuration) {
+        ShadowConfiguration savedConfiguration = shadowScoringService.saveConfiguration(projectId, modelGroupId, configuration);
+        return ResponseEntity.ok(savedConfiguration);
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + ALL_MODEL_GROUPS_PATTERN + MODEL_GROUP_PATTERN + SHADOW)
+    public ResponseEntity<ShadowConfiguration> getConfiguration(@PathVariable Long projectId, @PathVariable Long modelGroupId) {
+        Optional<ShadowConfiguration> configuration = shadowScoringService.getConfiguration(projectId, modelGroupId);
+        return configuration.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping(value = PROJECT_ID_PATTERN + MODELS + ALL_MODEL_GROUPS_PATTERN + MODEL_GROUP_PATTERN + SHADOW)
+    public ResponseEntity<Void> deleteConfiguration(@PathVariable Long projectId, @PathVariable Long modelGroupId) {
+        if (shadowScoringService.deleteConfiguration(projectId, modelGroupId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping(value = PROJECT_ID_PATTERN + MODELS + ALL_MODEL_GROUPS_PATTERN + MODEL_GROUP_PATTERN + SHADOW + STATISTICS)
+    public ResponseEntity<ShadowStatistics> getStatistics(@PathVariable Long projectId, @PathVariable Long modelGroupId) {
+        Optional<ShadowStatistics> statistics = shadowScoringService.getStatistics(projectId, modelGroupId);
+        return statistics.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,54 @@
+package de.unistuttgart.ipvs.as.mmp.scoring;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelFile;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Models of the example pmml files, with their file but without metadata.
+ */
+public final class TestModels {
+
+    public static final String IRIS_TREE = "/example/iristree_example.xml";
+
+    private TestModels() {
+    }
+
+    /**
+     * @return the iris tree, its model file has the id of the model
+     */
+    public static Model irisTree(Long modelId) throws IOException {
+        return irisTree(modelId, modelId);
+    }
+
+    public static Model irisTree(Long modelId, Long modelFileId) throws IOException {
+        return createModel(readFile(IRIS_TREE), modelId, modelFileId);
+    }
+
+    public static Model createModel(byte[] data, Long modelId, Long modelFileId) {
+        Model model = Model.builder().modelFile(createModelFile(data, modelFileId)).build();
+        model.setId(modelId);
+        return model;
+    }
+
+    public static ModelFile createModelFile(byte[] data, Long modelFileId) {
+        DBFile dbFile = DBFile.builder().fileName("model.xml").fileType("text/xml").data(data).build();
+        ModelFile modelFile = ModelFile.builder().dbFile(dbFile).build();
+        modelFile.setId(modelFileId);
+        return modelFile;
+    }
+
+    public static byte[] readFile(String location) throws IOException {
+        // the pmml files of the common module are read from its jar
+        try (InputStream is = TestModels.class.getResourceAsStream(location)) {
+            assertNotNull(is, location);
+            return StreamUtils.copyToByteArray(is);
+        }
+    }
+}
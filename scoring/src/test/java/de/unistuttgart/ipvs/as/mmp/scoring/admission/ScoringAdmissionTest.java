@@ -0,0 +1,150 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.admission;
+
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class ScoringAdmissionTest {
+
+    private static final Long PROJECT_ID = 1L;
+    private static final Long OTHER_PROJECT_ID = 2L;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    // the request threads of the server
+    private final ExecutorService requests = Executors.newCachedThreadPool();
+    private ScoringAdmission scoringAdmission;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        requests.shutdownNow();
+    }
+
+    @Test
+    public void shouldRejectScoringsOverProjectLimit() throws Exception {
+        scoringAdmission = create(4, 10, 2, 0);
+        Future<String> first = requests.submit(() -> scoringAdmission.run(PROJECT_ID, this::block));
+        requests.submit(() -> scoringAdmission.run(PROJECT_ID, this::block));
+        awaitGauge(ScoringAdmission.ACTIVE_GAUGE, 2.0);
+
+        CapacityException e = assertThrows(CapacityException.class,
+                () -> scoringAdmission.run(PROJECT_ID, this::block));
+        assertEquals(Long.valueOf(1L), e.getRetryAfterSeconds());
+        // other projects are not affected
+        assertEquals("other", scoringAdmission.run(OTHER_PROJECT_ID, () -> "other"));
+
+        release.countDown();
+        assertEquals("scored", first.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, rejections("concurrency"));
+    }
+
+    @Test
+    public void shouldRejectScoringsOverProjectRate() {
+        scoringAdmission = create(2, 10, 0, 1);
+        scoringAdmission.run(PROJECT_ID, () -> "scored");
+
+        CapacityException e = assertThrows(CapacityException.class,
+                () -> scoringAdmission.run(PROJECT_ID, () -> "scored"));
+        assertTrue(e.getRetryAfterSeconds() >= 1L);
+        assertThrows(CapacityException.class, () -> scoringAdmission.admit(PROJECT_ID));
+        scoringAdmission.admit(OTHER_PROJECT_ID);
+        assertEquals(2.0, rejections("rate"));
+    }
+
+    @Test
+    public void shouldQueueScoringsUntilTheyMayRun() throws Exception {
+        scoringAdmission = create(1, 1, 0, 0);
+        Future<String> running = requests.submit(() -> scoringAdmission.run(PROJECT_ID, this::block));
+        awaitGauge(ScoringAdmission.ACTIVE_GAUGE, 1.0);
+        Future<String> queued = requests.submit(() -> scoringAdmission.run(OTHER_PROJECT_ID, () -> "queued"));
+        awaitGauge(ScoringAdmission.QUEUED_GAUGE, 1.0);
+
+        assertThrows(CapacityException.class, () -> scoringAdmission.run(OTHER_PROJECT_ID, this::block));
+        assertEquals(1.0, rejections("queue"));
+
+        release.countDown();
+        assertEquals("scored", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0.0, meterRegistry.get(ScoringAdmission.QUEUED_GAUGE).gauge().value());
+    }
+
+    @Test
+    public void shouldNotWrapScoringErrors() {
+        scoringAdmission = create(1, 1, 1, 0);
+        assertThrows(IllegalArgumentException.class, () -> scoringAdmission.run(PROJECT_ID, () -> {
+            throw new IllegalArgumentException("invalid inputs");
+        }));
+
+        // the permits of the failed scoring are released
+        assertEquals("scored", scoringAdmission.run(PROJECT_ID, () -> "scored"));
+        assertEquals(0.0, meterRegistry.get(ScoringAdmission.ACTIVE_GAUGE).gauge().value());
+    }
+
+    @Test
+    public void shouldRemoveQuotasOfIdleProjects() {
+        scoringAdmission = create(2, 10, 1, 0);
+        for (long projectId = 1; projectId <= 100; projectId++) {
+            scoringAdmission.run(projectId, () -> "scored");
+        }
+        assertEquals(0.0, meterRegistry.get(ScoringAdmission.PROJECTS_GAUGE).gauge().value());
+    }
+
+    @Test
+    public void shouldKeepQuotaUntilItsRateIsRefilled() throws InterruptedException {
+        scoringAdmission = create(2, 10, 0, 1);
+        scoringAdmission.run(PROJECT_ID, () -> "scored");
+        // the project may not start another scoring until its quota is refilled
+        assertEquals(1.0, meterRegistry.get(ScoringAdmission.PROJECTS_GAUGE).gauge().value());
+        assertThrows(CapacityException.class, () -> scoringAdmission.run(PROJECT_ID, () -> "scored"));
+
+        Thread.sleep(1100L);
+        // the quota of the other project is added after the refilled quota was swept
+        scoringAdmission.run(OTHER_PROJECT_ID, () -> "scored");
+        assertEquals(1.0, meterRegistry.get(ScoringAdmission.PROJECTS_GAUGE).gauge().value());
+        assertEquals("scored", scoringAdmission.run(PROJECT_ID, () -> "scored"));
+    }
+
+    private ScoringAdmission create(int maxConcurrent, int queueCapacity, int maxConcurrentPerProject,
+                                    double requestsPerSecond) {
+        return new ScoringAdmission(new ScoringMetrics(meterRegistry), maxConcurrent, queueCapacity,
+                maxConcurrentPerProject, requestsPerSecond, 0, 1);
+    }
+
+    private String block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "scored";
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (meterRegistry.get(name).gauge().value() == value) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail(name + " did not reach " + value);
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.get(ScoringAdmission.REJECTION_COUNTER).tag("reason", reason).counter().count();
+    }
+}
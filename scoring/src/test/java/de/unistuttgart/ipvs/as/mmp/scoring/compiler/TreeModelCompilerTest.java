@@ -0,0 +1,157 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.compiler;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.*;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.pmml.PMMLMetadataParser;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringPlan;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conformance of compiled models with the pmml evaluator. Random records, including missing and unknown values and
+ * values on the split thresholds, are scored by both, the compiled model must either produce the same values as
+ * the evaluator or leave the record to it.
+ */
+public class TreeModelCompilerTest {
+
+    private static final int RECORDS = 5000;
+
+    @Test
+    public void shouldScoreTreeModelLikeEvaluator() throws IOException {
+        assertConformance(TestModels.IRIS_TREE);
+    }
+
+    @Test
+    public void shouldScoreTreeEnsembleLikeEvaluator() throws IOException {
+        assertConformance("/pmml/ensemble_audit_dectree.xml");
+    }
+
+    @Test
+    public void shouldWalkSegmentsInParallelLikeEvaluator() throws IOException {
+        SegmentExecutor segmentExecutor = new SegmentExecutor(true, 4, 2, 3);
+        try {
+            assertConformance("/pmml/ensemble_audit_dectree.xml", new TreeModelCompiler(segmentExecutor));
+        } finally {
+            segmentExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldLeaveMissingValuesToEvaluator() throws IOException {
+        ScoringPlan scoringPlan = createScoringPlan(TestModels.readFile(TestModels.IRIS_TREE));
+        CompiledModel compiledModel = compile(scoringPlan);
+        assertNotNull(compiledModel);
+        assertNull(compiledModel.evaluate(Collections.emptyMap()));
+        assertEquals("Iris-setosa", scoringPlan.evaluate(scoringPlan.bind(
+                Collections.singletonList(new ScoringInput("petal_length", "1.4"))))[0]);
+    }
+
+    @Test
+    public void shouldNotCompileRegressionModel() {
+        String pmml = "<PMML xmlns=\"http://www.dmg.org/PMML-4_3\" version=\"4.3\">"
+                + "<Header/>"
+                + "<DataDictionary>"
+                + "<DataField name=\"x\" optype=\"continuous\" dataType=\"double\"/>"
+                + "<DataField name=\"y\" optype=\"continuous\" dataType=\"double\"/>"
+                + "</DataDictionary>"
+                + "<RegressionModel functionName=\"regression\">"
+                + "<MiningSchema><MiningField name=\"x\"/><MiningField name=\"y\" usageType=\"predicted\"/></MiningSchema>"
+                + "<RegressionTable intercept=\"1.0\"><NumericPredictor name=\"x\" coefficient=\"0.5\"/></RegressionTable>"
+                + "</RegressionModel>"
+                + "</PMML>";
+        ScoringPlan scoringPlan = createScoringPlan(pmml.getBytes(StandardCharsets.UTF_8));
+        assertFalse(scoringPlan.isCompiled());
+        assertNull(compile(scoringPlan));
+    }
+
+    private void assertConformance(String location) throws IOException {
+        assertConformance(location, new TreeModelCompiler());
+    }
+
+    private void assertConformance(String location, TreeModelCompiler compiler) throws IOException {
+        byte[] data = TestModels.readFile(location);
+        ScoringPlan scoringPlan = new ScoringPlan(createScoringPlan(data).getEvaluator(), compiler);
+        assertTrue(scoringPlan.isCompiled());
+        CompiledModel compiledModel = compile(scoringPlan, compiler);
+
+        List<InputAttribute> inputAttributes;
+        try (InputStream is = new ByteArrayInputStream(data)) {
+            inputAttributes = new PMMLMetadataParser().parsePMMLFile(is, new ModelMetadata()).get(0)
+                    .getModelMetadata().getPmmlMetadata().getInputAttributes();
+        }
+
+        Random random = new Random(42L);
+        int compiledRecords = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            Map<FieldName, FieldValue> arguments = scoringPlan.bind(generate(inputAttributes, random));
+            Object[] expected = scoringPlan.extractValues(scoringPlan.getEvaluator().evaluate(arguments));
+            Object[] actual = compiledModel.evaluate(arguments);
+            if (actual != null) {
+                assertArrayEquals(expected, actual, arguments.toString());
+                compiledRecords++;
+            }
+            assertArrayEquals(expected, scoringPlan.evaluate(arguments), arguments.toString());
+        }
+        // only records that test a missing value or end in a tie are left to the evaluator
+        assertTrue(compiledRecords > RECORDS / 2, Integer.toString(compiledRecords));
+    }
+
+    private static List<ScoringInput> generate(List<InputAttribute> inputAttributes, Random random) {
+        List<ScoringInput> inputs = new ArrayList<>();
+        for (InputAttribute attribute : inputAttributes) {
+            if (random.nextInt(20) == 0) {
+                continue;
+            }
+            List<String> possibleValues = attribute.getPossibleValues();
+            String value;
+            if (possibleValues != null && !possibleValues.isEmpty()) {
+                value = random.nextInt(20) == 0 ? "unknown" : possibleValues.get(random.nextInt(possibleValues.size()));
+            } else {
+                List<Interval> intervals = attribute.getIntervals();
+                double start = intervals == null || intervals.isEmpty() ? 0.0 : intervals.get(0).getStartRange();
+                double end = intervals == null || intervals.isEmpty() ? 100.0 : intervals.get(0).getEndRange();
+                double number = start + (end - start) * random.nextDouble();
+                // values with few decimals hit the split thresholds of the trees
+                value = "integer".equalsIgnoreCase(attribute.getDataType())
+                        ? Long.toString(Math.round(number))
+                        : Double.toString(Math.round(number * 100.0) / 100.0);
+            }
+            inputs.add(new ScoringInput(attribute.getName(), value));
+        }
+        return inputs;
+    }
+
+    private static CompiledModel compile(ScoringPlan scoringPlan) {
+        return compile(scoringPlan, new TreeModelCompiler());
+    }
+
+    private static CompiledModel compile(ScoringPlan scoringPlan, TreeModelCompiler compiler) {
+        List<FieldName> resultFields = scoringPlan.getResultNames().stream()
+                .map(FieldName::create)
+                .collect(Collectors.toList());
+        return compiler.compile(scoringPlan.getEvaluator(), resultFields);
+    }
+
+    private static ScoringPlan createScoringPlan(byte[] data) {
+        return new EvaluatorCache(256, true, null, null, new ScoringMetrics(new SimpleMeterRegistry()))
+                .getScoringPlan(TestModels.createModel(data, 1L, 2L));
+    }
+}
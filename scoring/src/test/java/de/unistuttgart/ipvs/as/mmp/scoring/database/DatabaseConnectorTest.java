@@ -0,0 +1,41 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.database;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DatabaseConnectorTest {
+
+    private final DatabaseConnector databaseConnector = new DatabaseConnector("jdbc:postgresql://db.example.org:5432/",
+            "jdbc:h2:mem:");
+
+    @Test
+    public void shouldAllowDatabasesOfAllowedUrls() {
+        databaseConnector.validate("jdbc:postgresql://db.example.org:5432/flowers");
+        databaseConnector.validate("jdbc:h2:mem:flowers");
+    }
+
+    @Test
+    public void shouldRejectOtherHosts() {
+        assertThrows(IllegalArgumentException.class,
+                () -> databaseConnector.validate("jdbc:postgresql://169.254.169.254:80/flowers"));
+        assertThrows(IllegalArgumentException.class,
+                () -> databaseConnector.validate("jdbc:postgresql://db.example.org:5432,internal:5432/flowers"));
+    }
+
+    @Test
+    public void shouldRejectDriverProperties() {
+        assertThrows(IllegalArgumentException.class, () -> databaseConnector.validate(
+                "jdbc:postgresql://db.example.org:5432/flowers?socketFactory=org.example.Factory"));
+        assertThrows(IllegalArgumentException.class,
+                () -> databaseConnector.validate("jdbc:h2:mem:flowers;INIT=RUNSCRIPT FROM 'http://example.org/a'"));
+    }
+
+    @Test
+    public void shouldRejectEverythingWithoutAllowedUrls() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DatabaseConnector().validate("jdbc:h2:mem:flowers"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DatabaseConnector("").validate("jdbc:h2:mem:flowers"));
+    }
+}
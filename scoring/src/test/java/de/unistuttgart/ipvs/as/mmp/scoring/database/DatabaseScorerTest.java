@@ -0,0 +1,187 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.database;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseScorerTest {
+
+    private static final String URL = "jdbc:h2:mem:database-scorer;DB_CLOSE_DELAY=-1";
+    private static final int ROWS = 25;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final DatabaseScorer databaseScorer = new DatabaseScorer(executor, 4, 3, 10);
+    private final List<String> checkpoints = new ArrayList<>();
+    private Connection source;
+    private Connection target;
+
+    /**
+     * Scores the length in cm as class and the length in mm as probability.
+     */
+    private final Function<List<List<ScoringInput>>, List<List<ScoringOutput>>> scorer = records -> records.stream()
+            .map(inputs -> Arrays.asList(
+                    new ScoringOutput("class", inputs.get(0).getValue()),
+                    new ScoringOutput("probability(Iris-setosa)", String.valueOf(
+                            Double.parseDouble(inputs.get(0).getValue()) * 10)),
+                    new ScoringOutput("unused", "x")))
+            .collect(Collectors.toList());
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        source = DriverManager.getConnection(URL);
+        target = DriverManager.getConnection(URL);
+        try (Statement statement = source.createStatement()) {
+            statement.execute("CREATE TABLE flowers (id BIGINT PRIMARY KEY, length DOUBLE, color VARCHAR(10))");
+            statement.execute("CREATE TABLE scores (id BIGINT PRIMARY KEY, class VARCHAR(10), "
+                    + "probability_iris_setosa_ DOUBLE)");
+            for (int i = 1; i <= ROWS; i++) {
+                statement.execute(String.format("INSERT INTO flowers VALUES (%s, %s, %s)", i * 2, i,
+                        i % 2 == 0 ? "'blue'" : "NULL"));
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement statement = source.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        source.close();
+        target.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldWriteOutputsOfEveryRow() throws Exception {
+        long processed = databaseScorer.run(source, target, "flowers", "id", "scores", null, false, null, 0L,
+                scorer, this::checkpoint);
+
+        assertEquals(ROWS, processed);
+        // chunks are written in key order
+        assertEquals(Arrays.asList("8", "16", "24", "32", "40", "48", "50"), checkpoints);
+        try (Statement statement = target.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT * FROM scores ORDER BY id")) {
+            for (int i = 1; i <= ROWS; i++) {
+                assertTrue(rows.next());
+                assertEquals(i * 2, rows.getLong("id"));
+                assertEquals(String.valueOf((double) i), rows.getString("class"));
+                assertEquals(i * 10.0, rows.getDouble("probability_iris_setosa_"));
+            }
+            assertFalse(rows.next());
+        }
+    }
+
+    @Test
+    public void shouldMapColumnsToFields() throws Exception {
+        List<List<ScoringInput>> scored = Collections.synchronizedList(new ArrayList<>());
+        Map<String, String> fieldMapping = Collections.singletonMap("LENGTH", "petal_length");
+        databaseScorer.run(source, target, "flowers", "id", "scores", fieldMapping, false, null, 0L,
+                records -> {
+                    scored.addAll(records);
+                    return scorer.apply(records);
+                }, this::checkpoint);
+
+        List<ScoringInput> first = scored.stream()
+                .filter(inputs -> inputs.get(0).getValue().equals("1.0")).findFirst().orElseThrow(AssertionError::new);
+        // the key is not scored and null columns are missing values
+        assertEquals(Collections.singletonList(new ScoringInput("petal_length", "1.0")), first);
+        List<ScoringInput> second = scored.stream()
+                .filter(inputs -> inputs.get(0).getValue().equals("2.0")).findFirst().orElseThrow(AssertionError::new);
+        assertEquals("COLOR", second.get(1).getName());
+    }
+
+    @Test
+    public void shouldResumeAfterCheckpoint() throws Exception {
+        long processed = databaseScorer.run(source, target, "flowers", "id", "scores", null, false, null, 0L,
+                scorer, (checkpoint, records) -> checkpoint(checkpoint, records) && checkpoints.size() < 2);
+        assertEquals(8, processed);
+        // a row after the checkpoint that was written before the interruption was reported, and a row of another job
+        try (Statement statement = target.createStatement()) {
+            statement.execute("INSERT INTO scores (id, class) VALUES (18, 'partial')");
+            statement.execute("INSERT INTO scores (id, class) VALUES (1000, 'other')");
+        }
+
+        processed = databaseScorer.run(source, target, "flowers", "id", "scores", null, true, "16", 8L,
+                scorer, this::checkpoint);
+
+        assertEquals(ROWS, processed);
+        try (Statement statement = target.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "SELECT COUNT(*), COUNT(DISTINCT id) FROM scores WHERE class NOT IN ('partial', 'other')")) {
+            assertTrue(rows.next());
+            assertEquals(ROWS, rows.getInt(1));
+            assertEquals(ROWS, rows.getInt(2));
+        }
+        assertEquals(1, countRows("class = 'other'"));
+        assertEquals(0, countRows("class = 'partial'"));
+    }
+
+    @Test
+    public void shouldOnlyReplaceFirstChunkIfResumedWithoutCheckpoint() throws Exception {
+        // the first chunk was written before the interruption was reported
+        try (Statement statement = target.createStatement()) {
+            statement.execute("INSERT INTO scores (id, class) VALUES (2, 'partial')");
+            statement.execute("INSERT INTO scores (id, class) VALUES (1000, 'other')");
+        }
+
+        long processed = databaseScorer.run(source, target, "flowers", "id", "scores", null, true, null, 0L,
+                scorer, this::checkpoint);
+
+        assertEquals(ROWS, processed);
+        assertEquals(ROWS + 1, countRows("1 = 1"));
+        assertEquals(1, countRows("class = 'other'"));
+        assertEquals(0, countRows("class = 'partial'"));
+    }
+
+    @Test
+    public void shouldFailWithErrorOfScoring() {
+        IllegalStateException error = assertThrows(IllegalStateException.class, () ->
+                databaseScorer.run(source, target, "flowers", "id", "scores", null, false, null, 0L,
+                        records -> {
+                            throw new IllegalStateException("evaluation failed");
+                        }, this::checkpoint));
+        assertEquals("evaluation failed", error.getMessage());
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    public void shouldRejectTablesThatAreNoIdentifiers() {
+        assertThrows(IllegalArgumentException.class, () ->
+                DatabaseScorer.validate("flowers; DROP TABLE scores", "id", "scores", null));
+        assertThrows(IllegalArgumentException.class, () ->
+                DatabaseScorer.validate("flowers", "id", "scores", Collections.singletonMap("a b", "c")));
+        DatabaseScorer.validate("public.flowers", "id", "scores", null);
+    }
+
+    private int countRows(String condition) throws SQLException {
+        try (Statement statement = target.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM scores WHERE " + condition)) {
+            assertTrue(rows.next());
+            return rows.getInt(1);
+        }
+    }
+
+    private boolean checkpoint(String checkpoint, long processedRecords) {
+        checkpoints.add(checkpoint);
+        return true;
+    }
+}
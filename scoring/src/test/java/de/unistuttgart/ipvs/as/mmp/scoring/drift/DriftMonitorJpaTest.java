@@ -0,0 +1,121 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.drift;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Interval;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.PMMLMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Project;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.FieldDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.InputDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.configuration.MmpJpaTestConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drift of a model that is scored on a thread without a session, as by the jobs. The test is not transactional, so
+ * the model is committed and loaded by the thread like in production.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@EntityScan(basePackages = "de.unistuttgart.ipvs.as.mmp.common.domain")
+@EnableJpaRepositories(basePackages = "de.unistuttgart.ipvs.as.mmp.model.repository")
+@Import(MmpJpaTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DriftMonitorJpaTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Project testProject;
+    private Long modelId;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        InputAttribute petalLength = InputAttribute.builder()
+                .name("petal_length")
+                .dataType("double")
+                .intervals(Collections.singletonList(new Interval(1.0, 6.9, "closedOpen")))
+                .build();
+        InputAttribute species = InputAttribute.builder()
+                .name("species")
+                .dataType("string")
+                .possibleValues(Arrays.asList("setosa", "versicolor", "virginica"))
+                .build();
+        PMMLMetadata pmmlMetadata = new PMMLMetadata();
+        pmmlMetadata.setInputAttributes(Arrays.asList(petalLength, species));
+        testProject = Project.builder().name("drift project").build();
+        Model model = Model.builder()
+                .project(testProject)
+                .modelMetadata(ModelMetadata.builder().name("iris").pmmlMetadata(pmmlMetadata).build())
+                .build();
+        modelId = transactionTemplate.execute(status -> {
+            entityManager.persist(testProject);
+            return modelRepository.save(model).getId();
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transactionTemplate.execute(status -> {
+            modelRepository.deleteById(modelId);
+            entityManager.remove(entityManager.find(Project.class, testProject.getId()));
+            return null;
+        });
+    }
+
+    @Test
+    public void shouldObserveModelThatWasLoadedWithoutSession() throws Exception {
+        DriftMonitor driftMonitor = new DriftMonitor(modelRepository, transactionManager, true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            InputDrift inputDrift = executor.submit(() -> {
+                // the input attributes of the model are not loaded
+                Model model = modelRepository.findById(modelId).orElseThrow(IllegalStateException::new);
+                driftMonitor.observe(model, Arrays.asList(new ScoringInput("petal_length", "7.5"),
+                        new ScoringInput("species", "tulip")));
+                return driftMonitor.getDrift(model);
+            }).get(10, TimeUnit.SECONDS);
+
+            assertEquals(1L, inputDrift.getRecords());
+            FieldDrift petalLength = inputDrift.getFields().get(0);
+            assertEquals("petal_length", petalLength.getName());
+            assertEquals(1L, petalLength.getOutOfRange());
+            FieldDrift species = inputDrift.getFields().get(1);
+            assertEquals(1L, species.getUnseen());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
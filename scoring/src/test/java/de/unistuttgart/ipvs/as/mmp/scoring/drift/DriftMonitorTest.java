@@ -0,0 +1,134 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.drift;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Interval;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.PMMLMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.FieldDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.InputDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class DriftMonitorTest {
+
+    private static final Long MODEL_ID = 42L;
+
+    private Model model;
+    private ModelRepository modelRepository;
+    private DriftMonitor driftMonitor;
+
+    @BeforeEach
+    public void setUp() {
+        InputAttribute petalLength = InputAttribute.builder()
+                .name("petal_length")
+                .dataType("double")
+                .intervals(Collections.singletonList(new Interval(1.0, 6.9, "closedOpen")))
+                .build();
+        InputAttribute species = InputAttribute.builder()
+                .name("species")
+                .dataType("string")
+                .possibleValues(Arrays.asList("setosa", "versicolor", "virginica"))
+                .build();
+        PMMLMetadata pmmlMetadata = new PMMLMetadata();
+        pmmlMetadata.setInputAttributes(Arrays.asList(petalLength, species));
+        model = Model.builder().modelMetadata(ModelMetadata.builder().pmmlMetadata(pmmlMetadata).build()).build();
+        model.setId(MODEL_ID);
+        modelRepository = mock(ModelRepository.class);
+        given(modelRepository.findById(MODEL_ID)).willReturn(Optional.of(model));
+        driftMonitor = new DriftMonitor(modelRepository, mock(PlatformTransactionManager.class), true);
+    }
+
+    private void observe(String petalLength, String species) {
+        driftMonitor.observe(model, Arrays.asList(new ScoringInput("petal_length", petalLength),
+                new ScoringInput("species", species)));
+    }
+
+    @Test
+    public void shouldCountValuesOutsideOfMetadata() {
+        observe("1.0", "setosa");
+        observe("6.9", "versicolor");
+        observe("abc", "tulip");
+        driftMonitor.observe(model, Collections.singletonList(new ScoringInput("petal_length", "0.5")));
+
+        InputDrift inputDrift = driftMonitor.getDrift(model);
+        assertEquals(4L, inputDrift.getRecords());
+        FieldDrift petalLength = inputDrift.getFields().get(0);
+        assertEquals("petal_length", petalLength.getName());
+        assertEquals(4L, petalLength.getCount());
+        assertEquals(1L, petalLength.getInvalid());
+        assertEquals(2L, petalLength.getOutOfRange());
+        assertEquals(0.5, petalLength.getOutOfRangeRate());
+        assertEquals(0.5, petalLength.getMin());
+        assertEquals(6.9, petalLength.getMax());
+
+        FieldDrift species = inputDrift.getFields().get(1);
+        assertEquals(3L, species.getCount());
+        assertEquals(1L, species.getMissing());
+        assertEquals(1L, species.getUnseen());
+        assertNull(species.getQuantiles());
+    }
+
+    @Test
+    public void shouldMatchInputsRegardlessOfCase() {
+        driftMonitor.observe(model, Arrays.asList(new ScoringInput("PETAL_LENGTH", "0.5"),
+                new ScoringInput("Species", "tulip")));
+
+        InputDrift inputDrift = driftMonitor.getDrift(model);
+        assertEquals("petal_length", inputDrift.getFields().get(0).getName());
+        assertEquals(1L, inputDrift.getFields().get(0).getOutOfRange());
+        assertEquals(1L, inputDrift.getFields().get(1).getUnseen());
+    }
+
+    @Test
+    public void shouldEstimateQuantilesConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                Random random = new Random();
+                for (int i = 0; i < 25000; i++) {
+                    observe(Double.toString(1.0 + 5.0 * random.nextDouble()), "setosa");
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        FieldDrift petalLength = driftMonitor.getDrift(model).getFields().get(0);
+        assertEquals(100000L, petalLength.getCount());
+        assertEquals(3.5, petalLength.getMean(), 0.05);
+        assertEquals(3.5, petalLength.getQuantiles().get("p50"), 3.5 * 0.06);
+        assertEquals(1.25, petalLength.getQuantiles().get("p5"), 1.25 * 0.06);
+        assertEquals(5.75, petalLength.getQuantiles().get("p95"), 5.75 * 0.06);
+    }
+
+    @Test
+    public void shouldResetWhenModelFileChanges() {
+        observe("1.0", "setosa");
+        driftMonitor.onModelFileChanged(new ModelFileChangedEvent(MODEL_ID));
+        assertEquals(0L, driftMonitor.getDrift(model).getRecords());
+    }
+
+    @Test
+    public void shouldNotObserveWhenDisabled() {
+        driftMonitor = new DriftMonitor(modelRepository, mock(PlatformTransactionManager.class), false);
+        observe("1.0", "setosa");
+        assertEquals(0L, driftMonitor.getDrift(model).getRecords());
+    }
+}
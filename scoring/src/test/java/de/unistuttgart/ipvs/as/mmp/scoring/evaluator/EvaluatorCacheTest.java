@@ -0,0 +1,59 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.exception.ScoringException;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jpmml.evaluator.Evaluator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorCacheTest {
+
+    private static final Long MODEL_ID = 42L;
+    private static final Long MODEL_FILE_ID = 43L;
+
+    private EvaluatorCache evaluatorCache;
+    private Model testModel;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        evaluatorCache = new EvaluatorCache(256, true, null, null, new ScoringMetrics(new SimpleMeterRegistry()));
+        testModel = TestModels.irisTree(MODEL_ID, MODEL_FILE_ID);
+    }
+
+    @Test
+    public void shouldReuseLoadedEvaluator() {
+        Evaluator first = evaluatorCache.getEvaluator(testModel);
+        Evaluator second = evaluatorCache.getEvaluator(testModel);
+        assertSame(first, second);
+        assertEquals(1L, evaluatorCache.getStatistics().get("hitCount"));
+        assertEquals(1L, evaluatorCache.getStatistics().get("missCount"));
+    }
+
+    @Test
+    public void shouldReloadAfterModelFileChanged() {
+        Evaluator first = evaluatorCache.getEvaluator(testModel);
+        evaluatorCache.onModelFileChanged(new ModelFileChangedEvent(MODEL_ID));
+        Evaluator second = evaluatorCache.getEvaluator(testModel);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void shouldNotLoadModelWithoutFile() {
+        Model model = Model.builder().build();
+        assertThrows(ScoringException.class, () -> evaluatorCache.getEvaluator(model));
+    }
+
+    @Test
+    public void shouldNotLoadInvalidPmml() {
+        testModel.getModelFile().getDbFile().setData("no pmml".getBytes());
+        assertThrows(ScoringException.class, () -> evaluatorCache.getEvaluator(testModel));
+    }
+}
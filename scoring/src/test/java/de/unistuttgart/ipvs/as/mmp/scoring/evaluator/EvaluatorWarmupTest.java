@@ -0,0 +1,92 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelStatus;
+import de.unistuttgart.ipvs.as.mmp.common.pmml.PMMLMetadataParser;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class EvaluatorWarmupTest {
+
+    private static final Long MODEL_ID = 42L;
+    private static final Long BROKEN_MODEL_ID = 43L;
+
+    private ModelRepository modelRepository;
+    private EvaluatorCache evaluatorCache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        modelRepository = mock(ModelRepository.class);
+        evaluatorCache = new EvaluatorCache(256, true, null, null, new ScoringMetrics(new SimpleMeterRegistry()));
+
+        byte[] data = TestModels.readFile(TestModels.IRIS_TREE);
+        Model model;
+        try (InputStream is = new ByteArrayInputStream(data)) {
+            model = new PMMLMetadataParser().parsePMMLFile(is, new ModelMetadata()).get(0);
+        }
+        model.setModelFile(TestModels.createModelFile(data, 1L));
+        model.setId(MODEL_ID);
+
+        Model brokenModel = Model.builder().build();
+        brokenModel.setId(BROKEN_MODEL_ID);
+
+        given(modelRepository.findAllIdsByStatus(ModelStatus.OPERATION))
+                .willReturn(Arrays.asList(MODEL_ID, BROKEN_MODEL_ID));
+        given(modelRepository.findById(MODEL_ID)).willReturn(Optional.of(model));
+        given(modelRepository.findById(BROKEN_MODEL_ID)).willReturn(Optional.of(brokenModel));
+    }
+
+    @Test
+    public void shouldBeReadyAfterWarmup() {
+        EvaluatorWarmup evaluatorWarmup = newWarmup(true);
+        EvaluatorWarmupHealthIndicator healthIndicator = new EvaluatorWarmupHealthIndicator(evaluatorWarmup);
+        assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+
+        evaluatorWarmup.warmUp();
+
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+        assertEquals(1, evaluatorWarmup.getDetails().get("warmedModels"));
+        assertEquals(1, evaluatorWarmup.getDetails().get("failedModels"));
+        assertEquals(1L, evaluatorCache.getStatistics().get("loadSuccessCount"));
+    }
+
+    @Test
+    public void shouldBeReadyIfWarmupFailed() {
+        given(modelRepository.findAllIdsByStatus(ModelStatus.OPERATION)).willThrow(new IllegalStateException());
+        EvaluatorWarmup evaluatorWarmup = newWarmup(true);
+
+        evaluatorWarmup.warmUp();
+
+        assertEquals(Status.UP, new EvaluatorWarmupHealthIndicator(evaluatorWarmup).health().getStatus());
+        assertEquals("FAILED", evaluatorWarmup.getDetails().get("state"));
+    }
+
+    @Test
+    public void shouldBeReadyIfDisabled() {
+        EvaluatorWarmup evaluatorWarmup = newWarmup(false);
+        assertEquals(Status.UP, new EvaluatorWarmupHealthIndicator(evaluatorWarmup).health().getStatus());
+        assertEquals(Collections.singletonMap("state", "DISABLED"), evaluatorWarmup.getDetails());
+    }
+
+    private EvaluatorWarmup newWarmup(boolean enabled) {
+        return new EvaluatorWarmup(modelRepository, evaluatorCache, mock(PlatformTransactionManager.class),
+                enabled, 100);
+    }
+}
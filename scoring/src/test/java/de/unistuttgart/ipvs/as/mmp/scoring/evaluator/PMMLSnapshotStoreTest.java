@@ -0,0 +1,140 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.PMMLSnapshot;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.PMMLSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dmg.pmml.PMML;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+public class PMMLSnapshotStoreTest {
+
+    private static final Long MODEL_ID = 42L;
+    private static final Long MODEL_FILE_ID = 43L;
+    private static final Long DB_FILE_ID = 44L;
+    private static final List<ScoringInput> INPUTS = Collections.singletonList(new ScoringInput("petal_length", "1.4"));
+
+    private PMMLSnapshotRepository pmmlSnapshotRepository;
+    private ModelRepository modelRepository;
+    private PMMLSnapshotStore pmmlSnapshotStore;
+    private Model testModel;
+    private byte[] pmmlData;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        pmmlSnapshotRepository = mock(PMMLSnapshotRepository.class);
+        modelRepository = mock(ModelRepository.class);
+        pmmlSnapshotStore = new PMMLSnapshotStore(pmmlSnapshotRepository, modelRepository,
+                new ScoringMetrics(new SimpleMeterRegistry()), true, 10);
+        testModel = TestModels.irisTree(MODEL_ID, MODEL_FILE_ID);
+        testModel.getModelFile().getDbFile().setId(DB_FILE_ID);
+        pmmlData = testModel.getModelFile().getDbFile().getData();
+        given(pmmlSnapshotRepository.findByModelFileId(MODEL_FILE_ID)).willReturn(Optional.empty());
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        pmmlSnapshotStore.shutdown();
+    }
+
+    @Test
+    public void shouldScoreSnapshotLikeXml() throws Exception {
+        PMML pmml = EvaluatorCache.unmarshal(pmmlData);
+        EvaluatorCache.optimize(pmml);
+        PMML restored = PMMLSnapshotStore.deserialize(PMMLSnapshotStore.serialize(pmml));
+
+        ScoringPlan expected = new ScoringPlan(EvaluatorCache.newEvaluator(pmml));
+        ScoringPlan actual = new ScoringPlan(EvaluatorCache.newEvaluator(restored));
+        actual.getEvaluator().verify();
+        assertArrayEquals(expected.evaluate(expected.bind(INPUTS)), actual.evaluate(actual.bind(INPUTS)));
+    }
+
+    @Test
+    public void shouldCreateSnapshotOfUploadedModelFile() throws Exception {
+        given(modelRepository.findById(MODEL_ID)).willReturn(Optional.of(testModel));
+        PMMLSnapshot replaced = PMMLSnapshot.builder().modelId(MODEL_ID).modelFileId(7L).build();
+        given(pmmlSnapshotRepository.findAllByModelId(MODEL_ID)).willReturn(Collections.singletonList(replaced));
+
+        pmmlSnapshotStore.onModelFileChanged(new ModelFileChangedEvent(MODEL_ID));
+        pmmlSnapshotStore.shutdown();
+
+        verify(pmmlSnapshotRepository).delete(replaced);
+        ArgumentCaptor<PMMLSnapshot> captor = ArgumentCaptor.forClass(PMMLSnapshot.class);
+        verify(pmmlSnapshotRepository).save(captor.capture());
+        PMMLSnapshot snapshot = captor.getValue();
+        assertEquals(MODEL_FILE_ID, snapshot.getModelFileId());
+        assertEquals(DB_FILE_ID, snapshot.getDbFileId());
+        assertEquals(pmmlData.length, snapshot.getSourceSize());
+        assertNotNull(PMMLSnapshotStore.deserialize(snapshot.getData()));
+    }
+
+    @Test
+    public void shouldLoadEvaluatorFromSnapshot() throws Exception {
+        PMML pmml = EvaluatorCache.unmarshal(pmmlData);
+        EvaluatorCache.optimize(pmml);
+        given(pmmlSnapshotRepository.findByModelFileId(MODEL_FILE_ID)).willReturn(Optional.of(createSnapshot(pmml)));
+        // the xml is not parsed if the snapshot is current
+        testModel.getModelFile().getDbFile().setData(new byte[pmmlData.length]);
+
+        EvaluatorCache evaluatorCache = new EvaluatorCache(256, true, null, pmmlSnapshotStore,
+                new ScoringMetrics(new SimpleMeterRegistry()));
+        ScoringPlan scoringPlan = evaluatorCache.getScoringPlan(testModel);
+        assertEquals("Iris-setosa", scoringPlan.evaluate(scoringPlan.bind(INPUTS))[0]);
+        verify(pmmlSnapshotRepository, never()).save(any(PMMLSnapshot.class));
+    }
+
+    @Test
+    public void shouldIgnoreStaleSnapshot() throws Exception {
+        PMML pmml = EvaluatorCache.unmarshal(pmmlData);
+        PMMLSnapshot snapshot = createSnapshot(pmml);
+        snapshot.setSourceSize(pmmlData.length + 1L);
+        given(pmmlSnapshotRepository.findByModelFileId(MODEL_FILE_ID)).willReturn(Optional.of(snapshot));
+        assertNull(pmmlSnapshotStore.load(testModel.getModelFile()));
+
+        snapshot.setSourceSize(pmmlData.length);
+        snapshot.setFormat("java-gzip-0");
+        assertNull(pmmlSnapshotStore.load(testModel.getModelFile()));
+
+        snapshot.setFormat(PMMLSnapshotStore.FORMAT);
+        snapshot.setData(new byte[]{1, 2, 3});
+        assertNull(pmmlSnapshotStore.load(testModel.getModelFile()));
+    }
+
+    @Test
+    public void shouldStoreSnapshotAfterParsingXml() throws Exception {
+        EvaluatorCache evaluatorCache = new EvaluatorCache(256, true, null, pmmlSnapshotStore,
+                new ScoringMetrics(new SimpleMeterRegistry()));
+        evaluatorCache.getScoringPlan(testModel);
+        pmmlSnapshotStore.shutdown();
+
+        verify(pmmlSnapshotRepository, times(1)).save(any(PMMLSnapshot.class));
+    }
+
+    private PMMLSnapshot createSnapshot(PMML pmml) throws Exception {
+        return PMMLSnapshot.builder()
+                .modelId(MODEL_ID)
+                .modelFileId(MODEL_FILE_ID)
+                .dbFileId(DB_FILE_ID)
+                .sourceSize(pmmlData.length)
+                .format(PMMLSnapshotStore.FORMAT)
+                .data(PMMLSnapshotStore.serialize(pmml))
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the input binding of a scoring plan with the nested loop over active fields and inputs that was used
+ * before, for a regression model with many fields. Run with {@code gradle :scoring:test -Dscoring.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "scoring.benchmark", matches = "true")
+public class ScoringPlanBenchmarkTest {
+
+    private static final int FIELD_COUNT = 400;
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int MEASURED_ITERATIONS = 50000;
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Test
+    public void compareInputBinding() {
+        ScoringPlan scoringPlan = new EvaluatorCache(256, true, null, null, new ScoringMetrics(new SimpleMeterRegistry()))
+                .getScoringPlan(createWideModel());
+        Evaluator evaluator = scoringPlan.getEvaluator();
+
+        List<ScoringInput> inputs = new ArrayList<>(FIELD_COUNT);
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            inputs.add(new ScoringInput("X" + i, Integer.toString(i)));
+        }
+        // the inputs of a client are rarely ordered like the fields of the model
+        Collections.reverse(inputs);
+
+        assertEquals(bindWithNestedLoop(evaluator, inputs), scoringPlan.bind(inputs));
+
+        double nestedLoopNanos = measure(in -> bindWithNestedLoop(evaluator, in), inputs);
+        double scoringPlanNanos = measure(scoringPlan::bind, inputs);
+        log.info(String.format("Binding %s inputs: nested loop %.0f ns/op, scoring plan %.0f ns/op",
+                FIELD_COUNT, nestedLoopNanos, scoringPlanNanos));
+        // the nested loop compares every field with every input, the scoring plan looks each input up once
+        assertTrue(scoringPlanNanos < nestedLoopNanos);
+    }
+
+    private double measure(Function<List<ScoringInput>, Map<FieldName, FieldValue>> binding,
+                           List<ScoringInput> inputs) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += binding.apply(inputs).size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += binding.apply(inputs).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals((long) FIELD_COUNT * (WARMUP_ITERATIONS + MEASURED_ITERATIONS), sink);
+        return (double) elapsed / MEASURED_ITERATIONS;
+    }
+
+    private static Map<FieldName, FieldValue> bindWithNestedLoop(Evaluator evaluator, List<ScoringInput> inputs) {
+        Map<FieldName, FieldValue> arguments = new LinkedHashMap<>();
+        for (InputField inputField : evaluator.getActiveFields()) {
+            FieldName inputFieldName = inputField.getName();
+            for (ScoringInput scoringInput : inputs) {
+                if (inputFieldName.toString().equalsIgnoreCase(scoringInput.getName())) {
+                    arguments.put(inputFieldName, inputField.prepare(scoringInput.getValue()));
+                    break;
+                }
+            }
+        }
+        return arguments;
+    }
+
+    private static Model createWideModel() {
+        StringBuilder dataFields = new StringBuilder("<DataField name=\"y\" optype=\"continuous\" dataType=\"double\"/>");
+        StringBuilder miningFields = new StringBuilder("<MiningField name=\"y\" usageType=\"predicted\"/>");
+        StringBuilder predictors = new StringBuilder();
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            dataFields.append(String.format("<DataField name=\"x%s\" optype=\"continuous\" dataType=\"double\"/>", i));
+            miningFields.append(String.format("<MiningField name=\"x%s\"/>", i));
+            predictors.append(String.format("<NumericPredictor name=\"x%s\" coefficient=\"0.5\"/>", i));
+        }
+        String pmml = "<PMML xmlns=\"http://www.dmg.org/PMML-4_3\" version=\"4.3\">"
+                + "<Header/>"
+                + "<DataDictionary>" + dataFields + "</DataDictionary>"
+                + "<RegressionModel functionName=\"regression\">"
+                + "<MiningSchema>" + miningFields + "</MiningSchema>"
+                + "<RegressionTable intercept=\"1.0\">" + predictors + "</RegressionTable>"
+                + "</RegressionModel>"
+                + "</PMML>";
+
+        DBFile dbFile = DBFile.builder().fileName("wide.xml").fileType("text/xml")
+                .data(pmml.getBytes(StandardCharsets.UTF_8)).build();
+        ModelFile modelFile = ModelFile.builder().dbFile(dbFile).build();
+        modelFile.setId(2L);
+        Model model = Model.builder().modelFile(modelFile).build();
+        model.setId(1L);
+        return model;
+    }
+}
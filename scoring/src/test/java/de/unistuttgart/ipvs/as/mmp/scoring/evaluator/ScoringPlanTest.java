@@ -0,0 +1,67 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoringPlanTest {
+
+    private static final FieldName PETAL_LENGTH = FieldName.create("petal_length");
+
+    private ScoringPlan scoringPlan;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        scoringPlan = new EvaluatorCache(256, true, null, null, new ScoringMetrics(new SimpleMeterRegistry()))
+                .getScoringPlan(TestModels.irisTree(1L, 2L));
+    }
+
+    @Test
+    public void shouldBindInputsIgnoringCase() {
+        Map<FieldName, FieldValue> arguments = scoringPlan.bind(Arrays.asList(
+                new ScoringInput("Petal_Length", "4.7"),
+                new ScoringInput("petal_length", "1.4"),
+                new ScoringInput("unknown", "1.0")));
+
+        assertEquals(1, arguments.size());
+        assertEquals(4.7, arguments.get(PETAL_LENGTH).asNumber().doubleValue());
+    }
+
+    @Test
+    public void shouldBindColumns() {
+        InputField[] columnFields = scoringPlan.bindColumns(Arrays.asList("sepal_length", " PETAL_LENGTH ", null));
+        assertNull(columnFields[0]);
+        assertEquals(PETAL_LENGTH, columnFields[1].getName());
+        assertNull(columnFields[2]);
+
+        Map<FieldName, FieldValue> arguments = scoringPlan.bind(columnFields, new String[]{"5.1", "1.4"});
+        assertEquals(1, arguments.size());
+        assertEquals(1.4, arguments.get(PETAL_LENGTH).asNumber().doubleValue());
+    }
+
+    @Test
+    public void shouldExtractOutputFieldsInDeclaredOrder() {
+        Map<FieldName, ?> results = scoringPlan.getEvaluator().evaluate(
+                scoringPlan.bind(Arrays.asList(new ScoringInput("petal_length", "1.4"))));
+        List<ScoringOutput> outputs = scoringPlan.extract(results);
+
+        assertEquals(4, outputs.size());
+        assertEquals("class", outputs.get(0).getName());
+        assertEquals("Iris-setosa", outputs.get(0).getValue());
+        assertEquals("Probability_Iris-virginica", outputs.get(3).getName());
+    }
+}
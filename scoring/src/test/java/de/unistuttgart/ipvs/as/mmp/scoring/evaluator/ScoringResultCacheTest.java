@@ -0,0 +1,84 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelFileChangedEvent;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoringResultCacheTest {
+
+    private static final Long MODEL_ID = 42L;
+
+    private ScoringResultCache scoringResultCache;
+    private ScoringPlan scoringPlan;
+    private Model testModel;
+    private AtomicInteger evaluations;
+    private Supplier<List<ScoringOutput>> scorer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        scoringResultCache = new ScoringResultCache(100, 60, new ScoringMetrics(new SimpleMeterRegistry()));
+        testModel = TestModels.irisTree(MODEL_ID, 43L);
+        testModel.setResultCacheEnabled(true);
+        scoringPlan = new EvaluatorCache(256, true, null, null, new ScoringMetrics(new SimpleMeterRegistry()))
+                .getScoringPlan(testModel);
+
+        evaluations = new AtomicInteger();
+        scorer = () -> {
+            evaluations.incrementAndGet();
+            return Collections.singletonList(new ScoringOutput("class", "Iris-setosa"));
+        };
+    }
+
+    @Test
+    public void shouldReuseOutputsOfEqualPreparedInputs() {
+        List<ScoringOutput> first = scoringResultCache.get(testModel, scoringPlan, bind("1.4"), scorer);
+        List<ScoringOutput> second = scoringResultCache.get(testModel, scoringPlan, bind("1.40"), scorer);
+
+        assertEquals(1, evaluations.get());
+        assertEquals(first, second);
+        assertNotSame(first.get(0), second.get(0));
+
+        scoringResultCache.get(testModel, scoringPlan, bind("4.7"), scorer);
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    public void shouldNotCacheOutputsOfModelsWithoutResultCache() {
+        testModel.setResultCacheEnabled(null);
+        scoringResultCache.get(testModel, scoringPlan, bind("1.4"), scorer);
+        scoringResultCache.get(testModel, scoringPlan, bind("1.4"), scorer);
+
+        assertEquals(2, evaluations.get());
+        assertEquals(0, scoringResultCache.size());
+    }
+
+    @Test
+    public void shouldEvaluateAgainAfterModelFileChanged() {
+        scoringResultCache.get(testModel, scoringPlan, bind("1.4"), scorer);
+        scoringResultCache.onModelFileChanged(new ModelFileChangedEvent(MODEL_ID));
+        scoringResultCache.get(testModel, scoringPlan, bind("1.4"), scorer);
+
+        assertEquals(2, evaluations.get());
+    }
+
+    private Map<FieldName, FieldValue> bind(String petalLength) {
+        return scoringPlan.bind(Collections.singletonList(new ScoringInput("petal_length", petalLength)));
+    }
+}
@@ -0,0 +1,37 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.evaluator;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.InputAttribute;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Interval;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WarmupInputGeneratorTest {
+
+    @Test
+    public void shouldGenerateValuesFromMetadata() {
+        InputAttribute continuous = InputAttribute.builder().name("petal_length").dataType("double")
+                .intervals(Collections.singletonList(new Interval(1.0, 6.9, "closedClosed"))).build();
+        InputAttribute categorical = InputAttribute.builder().name("color").dataType("string")
+                .possibleValues(Arrays.asList("red", "blue")).build();
+        InputAttribute integer = InputAttribute.builder().name("count").dataType("integer").build();
+        InputAttribute supplementary = InputAttribute.builder().name("id").dataType("integer")
+                .usageType("supplementary").build();
+
+        WarmupInputGenerator generator = new WarmupInputGenerator(1L);
+        for (int i = 0; i < 100; i++) {
+            List<ScoringInput> inputs = generator.generate(Arrays.asList(continuous, categorical, integer, supplementary));
+            assertEquals(3, inputs.size());
+            double petalLength = Double.parseDouble(inputs.get(0).getValue());
+            assertTrue(petalLength > 1.0 && petalLength < 6.9);
+            assertTrue(Arrays.asList("red", "blue").contains(inputs.get(1).getValue()));
+            Long.parseLong(inputs.get(2).getValue());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.job;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.DatabaseScoringJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class JobRunnerTest {
+
+    private static final Long PROJECT_ID = 123L;
+    private static final String NODE_ID = "node";
+    private static final List<ScoringJobStatus> RESUMABLE =
+            Arrays.asList(ScoringJobStatus.FAILED, ScoringJobStatus.CANCELLED);
+
+    private DatabaseScoringJobRepository repository;
+    private JobRunner<DatabaseScoringJob> jobRunner;
+    private final Map<Long, DatabaseScoringJob> storedJobs = new ConcurrentHashMap<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private long nextId = 1;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(DatabaseScoringJobRepository.class);
+        jobRunner = new JobRunner<>("Test job", "test-job-", repository, new JobNode(NODE_ID, 1), 1, 1, 3);
+        given(repository.save(any(DatabaseScoringJob.class))).willAnswer(invocation -> {
+            DatabaseScoringJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(nextId++);
+            }
+            storedJobs.put(job.getId(), job);
+            return job;
+        });
+        given(repository.findById(anyLong()))
+                .willAnswer(invocation -> Optional.ofNullable(storedJobs.get(invocation.<Long>getArgument(0))));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        jobRunner.shutdown();
+    }
+
+    private static DatabaseScoringJob newJob() {
+        return DatabaseScoringJob.builder().projectId(PROJECT_ID).submitted(LocalDateTime.now()).build();
+    }
+
+    private JobRunner.Task<DatabaseScoringJob> blockingTask() {
+        return run -> {
+            release.await(5, TimeUnit.SECONDS);
+            return run.isCancelRequested() ? ScoringJobStatus.CANCELLED : ScoringJobStatus.COMPLETED;
+        };
+    }
+
+    private DatabaseScoringJob awaitFinished(Long jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            DatabaseScoringJob job = storedJobs.get(jobId);
+            if (job != null && job.getFinished() != null) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Job did not finish");
+        return null;
+    }
+
+    @Test
+    public void shouldFailJobWithMessageOfException() throws InterruptedException {
+        DatabaseScoringJob job = jobRunner.submit(newJob(), run -> {
+            throw new IllegalStateException("scoring failed");
+        });
+        assertEquals(ScoringJobStatus.QUEUED, job.getStatus());
+
+        job = awaitFinished(job.getId());
+        assertEquals(ScoringJobStatus.FAILED, job.getStatus());
+        assertEquals("scoring failed", job.getErrorMessage());
+        assertNotNull(job.getStarted());
+        assertFalse(jobRunner.isActive(job.getId()));
+    }
+
+    @Test
+    public void shouldCancelQueuedJobAtOnce() throws InterruptedException {
+        DatabaseScoringJob running = jobRunner.submit(newJob(), blockingTask());
+        DatabaseScoringJob queued = jobRunner.submit(newJob(), blockingTask());
+
+        assertTrue(jobRunner.cancel(queued));
+        assertEquals(ScoringJobStatus.CANCELLED, storedJobs.get(queued.getId()).getStatus());
+        assertNull(storedJobs.get(queued.getId()).getStarted());
+        assertTrue(jobRunner.cancel(running));
+        release.countDown();
+        assertEquals(ScoringJobStatus.CANCELLED, awaitFinished(running.getId()).getStatus());
+        assertFalse(jobRunner.cancel(running));
+    }
+
+    @Test
+    public void shouldKeepStatusOfResumedJobIfQueueIsFull() {
+        jobRunner.submit(newJob(), blockingTask());
+        jobRunner.submit(newJob(), blockingTask());
+        DatabaseScoringJob failed = repository.save(newJob());
+        failed.setStatus(ScoringJobStatus.FAILED);
+        failed.setErrorMessage("scoring failed");
+        given(repository.requeueJob(eq(failed.getId()), eq(NODE_ID), any(), any(), eq(RESUMABLE),
+                eq(ScoringJobStatus.QUEUED))).willAnswer(invocation -> {
+            DatabaseScoringJob queued = newJob();
+            queued.setId(failed.getId());
+            queued.setStatus(ScoringJobStatus.QUEUED);
+            storedJobs.put(queued.getId(), queued);
+            return 1;
+        });
+
+        assertThrows(CapacityException.class, () -> jobRunner.resubmit(failed, RESUMABLE, blockingTask()));
+        assertEquals(ScoringJobStatus.FAILED, storedJobs.get(failed.getId()).getStatus());
+        assertEquals("scoring failed", storedJobs.get(failed.getId()).getErrorMessage());
+        assertFalse(jobRunner.isActive(failed.getId()));
+        verify(repository, never()).delete(any(DatabaseScoringJob.class));
+    }
+
+    @Test
+    public void shouldNotResumeJobThatWasClaimedElsewhere() {
+        DatabaseScoringJob failed = repository.save(newJob());
+        failed.setStatus(ScoringJobStatus.FAILED);
+
+        assertFalse(jobRunner.resubmit(failed, RESUMABLE, blockingTask()).isPresent());
+        assertFalse(jobRunner.isActive(failed.getId()));
+        failed.setStatus(ScoringJobStatus.COMPLETED);
+        assertFalse(jobRunner.resubmit(failed, RESUMABLE, blockingTask()).isPresent());
+        verify(repository).requeueJob(eq(failed.getId()), eq(NODE_ID), any(), any(), eq(RESUMABLE),
+                eq(ScoringJobStatus.QUEUED));
+    }
+
+    @Test
+    public void shouldLeaseJobs() {
+        DatabaseScoringJob job = jobRunner.submit(newJob(), blockingTask());
+        assertEquals(NODE_ID, job.getOwner());
+        assertNotNull(job.getHeartbeat());
+    }
+
+    @Test
+    public void shouldAbandonQueuedJobThatWasFailedByAnotherInstance() throws InterruptedException {
+        DatabaseScoringJob running = jobRunner.submit(newJob(), blockingTask());
+        DatabaseScoringJob queued = jobRunner.submit(newJob(), blockingTask());
+        given(repository.renewLease(eq(running.getId()), eq(NODE_ID), any(), anyCollection())).willReturn(1);
+
+        jobRunner.start("The job was interrupted.");
+        verify(repository).failJobsOfOwner(eq(NODE_ID), any(), eq("The job was interrupted."), anyCollection(),
+                eq(ScoringJobStatus.FAILED));
+        for (int i = 0; i < 100 && jobRunner.isActive(queued.getId()); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(jobRunner.isActive(queued.getId()));
+        assertTrue(jobRunner.isActive(running.getId()));
+        verify(repository, timeout(1000).atLeastOnce()).failExpiredJobs(any(), any(), eq("The job was interrupted."),
+                anyCollection(), eq(ScoringJobStatus.FAILED));
+    }
+}
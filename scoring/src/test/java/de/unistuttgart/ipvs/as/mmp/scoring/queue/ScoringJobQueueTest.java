@@ -0,0 +1,268 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.queue;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobChunk;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.service.DBFileStorageService;
+import de.unistuttgart.ipvs.as.mmp.scoring.configuration.MmpJpaTestConfig;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringJobChunkRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs several instances of the queue against one database, every test commits its own transactions.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@EntityScan(basePackages = "de.unistuttgart.ipvs.as.mmp.common.domain")
+@Import(MmpJpaTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ScoringJobQueueTest {
+
+    private static final Long PROJECT_ID = 123L;
+    private static final Long MODEL_ID = 1234L;
+
+    @TestConfiguration
+    static class ScoringJobQueueTestConfiguration {
+
+        /**
+         * Stores the results in the test database, the jobs reference them.
+         */
+        @Bean
+        public DBFileStorageService dbFileStorageService(EntityManagerFactory entityManagerFactory) {
+            EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+            DBFileStorageService dbFileStorageService = mock(DBFileStorageService.class);
+            given(dbFileStorageService.storeFile(anyString(), anyString(), any(byte[].class)))
+                    .willAnswer(invocation -> {
+                        DBFile dbFile = DBFile.builder().fileName(invocation.getArgument(0))
+                                .fileType(invocation.getArgument(1)).data(invocation.getArgument(2)).build();
+                        entityManager.persist(dbFile);
+                        return dbFile;
+                    });
+            return dbFileStorageService;
+        }
+
+        @Bean
+        public ScoringJobQueue firstNode(ScoringJobRepository scoringJobRepository,
+                                         ScoringJobChunkRepository scoringJobChunkRepository, DataSource dataSource,
+                                         DBFileStorageService dbFileStorageService) {
+            return new ScoringJobQueue(scoringJobRepository, scoringJobChunkRepository, dbFileStorageService,
+                    dataSource, "first", 60, 2, "auto");
+        }
+
+        @Bean
+        public ScoringJobQueue secondNode(ScoringJobRepository scoringJobRepository,
+                                          ScoringJobChunkRepository scoringJobChunkRepository, DataSource dataSource,
+                                          DBFileStorageService dbFileStorageService) {
+            return new ScoringJobQueue(scoringJobRepository, scoringJobChunkRepository, dbFileStorageService,
+                    dataSource, "second", 60, 2, "auto");
+        }
+
+        @Bean
+        public ScoringJobQueue expiringNode(ScoringJobRepository scoringJobRepository,
+                                            ScoringJobChunkRepository scoringJobChunkRepository,
+                                            DataSource dataSource, DBFileStorageService dbFileStorageService) {
+            return new ScoringJobQueue(scoringJobRepository, scoringJobChunkRepository, dbFileStorageService,
+                    dataSource, "expiring", 0, 2, "auto");
+        }
+    }
+
+    @Autowired
+    @Qualifier("firstNode")
+    private ScoringJobQueue firstNode;
+    @Autowired
+    @Qualifier("secondNode")
+    private ScoringJobQueue secondNode;
+    @Autowired
+    @Qualifier("expiringNode")
+    private ScoringJobQueue expiringNode;
+    @Autowired
+    private ScoringJobRepository scoringJobRepository;
+    @Autowired
+    private ScoringJobChunkRepository scoringJobChunkRepository;
+
+    private final ScoringService scoringService = mock(ScoringService.class);
+    private final AtomicInteger scoredRecords = new AtomicInteger();
+    private List<List<ScoringInput>> records;
+
+    @BeforeEach
+    public void setUp() {
+        scoringJobChunkRepository.deleteAll();
+        scoringJobRepository.deleteAll();
+        records = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            records.add(Collections.singletonList(new ScoringInput("petal_length", String.valueOf(i))));
+        }
+        given(scoringService.scoreModelRecords(eq(PROJECT_ID), eq(MODEL_ID), anyList())).willAnswer(invocation -> {
+            List<List<ScoringInput>> chunk = invocation.getArgument(2);
+            scoredRecords.addAndGet(chunk.size());
+            return chunk.stream()
+                    .map(inputs -> Collections.singletonList(new ScoringOutput("class", inputs.get(0).getValue())))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private ScoringJob submitJob() {
+        ScoringJob job = ScoringJob.builder()
+                .projectId(PROJECT_ID)
+                .modelId(MODEL_ID)
+                .distributed(true)
+                .status(ScoringJobStatus.QUEUED)
+                .totalRecords(records.size())
+                .submitted(LocalDateTime.now())
+                .build();
+        return firstNode.submit(job, records, 2);
+    }
+
+    @Test
+    public void shouldJoinOutputsOfChunksScoredByEveryNode() {
+        ScoringJob job = submitJob();
+        ScoringJobWorker firstWorker = new ScoringJobWorker(firstNode, scoringService, false, 1, 1000L);
+        ScoringJobWorker secondWorker = new ScoringJobWorker(secondNode, scoringService, false, 1, 1000L);
+        // the nodes take turns, so both score chunks of the job
+        while (firstWorker.scoreNext() | secondWorker.scoreNext()) {
+            // until the queue is empty
+        }
+
+        ScoringJob finishedJob = scoringJobRepository.findById(job.getId()).orElseThrow(AssertionError::new);
+        assertEquals(ScoringJobStatus.COMPLETED, finishedJob.getStatus());
+        assertEquals(9L, finishedJob.getProcessedRecords());
+        assertNotNull(finishedJob.getStarted());
+        assertNotNull(finishedJob.getFinished());
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 9; i++) {
+            expected.append(String.format("{\"class\":\"%s\"}\n", i));
+        }
+        assertEquals(expected.toString(), new String(finishedJob.getResult().getData(), StandardCharsets.UTF_8));
+        assertTrue(scoringJobChunkRepository.findAll().isEmpty());
+    }
+
+    @Test
+    public void shouldLeaseEveryChunkToOneNode() {
+        submitJob();
+        List<Long> leased = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ScoringJobQueue node = i % 2 == 0 ? firstNode : secondNode;
+            leased.add(node.claim().orElseThrow(AssertionError::new).getId());
+        }
+        assertEquals(5, leased.stream().distinct().count());
+        assertFalse(firstNode.claim().isPresent());
+        assertFalse(secondNode.claim().isPresent());
+        assertEquals(ScoringJobStatus.RUNNING,
+                scoringJobRepository.findAll().get(0).getStatus());
+    }
+
+    @Test
+    public void shouldLeaseChunkAgainAfterItsLeaseExpired() throws InterruptedException {
+        records = records.subList(0, 2);
+        ScoringJob job = submitJob();
+        ScoringJobChunk expired = expiringNode.claim().orElseThrow(AssertionError::new);
+        Thread.sleep(10L);
+
+        ScoringJobChunk leased = firstNode.claim().orElseThrow(AssertionError::new);
+        assertEquals(expired.getId(), leased.getId());
+        assertEquals(2, leased.getAttempts());
+        // the outputs of the node that lost its lease are discarded
+        assertFalse(expiringNode.complete(expired, "{\"class\":\"expired\"}\n".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(firstNode.complete(leased, "{\"class\":\"0\"}\n{\"class\":\"1\"}\n"
+                .getBytes(StandardCharsets.UTF_8)));
+        assertEquals(ScoringJobStatus.COMPLETED,
+                scoringJobRepository.findById(job.getId()).map(ScoringJob::getStatus).orElse(null));
+    }
+
+    @Test
+    public void shouldFailJobAfterLastAttempt() {
+        records = records.subList(0, 2);
+        ScoringJob job = submitJob();
+        ScoringJobChunk chunk = firstNode.claim().orElseThrow(AssertionError::new);
+        assertTrue(firstNode.fail(chunk, "evaluation failed"));
+        assertEquals(ScoringJobStatus.RUNNING,
+                scoringJobRepository.findById(job.getId()).map(ScoringJob::getStatus).orElse(null));
+
+        chunk = secondNode.claim().orElseThrow(AssertionError::new);
+        assertTrue(secondNode.fail(chunk, "evaluation failed"));
+        ScoringJob failedJob = scoringJobRepository.findById(job.getId()).orElseThrow(AssertionError::new);
+        assertEquals(ScoringJobStatus.FAILED, failedJob.getStatus());
+        assertEquals("Chunk 0 failed 2 times: evaluation failed", failedJob.getErrorMessage());
+        assertFalse(firstNode.claim().isPresent());
+    }
+
+    @Test
+    public void shouldCancelOpenChunks() {
+        ScoringJob job = submitJob();
+        ScoringJobChunk chunk = firstNode.claim().orElseThrow(AssertionError::new);
+        assertTrue(secondNode.cancel(job.getId()));
+        assertFalse(secondNode.cancel(job.getId()));
+
+        assertFalse(firstNode.complete(chunk, "{}\n".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(secondNode.claim().isPresent());
+        assertEquals(ScoringJobStatus.CANCELLED,
+                scoringJobRepository.findById(job.getId()).map(ScoringJob::getStatus).orElse(null));
+    }
+
+    @Test
+    public void shouldScoreEveryRecordOnceWithConcurrentNodes() throws Exception {
+        records = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            records.add(Collections.singletonList(new ScoringInput("petal_length", String.valueOf(i))));
+        }
+        ScoringJob job = submitJob();
+
+        ExecutorService nodes = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            ScoringJobWorker worker = new ScoringJobWorker(i % 2 == 0 ? firstNode : secondNode, scoringService,
+                    false, 1, 1000L);
+            nodes.execute(worker::drain);
+        }
+        nodes.shutdown();
+        assertTrue(nodes.awaitTermination(30, TimeUnit.SECONDS));
+        firstNode.finishCompletedJobs();
+
+        assertEquals(200, scoredRecords.get());
+        Optional<ScoringJob> finishedJob = scoringJobRepository.findById(job.getId());
+        assertEquals(ScoringJobStatus.COMPLETED, finishedJob.map(ScoringJob::getStatus).orElse(null));
+        assertEquals(200L, finishedJob.get().getProcessedRecords());
+        assertEquals(200, new String(finishedJob.get().getResult().getData(), StandardCharsets.UTF_8)
+                .split("\n").length);
+    }
+}
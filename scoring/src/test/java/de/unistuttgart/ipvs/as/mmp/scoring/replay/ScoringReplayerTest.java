@@ -0,0 +1,153 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.replay;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayReport;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringPlan;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.replay.ScoringReplayer.RecordedScoring;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ScoringReplayerTest {
+
+    private static final List<ScoringInput> INPUTS = Arrays.asList(new ScoringInput("petal_length", "3"),
+            new ScoringInput("petal_width", "3"), new ScoringInput("sepal_length", "3"),
+            new ScoringInput("sepal_width", "3"));
+    private static final List<ScoringOutput> OUTPUTS = Arrays.asList(
+            new ScoringOutput("class", "Iris-versicolor"),
+            new ScoringOutput("Probability_Iris-setosa", "0.0"),
+            new ScoringOutput("Probability_Iris-versicolor", "0.918918918918919"),
+            new ScoringOutput("Probability_Iris-virginica", "0.08108108108108109"));
+    private static final List<ScoringOutput> CHANGED_OUTPUTS = Arrays.asList(
+            new ScoringOutput("class", "Iris-setosa"),
+            new ScoringOutput("Probability_Iris-setosa", "1.0"),
+            new ScoringOutput("Probability_Iris-versicolor", "0.918918918918919"),
+            new ScoringOutput("Probability_Iris-virginica", "0.08108108108108109"));
+
+    private ExecutorService executor;
+    private ScoringPlan scoringPlan;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(4);
+        scoringPlan = new EvaluatorCache(256, true, null, null, new ScoringMetrics(new SimpleMeterRegistry()))
+                .getScoringPlan(TestModels.irisTree(1L));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Records scorings with the ids 1 to count, every changedEvery-th scoring has changed outputs.
+     */
+    private static List<RecordedScoring> record(int count, int changedEvery) {
+        List<RecordedScoring> scorings = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            scorings.add(new RecordedScoring(id, INPUTS, id % changedEvery == 0 ? CHANGED_OUTPUTS : OUTPUTS));
+        }
+        return scorings;
+    }
+
+    private static ScoringReplayer.Source source(List<RecordedScoring> scorings, List<Long> reads) {
+        return (after, limit) -> {
+            reads.add(after);
+            return scorings.stream()
+                    .filter(scoring -> scoring.getScoringId() > after)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        };
+    }
+
+    @Test
+    public void shouldReplayUnchangedScorings() throws InterruptedException {
+        ScoringReplayer replayer = new ScoringReplayer(executor, 100, 4, 10, 1e-6);
+        ScoringReplayReport report = replayer.run(source(record(20, Integer.MAX_VALUE), new ArrayList<>()),
+                scoringPlan, scoringPlan, (replayed, changed, failed) -> true);
+
+        assertEquals(20L, report.getReplayedRecords());
+        assertEquals(0L, report.getChangedRecords());
+        assertEquals(0L, report.getFailedRecords());
+        assertEquals(Double.valueOf(0.0), report.getChangeRate());
+        assertTrue(report.getChangedOutputs().isEmpty());
+        assertTrue(report.getChanges().isEmpty());
+        assertEquals(20L, report.getModelLatency().getCount());
+        assertEquals(20L, report.getTargetLatency().getCount());
+        assertTrue(report.getTargetLatency().getMaxMs() >= report.getTargetLatency().getP50Ms());
+    }
+
+    @Test
+    public void shouldReportChangedOutputs() throws InterruptedException {
+        ScoringReplayer replayer = new ScoringReplayer(executor, 100, 4, 3, 1e-6);
+        ScoringReplayReport report = replayer.run(source(record(50, 5), new ArrayList<>()),
+                scoringPlan, scoringPlan, (replayed, changed, failed) -> true);
+
+        assertEquals(10L, report.getChangedRecords());
+        assertEquals(Double.valueOf(0.2), report.getChangeRate());
+        assertEquals(Arrays.asList("Probability_Iris-setosa", "class"),
+                new ArrayList<>(report.getChangedOutputs().keySet()));
+        assertEquals(Long.valueOf(10L), report.getChangedOutputs().get("class"));
+        assertEquals(3, report.getChanges().size());
+        ScoringReplayReport.Change change = report.getChanges().get(0);
+        assertEquals("Iris-setosa", change.getRecordedOutputs().get("class"));
+        assertEquals("Iris-versicolor", change.getReplayedOutputs().get("class"));
+    }
+
+    @Test
+    public void shouldReplayInPages() throws InterruptedException {
+        List<Long> reads = new ArrayList<>();
+        List<Long> progress = Collections.synchronizedList(new ArrayList<>());
+        ScoringReplayer replayer = new ScoringReplayer(executor, 10, 3, 10, 1e-6);
+        ScoringReplayReport report = replayer.run(source(record(25, Integer.MAX_VALUE), reads),
+                scoringPlan, scoringPlan, (replayed, changed, failed) -> progress.add(replayed));
+
+        assertEquals(25L, report.getReplayedRecords());
+        // the last page is short, so no further page is read
+        assertEquals(Arrays.asList(0L, 10L, 20L), reads);
+        assertEquals(Arrays.asList(10L, 20L, 25L), progress);
+    }
+
+    @Test
+    public void shouldStopWhenListenerDeclines() throws InterruptedException {
+        ScoringReplayer replayer = new ScoringReplayer(executor, 10, 2, 10, 1e-6);
+        ScoringReplayReport report = replayer.run(source(record(100, Integer.MAX_VALUE), new ArrayList<>()),
+                scoringPlan, scoringPlan, (replayed, changed, failed) -> replayed < 20);
+
+        assertEquals(20L, report.getReplayedRecords());
+    }
+
+    @Test
+    public void shouldCountFailedScorings() throws InterruptedException {
+        ScoringPlan failingPlan = mock(ScoringPlan.class);
+        given(failingPlan.evaluate(any())).willThrow(new IllegalStateException("evaluation failed"));
+        ScoringReplayer replayer = new ScoringReplayer(executor, 10, 2, 10, 1e-6);
+        ScoringReplayReport report = replayer.run(source(record(5, Integer.MAX_VALUE), new ArrayList<>()),
+                scoringPlan, failingPlan, (replayed, changed, failed) -> true);
+
+        assertEquals(5L, report.getReplayedRecords());
+        assertEquals(5L, report.getFailedRecords());
+        assertEquals(0L, report.getChangedRecords());
+        assertEquals(5L, report.getModelLatency().getCount());
+        assertEquals(0L, report.getTargetLatency().getCount());
+    }
+}
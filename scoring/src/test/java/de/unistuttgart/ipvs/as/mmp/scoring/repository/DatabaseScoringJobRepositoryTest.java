@@ -0,0 +1,125 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.scoring.configuration.MmpJpaTestConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@EntityScan(basePackages = "de.unistuttgart.ipvs.as.mmp.common.domain")
+@Import(MmpJpaTestConfig.class)
+public class DatabaseScoringJobRepositoryTest {
+
+    private static final List<ScoringJobStatus> OPEN = Arrays.asList(ScoringJobStatus.QUEUED, ScoringJobStatus.RUNNING);
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 7, 11, 15, 24);
+
+    @Autowired
+    private DatabaseScoringJobRepository databaseScoringJobRepository;
+
+    private DatabaseScoringJob ownJob;
+    private DatabaseScoringJob expiredJob;
+    private DatabaseScoringJob liveJob;
+
+    @BeforeEach
+    public void setUp() {
+        databaseScoringJobRepository.deleteAll();
+        ownJob = save("restarted", NOW.minusSeconds(10));
+        expiredJob = save("stopped", NOW.minusSeconds(300));
+        liveJob = save("running", NOW.minusSeconds(10));
+    }
+
+    private DatabaseScoringJob save(String owner, LocalDateTime heartbeat) {
+        return databaseScoringJobRepository.save(DatabaseScoringJob.builder()
+                .projectId(1L)
+                .modelId(2L)
+                .status(ScoringJobStatus.RUNNING)
+                .owner(owner)
+                .heartbeat(heartbeat)
+                .build());
+    }
+
+    private DatabaseScoringJob reload(DatabaseScoringJob job) {
+        return databaseScoringJobRepository.findById(job.getId()).orElseThrow(IllegalStateException::new);
+    }
+
+    @Test
+    public void shouldFailOnlyJobsOfOwnerAndExpiredJobs() {
+        assertEquals(1, databaseScoringJobRepository.failJobsOfOwner("restarted", NOW, "restart", OPEN,
+                ScoringJobStatus.FAILED));
+        assertEquals(1, databaseScoringJobRepository.failExpiredJobs(NOW.minusSeconds(120), NOW, "expired", OPEN,
+                ScoringJobStatus.FAILED));
+
+        assertEquals(ScoringJobStatus.FAILED, reload(ownJob).getStatus());
+        assertEquals("restart", reload(ownJob).getErrorMessage());
+        assertEquals(ScoringJobStatus.FAILED, reload(expiredJob).getStatus());
+        assertEquals(NOW, reload(expiredJob).getFinished());
+        assertEquals(ScoringJobStatus.RUNNING, reload(liveJob).getStatus());
+    }
+
+    @Test
+    public void shouldRenewLeaseOfOwnerOnly() {
+        assertEquals(1, databaseScoringJobRepository.renewLease(liveJob.getId(), "running", NOW, OPEN));
+        assertEquals(0, databaseScoringJobRepository.renewLease(liveJob.getId(), "other", NOW, OPEN));
+        assertEquals(NOW, reload(liveJob).getHeartbeat());
+    }
+
+    @Test
+    public void shouldNotMoveHeartbeatBackOnSave() {
+        databaseScoringJobRepository.renewLease(liveJob.getId(), "running", NOW, OPEN);
+        liveJob.setProcessedRecords(500L);
+        databaseScoringJobRepository.save(liveJob);
+
+        assertEquals(NOW, reload(liveJob).getHeartbeat());
+        assertEquals(500L, reload(liveJob).getProcessedRecords());
+    }
+
+    @Test
+    public void shouldRejectSaveOfFailedJobByFormerOwner() {
+        databaseScoringJobRepository.failExpiredJobs(NOW.minusSeconds(120), NOW, "expired", OPEN,
+                ScoringJobStatus.FAILED);
+        expiredJob.setStatus(ScoringJobStatus.COMPLETED);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> databaseScoringJobRepository.save(expiredJob));
+    }
+
+    @Test
+    public void shouldRequeueFinishedJobOnceLeaseOfOtherInstanceExpired() {
+        List<ScoringJobStatus> resumable = Arrays.asList(ScoringJobStatus.FAILED, ScoringJobStatus.CANCELLED);
+        databaseScoringJobRepository.failJobsOfOwner("running", NOW, "failed", OPEN, ScoringJobStatus.FAILED);
+        databaseScoringJobRepository.failJobsOfOwner("stopped", NOW, "failed", OPEN, ScoringJobStatus.FAILED);
+
+        // the other instance may still write the outputs of the job
+        assertEquals(0, databaseScoringJobRepository.requeueJob(liveJob.getId(), "restarted", NOW,
+                NOW.minusSeconds(120), resumable, ScoringJobStatus.QUEUED));
+        assertEquals(1, databaseScoringJobRepository.requeueJob(liveJob.getId(), "running", NOW,
+                NOW.minusSeconds(120), resumable, ScoringJobStatus.QUEUED));
+        assertEquals(1, databaseScoringJobRepository.requeueJob(expiredJob.getId(), "restarted", NOW,
+                NOW.minusSeconds(120), resumable, ScoringJobStatus.QUEUED));
+        // a job is only queued once
+        assertEquals(0, databaseScoringJobRepository.requeueJob(expiredJob.getId(), "restarted", NOW,
+                NOW.minusSeconds(120), resumable, ScoringJobStatus.QUEUED));
+
+        DatabaseScoringJob requeuedJob = reload(expiredJob);
+        assertEquals(ScoringJobStatus.QUEUED, requeuedJob.getStatus());
+        assertEquals("restarted", requeuedJob.getOwner());
+        assertEquals(NOW, requeuedJob.getHeartbeat());
+        assertNull(requeuedJob.getErrorMessage());
+        assertNull(requeuedJob.getFinished());
+    }
+}
@@ -0,0 +1,91 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringCount;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringFieldStatistics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringValueCount;
+import de.unistuttgart.ipvs.as.mmp.scoring.configuration.MmpJpaTestConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@EntityScan(basePackages = "de.unistuttgart.ipvs.as.mmp.common.domain")
+@Import(MmpJpaTestConfig.class)
+public class ScoringAnalyticsRepositoryTest {
+
+    private static final Long MODEL_ID = 123L;
+    private static final LocalDateTime HOUR = LocalDateTime.of(2019, 3, 1, 10, 0);
+
+    @Autowired
+    private ScoringCountRepository scoringCountRepository;
+
+    @Autowired
+    private ScoringValueCountRepository scoringValueCountRepository;
+
+    @Autowired
+    private ScoringFieldStatisticsRepository scoringFieldStatisticsRepository;
+
+    @Test
+    public void shouldAddToStoredCount() {
+        assertEquals(0, scoringCountRepository.addCount(MODEL_ID, HOUR, 2L));
+        scoringCountRepository.saveAndFlush(ScoringCount.builder().modelId(MODEL_ID).bucketStart(HOUR).count(2L).build());
+
+        assertEquals(1, scoringCountRepository.addCount(MODEL_ID, HOUR, 3L));
+        List<ScoringCount> counts = scoringCountRepository
+                .findAllByModelIdAndBucketStartBetweenOrderByBucketStart(MODEL_ID, HOUR, HOUR.plusHours(1));
+        assertEquals(1, counts.size());
+        assertEquals(5L, counts.get(0).getCount());
+    }
+
+    @Test
+    public void shouldAddToStoredValueCountOfFurtherValues() {
+        scoringValueCountRepository.saveAndFlush(ScoringValueCount.builder().modelId(MODEL_ID).name("class")
+                .value("Iris-setosa").count(1L).build());
+        scoringValueCountRepository.saveAndFlush(ScoringValueCount.builder().modelId(MODEL_ID).name("class")
+                .count(1L).build());
+
+        assertEquals(1, scoringValueCountRepository.addCount(MODEL_ID, "class", ScoringValueCount.keyOf(null), 4L));
+        assertEquals(Collections.singletonList("Iris-setosa"), scoringValueCountRepository.findValues(MODEL_ID, "class"));
+        List<ScoringValueCount> counts = scoringValueCountRepository.findAllByModelIdOrderByNameAscCountDesc(MODEL_ID);
+        assertNull(counts.get(0).getValue());
+        assertEquals(5L, counts.get(0).getCount());
+        assertEquals(1L, counts.get(1).getCount());
+    }
+
+    @Test
+    public void shouldNotStoreFurtherValuesTwice() {
+        scoringValueCountRepository.saveAndFlush(ScoringValueCount.builder().modelId(MODEL_ID).name("class")
+                .count(1L).build());
+
+        assertThrows(DataIntegrityViolationException.class, () -> scoringValueCountRepository.saveAndFlush(
+                ScoringValueCount.builder().modelId(MODEL_ID).name("class").count(1L).build()));
+    }
+
+    @Test
+    public void shouldAddToStoredFieldStatistics() {
+        scoringFieldStatisticsRepository.saveAndFlush(ScoringFieldStatistics.builder().modelId(MODEL_ID)
+                .name("petal_length").count(1L).min(3.0).max(6.0).sum(3.0).build());
+
+        assertEquals(1, scoringFieldStatisticsRepository.addValues(MODEL_ID, "petal_length", 2L, 1.5, 4.5, 6.0));
+        ScoringFieldStatistics statistics = scoringFieldStatisticsRepository.findAllByModelIdOrderByName(MODEL_ID)
+                .get(0);
+        assertEquals(3L, statistics.getCount());
+        assertEquals(1.5, statistics.getMin());
+        assertEquals(6.0, statistics.getMax());
+        assertEquals(9.0, statistics.getSum());
+    }
+}
@@ -0,0 +1,141 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.repository;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobChunk;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.scoring.configuration.MmpJpaTestConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Claims chunks with {@code FOR UPDATE SKIP LOCKED} on postgres, which h2 does not support. The database runs in a
+ * container, the test is skipped if docker is not available. The test is not transactional, so the locks of every
+ * transaction are committed or released like in production.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = ScoringJobChunkPostgresTest.PostgresInitializer.class)
+@EntityScan(basePackages = "de.unistuttgart.ipvs.as.mmp.common.domain")
+@Import(MmpJpaTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ScoringJobChunkPostgresTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 7, 11, 15, 24);
+    private static PostgreSQLContainer<?> postgres;
+
+    static class PostgresInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgres.getJdbcUrl(),
+                    "spring.datasource.username=" + postgres.getUsername(),
+                    "spring.datasource.password=" + postgres.getPassword(),
+                    "spring.jpa.hibernate.ddl-auto=create-drop"
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+
+    @Autowired
+    private ScoringJobChunkRepository scoringJobChunkRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ScoringJobChunk queuedChunk;
+    private ScoringJobChunk expiredChunk;
+
+    @BeforeAll
+    public static void startPostgres() {
+        if (postgres != null) {
+            return;
+        }
+        PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:10");
+        try {
+            container.start();
+        } catch (IllegalStateException e) {
+            assumeTrue(false, "Docker is not available: " + e.getMessage());
+        }
+        postgres = container;
+        Runtime.getRuntime().addShutdownHook(new Thread(container::stop));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        scoringJobChunkRepository.deleteAll();
+        queuedChunk = save(0, ScoringJobStatus.QUEUED, null);
+        expiredChunk = save(1, ScoringJobStatus.RUNNING, NOW.minusSeconds(10));
+        save(2, ScoringJobStatus.RUNNING, NOW.plusSeconds(60));
+        save(3, ScoringJobStatus.COMPLETED, null);
+    }
+
+    private ScoringJobChunk save(int chunkIndex, ScoringJobStatus status, LocalDateTime leaseExpires) {
+        return scoringJobChunkRepository.save(ScoringJobChunk.builder()
+                .jobId(1L)
+                .projectId(2L)
+                .modelId(3L)
+                .chunkIndex(chunkIndex)
+                .status(status)
+                .leaseExpires(leaseExpires)
+                .build());
+    }
+
+    private List<Long> lockClaimableIds(int limit) {
+        return scoringJobChunkRepository.lockClaimableIds(NOW, limit).stream()
+                .map(Number::longValue).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldLockQueuedAndExpiredChunks() {
+        List<Long> ids = new TransactionTemplate(transactionManager).execute(status -> lockClaimableIds(10));
+        assertEquals(Arrays.asList(queuedChunk.getId(), expiredChunk.getId()), ids);
+    }
+
+    @Test
+    public void shouldSkipChunksLockedByAnotherTransaction() {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        List<Long> lockedByBoth = requiresNew.execute(first -> {
+            List<Long> firstIds = lockClaimableIds(1);
+            // the second transaction does not wait for the lock of the first one
+            List<Long> secondIds = requiresNew.execute(second -> lockClaimableIds(1));
+            List<Long> thirdIds = requiresNew.execute(third -> lockClaimableIds(10));
+            assertEquals(Collections.singletonList(queuedChunk.getId()), firstIds);
+            assertEquals(Collections.singletonList(expiredChunk.getId()), secondIds);
+            assertEquals(Collections.singletonList(expiredChunk.getId()), thirdIds);
+            return firstIds;
+        });
+
+        // the lock is released with its transaction
+        assertTrue(requiresNew.execute(status -> lockClaimableIds(10)).containsAll(lockedByBoth));
+    }
+}
@@ -3,6 +3,8 @@ package de.unistuttgart.ipvs.as.mmp.scoring.repository;
 import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
 import de.unistuttgart.ipvs.as.mmp.common.domain.Project;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.Scoring;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
 import de.unistuttgart.ipvs.as.mmp.scoring.configuration.MmpJpaTestConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,8 +14,11 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -72,4 +77,34 @@ public class ScoringRepositoryTest {
         Optional<Scoring> scoring = scoringRepository.findById(projectId);
         assertEquals(Optional.of(testScoring), scoring);
     }
+
+    @Test
+    public void shouldReadScoringsOfModelInPages() {
+        Model otherModel = Model.builder().project(testProject).build();
+        entityManager.persist(otherModel);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            List<ScoringInput> inputs = Arrays.asList(new ScoringInput("petal_length", String.valueOf(i)),
+                    new ScoringInput("petal_width", "1"));
+            List<ScoringOutput> outputs = Collections.singletonList(new ScoringOutput("class", "Iris-setosa"));
+            ids.add(scoringRepository.save(new Scoring(testModel, inputs, outputs)).getId());
+            scoringRepository.save(new Scoring(otherModel,
+                    Collections.singletonList(new ScoringInput("petal_length", "1")), Collections.emptyList()));
+        }
+
+        assertEquals(5L, scoringRepository.countByModelId(testModel.getId()));
+        List<Long> page = scoringRepository.findIdsByModelIdAfter(testModel.getId(), ids.get(0), PageRequest.of(0, 3));
+        assertEquals(ids.subList(1, 4), page);
+
+        List<Object[]> inputs = scoringRepository.findInputsByModelIdAndIdBetween(testModel.getId(), page.get(0),
+                page.get(2));
+        assertEquals(6, inputs.size());
+        assertEquals(ids.get(1), inputs.get(0)[0]);
+        assertEquals("petal_length", inputs.get(0)[1]);
+        assertEquals("1", inputs.get(0)[2]);
+        List<Object[]> outputs = scoringRepository.findOutputsByModelIdAndIdBetween(testModel.getId(), page.get(0),
+                page.get(2));
+        assertEquals(3, outputs.size());
+        assertEquals("Iris-setosa", outputs.get(2)[2]);
+    }
 }
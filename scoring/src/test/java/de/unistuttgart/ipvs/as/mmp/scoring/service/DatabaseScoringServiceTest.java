@@ -0,0 +1,202 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.RelationalDBInformation;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringRequest;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.exception.ScoringException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobNode;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.DatabaseScoringJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.DatabaseScoringServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class DatabaseScoringServiceTest {
+
+    private static final Long PROJECT_ID = 123L;
+    private static final Long MODEL_ID = 1234L;
+    private static final Long JOB_ID = 12L;
+    private static final String URL = "jdbc:h2:mem:database-scoring;DB_CLOSE_DELAY=-1";
+    private static final DatabaseScoringRequest REQUEST = DatabaseScoringRequest.builder()
+            .sourceTable("flowers").keyColumn("id").targetTable("scores").build();
+
+    private ScoringService scoringService;
+    private ModelService modelService;
+    private DatabaseScoringJobRepository databaseScoringJobRepository;
+    private DatabaseScoringServiceImpl databaseScoringService;
+    private final Map<Long, DatabaseScoringJob> storedJobs = new ConcurrentHashMap<>();
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        scoringService = mock(ScoringService.class);
+        modelService = mock(ModelService.class);
+        databaseScoringJobRepository = mock(DatabaseScoringJobRepository.class);
+        databaseScoringService = new DatabaseScoringServiceImpl(scoringService, modelService,
+                databaseScoringJobRepository, new JobNode("test", 120), 1, 10, 1, 2, 2, 10,
+                new String[]{URL});
+
+        Model model = new Model();
+        model.setRelationalDBInformation(RelationalDBInformation.builder().url(URL).dbUser("sa").password("").build());
+        given(modelService.getModelForProjectById(PROJECT_ID, MODEL_ID)).willReturn(Optional.of(model));
+        given(databaseScoringJobRepository.save(any(DatabaseScoringJob.class))).willAnswer(invocation -> {
+            DatabaseScoringJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(JOB_ID);
+            }
+            storedJobs.put(job.getId(), job);
+            return job;
+        });
+        // the job is claimed as in the database, the conditions on its lease are covered by the repository test
+        given(databaseScoringJobRepository.requeueJob(eq(JOB_ID), eq("test"), any(), any(), anyCollection(),
+                eq(ScoringJobStatus.QUEUED))).willAnswer(invocation -> {
+            DatabaseScoringJob job = storedJobs.get(JOB_ID);
+            if (job == null || !invocation.<Collection<ScoringJobStatus>>getArgument(4).contains(job.getStatus())) {
+                return 0;
+            }
+            job.setStatus(ScoringJobStatus.QUEUED);
+            job.setOwner("test");
+            job.setErrorMessage(null);
+            job.setFinished(null);
+            return 1;
+        });
+        given(databaseScoringJobRepository.findById(JOB_ID))
+                .willAnswer(invocation -> Optional.ofNullable(storedJobs.get(JOB_ID)));
+        given(databaseScoringJobRepository.findByIdAndProjectIdAndModelId(JOB_ID, PROJECT_ID, MODEL_ID))
+                .willAnswer(invocation -> Optional.ofNullable(storedJobs.get(JOB_ID)));
+
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE flowers (id INT PRIMARY KEY, petal_length DOUBLE)");
+            statement.execute("CREATE TABLE scores (id INT PRIMARY KEY, class VARCHAR(20))");
+            for (int i = 1; i <= 5; i++) {
+                statement.execute(String.format("INSERT INTO flowers VALUES (%s, %s)", i, i));
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        databaseScoringService.shutdown();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    private void givenScoring() {
+        given(scoringService.scoreModelRecords(eq(PROJECT_ID), eq(MODEL_ID), anyList())).willAnswer(invocation -> {
+            List<List<ScoringInput>> chunk = invocation.getArgument(2);
+            return chunk.stream()
+                    .map(inputs -> Collections.singletonList(new ScoringOutput("class", inputs.get(0).getValue())))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private DatabaseScoringJob awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            DatabaseScoringJob job = storedJobs.get(JOB_ID);
+            if (job != null && job.getFinished() != null) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Database scoring job did not finish");
+        return null;
+    }
+
+    /**
+     * A finished job can be resumed once it left the executor.
+     */
+    private void awaitResumed() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (databaseScoringService.resumeJob(PROJECT_ID, MODEL_ID, JOB_ID).isPresent()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Database scoring job was not resumed");
+    }
+
+    private int countScores() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM scores")) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+
+    @Test
+    public void shouldCompleteJob() throws Exception {
+        givenScoring();
+        DatabaseScoringJob submittedJob = databaseScoringService.submitJob(PROJECT_ID, MODEL_ID, REQUEST);
+        assertEquals(JOB_ID, submittedJob.getId());
+
+        DatabaseScoringJob job = awaitFinished();
+        assertEquals(ScoringJobStatus.COMPLETED, job.getStatus());
+        assertEquals(5L, job.getProcessedRecords());
+        assertEquals("5", job.getCheckpoint());
+        assertEquals(5, countScores());
+    }
+
+    @Test
+    public void shouldResumeFailedJob() throws Exception {
+        given(scoringService.scoreModelRecords(eq(PROJECT_ID), eq(MODEL_ID), anyList()))
+                .willThrow(ScoringException.evaluateError());
+        databaseScoringService.submitJob(PROJECT_ID, MODEL_ID, REQUEST);
+        DatabaseScoringJob job = awaitFinished();
+        assertEquals(ScoringJobStatus.FAILED, job.getStatus());
+        assertEquals(ScoringException.evaluateError().getMessage(), job.getErrorMessage());
+
+        givenScoring();
+        awaitResumed();
+        job = awaitFinished();
+        assertEquals(ScoringJobStatus.COMPLETED, job.getStatus());
+        assertEquals(5, countScores());
+        // completed jobs are not resumed
+        assertFalse(databaseScoringService.resumeJob(PROJECT_ID, MODEL_ID, JOB_ID).isPresent());
+    }
+
+    @Test
+    public void shouldNotSubmitJobForDatabaseThatIsNotAllowed() {
+        Model model = new Model();
+        model.setRelationalDBInformation(RelationalDBInformation.builder()
+                .url(URL + ";INIT=RUNSCRIPT FROM 'http://example.org/init.sql'").dbUser("sa").password("").build());
+        given(modelService.getModelForProjectById(PROJECT_ID, 1L)).willReturn(Optional.of(model));
+        assertThrows(IllegalArgumentException.class,
+                () -> databaseScoringService.submitJob(PROJECT_ID, 1L, REQUEST));
+    }
+
+    @Test
+    public void shouldNotSubmitJobForModelWithoutDatabase() {
+        given(modelService.getModelForProjectById(PROJECT_ID, 1L)).willReturn(Optional.of(new Model()));
+        assertThrows(IllegalArgumentException.class,
+                () -> databaseScoringService.submitJob(PROJECT_ID, 1L, REQUEST));
+    }
+}
@@ -0,0 +1,128 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.ScoringException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.FanOutScoringServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(SpringExtension.class)
+public class FanOutScoringServiceTest {
+
+    private static final Long PROJECT_ID = 123L;
+    private static final Long MODEL_GROUP_ID = 12L;
+    private static final List<ScoringInput> INPUTS = Collections.singletonList(new ScoringInput("petal_length", "3"));
+
+    @Autowired
+    private FanOutScoringService fanOutScoringService;
+    @Autowired
+    private ScoringService scoringService;
+    @Autowired
+    private ModelService modelService;
+
+    @TestConfiguration
+    static class FanOutScoringServiceTestConfiguration {
+
+        @MockBean
+        public ScoringService scoringService;
+
+        @MockBean
+        public ModelService modelService;
+
+        @Bean
+        public FanOutScoringService fanOutScoringService() {
+            return new FanOutScoringServiceImpl(this.scoringService, this.modelService, 2, 10, 500);
+        }
+    }
+
+    private final List<Model> models = Arrays.asList(createModel(1L, 1L), createModel(2L, 2L), createModel(3L, 3L));
+
+    @BeforeEach
+    public void setUp() {
+        given(modelService.getModelsForProjectAndModelGroupIdentifier(PROJECT_ID, MODEL_GROUP_ID)).willReturn(models);
+        given(modelService.getAllModelsForProject(PROJECT_ID)).willReturn(models);
+        for (Model model : models) {
+            given(scoringService.scoreModel(PROJECT_ID, model.getId(), INPUTS)).willReturn(
+                    Collections.singletonList(new ScoringOutput("class", "version " + model.getModelMetadata().getVersion())));
+        }
+    }
+
+    private static Model createModel(Long id, Long version) {
+        Model model = Model.builder()
+                .modelMetadata(ModelMetadata.builder().name("iris").version(version).build())
+                .build();
+        model.setId(id);
+        return model;
+    }
+
+    @Test
+    public void shouldScoreEveryVersionOfModelGroup() {
+        List<ModelScoringResult> results = fanOutScoringService.scoreModelGroup(PROJECT_ID, MODEL_GROUP_ID, INPUTS);
+        assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ModelScoringResult result = results.get(i);
+            assertEquals(models.get(i).getId(), result.getModelId());
+            assertEquals(Long.valueOf(i + 1), result.getVersion());
+            assertEquals("iris", result.getModelName());
+            assertEquals("version " + (i + 1), result.getOutputs().get(0).getValue());
+            assertNull(result.getError());
+        }
+    }
+
+    @Test
+    public void shouldIsolateFailingModel() {
+        given(scoringService.scoreModel(PROJECT_ID, 2L, INPUTS))
+                .willThrow(ScoringException.evaluateError());
+        List<ModelScoringResult> results = fanOutScoringService.scoreProject(PROJECT_ID, INPUTS);
+        assertEquals(3, results.size());
+        assertEquals("version 1", results.get(0).getOutputs().get(0).getValue());
+        assertNull(results.get(1).getOutputs());
+        assertNotNull(results.get(1).getError());
+        assertEquals("version 3", results.get(2).getOutputs().get(0).getValue());
+    }
+
+    @Test
+    public void shouldIsolateSlowModel() {
+        CountDownLatch release = new CountDownLatch(1);
+        given(scoringService.scoreModel(PROJECT_ID, 3L, INPUTS)).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+        try {
+            List<ModelScoringResult> results = fanOutScoringService.scoreModelGroup(PROJECT_ID, MODEL_GROUP_ID, INPUTS);
+            assertEquals("version 1", results.get(0).getOutputs().get(0).getValue());
+            assertEquals("version 2", results.get(1).getOutputs().get(0).getValue());
+            assertNull(results.get(2).getOutputs());
+            assertNotNull(results.get(2).getError());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void shouldNotScoreUnknownModelGroup() {
+        given(modelService.getModelsForProjectAndModelGroupIdentifier(PROJECT_ID, 1L)).willReturn(Collections.emptyList());
+        assertThrows(IdException.class, () -> fanOutScoringService.scoreModelGroup(PROJECT_ID, 1L, INPUTS));
+    }
+}
@@ -0,0 +1,184 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringAnalytics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringCount;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringFieldStatistics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringValueCount;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.drift.DriftMonitor;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringCountRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringFieldStatisticsRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringValueCountRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.ScoringAnalyticsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+public class ScoringAnalyticsServiceTest {
+
+    private static final Long PROJECT_ID = 12L;
+    private static final Long MODEL_ID = 123L;
+    private static final LocalDateTime TIME = LocalDateTime.of(2019, 3, 1, 10, 15);
+
+    private ScoringCountRepository scoringCountRepository;
+    private ScoringValueCountRepository scoringValueCountRepository;
+    private ScoringFieldStatisticsRepository scoringFieldStatisticsRepository;
+    private ModelService modelService;
+    private ScoringAnalyticsService scoringAnalyticsService;
+
+    @BeforeEach
+    public void setUp() {
+        scoringCountRepository = mock(ScoringCountRepository.class);
+        scoringValueCountRepository = mock(ScoringValueCountRepository.class);
+        scoringFieldStatisticsRepository = mock(ScoringFieldStatisticsRepository.class);
+        modelService = mock(ModelService.class);
+        given(scoringValueCountRepository.findValues(anyLong(), anyString())).willReturn(new ArrayList<>());
+        given(modelService.getModelForProjectById(PROJECT_ID, MODEL_ID)).willReturn(Optional.of(new Model()));
+        scoringAnalyticsService = new ScoringAnalyticsServiceImpl(scoringCountRepository, scoringValueCountRepository,
+                scoringFieldStatisticsRepository, modelService,
+                new DriftMonitor(mock(ModelRepository.class), mock(PlatformTransactionManager.class), true),
+                mock(PlatformTransactionManager.class), 2);
+    }
+
+    private void record(LocalDateTime time, String petalLength, String result) {
+        scoringAnalyticsService.record(MODEL_ID, time,
+                Arrays.asList(new ScoringInput("petal_length", petalLength), new ScoringInput("color", "blue")),
+                Collections.singletonList(new ScoringOutput("class", result)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCountScoringsPerHour() {
+        record(TIME, "1", "Iris-setosa");
+        record(TIME.plusMinutes(30), "2", "Iris-setosa");
+        record(TIME.plusHours(1), "3", "Iris-setosa");
+        // the first hour is stored already
+        given(scoringCountRepository.addCount(MODEL_ID, TIME.truncatedTo(ChronoUnit.HOURS), 2L)).willReturn(1);
+        scoringAnalyticsService.flush();
+
+        verify(scoringCountRepository).addCount(MODEL_ID, TIME.plusHours(1).truncatedTo(ChronoUnit.HOURS), 1L);
+        ArgumentCaptor<List<ScoringCount>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scoringCountRepository).saveAll(captor.capture());
+        Map<LocalDateTime, Long> counts = captor.getValue().stream()
+                .collect(Collectors.toMap(ScoringCount::getBucketStart, ScoringCount::getCount));
+        assertEquals(1, counts.size());
+        assertEquals(Long.valueOf(1L), counts.get(TIME.plusHours(1).truncatedTo(ChronoUnit.HOURS)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldAggregateNumericInputs() {
+        record(TIME, "1.5", "Iris-setosa");
+        record(TIME, "4.5", "Iris-versicolor");
+        scoringAnalyticsService.flush();
+
+        verify(scoringFieldStatisticsRepository).addValues(MODEL_ID, "petal_length", 2L, 1.5, 4.5, 6.0);
+        ArgumentCaptor<List<ScoringFieldStatistics>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scoringFieldStatisticsRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        ScoringFieldStatistics statistics = captor.getValue().get(0);
+        assertEquals(2L, statistics.getCount());
+        assertEquals(1.5, statistics.getMin());
+        assertEquals(4.5, statistics.getMax());
+        assertEquals(3.0, statistics.getMean());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCountFurtherOutputValuesTogether() {
+        record(TIME, "1", "Iris-setosa");
+        record(TIME, "2", "Iris-setosa");
+        record(TIME, "3", "Iris-versicolor");
+        record(TIME, "4", "Iris-virginica");
+        given(scoringValueCountRepository.findValues(MODEL_ID, "class"))
+                .willReturn(Arrays.asList("Iris-setosa", "Iris-versicolor"));
+        given(scoringValueCountRepository.addCount(eq(MODEL_ID), eq("class"), eq("=Iris-setosa"), anyLong()))
+                .willReturn(1);
+        given(scoringValueCountRepository.addCount(eq(MODEL_ID), eq("class"), eq("=Iris-versicolor"), anyLong()))
+                .willReturn(1);
+        scoringAnalyticsService.flush();
+
+        verify(scoringValueCountRepository).addCount(MODEL_ID, "class", "=Iris-setosa", 2L);
+        verify(scoringValueCountRepository).addCount(MODEL_ID, "class", "=Iris-versicolor", 1L);
+        verify(scoringValueCountRepository).addCount(MODEL_ID, "class", "", 1L);
+        ArgumentCaptor<List<ScoringValueCount>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scoringValueCountRepository).saveAll(captor.capture());
+        Map<String, Long> counts = new HashMap<>();
+        captor.getValue().forEach(valueCount -> counts.put(valueCount.getValue(), valueCount.getCount()));
+        assertEquals(1, counts.size());
+        assertEquals(Long.valueOf(1L), counts.get(null));
+    }
+
+    @Test
+    public void shouldRetryFailedFlush() {
+        record(TIME, "1", "Iris-setosa");
+        given(scoringCountRepository.saveAll(anyList())).willThrow(new IllegalStateException("database down"));
+        scoringAnalyticsService.flush();
+
+        reset(scoringCountRepository);
+        scoringAnalyticsService.flush();
+        verify(scoringCountRepository).addCount(MODEL_ID, TIME.truncatedTo(ChronoUnit.HOURS), 1L);
+        verify(scoringCountRepository).saveAll(anyList());
+    }
+
+    @Test
+    public void shouldNotWriteWithoutScorings() {
+        scoringAnalyticsService.flush();
+        verify(scoringCountRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void shouldSumHoursToDays() {
+        LocalDateTime day = TIME.truncatedTo(ChronoUnit.DAYS);
+        given(scoringCountRepository.findAllByModelIdAndBucketStartBetweenOrderByBucketStart(eq(MODEL_ID),
+                any(LocalDateTime.class), any(LocalDateTime.class))).willReturn(Arrays.asList(
+                ScoringCount.builder().modelId(MODEL_ID).bucketStart(day.plusHours(1)).count(2L).build(),
+                ScoringCount.builder().modelId(MODEL_ID).bucketStart(day.plusHours(5)).count(3L).build(),
+                ScoringCount.builder().modelId(MODEL_ID).bucketStart(day.plusDays(1)).count(4L).build()));
+
+        ScoringAnalytics analytics = scoringAnalyticsService.getAnalytics(PROJECT_ID, MODEL_ID, day, day.plusDays(2),
+                ChronoUnit.DAYS);
+        assertEquals(2, analytics.getRequests().size());
+        assertEquals(day, analytics.getRequests().get(0).getBucketStart());
+        assertEquals(5L, analytics.getRequests().get(0).getCount());
+        assertEquals(4L, analytics.getRequests().get(1).getCount());
+    }
+
+    @Test
+    public void shouldRejectUnsupportedInterval() {
+        assertThrows(IllegalArgumentException.class, () ->
+                scoringAnalyticsService.getAnalytics(PROJECT_ID, MODEL_ID, null, null, ChronoUnit.MINUTES));
+    }
+
+    @Test
+    public void shouldNotFindUnknownModel() {
+        assertThrows(IdException.class, () ->
+                scoringAnalyticsService.getAnalytics(PROJECT_ID, 1L, null, null, null));
+    }
+}
@@ -0,0 +1,134 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.Scoring;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.ScoringAuditServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+public class ScoringAuditServiceTest {
+
+    private static final Long MODEL_ID = 123L;
+
+    private ScoringRepository scoringRepository;
+    private ModelRepository modelRepository;
+    private ScoringAnalyticsService scoringAnalyticsService;
+    private PlatformTransactionManager transactionManager;
+    private Model testModel;
+    private List<ScoringInput> inputs = Collections.singletonList(new ScoringInput("sepal_length", "5.1"));
+    private List<ScoringOutput> outputs = Collections.singletonList(new ScoringOutput("class", "Iris-setosa"));
+
+    @BeforeEach
+    public void setUp() {
+        scoringRepository = mock(ScoringRepository.class);
+        modelRepository = mock(ModelRepository.class);
+        scoringAnalyticsService = mock(ScoringAnalyticsService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        testModel = Model.builder().build();
+        testModel.setId(MODEL_ID);
+        given(modelRepository.getOne(MODEL_ID)).willReturn(testModel);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldWriteFullBatches() throws InterruptedException {
+        ScoringAuditServiceImpl auditService = newAuditService(2, 60000L, 1.0);
+        auditService.record(testModel, inputs, outputs);
+        auditService.record(testModel, inputs, outputs);
+
+        ArgumentCaptor<List<Scoring>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scoringRepository, timeout(5000)).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        Scoring scoring = captor.getValue().get(0);
+        assertEquals(testModel, scoring.getModel());
+        assertEquals(inputs, scoring.getInputs());
+        // both scorings of the same inputs are written, so they must not share the entities
+        assertNotSame(inputs.get(0), scoring.getInputs().get(0));
+        assertNotSame(scoring.getInputs().get(0), captor.getValue().get(1).getInputs().get(0));
+        assertNotSame(outputs.get(0), scoring.getOutputs().get(0));
+        auditService.shutdown();
+    }
+
+    @Test
+    public void shouldWriteAfterFlushInterval() throws InterruptedException {
+        ScoringAuditServiceImpl auditService = newAuditService(100, 50L, 1.0);
+        auditService.record(testModel, inputs, outputs);
+
+        verify(scoringRepository, timeout(5000)).saveAll(anyList());
+        auditService.shutdown();
+        assertEquals(Long.valueOf(1L), auditService.getStatistics().get("written"));
+    }
+
+    @Test
+    public void shouldWriteRemainingScoringsOnShutdown() throws InterruptedException {
+        ScoringAuditServiceImpl auditService = newAuditService(100, 60000L, 1.0);
+        auditService.record(testModel, inputs, outputs);
+        auditService.shutdown();
+
+        verify(scoringRepository).saveAll(anyList());
+        assertEquals(Long.valueOf(0L), auditService.getStatistics().get("queued"));
+    }
+
+    @Test
+    public void shouldSkipSampledOutScorings() throws InterruptedException {
+        ScoringAuditServiceImpl auditService = newAuditService(1, 50L, 0.0);
+        auditService.record(testModel, inputs, outputs);
+        auditService.shutdown();
+
+        verify(scoringRepository, never()).saveAll(anyList());
+        assertEquals(Long.valueOf(1L), auditService.getStatistics().get("sampledOut"));
+        verify(scoringAnalyticsService).record(eq(MODEL_ID), any(LocalDateTime.class), eq(inputs), eq(outputs));
+        verify(scoringAnalyticsService).flush();
+    }
+
+    @Test
+    public void shouldDropRestOfBatchWithoutWaitingOnceQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        given(scoringRepository.saveAll(anyList())).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        ScoringAuditServiceImpl auditService = newAuditService(1, 60000L, 1.0);
+        // the flusher blocks in the write of the first scoring, afterwards 100 scorings fit into the queue
+        auditService.record(testModel, inputs, outputs);
+        verify(scoringRepository, timeout(5000)).saveAll(anyList());
+
+        long start = System.nanoTime();
+        auditService.recordAll(testModel, Collections.nCopies(300, inputs), Collections.nCopies(300, outputs));
+        // waiting for every dropped scoring would take two seconds
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(Long.valueOf(200L), auditService.getStatistics().get("dropped"));
+        assertEquals(Long.valueOf(101L), auditService.getStatistics().get("recorded"));
+        release.countDown();
+        auditService.shutdown();
+    }
+
+    private ScoringAuditServiceImpl newAuditService(int batchSize, long flushIntervalMillis, double sampleRate) {
+        ScoringAuditServiceImpl auditService = new ScoringAuditServiceImpl(scoringRepository, modelRepository,
+                scoringAnalyticsService, transactionManager, new SimpleMeterRegistry(), batchSize, flushIntervalMillis, 100, 10L, sampleRate);
+        auditService.start();
+        return auditService;
+    }
+}
@@ -0,0 +1,183 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.service.DBFileStorageService;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobNode;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.ScoringJobServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(SpringExtension.class)
+public class ScoringJobServiceTest {
+
+    private static final Long PROJECT_ID = 123L;
+    private static final Long MODEL_ID = 1234L;
+    private static final Long JOB_ID = 12L;
+
+    @Autowired
+    private ScoringJobService scoringJobService;
+    @Autowired
+    private ScoringService scoringService;
+    @Autowired
+    private ModelService modelService;
+    @Autowired
+    private ScoringJobRepository scoringJobRepository;
+    @Autowired
+    private DBFileStorageService dbFileStorageService;
+
+    @TestConfiguration
+    static class ScoringJobServiceTestConfiguration {
+
+        @MockBean
+        public ScoringService scoringService;
+
+        @MockBean
+        public ModelService modelService;
+
+        @MockBean
+        public ScoringJobRepository scoringJobRepository;
+
+        @MockBean
+        public DBFileStorageService dbFileStorageService;
+
+        @Bean
+        public ScoringJobService scoringJobService() {
+            return new ScoringJobServiceImpl(this.scoringService, this.modelService, this.scoringJobRepository,
+                    this.dbFileStorageService, new JobNode("test", 120), 1, 10, 1, 2, null, false);
+        }
+    }
+
+    private final Map<Long, ScoringJob> storedJobs = new ConcurrentHashMap<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private List<List<ScoringInput>> records;
+
+    @BeforeEach
+    public void setUp() {
+        records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(Collections.singletonList(new ScoringInput("petal_length", String.valueOf(i))));
+        }
+
+        given(modelService.getModelForProjectById(PROJECT_ID, MODEL_ID)).willReturn(Optional.of(new Model()));
+        given(scoringJobRepository.save(any(ScoringJob.class))).willAnswer(invocation -> {
+            ScoringJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(JOB_ID);
+            }
+            storedJobs.put(job.getId(), job);
+            return job;
+        });
+        given(scoringJobRepository.renewLease(eq(JOB_ID), eq("test"), any(), anyCollection())).willReturn(1);
+        given(scoringJobRepository.findById(JOB_ID)).willAnswer(invocation -> Optional.ofNullable(storedJobs.get(JOB_ID)));
+        given(scoringJobRepository.findByIdAndProjectIdAndModelId(JOB_ID, PROJECT_ID, MODEL_ID))
+                .willAnswer(invocation -> Optional.ofNullable(storedJobs.get(JOB_ID)));
+        given(dbFileStorageService.storeFile(anyString(), anyString(), any(byte[].class))).willAnswer(invocation ->
+                DBFile.builder().fileName(invocation.getArgument(0)).fileType(invocation.getArgument(1))
+                        .data(invocation.getArgument(2)).build());
+    }
+
+    private void givenScoring(boolean blocking) {
+        given(scoringService.scoreModelRecords(eq(PROJECT_ID), eq(MODEL_ID), anyList())).willAnswer(invocation -> {
+            if (blocking) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            List<List<ScoringInput>> chunk = invocation.getArgument(2);
+            return chunk.stream()
+                    .map(inputs -> Collections.singletonList(new ScoringOutput("class", inputs.get(0).getValue())))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private ScoringJob awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ScoringJob job = storedJobs.get(JOB_ID);
+            if (job != null && job.getFinished() != null) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Scoring job did not finish");
+        return null;
+    }
+
+    @Test
+    public void shouldCompleteJob() throws InterruptedException {
+        givenScoring(false);
+        ScoringJob submittedJob = scoringJobService.submitJob(PROJECT_ID, MODEL_ID, records);
+        assertEquals(JOB_ID, submittedJob.getId());
+        assertEquals(5L, submittedJob.getTotalRecords());
+
+        ScoringJob job = awaitFinished();
+        assertEquals(ScoringJobStatus.COMPLETED, job.getStatus());
+        assertEquals(5L, job.getProcessedRecords());
+        String result = new String(job.getResult().getData(), StandardCharsets.UTF_8);
+        assertEquals(5, result.split("\n").length);
+        assertEquals(Optional.of(job.getResult()), scoringJobService.getJobResult(PROJECT_ID, MODEL_ID, JOB_ID));
+    }
+
+    @Test
+    public void shouldLimitJobsPerProject() throws InterruptedException {
+        givenScoring(true);
+        try {
+            scoringJobService.submitJob(PROJECT_ID, MODEL_ID, records);
+            assertThrows(CapacityException.class, () -> scoringJobService.submitJob(PROJECT_ID, MODEL_ID, records));
+        } finally {
+            release.countDown();
+        }
+        assertEquals(ScoringJobStatus.COMPLETED, awaitFinished().getStatus());
+    }
+
+    @Test
+    public void shouldCancelRunningJob() throws InterruptedException {
+        givenScoring(true);
+        try {
+            scoringJobService.submitJob(PROJECT_ID, MODEL_ID, records);
+            assertTrue(scoringJobService.cancelJob(PROJECT_ID, MODEL_ID, JOB_ID));
+        } finally {
+            release.countDown();
+        }
+        ScoringJob job = awaitFinished();
+        assertEquals(ScoringJobStatus.CANCELLED, job.getStatus());
+        assertNull(job.getResult());
+    }
+
+    @Test
+    public void shouldNotSubmitJobForUnknownModel() {
+        assertThrows(IdException.class, () -> scoringJobService.submitJob(PROJECT_ID, 1L, records));
+    }
+
+    @Test
+    public void shouldNotCancelUnknownJob() {
+        assertThrows(IdException.class, () -> scoringJobService.cancelJob(PROJECT_ID, MODEL_ID, JOB_ID));
+    }
+}
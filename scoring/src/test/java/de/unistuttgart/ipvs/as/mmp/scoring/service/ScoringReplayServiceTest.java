@@ -0,0 +1,180 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayReport;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayRequest;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.service.DBFileStorageService;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.job.JobNode;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringReplayJobRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.ScoringReplayServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ScoringReplayServiceTest {
+
+    private static final Long PROJECT_ID = 123L;
+    private static final Long MODEL_ID = 1234L;
+    private static final Long TARGET_MODEL_ID = 1235L;
+    private static final Long JOB_ID = 12L;
+    private static final List<Long> SCORING_IDS = Arrays.asList(3L, 5L, 8L);
+    private static final Map<String, String> OUTPUTS = new LinkedHashMap<>();
+
+    static {
+        OUTPUTS.put("class", "Iris-versicolor");
+        OUTPUTS.put("Probability_Iris-setosa", "0.0");
+        OUTPUTS.put("Probability_Iris-versicolor", "0.918918918918919");
+        OUTPUTS.put("Probability_Iris-virginica", "0.08108108108108109");
+    }
+
+    private ModelService modelService;
+    private ScoringRepository scoringRepository;
+    private ScoringReplayJobRepository scoringReplayJobRepository;
+    private DBFileStorageService dbFileStorageService;
+    private ScoringReplayServiceImpl scoringReplayService;
+    private final Map<Long, ScoringReplayJob> storedJobs = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        modelService = mock(ModelService.class);
+        scoringRepository = mock(ScoringRepository.class);
+        scoringReplayJobRepository = mock(ScoringReplayJobRepository.class);
+        dbFileStorageService = mock(DBFileStorageService.class);
+        EvaluatorCache evaluatorCache = new EvaluatorCache(256, true, null, null,
+                new ScoringMetrics(new SimpleMeterRegistry()));
+        scoringReplayService = new ScoringReplayServiceImpl(modelService, evaluatorCache, scoringRepository,
+                scoringReplayJobRepository, dbFileStorageService, new JobNode("test", 120), 1, 10, 1, 2, 2, 10, 1e-6);
+
+        given(modelService.getModelForProjectById(PROJECT_ID, MODEL_ID))
+                .willReturn(Optional.of(TestModels.irisTree(MODEL_ID)));
+        given(modelService.getModelForProjectById(PROJECT_ID, TARGET_MODEL_ID))
+                .willReturn(Optional.of(TestModels.irisTree(TARGET_MODEL_ID)));
+        given(scoringReplayJobRepository.save(any(ScoringReplayJob.class))).willAnswer(invocation -> {
+            ScoringReplayJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(JOB_ID);
+            }
+            storedJobs.put(job.getId(), job);
+            return job;
+        });
+        given(scoringReplayJobRepository.findById(JOB_ID))
+                .willAnswer(invocation -> Optional.ofNullable(storedJobs.get(JOB_ID)));
+        given(dbFileStorageService.storeFile(anyString(), anyString(), any(byte[].class))).willAnswer(invocation ->
+                DBFile.builder().fileName(invocation.getArgument(0)).fileType(invocation.getArgument(1))
+                        .data(invocation.getArgument(2)).build());
+        givenRecordedScorings();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scoringReplayService.shutdown();
+    }
+
+    /**
+     * The scoring 5 recorded another class than the iris tree predicts for its inputs.
+     */
+    private void givenRecordedScorings() {
+        given(scoringRepository.countByModelId(MODEL_ID)).willReturn((long) SCORING_IDS.size());
+        given(scoringRepository.findIdsByModelIdAfter(eq(MODEL_ID), anyLong(), any(Pageable.class)))
+                .willAnswer(invocation -> {
+                    Long after = invocation.getArgument(1);
+                    Pageable pageable = invocation.getArgument(2);
+                    return SCORING_IDS.stream().filter(id -> id > after).limit(pageable.getPageSize())
+                            .collect(Collectors.toList());
+                });
+        given(scoringRepository.findInputsByModelIdAndIdBetween(eq(MODEL_ID), anyLong(), anyLong()))
+                .willAnswer(invocation -> rows(invocation.getArgument(1), invocation.getArgument(2), "petal_length",
+                        "petal_width", "sepal_length", "sepal_width"));
+        given(scoringRepository.findOutputsByModelIdAndIdBetween(eq(MODEL_ID), anyLong(), anyLong()))
+                .willAnswer(invocation -> {
+                    List<Object[]> rows = rows(invocation.getArgument(1), invocation.getArgument(2),
+                            OUTPUTS.keySet().toArray(new String[0]));
+                    for (Object[] row : rows) {
+                        row[2] = row[0].equals(5L) && row[1].equals("class") ? "Iris-setosa" : OUTPUTS.get(row[1]);
+                    }
+                    return rows;
+                });
+    }
+
+    private static List<Object[]> rows(Long from, Long to, String... names) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : SCORING_IDS) {
+            if (id >= from && id <= to) {
+                for (String name : names) {
+                    rows.add(new Object[]{id, name, "3"});
+                }
+            }
+        }
+        return rows;
+    }
+
+    private ScoringReplayJob awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ScoringReplayJob job = storedJobs.get(JOB_ID);
+            if (job != null && job.getFinished() != null) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Scoring replay job did not finish");
+        return null;
+    }
+
+    @Test
+    public void shouldCompleteJobWithReport() throws Exception {
+        ScoringReplayJob job = scoringReplayService.submitJob(PROJECT_ID, MODEL_ID,
+                new ScoringReplayRequest(TARGET_MODEL_ID));
+        assertEquals(JOB_ID, job.getId());
+
+        job = awaitFinished();
+        assertEquals(ScoringJobStatus.COMPLETED, job.getStatus());
+        assertEquals(3L, job.getTotalRecords());
+        assertEquals(3L, job.getProcessedRecords());
+        assertEquals(1L, job.getChangedRecords());
+
+        ScoringReplayReport report = new ObjectMapper().readValue(job.getReport().getData(),
+                ScoringReplayReport.class);
+        assertEquals(TARGET_MODEL_ID, report.getTargetModelId());
+        assertEquals(1L, report.getChangedRecords());
+        assertEquals(Long.valueOf(1L), report.getChangedOutputs().get("class"));
+        assertEquals(Long.valueOf(5L), report.getChanges().get(0).getScoringId());
+        assertEquals("Iris-versicolor", report.getChanges().get(0).getReplayedOutputs().get("class"));
+        assertEquals(3L, report.getTargetLatency().getCount());
+    }
+
+    @Test
+    public void shouldRejectUnknownTargetModel() {
+        given(modelService.getModelForProjectById(PROJECT_ID, TARGET_MODEL_ID)).willReturn(Optional.empty());
+        assertThrows(IdException.class, () -> scoringReplayService.submitJob(PROJECT_ID, MODEL_ID,
+                new ScoringReplayRequest(TARGET_MODEL_ID)));
+    }
+}
@@ -1,13 +1,31 @@
 package de.unistuttgart.ipvs.as.mmp.scoring.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import de.unistuttgart.ipvs.as.mmp.common.domain.*;
-import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.Scoring;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import de.unistuttgart.ipvs.as.mmp.common.exception.ScoringException;
 import de.unistuttgart.ipvs.as.mmp.common.pmml.PMMLMetadataParser;
+import de.unistuttgart.ipvs.as.mmp.model.event.ModelVersionCreatedEvent;
+import de.unistuttgart.ipvs.as.mmp.model.repository.ModelRepository;
 import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
-import de.unistuttgart.ipvs.as.mmp.scoring.repository.ScoringRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.columnar.ColumnarFormat;
+import de.unistuttgart.ipvs.as.mmp.scoring.drift.DriftMonitor;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.ScoringResultCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ShadowConfigurationRepository;
+import de.unistuttgart.ipvs.as.mmp.scoring.routing.ModelRoutingTable;
 import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.ScoringServiceImpl;
+import de.unistuttgart.ipvs.as.mmp.scoring.shadow.ShadowScoring;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,27 +36,50 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.util.ResourceUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(SpringExtension.class)
 public class ScoringServiceTest {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     private static final Long PRPJECT_ID = 123L;
     private static final Long MODEL_ID = 123L;
+    private static final Long MODEL_GROUP_ID = 12L;
 
     @Autowired
-    private ScoringRepository scoringRepository;
+    private ScoringAuditService scoringAuditService;
 
     @Autowired
     private ModelService modelService;
@@ -46,18 +87,47 @@ public class ScoringServiceTest {
     @Autowired
     private ScoringService scoringService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ModelRoutingTable modelRoutingTable;
+
+    @Autowired
+    private ShadowConfigurationRepository shadowConfigurationRepository;
+
     @TestConfiguration
     static class ScoringServiceTestConfiguration {
 
         @MockBean
-        public ScoringRepository scoringRepository;
+        public ScoringAuditService scoringAuditService;
 
         @MockBean
         public ModelService modelService;
 
+        @MockBean
+        public ShadowConfigurationRepository shadowConfigurationRepository;
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
         @Bean
-        public ScoringService scoringService() {
-            return new ScoringServiceImpl(this.modelService, this.scoringRepository);
+        public ModelRoutingTable modelRoutingTable(MeterRegistry meterRegistry) {
+            return new ModelRoutingTable(this.modelService, 100, 60, new ScoringMetrics(meterRegistry));
+        }
+
+        @Bean
+        public ScoringService scoringService(MeterRegistry meterRegistry, ModelRoutingTable modelRoutingTable) {
+            ScoringMetrics scoringMetrics = new ScoringMetrics(meterRegistry);
+            EvaluatorCache evaluatorCache = new EvaluatorCache(256, true, null, null, scoringMetrics);
+            ShadowScoring shadowScoring = new ShadowScoring(this.modelService, evaluatorCache,
+                    this.shadowConfigurationRepository, scoringMetrics, true, 1, 1, 60, 1e-6);
+            return new ScoringServiceImpl(this.modelService, this.scoringAuditService,
+                    evaluatorCache, new ScoringResultCache(100, 60, scoringMetrics),
+                    new DriftMonitor(mock(ModelRepository.class), mock(PlatformTransactionManager.class), true),
+                    modelRoutingTable, scoringMetrics, shadowScoring, 2, 2, 4, 2);
         }
     }
 
@@ -66,7 +136,6 @@ public class ScoringServiceTest {
     private ModelFile modelFile = new ModelFile();
     private DBFile dbFile = new DBFile();
     private List<ScoringInput> inputs;
-    private Scoring testScoring = new Scoring();
 
     private static final String expectedClass = "Iris-versicolor";
     private static final String expectedProbSetosa = "0.0";
@@ -108,7 +177,6 @@ public class ScoringServiceTest {
         testModel.setModelFile(modelFile);
 
         given(modelService.getModelForProjectById(PRPJECT_ID, MODEL_ID)).willReturn(Optional.of(testModel));
-        given(scoringRepository.save(testScoring)).willReturn(null);
     }
 
     @Test
@@ -119,5 +187,230 @@ public class ScoringServiceTest {
         assertEquals(expectedProbSetosa, outputs.get(1).getValue());
         assertEquals( expectedProbVersicolor, outputs.get(2).getValue());
         assertEquals( expectedProbVirginica, outputs.get(3).getValue());
+        verify(scoringAuditService).record(testModel, inputs, outputs);
+    }
+
+    @Test
+    public void shouldScoreLatestModelOfModelGroup() {
+        testModel.setId(MODEL_ID);
+        testModel.getModelMetadata().setVersion(3L);
+        given(modelService.getLastModelForProjectAndModelGroupIdentifier(PRPJECT_ID, MODEL_GROUP_ID))
+                .willReturn(Optional.of(testModel));
+        ModelScoringResult result = scoringService.scoreLatestModel(PRPJECT_ID, MODEL_GROUP_ID, inputs);
+        assertEquals(MODEL_ID, result.getModelId());
+        assertEquals(Long.valueOf(3L), result.getVersion());
+        assertEquals(expectedClass, result.getOutputs().get(0).getValue());
+
+        Long newModelId = 124L;
+        given(modelService.getModelForProjectById(PRPJECT_ID, newModelId)).willReturn(Optional.of(testModel));
+        modelRoutingTable.onModelVersionCreated(new ModelVersionCreatedEvent(PRPJECT_ID, MODEL_GROUP_ID, newModelId,
+                "iris", 4L));
+        result = scoringService.scoreLatestModel(PRPJECT_ID, MODEL_GROUP_ID, inputs);
+        assertEquals(newModelId, result.getModelId());
+        assertEquals(Long.valueOf(4L), result.getVersion());
+        // the latest version is only queried for the first scoring
+        verify(modelService, times(1)).getLastModelForProjectAndModelGroupIdentifier(PRPJECT_ID, MODEL_GROUP_ID);
+    }
+
+    @Test
+    public void shouldScoreBatchInInputOrder() {
+        List<ScoringInput> setosaInputs = new ArrayList<>();
+        setosaInputs.add(new ScoringInput("PETAL_LENGTH", "1"));
+        List<List<ScoringOutput>> outputs = scoringService.scoreModelBatch(PRPJECT_ID, MODEL_ID,
+                Arrays.asList(inputs, setosaInputs, inputs));
+        assertEquals(3, outputs.size());
+        assertEquals(expectedClass, outputs.get(0).get(0).getValue());
+        assertEquals("Iris-setosa", outputs.get(1).get(0).getValue());
+        assertEquals(expectedClass, outputs.get(2).get(0).getValue());
+        assertEquals(expectedProbVersicolor, outputs.get(2).get(2).getValue());
+        verify(scoringAuditService).recordAll(eq(testModel), anyList(), argThat(batch -> batch.size() == 3));
+    }
+
+    @Test
+    public void shouldScoreRecordsWithoutRecordingThem() {
+        List<List<ScoringOutput>> outputs = scoringService.scoreModelRecords(PRPJECT_ID, MODEL_ID,
+                Arrays.asList(inputs, inputs));
+        assertEquals(2, outputs.size());
+        assertEquals(expectedClass, outputs.get(1).get(0).getValue());
+        verify(scoringAuditService, never()).recordAll(any(), anyList(), anyList());
+    }
+
+    @Test
+    public void shouldScoreCsvStream() throws IOException {
+        String csv = "sepal_length,Petal_Length\n3,3\n3,1\n\n3,3\n";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        scoringService.scoreModelStream(PRPJECT_ID, MODEL_ID, StreamFormat.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).writeTo(outputStream);
+        String[] lines = outputStream.toString("UTF-8").split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("class,Probability_Iris-setosa,Probability_Iris-versicolor,Probability_Iris-virginica", lines[0]);
+        assertEquals(String.join(",", expectedClass, expectedProbSetosa, expectedProbVersicolor, expectedProbVirginica), lines[1]);
+        assertTrue(lines[2].startsWith("Iris-setosa,"));
+        assertEquals(lines[1], lines[3]);
+    }
+
+    @Test
+    public void shouldScoreNdjsonStream() throws IOException {
+        String ndjson = "{\"petal_length\": 3, \"petal_width\": \"3\"}\n{\"petal_length\": 1}\n";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        scoringService.scoreModelStream(PRPJECT_ID, MODEL_ID, StreamFormat.NDJSON,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))).writeTo(outputStream);
+        String[] lines = outputStream.toString("UTF-8").split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"class\":\"" + expectedClass + "\""));
+        assertTrue(lines[1].startsWith("{\"class\":\"Iris-setosa\""));
+    }
+
+    @Test
+    public void shouldScoreColumnarJson() throws IOException {
+        String payload = "{\"fields\": [\"sepal_length\", \"PETAL_LENGTH\"], \"columns\": [[5.1, 4.9], [3, 1]]}";
+        byte[] result = scoringService.scoreModelColumnar(PRPJECT_ID, MODEL_ID, ColumnarFormat.JSON,
+                new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+
+        JsonNode columnar = new ObjectMapper().readTree(result);
+        assertEquals("class", columnar.get("fields").get(0).asText());
+        assertEquals(expectedClass, columnar.get("columns").get(0).get(0).asText());
+        assertEquals("Iris-setosa", columnar.get("columns").get(0).get(1).asText());
+        assertTrue(columnar.get("columns").get(1).get(0).isNumber());
+    }
+
+    @Test
+    public void shouldScoreColumnarCbor() throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (JsonGenerator generator = new CBORFactory().createGenerator(payload)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("fields");
+            generator.writeString("petal_length");
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("columns");
+            generator.writeStartArray();
+            generator.writeNumber(3.0);
+            generator.writeNumber(1.0);
+            generator.writeEndArray();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        byte[] result = scoringService.scoreModelColumnar(PRPJECT_ID, MODEL_ID, ColumnarFormat.CBOR,
+                new ByteArrayInputStream(payload.toByteArray()));
+
+        JsonNode columnar = new ObjectMapper(new CBORFactory()).readTree(result);
+        assertEquals(4, columnar.get("fields").size());
+        assertEquals(expectedClass, columnar.get("columns").get(0).get(0).asText());
+        assertEquals("Iris-setosa", columnar.get("columns").get(0).get(1).asText());
+    }
+
+    @Test
+    public void shouldNotScoreColumnsOfDifferentLength() {
+        String payload = "{\"fields\": [\"sepal_length\", \"petal_length\"], \"columns\": [[5.1, 4.9], [3]]}";
+        assertThrows(IllegalArgumentException.class, () -> scoringService.scoreModelColumnar(PRPJECT_ID, MODEL_ID,
+                ColumnarFormat.JSON, new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void shouldNotScoreColumnsWithoutFields() {
+        String payload = "{\"columns\": [[3]], \"fields\": [\"petal_length\"]}";
+        assertThrows(IllegalArgumentException.class, () -> scoringService.scoreModelColumnar(PRPJECT_ID, MODEL_ID,
+                ColumnarFormat.JSON, new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void shouldTimeScoringPhases() {
+        scoringService.scoreModel(PRPJECT_ID, MODEL_ID, inputs);
+        for (String phase : Arrays.asList("lookup", "load", "parse", "verify", "bind", "evaluate", "extract", "persist")) {
+            assertTrue(meterRegistry.get(ScoringMetrics.PHASE_TIMER).tag("phase", phase).timer().count() >= 1, phase);
+        }
+    }
+
+    @Test
+    public void shouldCountScoringErrors() {
+        Long modelWithoutFileId = 124L;
+        given(modelService.getModelForProjectById(PRPJECT_ID, modelWithoutFileId))
+                .willReturn(Optional.of(Model.builder().build()));
+        assertThrows(ScoringException.class, () -> scoringService.scoreModel(PRPJECT_ID, modelWithoutFileId, inputs));
+        assertEquals(1.0, meterRegistry.get(ScoringMetrics.ERROR_COUNTER).tag("type", "parsing")
+                .tag("model", modelWithoutFileId.toString()).counter().count());
+    }
+
+    @Test
+    public void shouldNotEvaluateRepeatedInputsOfCachedModel() {
+        Long cachedModelId = 125L;
+        modelFile.setId(7L);
+        testModel.setId(cachedModelId);
+        testModel.setResultCacheEnabled(true);
+        given(modelService.getModelForProjectById(PRPJECT_ID, cachedModelId)).willReturn(Optional.of(testModel));
+
+        List<ScoringOutput> first = scoringService.scoreModel(PRPJECT_ID, cachedModelId, inputs);
+        // prepared as the same double values as the inputs of the first scoring
+        List<ScoringInput> repeatedInputs = Arrays.asList(new ScoringInput("sepal_width", "3.0"),
+                new ScoringInput("sepal_length", "3.0"), new ScoringInput("petal_width", "3.0"),
+                new ScoringInput("petal_length", "3.0"));
+        List<ScoringOutput> second = scoringService.scoreModel(PRPJECT_ID, cachedModelId, repeatedInputs);
+
+        assertEquals(first, second);
+        assertEquals(expectedClass, second.get(0).getValue());
+        assertEquals(1, meterRegistry.get(ScoringMetrics.PHASE_TIMER).tag("phase", "evaluate")
+                .tag("model", cachedModelId.toString()).timer().count());
+        verify(scoringAuditService, times(2)).record(eq(testModel), anyList(), anyList());
+    }
+
+    @Test
+    public void shouldScoreLargeBatchInParallelInInputOrder() {
+        List<List<ScoringInput>> records = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            records.add(Collections.singletonList(new ScoringInput("petal_length", i % 2 == 0 ? "3" : "1")));
+        }
+        List<List<ScoringOutput>> outputs = scoringService.scoreModelBatch(PRPJECT_ID, MODEL_ID, records);
+
+        assertEquals(50, outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+            assertEquals(i % 2 == 0 ? expectedClass : "Iris-setosa", outputs.get(i).get(0).getValue());
+        }
+        verify(scoringAuditService).recordAll(eq(testModel), anyList(), argThat(batch -> batch.size() == 50));
+    }
+
+    @Test
+    public void shouldScoreIfShadowConfigurationCannotBeRead() {
+        Long modelGroupId = 21L;
+        testModel.getModelMetadata().setModelGroup(createModelGroup(modelGroupId));
+        given(shadowConfigurationRepository.findByProjectIdAndModelGroupId(PRPJECT_ID, modelGroupId))
+                .willThrow(new IllegalStateException("database down"));
+
+        List<ScoringOutput> outputs = scoringService.scoreModel(PRPJECT_ID, MODEL_ID, inputs);
+        assertEquals(expectedClass, outputs.get(0).getValue());
+        verify(shadowConfigurationRepository, timeout(1000)).findByProjectIdAndModelGroupId(PRPJECT_ID, modelGroupId);
+    }
+
+    @Test
+    public void shouldScoreWhileCandidateIsBusy() {
+        Long modelGroupId = 22L;
+        Long candidateModelId = 126L;
+        testModel.getModelMetadata().setModelGroup(createModelGroup(modelGroupId));
+        given(shadowConfigurationRepository.findByProjectIdAndModelGroupId(PRPJECT_ID, modelGroupId))
+                .willReturn(Optional.of(ShadowConfiguration.builder().projectId(PRPJECT_ID).modelGroupId(modelGroupId)
+                        .candidateModelId(candidateModelId).build()));
+        CountDownLatch release = new CountDownLatch(1);
+        given(modelService.getModelForProjectById(PRPJECT_ID, candidateModelId)).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(testModel);
+        });
+
+        try {
+            // the candidate blocks the shadow executor, further scorings are not mirrored but still returned
+            assertTimeout(Duration.ofSeconds(2), () -> {
+                for (int i = 0; i < 5; i++) {
+                    assertEquals(expectedClass, scoringService.scoreModel(PRPJECT_ID, MODEL_ID, inputs).get(0)
+                            .getValue());
+                }
+            });
+            verify(modelService, timeout(1000)).getModelForProjectById(PRPJECT_ID, candidateModelId);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static ModelGroup createModelGroup(Long modelGroupId) {
+        ModelGroup modelGroup = new ModelGroup();
+        modelGroup.setId(modelGroupId);
+        return modelGroup;
     }
 }
@@ -0,0 +1,234 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.service;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.SensorScoringResult;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.ScoringException;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.sensor.ReadingSource;
+import de.unistuttgart.ipvs.as.mmp.scoring.sensor.RecordReadingSource;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.impl.SensorStreamServiceImpl;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+public class SensorStreamServiceTest {
+
+    private static final Long PROJECT_ID = 1L;
+    private static final Long MODEL_ID = 2L;
+
+    private ScoringService scoringService;
+    private ModelService modelService;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SensorStreamServiceImpl sensorStreamService;
+    private List<SensorScoringResult> results = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        scoringService = mock(ScoringService.class);
+        modelService = mock(ModelService.class);
+        Model model = Model.builder().build();
+        model.setId(MODEL_ID);
+        given(modelService.getModelForProjectById(PROJECT_ID, MODEL_ID)).willReturn(Optional.of(model));
+        given(scoringService.scoreModelBatch(eq(PROJECT_ID), eq(MODEL_ID), anyList())).willAnswer(invocation -> {
+            List<List<ScoringInput>> readings = invocation.getArgument(2);
+            List<List<ScoringOutput>> outputs = new ArrayList<>();
+            for (List<ScoringInput> reading : readings) {
+                outputs.add(Collections.singletonList(new ScoringOutput("temperature", reading.get(0).getValue())));
+            }
+            return outputs;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sensorStreamService.shutdown();
+    }
+
+    @Test
+    public void shouldScoreReadingsInBatches() throws Exception {
+        sensorStreamService = create(2, 60000L, 1);
+        sensorStreamService.subscribe(PROJECT_ID, MODEL_ID, results::addAll);
+
+        long readings = sensorStreamService.ingest(PROJECT_ID, MODEL_ID, ndjson(
+                "{\"temperature\":\"20\"}\n{\"temperature\":\"21\"}\n{\"temperature\":\"22\"}\n"))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(3L, readings);
+
+        // one full batch and the rest when the source is exhausted
+        verify(scoringService, timeout(5000).times(2)).scoreModelBatch(eq(PROJECT_ID), eq(MODEL_ID), anyList());
+        waitForResults(3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.toString(20 + i), results.get(i).getOutputs().get(0).getValue());
+            assertEquals(MODEL_ID, results.get(i).getModelId());
+            assertNotNull(results.get(i).getReceived());
+        }
+    }
+
+    @Test
+    public void shouldScoreBatchAfterMaxLatency() throws Exception {
+        sensorStreamService = create(100, 50L, 1);
+        sensorStreamService.subscribe(PROJECT_ID, MODEL_ID, results::addAll);
+        CountDownLatch end = new CountDownLatch(1);
+
+        CompletableFuture<Long> readings = sensorStreamService.ingest(PROJECT_ID, MODEL_ID, blockingSource(end));
+        waitForResults(1);
+        assertFalse(readings.isDone());
+        end.countDown();
+        assertEquals(Long.valueOf(1L), readings.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldPublishErrorOfFailedBatch() throws Exception {
+        given(scoringService.scoreModelBatch(eq(PROJECT_ID), eq(MODEL_ID), anyList()))
+                .willThrow(ScoringException.evaluateError());
+        sensorStreamService = create(10, 60000L, 1);
+        sensorStreamService.subscribe(PROJECT_ID, MODEL_ID, results::addAll);
+
+        sensorStreamService.ingest(PROJECT_ID, MODEL_ID, ndjson("{\"temperature\":\"x\"}\n{\"temperature\":\"y\"}\n"))
+                .get(5, TimeUnit.SECONDS);
+        waitForResults(2);
+        assertNull(results.get(0).getOutputs());
+        assertEquals(ScoringException.evaluateError().getMessage(), results.get(1).getError());
+    }
+
+    @Test
+    public void shouldRemoveFailingSubscriber() throws Exception {
+        sensorStreamService = create(1, 60000L, 1);
+        List<SensorScoringResult> failed = new CopyOnWriteArrayList<>();
+        sensorStreamService.subscribe(PROJECT_ID, MODEL_ID, batch -> {
+            failed.addAll(batch);
+            throw new IllegalStateException("client disconnected");
+        });
+        sensorStreamService.subscribe(PROJECT_ID, MODEL_ID, results::addAll);
+
+        sensorStreamService.ingest(PROJECT_ID, MODEL_ID, ndjson("{\"temperature\":\"20\"}\n{\"temperature\":\"21\"}\n"))
+                .get(5, TimeUnit.SECONDS);
+        waitForResults(2);
+        assertEquals(1, failed.size());
+    }
+
+    @Test
+    public void shouldRejectSourcesOverProjectLimit() throws Exception {
+        sensorStreamService = create(100, 60000L, 1);
+        CountDownLatch end = new CountDownLatch(1);
+        CompletableFuture<Long> readings = sensorStreamService.ingest(PROJECT_ID, MODEL_ID, blockingSource(end));
+
+        assertThrows(CapacityException.class,
+                () -> sensorStreamService.ingest(PROJECT_ID, MODEL_ID, ndjson("{\"temperature\":\"20\"}\n")));
+        end.countDown();
+        assertEquals(Long.valueOf(1L), readings.get(5, TimeUnit.SECONDS));
+        // the source of the project is released once it is exhausted
+        assertEquals(Long.valueOf(1L), sensorStreamService.ingest(PROJECT_ID, MODEL_ID,
+                ndjson("{\"temperature\":\"20\"}\n")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldRemoveIdleStreams() throws Exception {
+        sensorStreamService = create(1, 60000L, 1);
+        Runnable unsubscribe = sensorStreamService.subscribe(PROJECT_ID, MODEL_ID, results::addAll);
+        sensorStreamService.ingest(PROJECT_ID, MODEL_ID, ndjson("{\"temperature\":\"20\"}\n"))
+                .get(5, TimeUnit.SECONDS);
+        waitForResults(1);
+        // the stream is kept for its subscriber
+        assertEquals(1.0, streams());
+
+        unsubscribe.run();
+        awaitNoStreams();
+        // a failing subscriber is removed, so the stream is idle after its batch
+        sensorStreamService.subscribe(PROJECT_ID, MODEL_ID, batch -> {
+            throw new IllegalStateException("client disconnected");
+        });
+        sensorStreamService.ingest(PROJECT_ID, MODEL_ID, ndjson("{\"temperature\":\"21\"}\n"))
+                .get(5, TimeUnit.SECONDS);
+        awaitNoStreams();
+    }
+
+    @Test
+    public void shouldNotSubscribeToUnknownModel() {
+        sensorStreamService = create(10, 60000L, 1);
+        assertThrows(IdException.class, () -> sensorStreamService.subscribe(PROJECT_ID, 3L, results::addAll));
+    }
+
+    private SensorStreamServiceImpl create(int batchSize, long maxLatencyMs, int maxSourcesPerProject) {
+        return new SensorStreamServiceImpl(scoringService, modelService, new ScoringMetrics(meterRegistry), batchSize,
+                maxLatencyMs, 2, 10, 4, maxSourcesPerProject);
+    }
+
+    private double streams() {
+        return meterRegistry.get(SensorStreamServiceImpl.STREAMS_GAUGE).gauge().value();
+    }
+
+    private void awaitNoStreams() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (streams() > 0.0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0.0, streams());
+    }
+
+    /**
+     * A source with one reading that is exhausted once the latch is counted down.
+     */
+    private static ReadingSource blockingSource(CountDownLatch end) {
+        return new ReadingSource() {
+            private boolean read;
+
+            @Override
+            public List<ScoringInput> next() {
+                if (!read) {
+                    read = true;
+                    return Collections.singletonList(new ScoringInput("temperature", "20"));
+                }
+                try {
+                    end.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static ReadingSource ndjson(String readings) {
+        return RecordReadingSource.of(StreamFormat.NDJSON,
+                new ByteArrayInputStream(readings.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void waitForResults(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (results.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(count, results.size());
+    }
+}
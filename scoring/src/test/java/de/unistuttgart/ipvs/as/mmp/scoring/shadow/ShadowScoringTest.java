@@ -0,0 +1,175 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.shadow;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelGroup;
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelMetadata;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowStatistics;
+import de.unistuttgart.ipvs.as.mmp.model.service.ModelService;
+import de.unistuttgart.ipvs.as.mmp.scoring.TestModels;
+import de.unistuttgart.ipvs.as.mmp.scoring.evaluator.EvaluatorCache;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.repository.ShadowConfigurationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class ShadowScoringTest {
+
+    private static final Long PROJECT_ID = 123L;
+    private static final Long MODEL_GROUP_ID = 12L;
+    private static final Long PRIMARY_ID = 1L;
+    private static final Long CANDIDATE_ID = 2L;
+    private static final List<ScoringInput> INPUTS = Arrays.asList(new ScoringInput("petal_length", "3"),
+            new ScoringInput("petal_width", "3"), new ScoringInput("sepal_length", "3"),
+            new ScoringInput("sepal_width", "3"));
+    private static final List<ScoringOutput> OUTPUTS = Arrays.asList(
+            new ScoringOutput("class", "Iris-versicolor"),
+            new ScoringOutput("Probability_Iris-setosa", "0.0"),
+            new ScoringOutput("Probability_Iris-versicolor", "0.918918918918919"),
+            new ScoringOutput("Probability_Iris-virginica", "0.08108108108108109"));
+
+    private ModelService modelService;
+    private ShadowConfigurationRepository shadowConfigurationRepository;
+    private ShadowScoring shadowScoring;
+    private Model primary;
+    private Model candidate;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        modelService = mock(ModelService.class);
+        shadowConfigurationRepository = mock(ShadowConfigurationRepository.class);
+        ScoringMetrics scoringMetrics = new ScoringMetrics(new SimpleMeterRegistry());
+        shadowScoring = new ShadowScoring(modelService, new EvaluatorCache(256, true, null, null, scoringMetrics),
+                shadowConfigurationRepository, scoringMetrics, true, 1, 1, 60, 1e-6);
+
+        primary = createModel(PRIMARY_ID);
+        candidate = createModel(CANDIDATE_ID);
+        given(modelService.getModelForProjectById(PROJECT_ID, CANDIDATE_ID)).willReturn(Optional.of(candidate));
+        given(shadowConfigurationRepository.findByProjectIdAndModelGroupId(PROJECT_ID, MODEL_GROUP_ID))
+                .willReturn(Optional.of(ShadowConfiguration.builder().projectId(PROJECT_ID)
+                        .modelGroupId(MODEL_GROUP_ID).candidateModelId(CANDIDATE_ID).build()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shadowScoring.shutdown();
+    }
+
+    private static Model createModel(Long modelId) throws IOException {
+        ModelGroup modelGroup = new ModelGroup();
+        modelGroup.setId(MODEL_GROUP_ID);
+        ModelMetadata modelMetadata = new ModelMetadata();
+        modelMetadata.setModelGroup(modelGroup);
+        Model model = TestModels.irisTree(modelId);
+        model.setModelMetadata(modelMetadata);
+        return model;
+    }
+
+    private ShadowStatistics awaitStatistics(long count) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ShadowStatistics statistics = shadowScoring.getStatistics(PROJECT_ID, MODEL_GROUP_ID, CANDIDATE_ID);
+            if (statistics.getCompared() + statistics.getFailed() >= count) {
+                return statistics;
+            }
+            Thread.sleep(50);
+        }
+        fail("The candidate was not scored");
+        return null;
+    }
+
+    @Test
+    public void shouldCompareCandidateWithScoredModel() throws InterruptedException {
+        shadowScoring.mirror(PROJECT_ID, primary, INPUTS, OUTPUTS, TimeUnit.MILLISECONDS.toNanos(2));
+        ShadowStatistics statistics = awaitStatistics(1);
+        assertEquals(CANDIDATE_ID, statistics.getCandidateModelId());
+        assertEquals(1L, statistics.getAgreed());
+        assertEquals(Double.valueOf(1.0), statistics.getAgreementRate());
+        assertEquals(2.0, statistics.getPrimaryMeanMs(), 1e-9);
+        assertTrue(statistics.getCandidateMaxMs() > 0.0);
+
+        shadowScoring.mirror(PROJECT_ID, primary, INPUTS,
+                Collections.singletonList(new ScoringOutput("class", "Iris-setosa")), 0L);
+        statistics = awaitStatistics(2);
+        assertEquals(1L, statistics.getDisagreed());
+        assertEquals(Double.valueOf(0.5), statistics.getAgreementRate());
+    }
+
+    @Test
+    public void shouldCountFailedCandidate() throws InterruptedException {
+        candidate.getModelFile().getDbFile().setData("no pmml".getBytes());
+        shadowScoring.mirror(PROJECT_ID, primary, INPUTS, OUTPUTS, 0L);
+        ShadowStatistics statistics = awaitStatistics(1);
+        assertEquals(1L, statistics.getFailed());
+        assertEquals(0L, statistics.getCompared());
+        assertNull(statistics.getAgreementRate());
+    }
+
+    @Test
+    public void shouldDropScoringsWhenBusy() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(modelService.getModelForProjectById(PROJECT_ID, CANDIDATE_ID)).willAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(candidate);
+        });
+        // the first scoring reads the configuration and runs, one waits in the queue, the others are dropped
+        shadowScoring.mirror(PROJECT_ID, primary, INPUTS, OUTPUTS, 0L);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            shadowScoring.mirror(PROJECT_ID, primary, INPUTS, OUTPUTS, 0L);
+        }
+        assertEquals(2L, shadowScoring.getStatistics(PROJECT_ID, MODEL_GROUP_ID, CANDIDATE_ID).getDropped());
+
+        release.countDown();
+        assertEquals(2L, awaitStatistics(2).getAgreed());
+    }
+
+    @Test
+    public void shouldNotFailScoringIfConfigurationCannotBeRead() throws InterruptedException {
+        given(shadowConfigurationRepository.findByProjectIdAndModelGroupId(PROJECT_ID, MODEL_GROUP_ID))
+                .willThrow(new IllegalStateException("database down"));
+        shadowScoring.mirror(PROJECT_ID, primary, INPUTS, OUTPUTS, 0L);
+        verify(shadowConfigurationRepository, timeout(1000)).findByProjectIdAndModelGroupId(PROJECT_ID, MODEL_GROUP_ID);
+
+        // the failed read is not cached
+        given(shadowConfigurationRepository.findByProjectIdAndModelGroupId(PROJECT_ID, MODEL_GROUP_ID))
+                .willReturn(Optional.of(ShadowConfiguration.builder().projectId(PROJECT_ID)
+                        .modelGroupId(MODEL_GROUP_ID).candidateModelId(CANDIDATE_ID).build()));
+        shadowScoring.mirror(PROJECT_ID, primary, INPUTS, OUTPUTS, 0L);
+        assertEquals(1L, awaitStatistics(1).getAgreed());
+    }
+
+    @Test
+    public void shouldNotMirrorScoringsOfCandidate() {
+        shadowScoring.mirror(PROJECT_ID, candidate, INPUTS, OUTPUTS, 0L);
+        verify(modelService, never()).getModelForProjectById(PROJECT_ID, CANDIDATE_ID);
+    }
+
+    @Test
+    public void shouldAgreeOnNumbersWithinTolerance() {
+        List<ScoringOutput> outputs = Collections.singletonList(new ScoringOutput("score", "0.5"));
+        assertTrue(shadowScoring.agree(outputs, Collections.singletonList(new ScoringOutput("score", "0.5000000001"))));
+        assertFalse(shadowScoring.agree(outputs, Collections.singletonList(new ScoringOutput("score", "0.51"))));
+        assertFalse(shadowScoring.agree(outputs, Collections.singletonList(new ScoringOutput("label", "0.5"))));
+    }
+}
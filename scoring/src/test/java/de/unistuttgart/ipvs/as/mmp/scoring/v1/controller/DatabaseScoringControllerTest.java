@@ -0,0 +1,125 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.DatabaseScoringRequest;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.DatabaseScoringService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@WebMvcTest(controllers = {DatabaseScoringController.class})
+public class DatabaseScoringControllerTest {
+
+    private static final Long PROJECT_ID = 1337L;
+    private static final Long MODEL_ID = 1337L;
+    private static final Long JOB_ID = 42L;
+    private static final String PATH = DatabaseScoringController.PATH + "/" + PROJECT_ID + "/models/" + MODEL_ID
+            + "/scoring/database-jobs";
+    private static final String REQUEST = "{\"sourceTable\":\"flowers\",\"keyColumn\":\"id\","
+            + "\"targetTable\":\"flower_scores\",\"fieldMapping\":{\"length\":\"petal_length\"}}";
+
+    private MockMvc rest;
+    @MockBean
+    private DatabaseScoringService databaseScoringService;
+
+    @Autowired
+    private DatabaseScoringController databaseScoringController;
+
+    private DatabaseScoringJob testJob = DatabaseScoringJob.builder()
+            .projectId(PROJECT_ID)
+            .modelId(MODEL_ID)
+            .status(ScoringJobStatus.QUEUED)
+            .sourceTable("flowers")
+            .keyColumn("id")
+            .targetTable("flower_scores")
+            .fieldMapping(Collections.singletonMap("length", "petal_length"))
+            .submitted(LocalDateTime.of(2018, 7, 11, 15, 24))
+            .build();
+
+    @BeforeEach
+    public void setUp(RestDocumentationContextProvider restDocumentation) {
+        testJob.setId(JOB_ID);
+        this.rest = MockMvcBuilders.standaloneSetup(this.databaseScoringController)
+                .setControllerAdvice(new MMPExceptionHandler(), this.databaseScoringController)
+                .apply(documentationConfiguration(restDocumentation).
+                        operationPreprocessors()
+                        .withRequestDefaults(prettyPrint())
+                        .withResponseDefaults(prettyPrint()))
+                .build();
+    }
+
+    @Test
+    public void shouldSubmitJob() throws Exception {
+        given(databaseScoringService.submitJob(eq(PROJECT_ID), eq(MODEL_ID), any(DatabaseScoringRequest.class)))
+                .willReturn(testJob);
+        rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", PATH + "/" + JOB_ID))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andDo(document("database-scoring-job-submit"));
+    }
+
+    @Test
+    public void shouldRejectInvalidTable() throws Exception {
+        given(databaseScoringService.submitJob(eq(PROJECT_ID), eq(MODEL_ID), any(DatabaseScoringRequest.class)))
+                .willThrow(new IllegalArgumentException("The source table x; is not a valid sql identifier."));
+        rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldGetJob() throws Exception {
+        testJob.setStatus(ScoringJobStatus.RUNNING);
+        testJob.setProcessedRecords(1000);
+        testJob.setCheckpoint("1000");
+        given(databaseScoringService.getJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.of(testJob));
+        rest.perform(get(PATH + "/" + JOB_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processedRecords").value(1000))
+                .andExpect(jsonPath("$.checkpoint").value("1000"))
+                .andDo(document("database-scoring-job-get"));
+    }
+
+    @Test
+    public void shouldResumeJob() throws Exception {
+        testJob.setProcessedRecords(1000);
+        testJob.setCheckpoint("1000");
+        given(databaseScoringService.resumeJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.of(testJob));
+        rest.perform(post(PATH + "/" + JOB_ID + "/resume"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andDo(document("database-scoring-job-resume"));
+    }
+
+    @Test
+    public void shouldNotResumeRunningJob() throws Exception {
+        given(databaseScoringService.resumeJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.empty());
+        rest.perform(post(PATH + "/" + JOB_ID + "/resume")).andExpect(status().isConflict());
+    }
+}
@@ -0,0 +1,154 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.ModelGroup;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.admission.ScoringAdmission;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.FanOutScoringService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@WebMvcTest(controllers = {FanOutScoringController.class})
+public class FanOutScoringControllerTest {
+
+    private static final Long PROJECT_ID = 1337L;
+    private static final Long OTHER_PROJECT_ID = 1338L;
+    private static final Long MODEL_GROUP_ID = 42L;
+    private static final String PATH = FanOutScoringController.PATH + "/" + PROJECT_ID + "/models";
+    private static final String INPUTS = "[{\"name\":\"petal_length\",\"value\":\"3\"}]";
+    private static final List<ModelScoringResult> RESULTS = Arrays.asList(
+            ModelScoringResult.builder().modelId(1L).modelName("iris").version(1L)
+                    .outputs(Collections.singletonList(new ScoringOutput("class", "Iris-versicolor"))).build(),
+            ModelScoringResult.builder().modelId(2L).modelName("iris").version(2L)
+                    .error("Could not evaluate the model with the specified inputs. Please review your inputs and try again.")
+                    .build());
+
+    private MockMvc rest;
+    @MockBean
+    private FanOutScoringService fanOutScoringService;
+
+    @Autowired
+    private FanOutScoringController fanOutScoringController;
+
+    @TestConfiguration
+    static class ScoringAdmissionTestContextConfiguration {
+        @Bean
+        public ScoringAdmission scoringAdmission() {
+            // a project may only run one fan-out at a time
+            return new ScoringAdmission(new ScoringMetrics(new SimpleMeterRegistry()), 2, 10, 1, 0, 0, 1);
+        }
+    }
+
+    @BeforeEach
+    public void setUp(RestDocumentationContextProvider restDocumentation) {
+        this.rest = MockMvcBuilders.standaloneSetup(this.fanOutScoringController)
+                .setControllerAdvice(new MMPExceptionHandler(), this.fanOutScoringController)
+                .apply(documentationConfiguration(restDocumentation).
+                        operationPreprocessors()
+                        .withRequestDefaults(prettyPrint())
+                        .withResponseDefaults(prettyPrint()))
+                .build();
+    }
+
+    @Test
+    public void shouldScoreModelGroup() throws Exception {
+        given(fanOutScoringService.scoreModelGroup(eq(PROJECT_ID), eq(MODEL_GROUP_ID), anyList())).willReturn(RESULTS);
+        rest.perform(post(PATH + "/modelGroups/" + MODEL_GROUP_ID + "/scoring/versions")
+                .contentType(MediaType.APPLICATION_JSON).content(INPUTS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].version").value(1))
+                .andExpect(jsonPath("$[0].outputs[0].value").value("Iris-versicolor"))
+                .andExpect(jsonPath("$[1].version").value(2))
+                .andExpect(jsonPath("$[1].error").isNotEmpty())
+                .andDo(document("score-model-group-versions"));
+    }
+
+    @Test
+    public void shouldScoreProject() throws Exception {
+        given(fanOutScoringService.scoreProject(eq(PROJECT_ID), anyList())).willReturn(RESULTS);
+        rest.perform(post(PATH + "/scoring").contentType(MediaType.APPLICATION_JSON).content(INPUTS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].modelId").value(1))
+                .andExpect(jsonPath("$[1].modelId").value(2))
+                .andDo(document("score-project"));
+    }
+
+    @Test
+    public void shouldRejectFanOutOverProjectLimit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(fanOutScoringService.scoreProject(eq(OTHER_PROJECT_ID), anyList())).willAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return RESULTS;
+        });
+        String path = FanOutScoringController.PATH + "/" + OTHER_PROJECT_ID + "/models";
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        try {
+            Future<MvcResult> running = requests.submit(() -> rest.perform(post(path + "/scoring")
+                    .contentType(MediaType.APPLICATION_JSON).content(INPUTS)).andReturn());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            rest.perform(post(path + "/modelGroups/" + MODEL_GROUP_ID + "/scoring/versions")
+                    .contentType(MediaType.APPLICATION_JSON).content(INPUTS))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+            release.countDown();
+            assertEquals(200, running.get(5, TimeUnit.SECONDS).getResponse().getStatus());
+        } finally {
+            release.countDown();
+            requests.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotFindModelGroup() throws Exception {
+        given(fanOutScoringService.scoreModelGroup(eq(PROJECT_ID), eq(MODEL_GROUP_ID), anyList()))
+                .willThrow(IdException.idNotFound(ModelGroup.class, MODEL_GROUP_ID));
+        rest.perform(post(PATH + "/modelGroups/" + MODEL_GROUP_ID + "/scoring/versions")
+                .contentType(MediaType.APPLICATION_JSON).content(INPUTS))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,141 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.FieldDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.InputDrift;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringAnalytics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringCount;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringFieldStatistics;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringValueCount;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringAnalyticsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@WebMvcTest(controllers = {ScoringAnalyticsController.class})
+public class ScoringAnalyticsControllerTest {
+
+    private static final Long PROJECT_ID = 1337L;
+    private static final Long MODEL_ID = 1337L;
+    private static final String PATH = ScoringAnalyticsController.PATH + "/" + PROJECT_ID + "/models/" + MODEL_ID
+            + "/scoring/analytics";
+    private static final LocalDateTime FROM = LocalDateTime.of(2019, 3, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2019, 3, 3, 0, 0);
+
+    private MockMvc rest;
+    @MockBean
+    private ScoringAnalyticsService scoringAnalyticsService;
+
+    @Autowired
+    private ScoringAnalyticsController scoringAnalyticsController;
+
+    @BeforeEach
+    public void setUp(RestDocumentationContextProvider restDocumentation) {
+        this.rest = MockMvcBuilders.standaloneSetup(this.scoringAnalyticsController)
+                .setControllerAdvice(new MMPExceptionHandler(), this.scoringAnalyticsController)
+                .apply(documentationConfiguration(restDocumentation).
+                        operationPreprocessors()
+                        .withRequestDefaults(prettyPrint())
+                        .withResponseDefaults(prettyPrint()))
+                .build();
+    }
+
+    @Test
+    public void shouldGetAnalytics() throws Exception {
+        ScoringAnalytics analytics = ScoringAnalytics.builder()
+                .modelId(MODEL_ID)
+                .from(FROM)
+                .to(TO)
+                .interval(ChronoUnit.DAYS)
+                .requests(Arrays.asList(
+                        ScoringCount.builder().modelId(MODEL_ID).bucketStart(FROM).count(120L).build(),
+                        ScoringCount.builder().modelId(MODEL_ID).bucketStart(FROM.plusDays(1)).count(80L).build()))
+                .outputs(Arrays.asList(
+                        ScoringValueCount.builder().modelId(MODEL_ID).name("class").value("Iris-setosa").count(150L).build(),
+                        ScoringValueCount.builder().modelId(MODEL_ID).name("class").value("Iris-versicolor").count(50L).build()))
+                .inputs(Collections.singletonList(ScoringFieldStatistics.builder().modelId(MODEL_ID).name("petal_length")
+                        .count(200L).min(1.0).max(6.9).sum(752.0).build()))
+                .build();
+        given(scoringAnalyticsService.getAnalytics(PROJECT_ID, MODEL_ID, FROM, TO, ChronoUnit.DAYS)).willReturn(analytics);
+        rest.perform(get(PATH).param("from", "2019-03-01T00:00:00").param("to", "2019-03-03T00:00:00")
+                .param("interval", "DAYS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requests[0].count").value(120))
+                .andExpect(jsonPath("$.outputs[0].value").value("Iris-setosa"))
+                .andExpect(jsonPath("$.inputs[0].mean").value(3.76))
+                .andDo(document("scoring-analytics"));
+    }
+
+    @Test
+    public void shouldGetInputDrift() throws Exception {
+        Map<String, Double> quantiles = new LinkedHashMap<>();
+        quantiles.put("p5", 1.38);
+        quantiles.put("p25", 1.67);
+        quantiles.put("p50", 4.33);
+        quantiles.put("p75", 5.24);
+        quantiles.put("p95", 9.19);
+        InputDrift inputDrift = InputDrift.builder()
+                .modelId(MODEL_ID)
+                .since(FROM)
+                .records(200L)
+                .fields(Arrays.asList(
+                        FieldDrift.builder().name("petal_length").count(200L).outOfRange(24L).outOfRangeRate(0.12)
+                                .min(1.1).max(9.6).mean(4.02).quantiles(quantiles).build(),
+                        FieldDrift.builder().name("species").count(190L).missing(10L).unseen(3L)
+                                .unseenRate(0.015789473684210527).build()))
+                .build();
+        given(scoringAnalyticsService.getInputDrift(PROJECT_ID, MODEL_ID)).willReturn(inputDrift);
+        rest.perform(get(PATH + "/drift"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.records").value(200))
+                .andExpect(jsonPath("$.fields[0].outOfRange").value(24))
+                .andExpect(jsonPath("$.fields[0].quantiles.p50").value(4.33))
+                .andExpect(jsonPath("$.fields[1].unseen").value(3))
+                .andDo(document("scoring-drift"));
+    }
+
+    @Test
+    public void shouldResetInputDrift() throws Exception {
+        rest.perform(delete(PATH + "/drift"))
+                .andExpect(status().isNoContent())
+                .andDo(document("scoring-drift-reset"));
+        verify(scoringAnalyticsService).resetInputDrift(PROJECT_ID, MODEL_ID);
+    }
+
+    @Test
+    public void shouldNotFindModel() throws Exception {
+        given(scoringAnalyticsService.getAnalytics(eq(PROJECT_ID), eq(MODEL_ID), any(), any(), any()))
+                .willThrow(IdException.idNotFound(Model.class, MODEL_ID));
+        rest.perform(get(PATH)).andExpect(status().isNotFound());
+    }
+}
@@ -1,35 +1,66 @@
 package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
 
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ModelScoringResult;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringInput;
 import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringOutput;
 import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.admission.ScoringAdmission;
+import de.unistuttgart.ipvs.as.mmp.scoring.columnar.ColumnarFormat;
+import de.unistuttgart.ipvs.as.mmp.scoring.metrics.ScoringMetrics;
 import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringService;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.restdocs.RestDocumentationContextProvider;
 import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
 @WebMvcTest(controllers = {ScoringController.class})
+@TestPropertySource(properties = "scoring.stream.timeout-ms=120000")
 public class ScoringControllerTest {
 
     private static final Long PROJECT_ID = 1337L;
@@ -45,6 +76,14 @@ public class ScoringControllerTest {
     @Autowired
     private ScoringController scoringController;
 
+    @TestConfiguration
+    static class ScoringAdmissionTestContextConfiguration {
+        @Bean
+        public ScoringAdmission scoringAdmission() {
+            return new ScoringAdmission(new ScoringMetrics(new SimpleMeterRegistry()), 2, 10, 2, 0, 0, 1);
+        }
+    }
+
     @BeforeEach
     public void setUp(RestDocumentationContextProvider restDocumentation) {
         this.rest = MockMvcBuilders.standaloneSetup(this.scoringController)
@@ -72,4 +111,106 @@ public class ScoringControllerTest {
                 .andExpect(jsonPath("$[0].value").value(OUTPUTS.get(0).getValue()))
                 .andDo(document("score"));
     }
+
+    @Test
+    public void shouldScoreLatestModel() throws Exception {
+        ModelScoringResult result = ModelScoringResult.builder()
+                .modelId(MODEL_ID)
+                .modelName("iris")
+                .version(3L)
+                .outputs(Collections.singletonList(new ScoringOutput("class", "Iris-versicolor")))
+                .build();
+        given(scoringService.scoreLatestModel(eq(PROJECT_ID), eq(42L), anyList())).willReturn(result);
+        rest.perform(post(ScoringController.PATH + "/" + PROJECT_ID + "/models/modelGroups/42/scoring")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\":\"petal_length\",\"value\":\"3\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modelId").value(MODEL_ID))
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(jsonPath("$.outputs[0].value").value("Iris-versicolor"))
+                .andDo(document("score-model-group"));
+    }
+
+    @Test
+    public void shouldScoreModelBatch() throws Exception {
+        List<List<ScoringOutput>> batchOutputs = Arrays.asList(
+                Collections.singletonList(new ScoringOutput("class", "Iris-versicolor")),
+                Collections.singletonList(new ScoringOutput("class", "Iris-setosa")));
+        given(scoringService.scoreModelBatch(eq(PROJECT_ID), eq(MODEL_ID), anyList())).willReturn(batchOutputs);
+        rest.perform(post(PATH + "/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[[{\"name\":\"petal_length\",\"value\":\"3\"}],[{\"name\":\"petal_length\",\"value\":\"1\"}]]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0][0].value").value("Iris-versicolor"))
+                .andExpect(jsonPath("$[1][0].value").value("Iris-setosa"))
+                .andDo(document("score-batch"));
+    }
+
+    @Test
+    public void shouldScoreModelStream() throws Exception {
+        StreamingResponseBody body = outputStream -> outputStream.write("class\nIris-versicolor\n".getBytes(StandardCharsets.UTF_8));
+        given(scoringService.scoreModelStream(eq(PROJECT_ID), eq(MODEL_ID), eq(StreamFormat.CSV), any(InputStream.class)))
+                .willReturn(body);
+        MvcResult result = rest.perform(post(PATH + "/stream").contentType(StreamFormat.CSV.getMediaType())
+                .content("petal_length\n3\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(120000L, result.getRequest().getAsyncContext().getTimeout());
+        rest.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(StreamFormat.CSV.getMediaType()))
+                .andExpect(content().string("class\nIris-versicolor\n"))
+                .andDo(document("score-stream"));
+    }
+
+    @Test
+    public void shouldScoreModelColumnar() throws Exception {
+        String request = "{\"fields\":[\"petal_length\"],\"columns\":[[3.0,1.0]]}";
+        String response = "{\"fields\":[\"class\"],\"columns\":[[\"Iris-versicolor\",\"Iris-setosa\"]]}";
+        given(scoringService.scoreModelColumnar(eq(PROJECT_ID), eq(MODEL_ID), eq(ColumnarFormat.JSON), any(InputStream.class)))
+                .willReturn(response.getBytes(StandardCharsets.UTF_8));
+        rest.perform(post(PATH + "/batch").contentType(ColumnarFormat.JSON.getMediaType()).content(request))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ColumnarFormat.JSON.getMediaType()))
+                .andExpect(content().string(response))
+                .andDo(document("score-columnar"));
+    }
+
+    @Test
+    public void shouldRejectWithRetryAfter() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        given(scoringService.scoreModel(eq(PROJECT_ID), eq(MODEL_ID), anyList())).willAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return OUTPUTS;
+        });
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        try {
+            // two scorings take all permits of the project
+            List<Future<MvcResult>> running = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                running.add(requests.submit(() -> rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")).andReturn()));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON).content("[]"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+            release.countDown();
+            for (Future<MvcResult> scoring : running) {
+                assertEquals(200, scoring.get(5, TimeUnit.SECONDS).getResponse().getStatus());
+            }
+        } finally {
+            release.countDown();
+            requests.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotScoreUnsupportedStream() throws Exception {
+        rest.perform(post(PATH + "/stream").contentType(MediaType.TEXT_PLAIN).content("petal_length\n3\n"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
 }
@@ -0,0 +1,136 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@WebMvcTest(controllers = {ScoringJobController.class})
+public class ScoringJobControllerTest {
+
+    private static final Long PROJECT_ID = 1337L;
+    private static final Long MODEL_ID = 1337L;
+    private static final Long JOB_ID = 42L;
+    private static final String PATH = ScoringJobController.PATH + "/" + PROJECT_ID + "/models/" + MODEL_ID + "/scoring/jobs";
+    private static final String RECORDS = "[[{\"name\":\"petal_length\",\"value\":\"3\"}],[{\"name\":\"petal_length\",\"value\":\"1\"}]]";
+
+    private MockMvc rest;
+    @MockBean
+    private ScoringJobService scoringJobService;
+
+    @Autowired
+    private ScoringJobController scoringJobController;
+
+    private ScoringJob testJob = ScoringJob.builder()
+            .projectId(PROJECT_ID)
+            .modelId(MODEL_ID)
+            .status(ScoringJobStatus.QUEUED)
+            .totalRecords(2)
+            .submitted(LocalDateTime.of(2018, 7, 11, 15, 24))
+            .build();
+
+    @BeforeEach
+    public void setUp(RestDocumentationContextProvider restDocumentation) {
+        testJob.setId(JOB_ID);
+        this.rest = MockMvcBuilders.standaloneSetup(this.scoringJobController)
+                .setControllerAdvice(new MMPExceptionHandler(), this.scoringJobController)
+                .apply(documentationConfiguration(restDocumentation).
+                        operationPreprocessors()
+                        .withRequestDefaults(prettyPrint())
+                        .withResponseDefaults(prettyPrint()))
+                .build();
+    }
+
+    @Test
+    public void shouldSubmitJob() throws Exception {
+        given(scoringJobService.submitJob(eq(PROJECT_ID), eq(MODEL_ID), anyList())).willReturn(testJob);
+        rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON).content(RECORDS))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", PATH + "/" + JOB_ID))
+                .andExpect(jsonPath("$.id").value(JOB_ID))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andDo(document("scoring-job-submit"));
+    }
+
+    @Test
+    public void shouldRejectJobOverLimit() throws Exception {
+        given(scoringJobService.submitJob(eq(PROJECT_ID), eq(MODEL_ID), anyList()))
+                .willThrow(CapacityException.projectJobLimitReached(PROJECT_ID, 2));
+        rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON).content(RECORDS))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void shouldGetJob() throws Exception {
+        testJob.setStatus(ScoringJobStatus.RUNNING);
+        testJob.setProcessedRecords(1);
+        given(scoringJobService.getJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.of(testJob));
+        rest.perform(get(PATH + "/" + JOB_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.processedRecords").value(1))
+                .andDo(document("scoring-job-get"));
+    }
+
+    @Test
+    public void shouldNotGetUnknownJob() throws Exception {
+        given(scoringJobService.getJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.empty());
+        rest.perform(get(PATH + "/" + JOB_ID)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void shouldCancelJob() throws Exception {
+        given(scoringJobService.cancelJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(true);
+        rest.perform(delete(PATH + "/" + JOB_ID))
+                .andExpect(status().isNoContent())
+                .andDo(document("scoring-job-cancel"));
+    }
+
+    @Test
+    public void shouldNotCancelFinishedJob() throws Exception {
+        given(scoringJobService.cancelJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(false);
+        rest.perform(delete(PATH + "/" + JOB_ID)).andExpect(status().isConflict());
+    }
+
+    @Test
+    public void shouldGetJobResult() throws Exception {
+        String result = "{\"class\":\"Iris-versicolor\"}\n{\"class\":\"Iris-setosa\"}\n";
+        DBFile dbFile = DBFile.builder().fileName("scoring-job-42.ndjson").fileType("application/x-ndjson")
+                .data(result.getBytes(StandardCharsets.UTF_8)).build();
+        given(scoringJobService.getJobResult(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.of(dbFile));
+        rest.perform(get(PATH + "/" + JOB_ID + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(result))
+                .andDo(document("scoring-job-result"));
+    }
+}
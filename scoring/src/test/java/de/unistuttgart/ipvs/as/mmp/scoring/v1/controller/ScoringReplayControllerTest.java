@@ -0,0 +1,154 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.DBFile;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringJobStatus;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayJob;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ScoringReplayRequest;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ScoringReplayService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@WebMvcTest(controllers = {ScoringReplayController.class})
+public class ScoringReplayControllerTest {
+
+    private static final Long PROJECT_ID = 1337L;
+    private static final Long MODEL_ID = 1337L;
+    private static final Long TARGET_MODEL_ID = 1338L;
+    private static final Long JOB_ID = 42L;
+    private static final String PATH = ScoringReplayController.PATH + "/" + PROJECT_ID + "/models/" + MODEL_ID
+            + "/scoring/replays";
+    private static final String REQUEST = "{\"targetModelId\":" + TARGET_MODEL_ID + "}";
+
+    private MockMvc rest;
+    @MockBean
+    private ScoringReplayService scoringReplayService;
+
+    @Autowired
+    private ScoringReplayController scoringReplayController;
+
+    private ScoringReplayJob testJob = ScoringReplayJob.builder()
+            .projectId(PROJECT_ID)
+            .modelId(MODEL_ID)
+            .targetModelId(TARGET_MODEL_ID)
+            .status(ScoringJobStatus.QUEUED)
+            .submitted(LocalDateTime.of(2018, 7, 11, 15, 24))
+            .build();
+
+    @BeforeEach
+    public void setUp(RestDocumentationContextProvider restDocumentation) {
+        testJob.setId(JOB_ID);
+        this.rest = MockMvcBuilders.standaloneSetup(this.scoringReplayController)
+                .setControllerAdvice(new MMPExceptionHandler(), this.scoringReplayController)
+                .apply(documentationConfiguration(restDocumentation).
+                        operationPreprocessors()
+                        .withRequestDefaults(prettyPrint())
+                        .withResponseDefaults(prettyPrint()))
+                .build();
+    }
+
+    @Test
+    public void shouldSubmitJob() throws Exception {
+        given(scoringReplayService.submitJob(eq(PROJECT_ID), eq(MODEL_ID), any(ScoringReplayRequest.class)))
+                .willReturn(testJob);
+        rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", PATH + "/" + JOB_ID))
+                .andExpect(jsonPath("$.targetModelId").value(TARGET_MODEL_ID))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andDo(document("scoring-replay-submit"));
+    }
+
+    @Test
+    public void shouldRejectJobOverLimit() throws Exception {
+        given(scoringReplayService.submitJob(eq(PROJECT_ID), eq(MODEL_ID), any(ScoringReplayRequest.class)))
+                .willThrow(CapacityException.projectJobLimitReached(PROJECT_ID, 1));
+        rest.perform(post(PATH).contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void shouldGetJob() throws Exception {
+        testJob.setStatus(ScoringJobStatus.RUNNING);
+        testJob.setTotalRecords(5000);
+        testJob.setProcessedRecords(2000);
+        testJob.setChangedRecords(13);
+        given(scoringReplayService.getJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.of(testJob));
+        rest.perform(get(PATH + "/" + JOB_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.changedRecords").value(13))
+                .andDo(document("scoring-replay-get"));
+    }
+
+    @Test
+    public void shouldNotGetUnknownJob() throws Exception {
+        given(scoringReplayService.getJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.empty());
+        rest.perform(get(PATH + "/" + JOB_ID)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void shouldCancelJob() throws Exception {
+        given(scoringReplayService.cancelJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(true);
+        rest.perform(delete(PATH + "/" + JOB_ID))
+                .andExpect(status().isNoContent())
+                .andDo(document("scoring-replay-cancel"));
+    }
+
+    @Test
+    public void shouldNotCancelFinishedJob() throws Exception {
+        given(scoringReplayService.cancelJob(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(false);
+        rest.perform(delete(PATH + "/" + JOB_ID)).andExpect(status().isConflict());
+    }
+
+    @Test
+    public void shouldGetJobReport() throws Exception {
+        String report = "{\"modelId\":1337,\"targetModelId\":1338,\"replayedRecords\":5000,\"changedRecords\":13,"
+                + "\"failedRecords\":0,\"changeRate\":0.0026,\"changedOutputs\":{\"class\":13},"
+                + "\"modelLatency\":{\"count\":5000,\"meanMs\":0.21,\"p50Ms\":0.18,\"p95Ms\":0.39,\"p99Ms\":0.61,"
+                + "\"maxMs\":2.4},\"targetLatency\":{\"count\":5000,\"meanMs\":0.25,\"p50Ms\":0.22,\"p95Ms\":0.45,"
+                + "\"p99Ms\":0.72,\"maxMs\":3.1},\"changes\":[{\"scoringId\":18133,"
+                + "\"recordedOutputs\":{\"class\":\"Iris-versicolor\"},"
+                + "\"replayedOutputs\":{\"class\":\"Iris-virginica\"}}]}";
+        DBFile dbFile = DBFile.builder().fileName("scoring-replay-42.json").fileType("application/json")
+                .data(report.getBytes(StandardCharsets.UTF_8)).build();
+        given(scoringReplayService.getJobReport(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.of(dbFile));
+        rest.perform(get(PATH + "/" + JOB_ID + "/report"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changedOutputs.class").value(13))
+                .andDo(document("scoring-replay-report"));
+    }
+
+    @Test
+    public void shouldNotGetMissingReport() throws Exception {
+        given(scoringReplayService.getJobReport(PROJECT_ID, MODEL_ID, JOB_ID)).willReturn(Optional.empty());
+        rest.perform(get(PATH + "/" + JOB_ID + "/report")).andExpect(status().isNotFound());
+    }
+}
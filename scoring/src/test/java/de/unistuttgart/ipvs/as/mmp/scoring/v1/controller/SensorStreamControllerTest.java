@@ -0,0 +1,106 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.Model;
+import de.unistuttgart.ipvs.as.mmp.common.exception.CapacityException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.IdException;
+import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.sensor.ReadingSource;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.SensorStreamService;
+import de.unistuttgart.ipvs.as.mmp.scoring.stream.StreamFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@WebMvcTest(controllers = {SensorStreamController.class})
+public class SensorStreamControllerTest {
+
+    private static final Long PROJECT_ID = 1337L;
+    private static final Long MODEL_ID = 42L;
+    private static final String PATH = SensorStreamController.PATH + "/" + PROJECT_ID + "/models/" + MODEL_ID
+            + "/scoring/sensors";
+
+    private MockMvc rest;
+    @MockBean
+    private SensorStreamService sensorStreamService;
+
+    @Autowired
+    private SensorStreamController sensorStreamController;
+
+    @BeforeEach
+    public void setUp(RestDocumentationContextProvider restDocumentation) {
+        this.rest = MockMvcBuilders.standaloneSetup(this.sensorStreamController)
+                .setControllerAdvice(new MMPExceptionHandler(), this.sensorStreamController)
+                .apply(documentationConfiguration(restDocumentation).
+                        operationPreprocessors()
+                        .withRequestDefaults(prettyPrint())
+                        .withResponseDefaults(prettyPrint()))
+                .build();
+    }
+
+    @Test
+    public void shouldIngestReadings() throws Exception {
+        given(sensorStreamService.ingest(eq(PROJECT_ID), eq(MODEL_ID), any(ReadingSource.class)))
+                .willReturn(CompletableFuture.completedFuture(2L));
+        MvcResult result = rest.perform(post(PATH).contentType(StreamFormat.NDJSON.getMediaType())
+                .content("{\"temperature\":\"20.5\",\"pressure\":\"1.2\"}\n{\"temperature\":\"20.7\",\"pressure\":\"1.3\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        rest.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.readings").value(2))
+                .andDo(document("sensor-readings"));
+    }
+
+    @Test
+    public void shouldRejectReadingsOverLimit() throws Exception {
+        given(sensorStreamService.ingest(eq(PROJECT_ID), eq(MODEL_ID), any(ReadingSource.class)))
+                .willThrow(CapacityException.projectSensorStreamLimitReached(PROJECT_ID, 4));
+        rest.perform(post(PATH).contentType(StreamFormat.NDJSON.getMediaType()).content("{\"temperature\":\"20.5\"}\n"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSubscribeToResults() throws Exception {
+        given(sensorStreamService.subscribe(eq(PROJECT_ID), eq(MODEL_ID), any(Consumer.class))).willReturn(() -> {
+        });
+        rest.perform(get(PATH).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotSubscribeToUnknownModel() throws Exception {
+        given(sensorStreamService.subscribe(eq(PROJECT_ID), eq(MODEL_ID), any(Consumer.class)))
+                .willThrow(IdException.idNotFound(Model.class, MODEL_ID));
+        rest.perform(get(PATH).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+    }
+}
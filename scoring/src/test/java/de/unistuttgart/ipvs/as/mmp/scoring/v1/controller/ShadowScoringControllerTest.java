@@ -0,0 +1,138 @@
+package de.unistuttgart.ipvs.as.mmp.scoring.v1.controller;
+
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowConfiguration;
+import de.unistuttgart.ipvs.as.mmp.common.domain.scoring.ShadowStatistics;
+import de.unistuttgart.ipvs.as.mmp.common.exception.MMPExceptionHandler;
+import de.unistuttgart.ipvs.as.mmp.scoring.service.ShadowScoringService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@WebMvcTest(controllers = {ShadowScoringController.class})
+public class ShadowScoringControllerTest {
+
+    private static final Long PROJECT_ID = 1337L;
+    private static final Long MODEL_GROUP_ID = 12L;
+    private static final Long CANDIDATE_ID = 1338L;
+    private static final String CONFIGURATION = "{\"candidateModelId\":" + CANDIDATE_ID + "}";
+    private static final String PATH = ShadowScoringController.PATH + "/" + PROJECT_ID + "/models/modelGroups/"
+            + MODEL_GROUP_ID + "/scoring/shadow";
+
+    private MockMvc rest;
+    @MockBean
+    private ShadowScoringService shadowScoringService;
+
+    @Autowired
+    private ShadowScoringController shadowScoringController;
+
+    private ShadowConfiguration testConfiguration = ShadowConfiguration.builder()
+            .projectId(PROJECT_ID)
+            .modelGroupId(MODEL_GROUP_ID)
+            .candidateModelId(CANDIDATE_ID)
+            .created(LocalDateTime.of(2018, 7, 11, 15, 24))
+            .build();
+
+    @BeforeEach
+    public void setUp(RestDocumentationContextProvider restDocumentation) {
+        testConfiguration.setId(7L);
+        this.rest = MockMvcBuilders.standaloneSetup(this.shadowScoringController)
+                .setControllerAdvice(new MMPExceptionHandler(), this.shadowScoringController)
+                .apply(documentationConfiguration(restDocumentation).
+                        operationPreprocessors()
+                        .withRequestDefaults(prettyPrint())
+                        .withResponseDefaults(prettyPrint()))
+                .build();
+    }
+
+    @Test
+    public void shouldSaveConfiguration() throws Exception {
+        given(shadowScoringService.saveConfiguration(eq(PROJECT_ID), eq(MODEL_GROUP_ID),
+                any(ShadowConfiguration.class)))
+                .willReturn(testConfiguration);
+        rest.perform(put(PATH).contentType(MediaType.APPLICATION_JSON).content(CONFIGURATION))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.candidateModelId").value(CANDIDATE_ID))
+                .andDo(document("shadow-configuration-save"));
+    }
+
+    @Test
+    public void shouldRejectCandidateOfOtherModelGroup() throws Exception {
+        given(shadowScoringService.saveConfiguration(eq(PROJECT_ID), eq(MODEL_GROUP_ID),
+                any(ShadowConfiguration.class)))
+                .willThrow(new IllegalArgumentException("The model 1338 is not a version of the model group 12."));
+        rest.perform(put(PATH).contentType(MediaType.APPLICATION_JSON).content(CONFIGURATION))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldGetConfiguration() throws Exception {
+        given(shadowScoringService.getConfiguration(PROJECT_ID, MODEL_GROUP_ID))
+                .willReturn(Optional.of(testConfiguration));
+        rest.perform(get(PATH))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modelGroupId").value(MODEL_GROUP_ID))
+                .andDo(document("shadow-configuration-get"));
+    }
+
+    @Test
+    public void shouldDeleteConfiguration() throws Exception {
+        given(shadowScoringService.deleteConfiguration(PROJECT_ID, MODEL_GROUP_ID)).willReturn(true);
+        rest.perform(delete(PATH))
+                .andExpect(status().isNoContent())
+                .andDo(document("shadow-configuration-delete"));
+    }
+
+    @Test
+    public void shouldGetStatistics() throws Exception {
+        ShadowStatistics statistics = ShadowStatistics.builder()
+                .modelGroupId(MODEL_GROUP_ID)
+                .candidateModelId(CANDIDATE_ID)
+                .since(LocalDateTime.of(2018, 7, 11, 15, 24))
+                .compared(200L)
+                .agreed(194L)
+                .disagreed(6L)
+                .failed(0L)
+                .dropped(3L)
+                .agreementRate(0.97)
+                .primaryMeanMs(0.42)
+                .primaryMaxMs(3.1)
+                .candidateMeanMs(0.57)
+                .candidateMaxMs(4.8)
+                .build();
+        given(shadowScoringService.getStatistics(PROJECT_ID, MODEL_GROUP_ID)).willReturn(Optional.of(statistics));
+        rest.perform(get(PATH + "/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.agreementRate").value(0.97))
+                .andDo(document("shadow-scoring-statistics"));
+    }
+
+    @Test
+    public void shouldNotGetStatisticsWithoutCandidate() throws Exception {
+        given(shadowScoringService.getStatistics(PROJECT_ID, MODEL_GROUP_ID)).willReturn(Optional.empty());
+        rest.perform(get(PATH + "/statistics")).andExpect(status().isNotFound());
+    }
+}